@@ -4,6 +4,7 @@ import lphy.core.model.RandomVariable;
 import lphy.core.model.Value;
 import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
+import lphy.core.model.datatype.PrimitiveArrayUtils;
 import org.apache.commons.math3.distribution.MultivariateNormalDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
 
@@ -37,14 +38,8 @@ public class MVN extends ParametricDistribution<Double[]> {
         if (mean == null) throw new IllegalArgumentException("The means can't be null!");
         if (covariances == null) throw new IllegalArgumentException("The covariances can't be null!");
 
-        double[] means = new double[mean.value().length];
-        double[][] cv = new double[covariances.value().length][covariances.value().length];
-        for (int i = 0; i < means.length; i++) {
-            means[i] = mean.value()[i];
-            for (int j = 0; j < means.length; j++) {
-                cv[i][j] = this.covariances.value()[i][j];
-            }
-        }
+        double[] means = PrimitiveArrayUtils.toDoubles(mean.value());
+        double[][] cv = PrimitiveArrayUtils.toDoubles(covariances.value());
         multivariateNormalDistribution = new MultivariateNormalDistribution(random, means, cv);
     }
 
@@ -52,10 +47,7 @@ public class MVN extends ParametricDistribution<Double[]> {
     public RandomVariable<Double[]> sample() {
 
         double[] sample = multivariateNormalDistribution.sample();
-        Double[] result= new Double[sample.length];
-        for (int i = 0; i < sample.length; i++) {
-            result[i] = sample[i];
-        }
+        Double[] result = PrimitiveArrayUtils.toDoubleArray(sample);
 
         return new RandomVariable<>("X", result, this);
     }
@@ -7,6 +7,8 @@ import lphy.core.model.annotation.GeneratorCategory;
 import lphy.core.model.annotation.MethodInfo;
 import lphy.core.model.annotation.TypeInfo;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.Objects;
 
@@ -144,6 +146,40 @@ public interface Alignment extends Taxa, TaxaCharacterMatrix<Integer> {
         return builder.toString();
     }
 
+    /**
+     * Write the sequence of a taxon straight from the integer states,
+     * without building the whole sequence string in memory.
+     * The output is same as {@link #getSequence(int)}.
+     * @param taxonIndex   the taxon index
+     * @param writer       the writer, which is not flushed or closed here.
+     * @throws IOException
+     */
+    default void writeSequence(int taxonIndex, Writer writer) throws IOException {
+        SequenceType sequenceType = getSequenceType();
+        // the letters of each state are only looked up once
+        String[] codes = new String[getStateCount()];
+        char[] buffer = new char[8192];
+        int len = 0;
+        // loop through sites
+        for (int j = 0; j < nchar(); j++) {
+            int stateInt = getState(taxonIndex, j);
+            String code = stateInt < codes.length ? codes[stateInt] : null;
+            if (code == null) {
+                // convert int state into letters
+                code = String.valueOf(Objects.requireNonNull(sequenceType.getState(stateInt)));
+                if (stateInt < codes.length)
+                    codes[stateInt] = code;
+            }
+            if (len + code.length() > buffer.length) {
+                writer.write(buffer, 0, len);
+                len = 0;
+            }
+            code.getChars(0, code.length(), buffer, len);
+            len += code.length();
+        }
+        writer.write(buffer, 0, len);
+    }
+
 
     //****** Taxa ******//
 
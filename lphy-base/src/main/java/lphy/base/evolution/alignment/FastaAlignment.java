@@ -5,6 +5,8 @@ import lphy.base.evolution.Taxon;
 import lphy.core.logger.LoggerUtils;
 import lphy.core.logger.TextFileFormatted;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -39,6 +41,20 @@ public class FastaAlignment implements Alignment, TextFileFormatted {
         return lines;
     }
 
+    /**
+     * Write the sequences straight from the states without creating the lines of {@link #getTextForFile()}.
+     */
+    @Override
+    public void writeTo(Writer writer) throws IOException {
+        final String lineSeparator = System.lineSeparator();
+        for (int i=0; i < ntaxa(); i++) {
+            writer.write(">" + this.getTaxonName(i));
+            writer.write(lineSeparator);
+            alignment.writeSequence(i, writer);
+            writer.write(lineSeparator);
+        }
+    }
+
     @Override
     public String getFileType() {
         return ".fasta";
@@ -0,0 +1,137 @@
+package lphy.base.evolution.alignment;
+
+import java.util.Arrays;
+
+/**
+ * The integer states of an alignment packed into the bits of long arrays, one array per taxon.
+ * Each state takes the fewest bits to hold the largest state,
+ * e.g. 5 bits for nucleotides with ambiguity codes, 3 bits for binary,
+ * where a state may cross the boundary of two longs.
+ */
+public class PackedStates {
+
+    private final int ntaxa;
+    private final int nchar;
+    private final int bitsPerState;
+    private final long mask;
+    // [taxon][word]
+    private final long[][] words;
+
+    /**
+     * @param ntaxa     the number of taxa.
+     * @param nchar     the number of sites.
+     * @param maxState  the largest state to store, which determines the bits per state.
+     */
+    public PackedStates(int ntaxa, int nchar, int maxState) {
+        if (ntaxa < 0 || nchar < 0)
+            throw new IllegalArgumentException("Illegal alignment size : ntaxa = " + ntaxa + ", nchar = " + nchar);
+        this.ntaxa = ntaxa;
+        this.nchar = nchar;
+        this.bitsPerState = bitsPerState(maxState);
+        this.mask = (1L << bitsPerState) - 1;
+        final int nWords = (int) (((long) nchar * bitsPerState + Long.SIZE - 1) / Long.SIZE);
+        this.words = new long[ntaxa][nWords];
+    }
+
+    /**
+     * @param maxState  the largest state to store.
+     * @return  the number of bits to hold the states in [0, maxState], at least 1 and at most 32.
+     */
+    public static int bitsPerState(int maxState) {
+        if (maxState < 0)
+            throw new IllegalArgumentException("The largest state cannot be negative ! maxState = " + maxState);
+        return Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(maxState));
+    }
+
+    public int get(int taxon, int position) {
+        checkPosition(position);
+        final long[] row = words[taxon];
+        final long bit = (long) position * bitsPerState;
+        final int w = (int) (bit >>> 6);
+        final int offset = (int) (bit & 63);
+        long value = row[w] >>> offset;
+        // the state crosses into the next long
+        if (offset + bitsPerState > Long.SIZE)
+            value |= row[w + 1] << (Long.SIZE - offset);
+        return (int) (value & mask);
+    }
+
+    /**
+     * The state must be validated before, as it is only masked to the bits per state here.
+     */
+    public void set(int taxon, int position, int state) {
+        checkPosition(position);
+        final long[] row = words[taxon];
+        final long value = state & mask;
+        final long bit = (long) position * bitsPerState;
+        final int w = (int) (bit >>> 6);
+        final int offset = (int) (bit & 63);
+        row[w] = (row[w] & ~(mask << offset)) | (value << offset);
+        if (offset + bitsPerState > Long.SIZE) {
+            final int shift = Long.SIZE - offset;
+            row[w + 1] = (row[w + 1] & ~(mask >>> shift)) | (value >>> shift);
+        }
+    }
+
+    /**
+     * Set the states of consecutive sites of a taxon.
+     */
+    public void set(int taxon, int position, int[] states, int offset, int length) {
+        if (length > 0)
+            checkPosition(position + length - 1);
+        for (int i = 0; i < length; i++)
+            set(taxon, position + i, states[offset + i]);
+    }
+
+    /**
+     * @return  a copy of the unpacked states of the taxon.
+     */
+    public int[] getStates(int taxon) {
+        int[] states = new int[nchar];
+        for (int i = 0; i < nchar; i++)
+            states[i] = get(taxon, i);
+        return states;
+    }
+
+    public int ntaxa() {
+        return ntaxa;
+    }
+
+    public int nchar() {
+        return nchar;
+    }
+
+    public int getBitsPerState() {
+        return bitsPerState;
+    }
+
+    /**
+     * @return  the smallest number of sites whose states fill whole longs, so that the ranges of sites
+     *          starting at its multiples never share a long, and can be set by different threads.
+     */
+    public int getSitesPerWordBoundary() {
+        // 64 / gcd(64, bitsPerState)
+        return Long.SIZE >>> Integer.numberOfTrailingZeros(bitsPerState);
+    }
+
+    /**
+     * @return  the bytes of the packed states, excluding the object headers.
+     */
+    public long getSizeInBytes() {
+        return (long) ntaxa * (words.length > 0 ? words[0].length : 0) * Long.BYTES;
+    }
+
+    // the words may have spare bits after the last site
+    private void checkPosition(int position) {
+        if (position < 0 || position >= nchar)
+            throw new IndexOutOfBoundsException("Site position " + position + " is out of [0, " + nchar + ") !");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int t = 0; t < ntaxa; t++)
+            builder.append(Arrays.toString(getStates(t))).append("\n");
+        return builder.toString();
+    }
+}
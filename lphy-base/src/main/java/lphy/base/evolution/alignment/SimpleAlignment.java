@@ -16,7 +16,8 @@ import java.util.Objects;
 public class SimpleAlignment extends AbstractAlignment implements NarrativeName {
 
     public static final int VAR_SITE_STATE = -1;
-    int[][] alignment;
+    // the states packed into the fewest bits for the data type
+    PackedStates alignment;
 
     // index is the site index, if constant site, the value is the constant state,
     // otherwise -1 for variable site. if all -1 then set constantSitesMark = new int[0]
@@ -28,17 +29,23 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
      */
     public SimpleAlignment(Map<String, Integer> idMap, int nchar, SequenceType sequenceType) {
         super(idMap, nchar, sequenceType);
-        alignment = new int[ntaxa()][nchar];
+        alignment = createStates();
     }
 
     public SimpleAlignment(Taxa taxa, int nchar, SequenceType sequenceType) {
         super(taxa, nchar, sequenceType);
-        this.alignment = new int[ntaxa()][nchar];
+        this.alignment = createStates();
     }
 
     public SimpleAlignment(int nchar, Alignment source) {
         super(nchar, source);
-        alignment = new int[ntaxa()][nchar];
+        alignment = createStates();
+    }
+
+    // setState accepts the states in [0, stateCount-1]
+    private PackedStates createStates() {
+        int maxState = sequenceType == null ? Integer.MAX_VALUE : sequenceType.getStateCount() - 1;
+        return new PackedStates(ntaxa(), nchar, maxState);
     }
 
     /**
@@ -51,10 +58,38 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
         if (sequenceType == null)
             throw new IllegalArgumentException("Please define SequenceType, not numStates !");
         // TODO how to distinguish imported alignment and simulated
-        if ( state < 0 ||  state > getStateCount() )
+        if ( state < 0 ||  state >= getStateCount() )
             throw new IllegalArgumentException("Illegal to set a " + sequenceType.getName() +
                     " state outside of the range [0, " + (sequenceType.getStateCount()-1) + "] ! state = " + state);
-        alignment[taxon][position] = state;
+        alignment.set(taxon, position, state);
+    }
+
+    /**
+     * Set the states of consecutive sites of a taxon in bulk.
+     * @param taxon      the index of taxon in the 1st dimension of {@link #alignment}.
+     * @param position   the first site position to set.
+     * @param states     the array containing the states in integer.
+     * @param offset     the index of the first state in the array.
+     * @param length     the number of sites to set.
+     */
+    public void setStates(int taxon, int position, int[] states, int offset, int length) {
+        if (sequenceType == null)
+            throw new IllegalArgumentException("Please define SequenceType, not numStates !");
+        for (int i = offset; i < offset + length; i++) {
+            if ( states[i] < 0 ||  states[i] >= getStateCount() )
+                throw new IllegalArgumentException("Illegal to set a " + sequenceType.getName() +
+                        " state outside of the range [0, " + (sequenceType.getStateCount()-1) + "] ! state = " + states[i]);
+        }
+        alignment.set(taxon, position, states, offset, length);
+    }
+
+    /**
+     * @return  the smallest number of sites, whose multiples split the sites into the ranges
+     *          which can be set in parallel.
+     * @see PackedStates#getSitesPerWordBoundary()
+     */
+    public int getSitesPerWordBoundary() {
+        return alignment.getSitesPerWordBoundary();
     }
 
     public void setState(String taxon, int position, int state) {
@@ -63,7 +98,7 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
 
     @Override
     public int getState(int taxon, int position) {
-        return alignment[taxon][position];
+        return alignment.get(taxon, position);
     }
 
     @Override
@@ -72,7 +107,7 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
         builder.append("{\n");
         for (int i = 0; i < ntaxa(); i++) {
             builder.append("  ").append(getTaxonName(i));
-            builder.append(" = ").append(Arrays.toString(alignment[i]));
+            builder.append(" = ").append(Arrays.toString(alignment.getStates(i)));
 //            if (i < n()-1)
             builder.append(",");
             builder.append("\n");
@@ -92,7 +127,7 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
     public String getSequence(int taxonIndex) {
         StringBuilder builder = new StringBuilder();
         State state;
-        for (int j = 0; j < alignment[taxonIndex].length; j++) {
+        for (int j = 0; j < nchar; j++) {
 //            if (Objects.requireNonNull(sequenceType).getName().equals(Binary.NAME))
 //                builder.append(getBinaryChar(alignment[taxonIndex][j]));
 //            else if (sequenceType.getName().equals(Standard.NAME)) {
@@ -100,7 +135,7 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
 //                builder.append(standard.getStateName(alignment[taxonIndex][j]));
 //            } else
             // convert int state into letters
-            state = sequenceType.getState(alignment[taxonIndex][j]);
+            state = sequenceType.getState(getState(taxonIndex, j));
             builder.append(Objects.requireNonNull(state));
         }
         return builder.toString();
@@ -115,9 +150,9 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
     public int[] getConstantSitesMark() {
         if (constantSitesMark != null)
             return constantSitesMark; // cached
-        if (alignment.length != ntaxa() && alignment[0].length != nchar)
+        if (alignment.ntaxa() != ntaxa() && alignment.nchar() != nchar)
             throw new IllegalArgumentException("Illegal alignment : " +
-                    alignment.length + " != " + ntaxa() + ", " + alignment[0].length + " != " + nchar);
+                    alignment.ntaxa() + " != " + ntaxa() + ", " + alignment.nchar() + " != " + nchar);
 
         constantSitesMark = new int[nchar];
         boolean isConstant;
@@ -157,10 +192,10 @@ public class SimpleAlignment extends AbstractAlignment implements NarrativeName
         StringBuilder builder = new StringBuilder();
         int[] mark = getConstantSitesMark();
         State state;
-        for (int j = 0; j < alignment[taxonIndex].length; j++) {
+        for (int j = 0; j < nchar; j++) {
             // if mark[j] > -1, it is constant site
             if (mark[j] == VAR_SITE_STATE) {
-                state = sequenceType.getState(alignment[taxonIndex][j]);
+                state = sequenceType.getState(getState(taxonIndex, j));
                 builder.append(Objects.requireNonNull(state));
             }
         }
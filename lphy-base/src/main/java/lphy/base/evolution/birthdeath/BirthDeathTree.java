@@ -1,9 +1,10 @@
 package lphy.base.evolution.birthdeath;
 
 import lphy.base.distribution.DistributionConstants;
+import lphy.base.evolution.tree.ActiveNodeIndices;
+import lphy.base.evolution.tree.CompactTimeTree;
 import lphy.base.evolution.tree.TaxaConditionedTreeGenerator;
 import lphy.base.evolution.tree.TimeTree;
-import lphy.base.evolution.tree.TimeTreeNode;
 import lphy.core.model.RandomVariable;
 import lphy.core.model.Value;
 import lphy.core.model.ValueUtils;
@@ -13,7 +14,6 @@ import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 
 import static lphy.base.evolution.birthdeath.BirthDeathConstants.*;
@@ -55,7 +55,8 @@ public class BirthDeathTree extends TaxaConditionedTreeGenerator {
     public RandomVariable<TimeTree> sample() {
 
         TimeTree tree = new TimeTree(getTaxa());
-        List<TimeTreeNode> activeNodes = createLeafTaxa(tree);
+        CompactTimeTree compactTree = new CompactTimeTree(2 * n() - 1);
+        ActiveNodeIndices activeNodes = createActiveLineages(compactTree);
 
         double lambda = ValueUtils.doubleValue(birthRate);
         double mu = ValueUtils.doubleValue(deathRate);
@@ -71,13 +72,13 @@ public class BirthDeathTree extends TaxaConditionedTreeGenerator {
         Arrays.sort(times);
 
         for (int i = 0; i < times.length; i++) {
-            TimeTreeNode a = drawRandomNode(activeNodes);
-            TimeTreeNode b = drawRandomNode(activeNodes);
-            TimeTreeNode parent = new TimeTreeNode(times[i], new TimeTreeNode[]{a, b});
-            activeNodes.add(parent);
+            int a = drawRandomNode(activeNodes);
+            int b = drawRandomNode(activeNodes);
+            activeNodes.add(compactTree.addParent(times[i], a, b));
         }
 
-        tree.setRoot(activeNodes.get(0));
+        compactTree.setRoot(activeNodes.get(0), false);
+        tree.setRoot(compactTree);
 
         return new RandomVariable<>("\u03C8", tree, this);
     }
@@ -0,0 +1,254 @@
+package lphy.base.evolution.birthdeath;
+
+import lphy.base.evolution.tree.CompactTimeTree;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Sample the full trees of a constant-rate birth-death process conditioned on survival to the present directly,
+ * instead of simulating forward until a tree survives.
+ * <p>
+ * The reconstructed tree of the extant lineages descending from a lineage of age t is a coalescent point process,
+ * whose node depths are i.i.d. with P(H &gt; s) = 1 / F(s), where F(s) = 1 + &lambda; (e<sup>rs</sup> - 1) / r
+ * and r = &lambda; - &mu;, so that the number of extant lineages conditioned on survival is geometric
+ * with the success probability 1 / F(t).
+ * Conditioned on its survival, a lineage of age &tau; gives birth to a lineage going extinct before the present
+ * at the rate 2 &lambda; p<sub>0</sub>(&tau;), where p<sub>0</sub> is the extinction probability,
+ * which are drawn by thinning along every reconstructed branch, since p<sub>0</sub> increases with &tau;.
+ * The lineages conditioned on extinction are simulated event by event, where the time of each event
+ * is drawn from its conditional distribution by a local thinning of the unconditioned event time,
+ * so no simulation of the whole tree is thrown away.
+ * The nodes are created in a {@link CompactTimeTree}.
+ */
+final class ConditionedBirthDeathSampler {
+
+    private final double lambda;
+    private final double mu;
+    private final RandomGenerator random;
+    private final CompactTimeTree tree;
+
+    // the ids of extant leaves are numbered in the order of creation
+    private int extantCount = 0;
+
+    private record Pending(int parent, double age) { }
+
+    /**
+     * @param lambda  per-lineage birth rate.
+     * @param mu      per-lineage death rate.
+     * @param random  the random number generator.
+     * @param tree    the compact tree to add the nodes to.
+     */
+    ConditionedBirthDeathSampler(double lambda, double mu, RandomGenerator random, CompactTimeTree tree) {
+        if (lambda < 0 || mu < 0)
+            throw new IllegalArgumentException("The birth and death rates must be >= 0 !");
+        this.lambda = lambda;
+        this.mu = mu;
+        this.random = random;
+        this.tree = tree;
+    }
+
+    /**
+     * @param t  the age of a lineage.
+     * @return   the probability that the lineage has no extant descendants.
+     */
+    static double extinctionProbability(double lambda, double mu, double t) {
+        return 1.0 - survivalProbability(lambda, mu, t);
+    }
+
+    /**
+     * @param t  the age of a lineage.
+     * @return   the probability that the lineage has at least one extant descendant.
+     */
+    static double survivalProbability(double lambda, double mu, double t) {
+        double r = lambda - mu;
+        if (r == 0)
+            return 1.0 / (1.0 + lambda * t);
+        if (r > 0)
+            return r / (lambda - mu * Math.exp(-r * t));
+        // r < 0, avoid overflow
+        double e = Math.exp(r * t);
+        return -r * e / (mu - lambda * e);
+    }
+
+    /**
+     * @param t  the age of a lineage.
+     * @return   the probability that the surviving lineage has exactly one extant descendant, which is 1 / F(t).
+     */
+    static double singleExtantProbability(double lambda, double mu, double t) {
+        double r = lambda - mu;
+        double f;
+        if (r == 0)
+            f = 1.0 + lambda * t;
+        else
+            f = 1.0 + lambda * Math.expm1(r * t) / r;
+        return 1.0 / f;
+    }
+
+    /**
+     * @param t          the age of a lineage.
+     * @param minExtant  the minimum number of extant descendants.
+     * @return  the probability that the lineage has at least the number of extant descendants.
+     */
+    static double probabilityOfExtantAtLeast(double lambda, double mu, double t, int minExtant) {
+        if (minExtant <= 0)
+            return 1.0;
+        double q = singleExtantProbability(lambda, mu, t);
+        return survivalProbability(lambda, mu, t) * Math.pow(1.0 - q, minExtant - 1);
+    }
+
+    /**
+     * Sample the lineage starting at the age, conditioned on at least the number of extant descendants.
+     * @param age        the age of the start of the lineage.
+     * @param minExtant  the minimum number of extant descendants, which is at least 1.
+     * @return  the node of the first event in the lineage, which is the root of the subtree below the lineage.
+     */
+    int sampleSurvivingLineage(double age, int minExtant) {
+        if (minExtant < 1)
+            throw new IllegalArgumentException("The minimum number of extant lineages must be >= 1 !");
+        // the number of extant lineages is geometric conditioned on >= minExtant
+        double q = singleExtantProbability(lambda, mu, age);
+        int n = minExtant;
+        if (q < 1.0) {
+            double extra = Math.floor(Math.log(random.nextDouble()) / Math.log1p(-q));
+            n += (int) Math.min(extra, Integer.MAX_VALUE - minExtant);
+        } else if (minExtant > 1) {
+            throw new IllegalArgumentException("Cannot have more than 1 extant lineage without births !");
+        }
+
+        // the node depths of the coalescent point process between adjacent extant lineages
+        double[] depths = new double[n - 1];
+        for (int i = 0; i < depths.length; i++)
+            depths[i] = sampleNodeDepth(age, q);
+
+        int[] tips = new int[n];
+        for (int i = 0; i < n; i++) {
+            tips[i] = tree.addNode(extantCount + "", 0.0);
+            extantCount++;
+        }
+        if (n == 1)
+            return addExtinctLineages(tips[0], age);
+
+        // the Cartesian tree of the depths, where the deepest node is the root
+        int[] left = new int[depths.length];
+        int[] right = new int[depths.length];
+        int[] stack = new int[depths.length];
+        int top = 0;
+        for (int k = 0; k < depths.length; k++) {
+            int last = -1;
+            while (top > 0 && depths[stack[top - 1]] < depths[k])
+                last = stack[--top];
+            left[k] = last;
+            right[k] = -1;
+            if (top > 0)
+                right[stack[top - 1]] = k;
+            stack[top++] = k;
+        }
+        int root = stack[0];
+
+        int[] nodes = new int[depths.length];
+        for (int k = 0; k < depths.length; k++) {
+            nodes[k] = tree.addNode(null, depths[k]);
+        }
+        for (int k = 0; k < depths.length; k++) {
+            int leftChild = left[k] >= 0 ? nodes[left[k]] : tips[k];
+            int rightChild = right[k] >= 0 ? nodes[right[k]] : tips[k + 1];
+            tree.addChild(nodes[k], addExtinctLineages(leftChild, depths[k]));
+            tree.addChild(nodes[k], addExtinctLineages(rightChild, depths[k]));
+        }
+        return addExtinctLineages(nodes[root], age);
+    }
+
+    // the node depth of the coalescent point process conditioned on < age, by inverting its distribution
+    private double sampleNodeDepth(double age, double q) {
+        double u = random.nextDouble();
+        // F(depth) = 1 / (1 - u (1 - 1 / F(age)))
+        double fMinus1 = u * (1.0 - q) / (1.0 - u * (1.0 - q));
+        double r = lambda - mu;
+        double depth = r == 0 ? fMinus1 / lambda : Math.log1p(fMinus1 * r / lambda) / r;
+        return Math.min(depth, age);
+    }
+
+    /**
+     * Add the lineages going extinct before the present along the surviving branch from the age to the node.
+     * @param node  the bottom of the branch.
+     * @param age   the age of the top of the branch.
+     * @return  the top node in the branch, which is the node if no lineages are added.
+     */
+    private int addExtinctLineages(int node, double age) {
+        // p0 increases with the age, so 2 lambda p0(age) bounds the rate along the branch
+        double p0Top = extinctionProbability(lambda, mu, age);
+        double bound = 2.0 * lambda * p0Top;
+        if (!(bound > 0))
+            return node;
+        List<Double> birthAges = new ArrayList<>();
+        double t = age;
+        while (true) {
+            t += Math.log(random.nextDouble()) / bound;
+            if (t <= tree.getAge(node))
+                break;
+            if (random.nextDouble() * p0Top < extinctionProbability(lambda, mu, t))
+                birthAges.add(t);
+        }
+        // from the bottom to the top
+        int child = node;
+        for (int i = birthAges.size() - 1; i >= 0; i--) {
+            int extinct = sampleExtinctLineage(birthAges.get(i));
+            if (random.nextBoolean())
+                child = tree.addParent(birthAges.get(i), child, extinct);
+            else
+                child = tree.addParent(birthAges.get(i), extinct, child);
+        }
+        return child;
+    }
+
+    /**
+     * Sample the lineage starting at the age, conditioned on going extinct before the present.
+     * @param age  the age of the start of the lineage.
+     * @return  the node of the first event in the lineage.
+     */
+    int sampleExtinctLineage(double age) {
+        int first = CompactTimeTree.NONE;
+        Deque<Pending> pending = new ArrayDeque<>();
+        pending.push(new Pending(CompactTimeTree.NONE, age));
+        while (!pending.isEmpty()) {
+            Pending lineage = pending.pop();
+            double eventAge = sampleExtinctEventAge(lineage.age());
+
+            int node = tree.addNode(null, eventAge);
+            if (lineage.parent() == CompactTimeTree.NONE)
+                first = node;
+            else
+                tree.addChild(lineage.parent(), node);
+
+            // birth if both children go extinct, otherwise death
+            double p0 = extinctionProbability(lambda, mu, eventAge);
+            double birth = lambda * p0 * p0;
+            if (random.nextDouble() * (birth + mu) < birth) {
+                pending.push(new Pending(node, eventAge));
+                pending.push(new Pending(node, eventAge));
+            }
+        }
+        return first;
+    }
+
+    // the age of the first event of a lineage conditioned on extinction,
+    // whose density of the time s after the start is proportional to exp(-(lambda+mu) s) (mu + lambda p0(age-s)^2)
+    private double sampleExtinctEventAge(double age) {
+        double rate = lambda + mu;
+        // the probability of an event before the present
+        double eventProb = -Math.expm1(-rate * age);
+        while (true) {
+            // the time of the first event truncated before the present
+            double s = -Math.log1p(-random.nextDouble() * eventProb) / rate;
+            double eventAge = Math.max(age - s, 0.0);
+            double p0 = extinctionProbability(lambda, mu, eventAge);
+            if (random.nextDouble() * rate < mu + lambda * p0 * p0)
+                return eventAge;
+        }
+    }
+
+}
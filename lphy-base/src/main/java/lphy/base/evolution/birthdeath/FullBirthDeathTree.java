@@ -1,7 +1,7 @@
 package lphy.base.evolution.birthdeath;
 
+import lphy.base.evolution.tree.CompactTimeTree;
 import lphy.base.evolution.tree.TimeTree;
-import lphy.base.evolution.tree.TimeTreeNode;
 import lphy.core.model.GenerativeDistribution;
 import lphy.core.model.RandomVariable;
 import lphy.core.model.Value;
@@ -13,8 +13,6 @@ import lphy.core.model.annotation.ParameterInfo;
 import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.random.RandomGenerator;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -36,12 +34,8 @@ public class FullBirthDeathTree implements GenerativeDistribution<TimeTree> {
     private Value<Number> rootAge;
     private Value<Number> originAge;
 
-    private List<TimeTreeNode> activeNodes;
-
     RandomGenerator random;
 
-    private static final int MAX_ATTEMPTS = 1000;
-
     public FullBirthDeathTree(@ParameterInfo(name = lambdaParamName, description = "per-lineage birth rate.") Value<Number> birthRate,
                               @ParameterInfo(name = muParamName, description = "per-lineage death rate.") Value<Number> deathRate,
                               @ParameterInfo(name = rootAgeParamName, description = "the age of the root of the tree (only one of rootAge and originAge may be specified).", optional=true) Value<Number> rootAge,
@@ -55,8 +49,6 @@ public class FullBirthDeathTree implements GenerativeDistribution<TimeTree> {
 
         if (rootAge != null && originAge != null) throw new IllegalArgumentException("Only one of rootAge and originAge may be specified!");
         if (rootAge == null && originAge == null) throw new IllegalArgumentException("One of rootAge and originAge must be specified!");
-
-        activeNodes = new ArrayList<>();
     }
 
 
@@ -65,99 +57,76 @@ public class FullBirthDeathTree implements GenerativeDistribution<TimeTree> {
             description = "A birth-death tree with both extant and extinct species.<br>" +
             "Conditioned on age of root or origin.")
     public RandomVariable<TimeTree> sample() {
+        return sample(1);
+    }
+
+    /**
+     * Sample the full tree conditioned on at least the number of extant species directly,
+     * where the extant lineages are drawn first and the extinct lineages are added along them,
+     * see {@link ConditionedBirthDeathSampler}.
+     * @param minExtant  the minimum number of extant species, which is at least 1.
+     *                   It must be 1 if the tree is conditioned on the root age.
+     * @return the full tree.
+     */
+    RandomVariable<TimeTree> sample(int minExtant) {
 
-        boolean success = false;
         TimeTree tree = new TimeTree();
-        TimeTreeNode root = null;
+        CompactTimeTree compactTree = new CompactTimeTree();
 
         double lambda = ValueUtils.doubleValue(birthRate);
         double mu = ValueUtils.doubleValue(deathRate);
 
-        int attempts = 0;
-
-        while (!success && attempts < MAX_ATTEMPTS) {
-            activeNodes.clear();
-
-            root = new TimeTreeNode((String)null, tree);
-            if (rootAge != null) {
-                root.setAge(ValueUtils.doubleValue(rootAge));
+        ConditionedBirthDeathSampler sampler = new ConditionedBirthDeathSampler(lambda, mu, random, compactTree);
+
+        int root;
+        if (rootAge != null) {
+            if (minExtant != 1)
+                throw new IllegalArgumentException("The tree conditioned on the root age must have at least 1 extant species !");
+            double age = ValueUtils.doubleValue(rootAge);
+            root = compactTree.addNode(null, age);
+            // at least one of the two children survives
+            double p0 = ConditionedBirthDeathSampler.extinctionProbability(lambda, mu, age);
+            double bothSurvive = (1.0 - p0) / (1.0 + p0);
+            double U = random.nextDouble();
+            int child1, child2;
+            if (U < bothSurvive) {
+                child1 = sampler.sampleSurvivingLineage(age, 1);
+                child2 = sampler.sampleSurvivingLineage(age, 1);
+            } else if (U < bothSurvive + (1.0 - bothSurvive) / 2.0) {
+                child1 = sampler.sampleSurvivingLineage(age, 1);
+                child2 = sampler.sampleExtinctLineage(age);
             } else {
-                root.setAge(ValueUtils.doubleValue(originAge));
+                child1 = sampler.sampleExtinctLineage(age);
+                child2 = sampler.sampleSurvivingLineage(age, 1);
             }
-
-
-            double time = root.getAge();
-
-            if (rootAge != null) {
-                activeNodes.add(root);
-                doBirth(activeNodes, time, tree);
-            } else {
-                TimeTreeNode origin = root;
-                root = new TimeTreeNode((String)null, tree);
-                root.setAge(origin.getAge());
-                origin.addChild(root);
-                activeNodes.add(root);
-                root = root.getParent();
-            }
-
-            while (time > 0.0 && activeNodes.size() > 0) {
-                int k = activeNodes.size();
-
-                double totalRate = (lambda + mu) * (double) k;
-
-                // random exponential variate
-                double x = -Math.log(random.nextDouble()) / totalRate;
-                time -= x;
-
-                if (time < 0) break;
-
-                double U = random.nextDouble();
-                if (U < lambda / (lambda + mu)) {
-                    doBirth(activeNodes, time, tree);
-                } else {
-                    doDeath(activeNodes, time);
-                }
-            }
-
-            int number = 0;
-            for (TimeTreeNode node : activeNodes) {
-                node.setAge(0.0);
-                node.setId(number+"");
-                number += 1;
-            }
-
-            success = activeNodes.size() > 0;
-            attempts += 1;
-        }
-
-        if (!success) {
-            throw new RuntimeException("Failed to simulated FullBirthDeathTree after " + MAX_ATTEMPTS + " attempts.");
+            compactTree.addChild(root, child1);
+            compactTree.addChild(root, child2);
+        } else {
+            double age = ValueUtils.doubleValue(originAge);
+            root = compactTree.addNode(null, age);
+            compactTree.addChild(root, sampler.sampleSurvivingLineage(age, minExtant));
         }
 
-        tree.setRoot(root, true);
+        compactTree.setRoot(root, true);
+        tree.setRoot(compactTree);
 
         return new RandomVariable<>(null, tree, this);
     }
 
-    private void doBirth(List<TimeTreeNode> activeNodes, double age, TimeTree tree) {
-        TimeTreeNode parent = activeNodes.remove(random.nextInt(activeNodes.size()));
-        parent.setAge(age);
-        TimeTreeNode child1 = new TimeTreeNode((String)null, tree);
-        TimeTreeNode child2 = new TimeTreeNode((String)null, tree);
-        child1.setAge(age);
-        child2.setAge(age);
-        parent.addChild(child1);
-        parent.addChild(child2);
-        activeNodes.add(child1);
-        activeNodes.add(child2);
-    }
-
-    private void doDeath(List<TimeTreeNode> activeNodes, double age) {
-        TimeTreeNode deadNode = activeNodes.remove(random.nextInt(activeNodes.size()));
-        deadNode.setAge(age);
+    /**
+     * @return the probability that a forward simulation of the tree has at least one extant species,
+     *         which was the acceptance rate of the simulation by rejection.
+     */
+    public double getAcceptanceProbability() {
+        double lambda = ValueUtils.doubleValue(birthRate);
+        double mu = ValueUtils.doubleValue(deathRate);
+        if (rootAge != null) {
+            double p0 = ConditionedBirthDeathSampler.extinctionProbability(lambda, mu, ValueUtils.doubleValue(rootAge));
+            return 1.0 - p0 * p0;
+        }
+        return ConditionedBirthDeathSampler.survivalProbability(lambda, mu, ValueUtils.doubleValue(originAge));
     }
 
-
     @Override
     public double logDensity(TimeTree timeTree) {
 
@@ -4,6 +4,7 @@ import lphy.base.evolution.continuous.PhyloBrownian;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
 import lphy.base.function.GeneralLinearFunction;
+import lphy.core.logger.LoggerUtils;
 import lphy.core.model.GenerativeDistribution;
 import lphy.core.model.RandomVariable;
 import lphy.core.model.Value;
@@ -12,7 +13,6 @@ import lphy.core.model.annotation.GeneratorCategory;
 import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
 import lphy.core.simulator.RandomUtils;
-import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.ArrayList;
@@ -25,31 +25,63 @@ import static lphy.base.evolution.birthdeath.BirthDeathConstants.originAgeParamN
 
 /**
  * A birth-death tree with birth rate driven by a GLM.
+ * The traits of every lineage evolve by independent Brownian motions,
+ * and the log birth rate of a lineage is the linear combination of its traits by the coefficients beta.
+ * <p>
+ * By default, the events are simulated by the next reaction method with adaptive thinning:
+ * the next candidate event of a lineage is drawn from a bound of its birth rate plus the death rate,
+ * and accepted with the probability of the actual rates given its traits at that time.
+ * The traits are only drawn at the candidate events, and the bound of a lineage is twice its birth rate
+ * renewed after a horizon, over which the log birth rate exceeds log(2) with the probability
+ * of a {@link #BOUND_SD} standard deviation move of its Brownian motion.
+ * This is an approximation, because the bound is only probabilistic, and the birth rate is only
+ * compared with the bound at the candidate events, where a violation raises the total rate
+ * of that candidate alone. The number of violations is given by {@link #getThinningStatistics()}.
+ * It is exact only if the traits do not evolve, where the bound is the birth rate.
+ * The cost is proportional to the number of events, but not the number of time steps.
+ * The next events of all lineages are kept in a {@link LineageEventQueue}.
+ * If the number of steps is given, then the time is split into the fixed steps instead,
+ * where every lineage is visited at every step and the events happen at the end of a step.
  */
 public class GLMBirthDeathTree implements GenerativeDistribution<TimeTree> {
 
     public static final String x0ParamName = "x0";
+    public static final String stepsParamName = "steps";
+
+    /**
+     * The number of standard deviations of the log birth rate over a horizon, which reaches the bound.
+     */
+    public static final double BOUND_SD = 5.0;
+
     private Value<Number[]> beta;
     private Value<Number[]> x0;
     private Value<Number[]> diffRate;
     private Value<Number> deathRate;
 
     private Value<Number> originAge;
+    private Value<Integer> steps;
 
-    RandomGenerator random;
+    // the statistics of the last simulation by thinning
+    private long candidateEvents;
+    private long rejectedEvents;
+    private long boundViolations;
 
     public GLMBirthDeathTree(@ParameterInfo(name = GeneralLinearFunction.betaParamName, narrativeName = "beta", description = "the coefficients of the general linear model driving the (log) birth rate.") Value<Number[]> beta,
                              @ParameterInfo(name = x0ParamName, narrativeName = "x0", description = "the initial values of the traits that drive the birth rate at the origin of the process.") Value<Number[]> x0,
                              @ParameterInfo(name = PhyloBrownian.diffRateParamName, description = "the variance of the underlying Brownian process for each trait.") Value<Number[]> diffRate,
                              @ParameterInfo(name = muParamName, description = "per-lineage death rate.") Value<Number> deathRate,
-                             @ParameterInfo(name = originAgeParamName, description = "the age of the origin.") Value<Number> originAge) {
+                             @ParameterInfo(name = originAgeParamName, description = "the age of the origin.") Value<Number> originAge,
+                             @ParameterInfo(name = stepsParamName, description = "the number of fixed time steps to simulate the process approximately. " +
+                                     "If it is not given, the events are simulated by adaptive thinning, " +
+                                     "whose bound of the birth rate is exceeded with the probability of a 5 sigma move " +
+                                     "of the log birth rate, which is exact only if the traits do not evolve.", optional = true) Value<Integer> steps) {
 
         this.beta = beta;
         this.x0 = x0;
         this.diffRate = diffRate;
         this.deathRate = deathRate;
         this.originAge = originAge;
-        this.random = RandomUtils.getRandom();
+        this.steps = steps;
     }
 
 
@@ -59,86 +91,219 @@ public class GLMBirthDeathTree implements GenerativeDistribution<TimeTree> {
                     "Conditioned on root age.")
     public RandomVariable<TimeTree> sample() {
 
-        int steps = 1000;
-
-        double t = ValueUtils.doubleValue(originAge);
-        double dt = t / steps;
+        double originTime = ValueUtils.doubleValue(originAge);
+        double[] x = ValueUtils.doubleArrayValue(x0);
+        double[] b = ValueUtils.doubleArrayValue(beta);
+        double[] diff = ValueUtils.doubleArrayValue(diffRate);
+        double mu = ValueUtils.doubleValue(deathRate);
+        if (b.length != x.length || diff.length != x.length)
+            throw new IllegalArgumentException("The beta, x0 and diffRate must have the same length !");
 
-        TimeTreeNode originNode = new TimeTreeNode(t);
+        // the generator of this thread, without looking it up on every draw
+        RandomGenerator random = RandomUtils.getThreadRandom();
+        TimeTree tree = new TimeTree();
+        TimeTreeNode originNode = steps == null ?
+                sampleByThinning(tree, originTime, x, b, diff, mu, random) :
+                sampleFixedSteps(tree, originTime, x, b, diff, mu, steps.value(), random);
 
-        double[] x = ValueUtils.doubleArrayValue(x0);
+        tree.setRoot(originNode, true);
 
-        originNode.setMetaData("x", x);
+        return new RandomVariable<>("\u03C8", tree, this);
+    }
 
-        double[] b = ValueUtils.doubleArrayValue(beta);
+    // the state of an active lineage in the simulation by thinning
+    private static final class Lineage {
+        final TimeTreeNode node;
+        // the traits at the time
+        final double[] x;
+        // forward time from the origin
+        double time;
+        double birthRateBound;
+        double boundEnd;
+        // if the next event in the queue is a candidate event, otherwise the bound renewal
+        boolean candidate;
+
+        Lineage(TimeTreeNode node, double[] x, double time) {
+            this.node = node;
+            this.x = x;
+            this.time = time;
+        }
+    }
 
-        double[] diff = ValueUtils.doubleArrayValue(diffRate);
+    private TimeTreeNode sampleByThinning(TimeTree tree, double originTime, double[] x, double[] b, double[] diff,
+                                          double mu, RandomGenerator random) {
+        // the variance per unit time of the log birth rate
+        double logRateVariance = 0;
+        for (int i = 0; i < b.length; i++)
+            logRateVariance += b[i] * b[i] * diff[i] * diff[i];
+        // the bound is twice of the birth rate at its renewal, which is BOUND_SD standard deviations
+        // of the log birth rate over the horizon, or the birth rate itself if the traits do not evolve
+        final double horizon = logRateVariance > 0 ?
+                Math.pow(Math.log(2.0) / BOUND_SD, 2) / logRateVariance : Double.POSITIVE_INFINITY;
+        final double boundFactor = logRateVariance > 0 ? 2.0 : 1.0;
+
+        candidateEvents = 0;
+        rejectedEvents = 0;
+        boundViolations = 0;
+
+        List<Lineage> lineages = new ArrayList<>();
+        LineageEventQueue queue = new LineageEventQueue(64);
+
+        TimeTreeNode originNode = new TimeTreeNode((String) null, tree);
+        originNode.setAge(originTime);
+        addLineage(new Lineage(originNode, x.clone(), 0.0), lineages, queue, b, mu, horizon, boundFactor, originTime, random);
+
+        while (!queue.isEmpty() && queue.peekTime() < originTime) {
+            int index = queue.peekLineage();
+            Lineage lineage = lineages.get(index);
+            double time = queue.peekTime();
+            brownian(lineage.x, diff, time - lineage.time, random);
+            lineage.time = time;
+
+            if (!lineage.candidate) {
+                renewBound(lineage, b, horizon, boundFactor);
+                schedule(index, lineage, queue, mu, originTime, random);
+                continue;
+            }
 
-        double mu = ValueUtils.doubleValue(deathRate);
+            candidateEvents++;
+            double birthRate = birthRate(b, lineage.x);
+            double totalRate = lineage.birthRateBound + mu;
+            if (birthRate > lineage.birthRateBound) {
+                // only happens with a tiny probability, then the event is taken at the actual rates
+                boundViolations++;
+                totalRate = birthRate + mu;
+            }
+            double u = random.nextDouble() * totalRate;
+            if (u < birthRate + mu) {
+                queue.remove(index);
+                lineage.node.setAge(originTime - time);
+                lineage.node.setMetaData("x", lineage.x.clone());
+                if (u < birthRate) {
+                    // birth, the children start with the traits of the parent
+                    for (int c = 0; c < 2; c++) {
+                        TimeTreeNode child = new TimeTreeNode((String) null, tree);
+                        lineage.node.addChild(child);
+                        addLineage(new Lineage(child, lineage.x.clone(), time), lineages, queue, b, mu,
+                                horizon, boundFactor, originTime, random);
+                    }
+                } // else death, nothing more to do as the lineage is removed from the queue
+            } else {
+                // the candidate is rejected
+                rejectedEvents++;
+                schedule(index, lineage, queue, mu, originTime, random);
+            }
+        }
 
-        NormalDistribution[] diffusions = new NormalDistribution[diff.length];
-        for (int i = 0; i < diffusions.length; i++) {
-            diffusions[i] = new NormalDistribution(0.0, Math.sqrt(diff[i] * diff[i] * dt));
+        // the surviving lineages at the present
+        int number = 0;
+        while (!queue.isEmpty()) {
+            int index = queue.peekLineage();
+            queue.remove(index);
+            Lineage lineage = lineages.get(index);
+            brownian(lineage.x, diff, originTime - lineage.time, random);
+            lineage.node.setAge(0.0);
+            lineage.node.setMetaData("x", lineage.x);
+            lineage.node.setId(number + "");
+            number += 1;
         }
+        if (boundViolations > 0)
+            LoggerUtils.log.warning("The birth rate exceeded its bound at " + boundViolations + " of " +
+                    candidateEvents + " candidate events in " + getName() + ".");
+        return originNode;
+    }
+
+    private void addLineage(Lineage lineage, List<Lineage> lineages, LineageEventQueue queue,
+                            double[] b, double mu, double horizon, double boundFactor, double originTime,
+                            RandomGenerator random) {
+        lineages.add(lineage);
+        renewBound(lineage, b, horizon, boundFactor);
+        schedule(lineages.size() - 1, lineage, queue, mu, originTime, random);
+    }
+
+    private void renewBound(Lineage lineage, double[] b, double horizon, double boundFactor) {
+        lineage.birthRateBound = birthRate(b, lineage.x) * boundFactor;
+        lineage.boundEnd = lineage.time + horizon;
+    }
+
+    // the next candidate event or bound renewal of a lineage, whichever comes first
+    private void schedule(int index, Lineage lineage, LineageEventQueue queue, double mu, double originTime,
+                          RandomGenerator random) {
+        double rate = lineage.birthRateBound + mu;
+        double candidateTime = rate > 0 ? lineage.time - Math.log(random.nextDouble()) / rate : Double.POSITIVE_INFINITY;
+        lineage.candidate = candidateTime < lineage.boundEnd;
+        // the lineages after the present are never visited
+        double time = Math.min(lineage.candidate ? candidateTime : lineage.boundEnd, originTime);
+        queue.schedule(index, time);
+    }
+
+    private TimeTreeNode sampleFixedSteps(TimeTree tree, double originTime, double[] x, double[] b, double[] diff,
+                                          double mu, int steps, RandomGenerator random) {
+        if (steps < 1)
+            throw new IllegalArgumentException("The number of steps must be > 0 !");
+        double dt = originTime / steps;
+
+        TimeTreeNode originNode = new TimeTreeNode((String) null, tree);
+        originNode.setAge(originTime);
+        originNode.setMetaData("x", x.clone());
 
         List<TimeTreeNode> activeNodes = new ArrayList<>();
         activeNodes.add(originNode);
         for (int i = 0; i < steps; i++) {
 
-            List<TimeTreeNode> newNodes = new ArrayList<>();
-            List<TimeTreeNode> nodesToRemove = new ArrayList<>();
+            // the nodes without events and the new children, in linear time
+            List<TimeTreeNode> newNodes = new ArrayList<>(activeNodes.size() + 16);
+            // the age at the end of this step
+            double age = Math.max(originTime - (i + 1) * dt, 0.0);
 
             for (TimeTreeNode node : activeNodes) {
-                double birthRate = birthRate(b, node);
 
                 // update time of every node
-                node.setAge(t + dt);
+                node.setAge(age);
 
                 // update traits of every active node
-                node.setMetaData("x", brownian((double[])node.getMetaData("x"), diffusions));
+                double[] traits = ((double[]) node.getMetaData("x")).clone();
+                brownian(traits, diff, dt, random);
+                node.setMetaData("x", traits);
 
+                double birthRate = birthRate(b, traits);
                 // probability that a birth or death happened in this interval
-                double p = Math.exp(-(birthRate+mu)*dt);
-                if (random.nextDouble() <= p) {
-
-                    // birth or death happened, so mark node for removal from active node list
-                    nodesToRemove.add(node);
+                double p = 1.0 - Math.exp(-(birthRate + mu) * dt);
+                if (random.nextDouble() < p) {
 
+                    // birth or death happened, so the node is not active anymore
                     // check if it was a birth or a death
-                    if (random.nextDouble() < (birthRate/(birthRate+mu))) {
+                    if (random.nextDouble() < (birthRate / (birthRate + mu))) {
                         // birth happened.
                         // children start at same time and with same metadata as parent.
-                        // parent removed from active list.
-                        // slight improvement would be to set time from the conditional distribution of an event occurring within dt.
-
-                        TimeTreeNode leftChild = new TimeTreeNode(t + dt);
-                        leftChild.setMetaData("x", node.getMetaData("x"));
-                        TimeTreeNode rightChild = new TimeTreeNode(t + dt);
-                        rightChild.setMetaData("x", node.getMetaData("x"));
+                        TimeTreeNode leftChild = new TimeTreeNode((String) null, tree);
+                        leftChild.setAge(age);
+                        leftChild.setMetaData("x", traits);
+                        TimeTreeNode rightChild = new TimeTreeNode((String) null, tree);
+                        rightChild.setAge(age);
+                        rightChild.setMetaData("x", traits);
                         node.addChild(leftChild);
                         node.addChild(rightChild);
-                        nodesToRemove.add(node);
                         newNodes.add(leftChild);
                         newNodes.add(rightChild);
                     } // else {
                         // death happened
-                        // nothing more to do as node already marked for removal from active node list
+                        // nothing more to do as node is not added to the active node list
                     // }
+                } else {
+                    newNodes.add(node);
                 }
             }
-            activeNodes.removeAll(nodesToRemove);
-            activeNodes.addAll(newNodes);
-            t += dt;
+            activeNodes = newNodes;
         }
 
-        TimeTree tree = new TimeTree();
-        tree.setRoot(originNode);
-
-        return new RandomVariable<>("\u03C8", tree, this);
-    }
-
-    private double birthRate(double[] beta, TimeTreeNode node) {
-        return birthRate(beta, (double[])node.getMetaData("x"));
+        int number = 0;
+        for (TimeTreeNode node : activeNodes) {
+            node.setAge(0.0);
+            node.setId(number + "");
+            number += 1;
+        }
+        return originNode;
     }
 
     private double birthRate(double[] beta, double[] traits) {
@@ -146,15 +311,24 @@ public class GLMBirthDeathTree implements GenerativeDistribution<TimeTree> {
         for (int i = 0; i < traits.length; i++) {
             x += beta[i] * traits[i];
         }
-        return Math.log(x);
+        return Math.exp(x);
     }
 
-    private double[] brownian(double[] x, NormalDistribution[] diffusions) {
-        double[] xnew = new double[x.length];
+    // evolve the traits by the Brownian motions over the time dt
+    private void brownian(double[] x, double[] diff, double dt, RandomGenerator random) {
+        if (dt <= 0) return;
         for (int i = 0; i < x.length; i++) {
-            xnew[i] = x[i] + diffusions[i].sample();
+            x[i] += random.nextGaussian() * Math.sqrt(diff[i] * diff[i] * dt);
         }
-        return xnew;
+    }
+
+    /**
+     * @return  the number of candidate events, the number of rejected candidate events,
+     *          and the number of candidate events where the birth rate exceeded its bound,
+     *          in the last simulation by thinning.
+     */
+    public long[] getThinningStatistics() {
+        return new long[]{candidateEvents, rejectedEvents, boundViolations};
     }
 
     @Override
@@ -165,6 +339,7 @@ public class GLMBirthDeathTree implements GenerativeDistribution<TimeTree> {
             put(PhyloBrownian.diffRateParamName, diffRate);
             put(muParamName, deathRate);
             put(originAgeParamName, originAge);
+            if (steps != null) put(stepsParamName, steps);
         }};
     }
 
@@ -176,6 +351,7 @@ public class GLMBirthDeathTree implements GenerativeDistribution<TimeTree> {
             case PhyloBrownian.diffRateParamName -> diffRate = value;
             case muParamName -> deathRate = value;
             case originAgeParamName -> originAge = value;
+            case stepsParamName -> steps = value;
             default -> throw new RuntimeException("Unrecognised parameter name: " + paramName);
         }
     }
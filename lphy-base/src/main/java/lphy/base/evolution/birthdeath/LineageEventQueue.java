@@ -0,0 +1,152 @@
+package lphy.base.evolution.birthdeath;
+
+import java.util.Arrays;
+
+/**
+ * The indexed priority queue of the next event times of lineages for the next reaction method,
+ * where the lineages are indexed by 0, 1, 2, ... in the order of their creation.
+ * It is a binary min-heap of the lineage indices with the position of every lineage in the heap,
+ * so that adding, removing and rescheduling a lineage are O(log n) for n active lineages,
+ * and the lineage of the next event is found in O(1).
+ */
+final class LineageEventQueue {
+
+    private static final int NOT_IN_QUEUE = -1;
+
+    // the lineage indices in the heap order
+    private int[] heap;
+    private int size = 0;
+    // the position in the heap by lineage index, or NOT_IN_QUEUE
+    private int[] positions;
+    // the next event time by lineage index
+    private double[] times;
+
+    LineageEventQueue(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 2);
+        heap = new int[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, NOT_IN_QUEUE);
+        times = new double[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int lineage) {
+        return lineage < positions.length && positions[lineage] != NOT_IN_QUEUE;
+    }
+
+    /**
+     * @return  the lineage of the earliest event.
+     */
+    int peekLineage() {
+        if (size == 0)
+            throw new IllegalStateException("The lineage event queue is empty !");
+        return heap[0];
+    }
+
+    /**
+     * @return  the time of the earliest event.
+     */
+    double peekTime() {
+        return times[peekLineage()];
+    }
+
+    double getTime(int lineage) {
+        return times[lineage];
+    }
+
+    /**
+     * Add the lineage, or reschedule it if it is in the queue.
+     * @param lineage  the lineage index, which is not negative.
+     * @param time     the time of its next event.
+     */
+    void schedule(int lineage, double time) {
+        if (lineage < 0)
+            throw new IllegalArgumentException("The lineage index must be >= 0 !");
+        ensureCapacity(lineage + 1);
+        int pos = positions[lineage];
+        double oldTime = times[lineage];
+        times[lineage] = time;
+        if (pos == NOT_IN_QUEUE) {
+            heap[size] = lineage;
+            positions[lineage] = size;
+            size++;
+            siftUp(size - 1);
+        } else if (time < oldTime) {
+            siftUp(pos);
+        } else {
+            siftDown(pos);
+        }
+    }
+
+    /**
+     * Remove the lineage from the queue, e.g. after its birth or death.
+     */
+    void remove(int lineage) {
+        if (!contains(lineage))
+            throw new IllegalArgumentException("Lineage " + lineage + " is not in the queue !");
+        int pos = positions[lineage];
+        positions[lineage] = NOT_IN_QUEUE;
+        size--;
+        if (pos < size) {
+            int last = heap[size];
+            heap[pos] = last;
+            positions[last] = pos;
+            siftUp(pos);
+            siftDown(positions[last]);
+        }
+    }
+
+    private void siftUp(int pos) {
+        int lineage = heap[pos];
+        double time = times[lineage];
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (times[heap[parent]] <= time)
+                break;
+            move(heap[parent], pos);
+            pos = parent;
+        }
+        move(lineage, pos);
+    }
+
+    private void siftDown(int pos) {
+        int lineage = heap[pos];
+        double time = times[lineage];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && times[heap[child + 1]] < times[heap[child]])
+                child++;
+            if (times[heap[child]] >= time)
+                break;
+            move(heap[child], pos);
+            pos = child;
+        }
+        move(lineage, pos);
+    }
+
+    private void move(int lineage, int pos) {
+        heap[pos] = lineage;
+        positions[lineage] = pos;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > positions.length) {
+            int newCapacity = Math.max(capacity, 2 * positions.length);
+            heap = Arrays.copyOf(heap, newCapacity);
+            int oldLength = positions.length;
+            positions = Arrays.copyOf(positions, newCapacity);
+            Arrays.fill(positions, oldLength, newCapacity, NOT_IN_QUEUE);
+            times = Arrays.copyOf(times, newCapacity);
+        }
+    }
+
+}
@@ -49,15 +49,13 @@ public class RhoSampleTree implements GenerativeDistribution<TimeTree> {
         TimeTree sampleTree = new TimeTree(tree.value());
         double p = ValueUtils.doubleValue(rho);
 
-        List<TimeTreeNode> sampleTips = new ArrayList<>();
-
-        while (sampleTips.size() == 0) {
-            for (TimeTreeNode node : sampleTree.getNodes()) {
-                if (node.isLeaf() && node.getAge() == 0.0 && random.nextDouble() < p) {
-                    sampleTips.add(node);
-                }
+        List<TimeTreeNode> extantTips = new ArrayList<>();
+        for (TimeTreeNode node : sampleTree.getNodes()) {
+            if (node.isLeaf() && node.getAge() == 0.0) {
+                extantTips.add(node);
             }
         }
+        List<TimeTreeNode> sampleTips = sampleTips(extantTips, p, random);
         System.out.println("Sample tree has " + sampleTips.size() + " tips.");
 
         for (TimeTreeNode tip : sampleTips) {
@@ -78,6 +76,59 @@ public class RhoSampleTree implements GenerativeDistribution<TimeTree> {
         return new RandomVariable<>("\u03C8", sampleTree, this);
     }
 
+    /**
+     * Sample each tip with the probability conditioned on sampling at least one tip, without rejection.
+     * The index of the first sampled tip is drawn from the truncated geometric distribution,
+     * and the tips after it are sampled independently.
+     * @param tips    the tips at time zero.
+     * @param p       the probability that each tip is sampled.
+     * @param random  the random number generator.
+     * @return the sampled tips, which is not empty.
+     */
+    static List<TimeTreeNode> sampleTips(List<TimeTreeNode> tips, double p, RandomGenerator random) {
+        int m = tips.size();
+        if (m == 0)
+            throw new IllegalArgumentException("The tree has no tips at time zero to sample !");
+        if (!(p > 0))
+            throw new IllegalArgumentException("The probability rho must be > 0 !");
+
+        int first = 0;
+        if (p < 1.0) {
+            // P(first = j) is proportional to (1-p)^j p for j < m
+            double logNotSampled = Math.log1p(-p);
+            double atLeastOne = atLeastOneSampled(m, p);
+            double j = Math.floor(Math.log1p(-random.nextDouble() * atLeastOne) / logNotSampled);
+            first = (int) Math.min(j, m - 1);
+        }
+
+        List<TimeTreeNode> sampleTips = new ArrayList<>();
+        sampleTips.add(tips.get(first));
+        for (int i = first + 1; i < m; i++) {
+            if (random.nextDouble() < p) {
+                sampleTips.add(tips.get(i));
+            }
+        }
+        return sampleTips;
+    }
+
+    /**
+     * @return the probability 1 - (1-rho)^m that at least one of the m tips at time zero is sampled,
+     *         which was the acceptance rate of the simulation by rejection.
+     */
+    public double getAcceptanceProbability() {
+        int m = 0;
+        for (TimeTreeNode node : tree.value().getNodes()) {
+            if (node.isLeaf() && node.getAge() == 0.0)
+                m++;
+        }
+        return atLeastOneSampled(m, ValueUtils.doubleValue(rho));
+    }
+
+    // 1 - (1-p)^m
+    static double atLeastOneSampled(int m, double p) {
+        return -Math.expm1(m * Math.log1p(-p));
+    }
+
     @Override
     public Map<String, Value> getParams() {
         return new TreeMap<>() {{
@@ -6,6 +6,7 @@ import lphy.base.function.tree.PruneTree;
 import lphy.core.model.GenerativeDistribution;
 import lphy.core.model.RandomVariable;
 import lphy.core.model.Value;
+import lphy.core.model.ValueUtils;
 import lphy.core.model.annotation.GeneratorCategory;
 import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
@@ -32,8 +33,6 @@ public class SimFBDAge implements GenerativeDistribution<TimeTree> {
 
     RandomGenerator random;
 
-    private static final int MAX_ATTEMPTS = 1000;
-
     public SimFBDAge(@ParameterInfo(name = lambdaParamName, description = "per-lineage birth rate.") Value<Number> birthRate,
                      @ParameterInfo(name = muParamName, description = "per-lineage death rate.") Value<Number> deathRate,
                      @ParameterInfo(name = fracParamName, description = "fraction of extant taxa sampled.") Value<Double> fracVal,
@@ -56,43 +55,36 @@ public class SimFBDAge implements GenerativeDistribution<TimeTree> {
             "Conditioned on origin age.")
     public RandomVariable<TimeTree> sample() {
 
-        int nonNullLeafCount = 0;
-        TimeTree sampleTree = null;
-
-        int attempts = 0;
-
-        while (nonNullLeafCount < 1 && attempts < MAX_ATTEMPTS) {
-            FullBirthDeathTree birthDeathTree = new FullBirthDeathTree(birthRate, deathRate, null, originAge);
-            RandomVariable<TimeTree> fullTree = birthDeathTree.sample();
+        double frac = fracVal.value();
+        int minExtant = getMinExtant(frac);
 
-            SimFossilsPoisson simFossilsPoisson = new SimFossilsPoisson(fullTree, psiVal);
+        // the full tree conditioned on keeping at least one extant species after sampling the fraction
+        FullBirthDeathTree birthDeathTree = new FullBirthDeathTree(birthRate, deathRate, null, originAge);
+        RandomVariable<TimeTree> fullTree = birthDeathTree.sample(minExtant);
 
-            Value<TimeTree> fullTreeWithFossils = simFossilsPoisson.sample();
+        SimFossilsPoisson simFossilsPoisson = new SimFossilsPoisson(fullTree, psiVal);
 
-            sampleTree = new TimeTree(fullTreeWithFossils.value());
+        Value<TimeTree> fullTreeWithFossils = simFossilsPoisson.sample();
 
-            List<TimeTreeNode> leafNodes = new ArrayList<>();
+        TimeTree sampleTree = new TimeTree(fullTreeWithFossils.value());
 
-            for (TimeTreeNode node : sampleTree.getNodes()) {
-                if (node.isLeaf() && node.getAge() == 0.0) {
-                   leafNodes.add(node);
-                }
-            }
+        List<TimeTreeNode> leafNodes = new ArrayList<>();
 
-            int toNull = (int)Math.round(leafNodes.size()* (1.0-fracVal.value()));
-            List<TimeTreeNode> nullList = new ArrayList<>();
-            for (int i =0; i < toNull; i++) {
-                nullList.add(leafNodes.remove(random.nextInt(leafNodes.size())));
-            }
-            for (TimeTreeNode node : nullList) {
-                node.setId(null);
+        for (TimeTreeNode node : sampleTree.getNodes()) {
+            if (node.isLeaf() && node.getAge() == 0.0) {
+               leafNodes.add(node);
             }
-
-            nonNullLeafCount = leafNodes.size();
-            attempts += 1;
         }
 
-        if (attempts == MAX_ATTEMPTS) throw new RuntimeException("Failed to simulate SimFBDAge after " + MAX_ATTEMPTS + " attempts.");
+        int toNull = (int)Math.round(leafNodes.size()* (1.0-frac));
+        for (int i =0; i < toNull; i++) {
+            // swap the removed leaf with the last one
+            int j = random.nextInt(leafNodes.size());
+            TimeTreeNode node = leafNodes.get(j);
+            leafNodes.set(j, leafNodes.get(leafNodes.size() - 1));
+            leafNodes.remove(leafNodes.size() - 1);
+            node.setId(null);
+        }
 
         PruneTree pruneTree = new PruneTree(new Value<>(null, sampleTree));
 
@@ -100,6 +92,29 @@ public class SimFBDAge implements GenerativeDistribution<TimeTree> {
         return new RandomVariable<>(null, tree, this);
     }
 
+    /**
+     * @return the probability that a forward simulation of the full tree keeps at least one extant species
+     *         after sampling the fraction, which was the acceptance rate of the simulation by rejection.
+     */
+    public double getAcceptanceProbability() {
+        return ConditionedBirthDeathSampler.probabilityOfExtantAtLeast(ValueUtils.doubleValue(birthRate),
+                ValueUtils.doubleValue(deathRate), ValueUtils.doubleValue(originAge), getMinExtant(fracVal.value()));
+    }
+
+    /**
+     * @param frac  the fraction of extant taxa sampled.
+     * @return the minimum number of extant species, so that at least one of them is sampled.
+     *         The number of sampled species never decreases with the number of extant species.
+     */
+    static int getMinExtant(double frac) {
+        if (!(frac > 0))
+            throw new IllegalArgumentException("The fraction of extant taxa sampled must be > 0 !");
+        int n = 1;
+        while (n - Math.round(n * (1.0 - frac)) < 1)
+            n++;
+        return n;
+    }
+
     @Override
     public double logDensity(TimeTree timeTree) {
         throw new UnsupportedOperationException("Not implemented!");
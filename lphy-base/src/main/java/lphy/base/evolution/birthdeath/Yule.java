@@ -1,9 +1,10 @@
 package lphy.base.evolution.birthdeath;
 
 import lphy.base.distribution.DistributionConstants;
+import lphy.base.evolution.tree.ActiveNodeIndices;
+import lphy.base.evolution.tree.CompactTimeTree;
 import lphy.base.evolution.tree.TaxaConditionedTreeGenerator;
 import lphy.base.evolution.tree.TimeTree;
-import lphy.base.evolution.tree.TimeTreeNode;
 import lphy.core.model.RandomVariable;
 import lphy.core.model.Value;
 import lphy.core.model.ValueUtils;
@@ -12,9 +13,7 @@ import lphy.core.model.annotation.GeneratorCategory;
 import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -30,8 +29,6 @@ public class Yule extends TaxaConditionedTreeGenerator {
     private Value<Number> birthRate;
     private Value<Number> rootAge;
 
-    private List<TimeTreeNode> activeNodes;
-
     public Yule(@ParameterInfo(name = BirthDeathConstants.lambdaParamName, description = "per-lineage birth rate, possibly scaled to mutations or calendar units.") Value<Number> birthRate,
                 @ParameterInfo(name = DistributionConstants.nParamName, description = "the number of taxa.", optional=true) Value<Integer> n,
                 @ParameterInfo(name = TaxaConditionedTreeGenerator.taxaParamName, description = "a string array of taxa id or a taxa object (e.g. dataframe, alignment or tree)", optional=true) Value taxa,
@@ -43,8 +40,6 @@ public class Yule extends TaxaConditionedTreeGenerator {
         this.rootAge = rootAge;
 
         checkTaxaParameters(true);
-
-        activeNodes = new ArrayList<>(2 * n());
     }
 
     @GeneratorInfo(name = "Yule",
@@ -53,9 +48,9 @@ public class Yule extends TaxaConditionedTreeGenerator {
     public RandomVariable<TimeTree> sample() {
 
         TimeTree tree = new TimeTree(getTaxa());
-        activeNodes.clear();
+        CompactTimeTree compactTree = new CompactTimeTree(2 * n() - 1);
 
-        createLeafNodes(tree, activeNodes);
+        ActiveNodeIndices activeNodes = createActiveLineages(compactTree);
 
         double time = 0.0;
         double lambda = ValueUtils.doubleValue(birthRate);
@@ -85,13 +80,13 @@ public class Yule extends TaxaConditionedTreeGenerator {
 
         for (int i = 0; i < times.length; i++) {
 
-            TimeTreeNode a = drawRandomNode(activeNodes);
-            TimeTreeNode b = drawRandomNode(activeNodes);
-            TimeTreeNode parent = new TimeTreeNode(times[i], new TimeTreeNode[]{a, b});
-            activeNodes.add(parent);
+            int a = drawRandomNode(activeNodes);
+            int b = drawRandomNode(activeNodes);
+            activeNodes.add(compactTree.addParent(times[i], a, b));
         }
 
-        tree.setRoot(activeNodes.get(0));
+        compactTree.setRoot(activeNodes.get(0), false);
+        tree.setRoot(compactTree);
 
         return new RandomVariable<>("\u03C8", tree, this);
     }
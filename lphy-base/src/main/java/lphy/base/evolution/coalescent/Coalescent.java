@@ -2,6 +2,8 @@ package lphy.base.evolution.coalescent;
 
 import lphy.base.distribution.DistributionConstants;
 import lphy.base.distribution.Exp;
+import lphy.base.evolution.tree.ActiveNodeIndices;
+import lphy.base.evolution.tree.CompactTimeTree;
 import lphy.base.evolution.tree.TaxaConditionedTreeGenerator;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
@@ -47,8 +49,9 @@ public class Coalescent extends TaxaConditionedTreeGenerator {
     public RandomVariable<TimeTree> sample() {
 
         TimeTree tree = new TimeTree();
+        CompactTimeTree compactTree = new CompactTimeTree(2 * n() - 1);
 
-        List<TimeTreeNode> activeNodes = createLeafTaxa(tree);
+        ActiveNodeIndices activeNodes = createActiveLineages(compactTree);
 
         double time = 0.0;
         double theta = this.theta.value();
@@ -56,8 +59,8 @@ public class Coalescent extends TaxaConditionedTreeGenerator {
         while (activeNodes.size() > 1) {
             int k = activeNodes.size();
 
-            TimeTreeNode a = drawRandomNode(activeNodes);
-            TimeTreeNode b = drawRandomNode(activeNodes);
+            int a = drawRandomNode(activeNodes);
+            int b = drawRandomNode(activeNodes);
 
             double rate = (k * (k - 1.0))/(theta * 2.0);
 
@@ -65,11 +68,11 @@ public class Coalescent extends TaxaConditionedTreeGenerator {
             double x = - Math.log(random.nextDouble()) / rate;
             time += x;
 
-            TimeTreeNode parent = new TimeTreeNode(time, new TimeTreeNode[] {a, b});
-            activeNodes.add(parent);
+            activeNodes.add(compactTree.addParent(time, a, b));
         }
 
-        tree.setRoot(activeNodes.get(0));
+        compactTree.setRoot(activeNodes.get(0), false);
+        tree.setRoot(compactTree);
 
         return new RandomVariable<>("\u03C8", tree, this);
     }
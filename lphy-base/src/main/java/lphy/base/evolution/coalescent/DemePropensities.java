@@ -0,0 +1,168 @@
+package lphy.base.evolution.coalescent;
+
+import java.util.Arrays;
+
+/**
+ * The propensities of the events in each deme of {@link StructuredCoalescent} for the Gillespie algorithm.
+ * The propensity of deme i with n<sub>i</sub> lineages is the coalescent rate C(n<sub>i</sub>, 2) / &theta;<sub>i</sub>
+ * plus the migration rates n<sub>i</sub> * M<sub>ij</sub> * &theta;<sub>j</sub> / &theta;<sub>i</sub> to every other deme j,
+ * which are the row i of the dense rate matrix in {@link StructuredCoalescent#populateRateMatrix(int[], Double[][], double[][])}.
+ * <p>
+ * Only the lineage count of a deme changes after an event, so its propensity is updated in O(1),
+ * and the propensities are summed in a binary tree, so that updating the total rate
+ * and selecting the deme of the next event are O(log d), instead of O(d<sup>2</sup>) for d demes.
+ * The event inside the deme is selected in O(log d) by the cumulative migration rates.
+ * The events are selected in the same order as the rate matrix is scanned row by row,
+ * so the distribution of events is exactly same.
+ */
+final class DemePropensities {
+
+    private final int nDemes;
+    private final double[] popSizes;
+    // cumulativeMigration[i][j] = sum of M_ik * theta_k / theta_i over k <= j and k != i
+    private final double[][] cumulativeMigration;
+
+    private final int[] lineageCounts;
+    private int totalLineages = 0;
+
+    // the leaves of the sum tree are in [leafOffset, leafOffset + nDemes), and the root is 1
+    private final int leafOffset;
+    private final double[] sumTree;
+
+    /**
+     * @param popSizesMigrationRates  the effective population sizes in the diagonal,
+     *                                and the migration rates in the off-diagonal.
+     */
+    DemePropensities(Double[][] popSizesMigrationRates) {
+        nDemes = popSizesMigrationRates.length;
+        popSizes = new double[nDemes];
+        for (int i = 0; i < nDemes; i++)
+            popSizes[i] = popSizesMigrationRates[i][i];
+
+        cumulativeMigration = new double[nDemes][nDemes];
+        for (int i = 0; i < nDemes; i++) {
+            double cumulative = 0.0;
+            for (int j = 0; j < nDemes; j++) {
+                // off-diagonal migration rates are in units of expected migrants per generation (thus division by popSizei)
+                if (i != j)
+                    cumulative += (popSizesMigrationRates[i][j] * popSizes[j]) / popSizes[i];
+                cumulativeMigration[i][j] = cumulative;
+            }
+        }
+
+        lineageCounts = new int[nDemes];
+        int offset = 1;
+        while (offset < nDemes)
+            offset *= 2;
+        leafOffset = offset;
+        sumTree = new double[2 * leafOffset];
+    }
+
+    int getDemeCount() {
+        return nDemes;
+    }
+
+    /**
+     * @return  the number of lineages in all demes.
+     */
+    int getTotalLineages() {
+        return totalLineages;
+    }
+
+    int getLineageCount(int deme) {
+        return lineageCounts[deme];
+    }
+
+    /**
+     * Set the number of lineages in the deme, and update its propensity and the total rate in O(log d).
+     */
+    void setLineageCount(int deme, int count) {
+        totalLineages += count - lineageCounts[deme];
+        lineageCounts[deme] = count;
+
+        int node = leafOffset + deme;
+        sumTree[node] = getPropensity(deme);
+        // recompute the sums instead of adding the difference, which does not accumulate rounding errors
+        for (node /= 2; node >= 1; node /= 2)
+            sumTree[node] = sumTree[2 * node] + sumTree[2 * node + 1];
+    }
+
+    double getCoalescentRate(int deme) {
+        int n = lineageCounts[deme];
+        return n < 2 ? 0.0 : (n * (n - 1.0) / 2.0) / popSizes[deme];
+    }
+
+    double getMigrationRate(int deme) {
+        return lineageCounts[deme] * cumulativeMigration[deme][nDemes - 1];
+    }
+
+    double getPropensity(int deme) {
+        return getCoalescentRate(deme) + getMigrationRate(deme);
+    }
+
+    double getTotalRate() {
+        return sumTree[1];
+    }
+
+    /**
+     * Select the event by U in [0, total rate), in the order of the rate matrix scanned row by row.
+     * @param u  a uniform random number in [0, {@link #getTotalRate()})
+     * @return  the deme and the destination deme, which is same as the deme for a coalescent event.
+     */
+    int[] selectEvent(double u) {
+        // descend the sum tree, skipping the empty subtrees
+        int node = 1;
+        while (node < leafOffset) {
+            int left = 2 * node;
+            if (u <= sumTree[left] && sumTree[left] > 0) {
+                node = left;
+            } else {
+                u -= sumTree[left];
+                node = left + 1;
+            }
+        }
+        int deme = node - leafOffset;
+        // rounding errors could pass the last deme with any event
+        if (deme >= nDemes || !(sumTree[node] > 0)) {
+            deme = Math.min(deme, nDemes - 1);
+            while (deme > 0 && !(getPropensity(deme) > 0))
+                deme--;
+            u = getPropensity(deme);
+        }
+        u = Math.min(u, getPropensity(deme));
+
+        int n = lineageCounts[deme];
+        // the migrations to the demes before this deme
+        double before = deme > 0 ? n * cumulativeMigration[deme][deme - 1] : 0.0;
+        if (u <= before && before > 0)
+            return new int[]{deme, selectMigration(deme, u / n, 0, deme - 1)};
+        u -= before;
+
+        double coalescentRate = getCoalescentRate(deme);
+        boolean migrationAfter = deme < nDemes - 1 &&
+                cumulativeMigration[deme][nDemes - 1] > cumulativeMigration[deme][deme];
+        if (u <= coalescentRate && coalescentRate > 0)
+            return new int[]{deme, deme};
+        if (migrationAfter)
+            return new int[]{deme, selectMigration(deme, (before + u - coalescentRate) / n, deme + 1, nDemes - 1)};
+        // only by rounding errors, take the last possible event
+        if (coalescentRate > 0)
+            return new int[]{deme, deme};
+        return new int[]{deme, selectMigration(deme, before / n, 0, deme - 1)};
+    }
+
+    // the first destination in [from, to], whose cumulative migration rate per lineage is >= u
+    private int selectMigration(int deme, double u, int from, int to) {
+        double[] cumulative = cumulativeMigration[deme];
+        int i = Arrays.binarySearch(cumulative, from, to + 1, u);
+        if (i < 0) {
+            i = -i - 1;
+        } else {
+            // the first of equal values
+            while (i > from && cumulative[i - 1] == u)
+                i--;
+        }
+        return Math.min(i, to);
+    }
+
+}
@@ -3,6 +3,7 @@ package lphy.base.evolution.coalescent;
 import lphy.base.distribution.DistributionConstants;
 import lphy.base.evolution.Taxa;
 import lphy.base.evolution.Taxon;
+import lphy.base.evolution.tree.ActiveLineages;
 import lphy.base.evolution.tree.TaxaConditionedTreeGenerator;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
@@ -70,11 +71,11 @@ public class MultispeciesCoalescent implements GenerativeDistribution {
     private TimeTree simulateGeneTree() {
         TimeTree geneTree = new TimeTree(geneTreeTaxa);
 
-        Map<String, List<TimeTreeNode>> activeNodes = new TreeMap<>();
+        Map<String, ActiveLineages> activeNodes = new TreeMap<>();
 
         createActiveNodes(activeNodes, geneTree);
 
-        List<TimeTreeNode> root = doSpeciesTreeBranch(S.value().getRoot(), activeNodes, theta.value());
+        ActiveLineages root = doSpeciesTreeBranch(S.value().getRoot(), activeNodes, theta.value());
 
         if (root.size() != 1) {
             throw new RuntimeException("Returned multiple gene roots from " + S.value().getRoot());
@@ -136,24 +137,24 @@ public class MultispeciesCoalescent implements GenerativeDistribution {
         return true;
     }
 
-    private void createActiveNodes(Map<String, List<TimeTreeNode>> activeNodes, TimeTree geneTree) {
+    private void createActiveNodes(Map<String, ActiveLineages> activeNodes, TimeTree geneTree) {
         for (Taxon taxon : geneTreeTaxa.getTaxonArray()) {
-            List<TimeTreeNode> taxaInSp = activeNodes.computeIfAbsent(taxon.getSpecies(), k -> new ArrayList<>());
+            ActiveLineages taxaInSp = activeNodes.computeIfAbsent(taxon.getSpecies(), k -> new ActiveLineages());
             taxaInSp.add(new TimeTreeNode(taxon, geneTree));
         }
     }
 
-    private List<TimeTreeNode> doSpeciesTreeBranch(TimeTreeNode spNode, Map<String, List<TimeTreeNode>> allLeafActiveNodes, Double[] allThetas) {
+    private ActiveLineages doSpeciesTreeBranch(TimeTreeNode spNode, Map<String, ActiveLineages> allLeafActiveNodes, Double[] allThetas) {
 
-        List<TimeTreeNode> activeNodes;
+        ActiveLineages activeNodes;
         if (!spNode.isLeaf()) {
-            activeNodes = new ArrayList<>();
+            activeNodes = new ActiveLineages();
             for (TimeTreeNode child : spNode.getChildren()) {
                 activeNodes.addAll(doSpeciesTreeBranch(child, allLeafActiveNodes, allThetas));
             }
         } else {
             activeNodes = allLeafActiveNodes.get(spNode.getId());
-            if (activeNodes == null) activeNodes = new ArrayList<>();
+            if (activeNodes == null) activeNodes = new ActiveLineages();
         }
 
         double time = spNode.getAge();
@@ -169,8 +170,8 @@ public class MultispeciesCoalescent implements GenerativeDistribution {
             time += x;
 
             if (spNode.getParent() == null || time < spNode.getParent().getAge()) {
-                TimeTreeNode a = activeNodes.remove(random.nextInt(activeNodes.size()));
-                TimeTreeNode b = activeNodes.remove(random.nextInt(activeNodes.size()));
+                TimeTreeNode a = activeNodes.removeRandom(random);
+                TimeTreeNode b = activeNodes.removeRandom(random);
                 TimeTreeNode parent = new TimeTreeNode(time, new TimeTreeNode[]{a, b});
                 activeNodes.add(parent);
             }
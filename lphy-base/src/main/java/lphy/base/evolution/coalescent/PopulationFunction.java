@@ -35,6 +35,11 @@ public interface PopulationFunction {
         return 0;
     }
 
+    /**
+     * @return true if the intensity and its inverse are evaluated in closed form (or as cheaply),
+     *         otherwise the coalescent simulation uses {@link TabulatedIntensity} instead of
+     *         integrating numerically for every coalescent event.
+     */
     boolean isAnalytical();
 
 
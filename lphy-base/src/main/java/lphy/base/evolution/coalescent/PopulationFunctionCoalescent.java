@@ -3,6 +3,7 @@ package lphy.base.evolution.coalescent;
 
 import lphy.base.distribution.DistributionConstants;
 import lphy.base.evolution.Taxa;
+import lphy.base.evolution.tree.ActiveLineages;
 import lphy.base.evolution.tree.TaxaConditionedTreeGenerator;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
@@ -81,15 +82,15 @@ public class PopulationFunctionCoalescent extends TaxaConditionedTreeGenerator {
     public RandomVariable<TimeTree> sample() {
         TimeTree tree = new TimeTree();
 
-        List<TimeTreeNode> activeNodes = createLeafTaxa(tree);
+        ActiveLineages activeNodes = createActiveLineages(tree);
 
         double time = 0.0;
+        // the intensity is tabulated once for all coalescent events if it is not analytical
+        PopulationFunction pf = TabulatedIntensity.of(popFunc.value());
 
         while (activeNodes.size() > 1) {
             int lineageCount = activeNodes.size();
 
-            PopulationFunction pf = popFunc.value();
-
             double interval = 0;
             // Use the Utils.getSimulatedInterval method to calculate the time interval for the next coalescent event
             interval = Utils.getSimulatedInterval(pf, lineageCount, time);
@@ -97,17 +98,13 @@ public class PopulationFunctionCoalescent extends TaxaConditionedTreeGenerator {
             // Update the current time, plus the newly calculated time interval
             time += interval;
 
-            // Randomly select two nodes to coalescent
+            // Randomly select and remove two nodes to coalescent
             TimeTreeNode a = drawRandomNode(activeNodes);
             TimeTreeNode b = drawRandomNode(activeNodes);
 
             // Create a new parent node and update the list of active nodes
             TimeTreeNode parent = new TimeTreeNode(time, new TimeTreeNode[] {a, b});
             activeNodes.add(parent);
-
-            // Remove two coalescent nodes from the active node list
-            activeNodes.remove(a);
-            activeNodes.remove(b);
         }
 
         // Set the root node of the tree
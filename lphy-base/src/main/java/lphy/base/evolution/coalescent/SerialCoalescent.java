@@ -2,6 +2,8 @@ package lphy.base.evolution.coalescent;
 
 import lphy.base.distribution.DistributionConstants;
 import lphy.base.evolution.Taxa;
+import lphy.base.evolution.tree.ActiveNodeIndices;
+import lphy.base.evolution.tree.CompactTimeTree;
 import lphy.base.evolution.tree.TaxaConditionedTreeGenerator;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
@@ -69,55 +71,57 @@ public class SerialCoalescent extends TaxaConditionedTreeGenerator {
     public RandomVariable<TimeTree> sample() {
 
         TimeTree tree = new TimeTree();
+        CompactTimeTree compactTree = new CompactTimeTree(2 * n() - 1);
 
-        List<TimeTreeNode> leafNodes = createLeafTaxa(tree);
-        List<TimeTreeNode> activeNodes = new ArrayList<>();
-        List<TimeTreeNode> leavesToBeAdded = new ArrayList<>();
+        ActiveNodeIndices leafNodes = createActiveLineages(compactTree);
+        ActiveNodeIndices activeNodes = new ActiveNodeIndices(leafNodes.size());
+        List<Integer> leavesToBeAdded = new ArrayList<>();
 
         double time = 0.0;
 
-        for (TimeTreeNode leaf : leafNodes) {
-            if (leaf.getAge() <= time) {
+        for (int i = 0; i < leafNodes.size(); i++) {
+            int leaf = leafNodes.get(i);
+            if (compactTree.getAge(leaf) <= time) {
                 activeNodes.add(leaf);
             } else {
                 leavesToBeAdded.add(leaf);
             }
         }
 
-        leavesToBeAdded.sort((o1, o2) -> Double.compare(o2.getAge(), o1.getAge())); // REVERSE ORDER - youngest age at end of list
+        leavesToBeAdded.sort((o1, o2) -> Double.compare(compactTree.getAge(o2), compactTree.getAge(o1))); // REVERSE ORDER - youngest age at end of list
 
         double popSize = ValueUtils.doubleValue(theta);
         while ((activeNodes.size() + leavesToBeAdded.size()) > 1) {
             int k = activeNodes.size();
 
             if (k == 1) {
-                time = leavesToBeAdded.get(leavesToBeAdded.size() - 1).getAge();
+                time = compactTree.getAge(leavesToBeAdded.get(leavesToBeAdded.size() - 1));
             } else {
                 // draw next time;
                 double rate = (k * (k - 1.0)) / (popSize * 2.0);
                 double x = -Math.log(random.nextDouble()) / rate;
                 time += x;
 
-                if (leavesToBeAdded.size() > 0 && time > leavesToBeAdded.get(leavesToBeAdded.size() - 1).getAge()) {
-                    time = leavesToBeAdded.get(leavesToBeAdded.size() - 1).getAge();
+                if (leavesToBeAdded.size() > 0 && time > compactTree.getAge(leavesToBeAdded.get(leavesToBeAdded.size() - 1))) {
+                    time = compactTree.getAge(leavesToBeAdded.get(leavesToBeAdded.size() - 1));
                 } else {
 
                     // do coalescence
-                    TimeTreeNode a = activeNodes.remove(random.nextInt(activeNodes.size()));
-                    TimeTreeNode b = activeNodes.remove(random.nextInt(activeNodes.size()));
+                    int a = drawRandomNode(activeNodes);
+                    int b = drawRandomNode(activeNodes);
 
-                    TimeTreeNode parent = new TimeTreeNode(time, new TimeTreeNode[]{a, b});
-                    activeNodes.add(parent);
+                    activeNodes.add(compactTree.addParent(time, a, b));
                 }
             }
 
-            while (leavesToBeAdded.size() > 0 && leavesToBeAdded.get(leavesToBeAdded.size() - 1).getAge() == time) {
-                TimeTreeNode youngest = leavesToBeAdded.remove(leavesToBeAdded.size() - 1);
+            while (leavesToBeAdded.size() > 0 && compactTree.getAge(leavesToBeAdded.get(leavesToBeAdded.size() - 1)) == time) {
+                int youngest = leavesToBeAdded.remove(leavesToBeAdded.size() - 1);
                 activeNodes.add(youngest);
             }
         }
 
-        tree.setRoot(activeNodes.get(0));
+        compactTree.setRoot(activeNodes.get(0), false);
+        tree.setRoot(compactTree);
 
         return new RandomVariable<>("\u03C8", tree, this);
     }
@@ -2,6 +2,7 @@ package lphy.base.evolution.coalescent;
 
 import lphy.base.distribution.DistributionConstants;
 import lphy.base.evolution.Taxa;
+import lphy.base.evolution.tree.ActiveLineages;
 import lphy.base.evolution.tree.TaxaConditionedTreeGenerator;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
@@ -101,7 +102,7 @@ public class SkylineCoalescent extends TaxaConditionedTreeGenerator {
         TimeTree tree = new TimeTree(getTaxa());
 
         List<TimeTreeNode> leafNodes = createLeafTaxa(tree);
-        List<TimeTreeNode> activeNodes = new ArrayList<>();
+        ActiveLineages activeNodes = new ActiveLineages(leafNodes.size());
         List<TimeTreeNode> leavesToBeAdded = new ArrayList<>();
 
         double time = 0.0;
@@ -138,8 +139,8 @@ public class SkylineCoalescent extends TaxaConditionedTreeGenerator {
                 } else {
 
                     // do coalescence
-                    TimeTreeNode a = activeNodes.remove(random.nextInt(activeNodes.size()));
-                    TimeTreeNode b = activeNodes.remove(random.nextInt(activeNodes.size()));
+                    TimeTreeNode a = drawRandomNode(activeNodes);
+                    TimeTreeNode b = drawRandomNode(activeNodes);
 
                     TimeTreeNode parent = new TimeTreeNode(time, new TimeTreeNode[]{a, b});
                     activeNodes.add(parent);
@@ -1,6 +1,7 @@
 package lphy.base.evolution.coalescent;
 
 import lphy.base.evolution.Taxa;
+import lphy.base.evolution.tree.ActiveLineages;
 import lphy.base.evolution.tree.TaxaConditionedTreeGenerator;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
@@ -107,7 +108,7 @@ public class StructuredCoalescent extends TaxaConditionedTreeGenerator {
         TimeTree tree = new TimeTree(taxa);
 
         List<TimeTreeNode> leavesToBeAdded = new ArrayList<>();
-        List<List<TimeTreeNode>> activeNodes = new ArrayList<>();
+        List<ActiveLineages> activeNodes = new ArrayList<>();
 
         double time = 0.0;
 
@@ -115,7 +116,7 @@ public class StructuredCoalescent extends TaxaConditionedTreeGenerator {
 
             int count = 0;
             for (int i = 0; i < k.value().length; i++) {
-                activeNodes.add(new ArrayList<>());
+                activeNodes.add(new ActiveLineages());
                 for (int j = 0; j < k.value()[i]; j++) {
                     TimeTreeNode node = new TimeTreeNode(count + "", tree);
                     node.setIndex(count);
@@ -135,7 +136,7 @@ public class StructuredCoalescent extends TaxaConditionedTreeGenerator {
                         " does not match the dimension of theta " + theta.value().length + " !");
 
             for (int i = 0; i < uniqueDemes.size(); i++)
-                activeNodes.add(new ArrayList<>());
+                activeNodes.add(new ActiveLineages());
 
             Object[] demesVal = demes != null ? demes.value() : k.value();
 
@@ -256,23 +257,30 @@ public class StructuredCoalescent extends TaxaConditionedTreeGenerator {
         return (Integer) demeIndex;
     }
 
-    private List<TimeTreeNode> simulateStructuredCoalescentForest(TimeTree tree, List<List<TimeTreeNode>> activeNodes, List<TimeTreeNode> leavesToBeAdded, Double[][] popSizesMigrationRates, double stopTime) {
+    private List<TimeTreeNode> simulateStructuredCoalescentForest(TimeTree tree, List<ActiveLineages> activeNodes, List<TimeTreeNode> leavesToBeAdded, Double[][] popSizesMigrationRates, double stopTime) {
 
-        //diagonals are coalescent rates, off-diagonals are migration rates
-        double[][] rates = new double[activeNodes.size()][activeNodes.size()];
-        double totalRate = populateRateMatrix(activeNodes, popSizesMigrationRates, rates);
+        // Gillespie algorithm, where only the propensities of the demes changed by an event are updated
+        DemePropensities propensities = new DemePropensities(popSizesMigrationRates);
+        for (int i = 0; i < activeNodes.size(); i++)
+            propensities.setLineageCount(i, activeNodes.get(i).size());
 
         double time = 0.0;
 
-        int nodeNumber = getTotalNodeCount(activeNodes);
+        int nodeNumber = propensities.getTotalLineages();
 
-        while (time < stopTime && (getTotalNodeCount(activeNodes)+leavesToBeAdded.size()) > 1) {
-            int k = getTotalNodeCount(activeNodes);
+        while (time < stopTime && (propensities.getTotalLineages()+leavesToBeAdded.size()) > 1) {
+            int k = propensities.getTotalLineages();
 
             if (k == 1) {
                 time = leavesToBeAdded.get(leavesToBeAdded.size() - 1).getAge();
+            } else if (!(propensities.getTotalRate() > 0)) {
+                // the lineages are isolated in the demes without migrations
+                if (leavesToBeAdded.isEmpty())
+                    throw new RuntimeException("The lineages cannot coalesce, because the total rate of " +
+                            "coalescent and migration events is " + propensities.getTotalRate() + " !");
+                time = leavesToBeAdded.get(leavesToBeAdded.size() - 1).getAge();
             } else {
-                SCEvent event = selectRandomEvent(rates, totalRate, time);
+                SCEvent event = selectRandomEvent(propensities, time);
 
                 // if event passes the next node to be added then update the time and try again
                 if (leavesToBeAdded.size() > 0 && event.time > leavesToBeAdded.get(leavesToBeAdded.size() - 1).getAge()) {
@@ -316,40 +324,50 @@ public class StructuredCoalescent extends TaxaConditionedTreeGenerator {
                         time = event.time;
 
                         activeNodes.get(event.toPop).add(migrantsParent);
+                        propensities.setLineageCount(event.toPop, activeNodes.get(event.toPop).size());
                     }
+                    propensities.setLineageCount(event.pop, activeNodes.get(event.pop).size());
                     nodeNumber += 1;
                 }
             }
 
             while (leavesToBeAdded.size() > 0 && leavesToBeAdded.get(leavesToBeAdded.size() - 1).getAge() == time) {
                 TimeTreeNode youngest = leavesToBeAdded.remove(leavesToBeAdded.size() - 1);
-                activeNodes.get((Integer)youngest.getMetaData(populationLabel)).add(youngest);
+                int pop = (Integer) youngest.getMetaData(populationLabel);
+                activeNodes.get(pop).add(youngest);
+                propensities.setLineageCount(pop, activeNodes.get(pop).size());
             }
-            totalRate = populateRateMatrix(activeNodes, popSizesMigrationRates, rates);
         }
 
         List<TimeTreeNode> rootNodes = new ArrayList<>();
-        for (List<TimeTreeNode> nodeList : activeNodes) {
-            rootNodes.addAll(nodeList);
+        for (ActiveLineages nodeList : activeNodes) {
+            rootNodes.addAll(nodeList.toList());
         }
 
         return rootNodes;
     }
 
-    private int getTotalNodeCount(List<List<TimeTreeNode>> nodes) {
-        int count = 0;
-        for (List<TimeTreeNode> nodeList : nodes) {
-            count += nodeList.size();
-        }
-        return count;
+    private TimeTreeNode selectRandomNode(ActiveLineages nodes) {
+        return nodes.removeRandom(random);
     }
 
-    private TimeTreeNode selectRandomNode(List<TimeTreeNode> nodes) {
-        int index = random.nextInt(nodes.size());
-        TimeTreeNode node = nodes.remove(index);
-        return node;
+    /**
+     * Select the next event in O(log d) for d demes, which draws the random numbers in the same way as
+     * {@link #selectRandomEvent(double[][], double, double)} on the full rate matrix.
+     */
+    SCEvent selectRandomEvent(DemePropensities propensities, double time) {
+        double totalRate = propensities.getTotalRate();
+        double U = random.nextDouble() * totalRate;
+        int[] pops = propensities.selectEvent(U);
+        double V = random.nextDouble();
+        double etime = time + (-Math.log(V) / totalRate);
+        return new SCEvent(pops[0], pops[1], etime);
     }
 
+    /**
+     * Select the next event by scanning the full rate matrix in O(d<sup>2</sup>),
+     * which is the reference of {@link #selectRandomEvent(DemePropensities, double)}.
+     */
     SCEvent selectRandomEvent(double[][] rates, double totalRate, double time) {
 
         double U = random.nextDouble() * totalRate;
@@ -369,13 +387,23 @@ public class StructuredCoalescent extends TaxaConditionedTreeGenerator {
     }
 
     static double populateRateMatrix(List<List<TimeTreeNode>> nodes, Double[][] popSizesMigrationRates, double[][] rates) {
+        int[] sampleSizes = new int[nodes.size()];
+        for (int i = 0; i < sampleSizes.length; i++)
+            sampleSizes[i] = nodes.get(i).size();
+        return populateRateMatrix(sampleSizes, popSizesMigrationRates, rates);
+    }
+
+    /**
+     * @param sampleSizes  the number of active lineages in each deme
+     */
+    static double populateRateMatrix(int[] sampleSizes, Double[][] popSizesMigrationRates, double[][] rates) {
 
         double totalRate = 0.0;
 
         // coalescent rates
         for (int i = 0; i < rates.length; i++) {
             double popSizei = popSizesMigrationRates[i][i];
-            int sampleSizei = nodes.get(i).size();
+            int sampleSizei = sampleSizes[i];
             if (sampleSizei < 2) {
                 rates[i][i] = 0.0;
             } else {
@@ -385,7 +413,7 @@ public class StructuredCoalescent extends TaxaConditionedTreeGenerator {
                 double popSizej = popSizesMigrationRates[j][j];
                 if (i != j) {
                     // off-diagonal migration rates are in units of expected migrants per generation (thus division by popSizei)
-                    rates[i][j] = (double) nodes.get(i).size() * (popSizesMigrationRates[i][j] * popSizej) / popSizei;
+                    rates[i][j] = (double) sampleSizes[i] * (popSizesMigrationRates[i][j] * popSizej) / popSizei;
                 }
                 totalRate += rates[i][j];
             }
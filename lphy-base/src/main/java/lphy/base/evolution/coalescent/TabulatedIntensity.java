@@ -0,0 +1,259 @@
+package lphy.base.evolution.coalescent;
+
+import org.apache.commons.math3.analysis.UnivariateFunction;
+import org.apache.commons.math3.analysis.integration.gauss.GaussIntegratorFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The demographic intensity of a population function which has no closed form,
+ * tabulated once and interpolated for every coalescent event afterwards,
+ * instead of a numerical integration per intensity and dozens of them per inverse intensity.
+ * <p>
+ * The table stores the intensity x(t) = integral 1/N(s) ds from 0 to t and its derivative 1/N(t)
+ * at adaptive time points, which are interpolated by cubic Hermite splines.
+ * A segment is halved until both the integral by Gauss-Legendre quadrature and the interpolation
+ * at its midpoint agree within the relative tolerance, and also until the cubic is monotone
+ * (Fritsch-Carlson), so that the inverse intensity is unique.
+ * The table is extended lazily when a larger time or intensity is queried, where the step grows
+ * geometrically while the tolerance allows.
+ * <p>
+ * Use {@link #of(PopulationFunction)} to share the tables between coalescent events and replicates,
+ * where the population functions with same parameters are the same key,
+ * if they implement {@link Object#equals(Object)}.
+ * A population function must not be changed after it is tabulated.
+ */
+public class TabulatedIntensity implements PopulationFunction {
+
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+
+    // the number of tables to keep, the least recently used one is removed
+    private static final int MAX_CACHED_TABLES = 32;
+    private static final Map<PopulationFunction, TabulatedIntensity> tables =
+            Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<PopulationFunction, TabulatedIntensity> eldest) {
+                    return size() > MAX_CACHED_TABLES;
+                }
+            });
+
+    private static final GaussIntegratorFactory gaussFactory = new GaussIntegratorFactory();
+    private static final int GAUSS_POINTS = 5;
+    // stop extending the table
+    private static final double MAX_TIME = 1e12;
+    private static final int MAX_POINTS = 1 << 20;
+
+    private final PopulationFunction populationFunction;
+    private final UnivariateFunction rate;
+    private final double tolerance;
+
+    // an immutable snapshot replaced by extend(), so that the lookups are lock-free
+    private volatile Table table;
+
+    /**
+     * @param populationFunction  the population function to tabulate.
+     * @param tolerance           the relative error of the intensity.
+     */
+    public TabulatedIntensity(PopulationFunction populationFunction, double tolerance) {
+        if (tolerance <= 0)
+            throw new IllegalArgumentException("The tolerance must be > 0 !");
+        this.populationFunction = populationFunction;
+        this.tolerance = tolerance;
+        this.rate = t -> 1.0 / Math.max(populationFunction.getTheta(t), 1e-20);
+        this.table = new Table(new double[]{0}, new double[]{0}, new double[]{rate.value(0)}, 1);
+    }
+
+    /**
+     * @param populationFunction  the population function
+     * @return  the population function itself if it is analytical,
+     *          otherwise the cached table of its intensity with {@link #DEFAULT_TOLERANCE}.
+     */
+    public static PopulationFunction of(PopulationFunction populationFunction) {
+        if (populationFunction.isAnalytical())
+            return populationFunction;
+        return tables.computeIfAbsent(populationFunction,
+                pf -> new TabulatedIntensity(pf, DEFAULT_TOLERANCE));
+    }
+
+    public PopulationFunction getPopulationFunction() {
+        return populationFunction;
+    }
+
+    @Override
+    public double getTheta(double t) {
+        return populationFunction.getTheta(t);
+    }
+
+    @Override
+    public double getIntensity(double t) {
+        if (t <= 0.0)
+            return 0.0;
+        Table tab = table;
+        if (t > tab.lastTime())
+            tab = extend(t, Double.NaN);
+        int i = segment(tab.times, tab.size, t);
+        return tab.interpolate(i, t);
+    }
+
+    @Override
+    public double getInverseIntensity(double x) {
+        if (x <= 0.0)
+            return 0.0;
+        Table tab = table;
+        if (x > tab.lastIntensity())
+            tab = extend(Double.NaN, x);
+        int i = segment(tab.intensities, tab.size, x);
+        return tab.invert(i, x);
+    }
+
+    /**
+     * The interpolation only costs a binary search and a few arithmetic operations.
+     */
+    @Override
+    public boolean isAnalytical() {
+        return true;
+    }
+
+    /**
+     * @return  the number of time points in the current table.
+     */
+    public int getTableSize() {
+        return table.size;
+    }
+
+    // the index i of the segment [values[i], values[i+1]] containing v
+    private static int segment(double[] values, int size, double v) {
+        int i = Arrays.binarySearch(values, 0, size, v);
+        if (i < 0)
+            i = -i - 2;
+        return Math.max(0, Math.min(i, size - 2));
+    }
+
+    /**
+     * Add segments until the table covers the time t or the intensity x, whichever is not NaN.
+     */
+    private synchronized Table extend(double t, double x) {
+        Table tab = table;
+        if (!(tab.lastTime() < t) && !(tab.lastIntensity() < x))
+            return tab; // extended by another thread
+
+        double[] times = Arrays.copyOf(tab.times, Math.max(tab.times.length, 64));
+        double[] intensities = Arrays.copyOf(tab.intensities, times.length);
+        double[] rates = Arrays.copyOf(tab.rates, times.length);
+        int n = tab.size;
+
+        double a = times[n - 1];
+        // start from a fraction of the population size at present, which is halved if it is too large
+        double h = n > 1 ? a - times[n - 2] : 1e-3 / rates[0];
+        while (times[n - 1] < t || intensities[n - 1] < x) {
+            if (a > MAX_TIME || n >= MAX_POINTS || !(h > 0))
+                throw new RuntimeException("Failed to tabulate the intensity of " + populationFunction +
+                        " up to " + (Double.isNaN(t) ? "intensity " + x : "time " + t) + " !");
+            double b = a + h;
+            double mid = a + h / 2;
+            double firstHalf = integrate(a, mid);
+            double integral = firstHalf + integrate(mid, b);
+            double fa = rates[n - 1];
+            double fb = rate.value(b);
+            double ia = intensities[n - 1];
+            double ib = ia + integral;
+
+            boolean accepted = h <= Math.ulp(b) * 16;
+            if (!accepted) {
+                double scale = tolerance * Math.max(ib, Double.MIN_NORMAL);
+                double quadratureError = Math.abs(integrate(a, b) - integral);
+                double interpolationError = Math.abs(hermite(ia, ib, fa, fb, a, h, mid) - (ia + firstHalf));
+                accepted = quadratureError <= scale && interpolationError <= scale && isMonotone(ia, ib, fa, fb, h);
+            }
+            if (!accepted) {
+                h /= 2;
+                continue;
+            }
+
+            if (n == times.length) {
+                times = Arrays.copyOf(times, n * 2);
+                intensities = Arrays.copyOf(intensities, n * 2);
+                rates = Arrays.copyOf(rates, n * 2);
+            }
+            times[n] = b;
+            intensities[n] = ib;
+            rates[n] = fb;
+            n++;
+            a = b;
+            h *= 2;
+        }
+        table = new Table(times, intensities, rates, n);
+        return table;
+    }
+
+    private double integrate(double a, double b) {
+        return gaussFactory.legendre(GAUSS_POINTS, a, b).integrate(rate);
+    }
+
+    // Fritsch-Carlson condition on the slopes relative to the secant
+    private static boolean isMonotone(double ia, double ib, double fa, double fb, double h) {
+        double secant = (ib - ia) / h;
+        if (!(secant > 0))
+            return false;
+        double alpha = fa / secant;
+        double beta = fb / secant;
+        return alpha * alpha + beta * beta <= 9.0;
+    }
+
+    // the cubic Hermite spline on [a, a + h] with values ia, ib and derivatives fa, fb
+    private static double hermite(double ia, double ib, double fa, double fb, double a, double h, double t) {
+        double s = (t - a) / h;
+        double s2 = s * s;
+        double s3 = s2 * s;
+        return (2 * s3 - 3 * s2 + 1) * ia + (s3 - 2 * s2 + s) * h * fa +
+                (-2 * s3 + 3 * s2) * ib + (s3 - s2) * h * fb;
+    }
+
+    private record Table(double[] times, double[] intensities, double[] rates, int size) {
+
+        double lastTime() {
+            return times[size - 1];
+        }
+
+        double lastIntensity() {
+            return intensities[size - 1];
+        }
+
+        double interpolate(int i, double t) {
+            return hermite(intensities[i], intensities[i + 1], rates[i], rates[i + 1],
+                    times[i], times[i + 1] - times[i], t);
+        }
+
+        /**
+         * Solve the monotone cubic of segment i for the intensity x,
+         * by Newton's method safeguarded by bisection.
+         */
+        double invert(int i, double x) {
+            double lower = times[i];
+            double upper = times[i + 1];
+            double h = upper - lower;
+            // the linear interpolation as the initial guess
+            double t = lower + h * (x - intensities[i]) / (intensities[i + 1] - intensities[i]);
+            for (int iter = 0; iter < 100; iter++) {
+                double g = interpolate(i, t) - x;
+                if (g > 0) upper = t;
+                else lower = t;
+                double s = (t - times[i]) / h;
+                // the derivative of the cubic Hermite spline
+                double dg = (6 * s * s - 6 * s) * (intensities[i] - intensities[i + 1]) / h +
+                        (3 * s * s - 4 * s + 1) * rates[i] + (3 * s * s - 2 * s) * rates[i + 1];
+                double next = dg > 0 ? t - g / dg : Double.NaN;
+                if (!(next > lower && next < upper))
+                    next = (lower + upper) / 2;
+                if (Math.abs(next - t) <= 1e-15 * Math.max(t, h))
+                    return next;
+                t = next;
+            }
+            return t;
+        }
+    }
+
+}
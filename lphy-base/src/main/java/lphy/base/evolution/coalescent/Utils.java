@@ -1,6 +1,7 @@
 package lphy.base.evolution.coalescent;
 
 import lphy.base.math.MathUtils;
+import lphy.core.simulator.RandomUtils;
 
 
 
@@ -10,16 +11,18 @@ public class Utils {
      * Calculates the time interval for a given point in time and population function.
      *
      * @param U Uniform random variable used for randomization.
-     * @param populationFunction Population function used to calculate intensity and inverse intensity.
+     * @param populationFunction Population function used to calculate intensity and inverse intensity,
+     *                           which is tabulated if it is not analytical, see {@link TabulatedIntensity#of(PopulationFunction)}.
      * @param lineageCount The number of currently active pedigrees.
      * @param timeOfLastCoalescent The time of the last merge event.
      * @return The time interval for the next merge event.
      */
     private static double getInterval(double U, PopulationFunction populationFunction,
                                       int lineageCount, double timeOfLastCoalescent) {
-        double intensity = populationFunction.getIntensity(timeOfLastCoalescent);
+        PopulationFunction pf = TabulatedIntensity.of(populationFunction);
+        double intensity = pf.getIntensity(timeOfLastCoalescent);
         double tmp = -Math.log(U) / MathUtils.choose2(lineageCount) + intensity;
-        return populationFunction.getInverseIntensity(tmp) - timeOfLastCoalescent;
+        return pf.getInverseIntensity(tmp) - timeOfLastCoalescent;
     }
 
     /**
@@ -27,7 +30,7 @@ public class Utils {
      */
     public static double getSimulatedInterval(PopulationFunction populationFunction,
                                               int lineageCount, double timeOfLastCoalescent) {
-        double U = Math.random(); // Use the Java standard library to generate random numbers in the interval [0, 1)
+        double U = RandomUtils.getRandom().nextDouble(); // in the interval [0, 1), reproducible by the seed
         return getInterval(U, populationFunction, lineageCount, timeOfLastCoalescent);
     }
 
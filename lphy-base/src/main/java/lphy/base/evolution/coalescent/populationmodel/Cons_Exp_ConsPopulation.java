@@ -1,11 +1,6 @@
 package lphy.base.evolution.coalescent.populationmodel;
 
 import lphy.base.evolution.coalescent.PopulationFunction;
-import org.apache.commons.math3.analysis.UnivariateFunction;
-import org.apache.commons.math3.analysis.solvers.BrentSolver;
-import org.apache.commons.math3.analysis.solvers.UnivariateSolver;
-import org.apache.commons.math3.exception.NoBracketingException;
-import org.apache.commons.math3.exception.TooManyEvaluationsException;
 
 public class Cons_Exp_ConsPopulation implements PopulationFunction {
 
@@ -88,22 +83,8 @@ public class Cons_Exp_ConsPopulation implements PopulationFunction {
         if (intensity <= I_x) {
             return intensity * NC;
         } else if (intensity <= I_tau) {
-            UnivariateFunction equation = new UnivariateFunction() {
-                @Override
-                public double value(double t) {
-                    return getIntensity(t) - intensity;
-                }
-            };
-
-            UnivariateSolver solver = new BrentSolver(1e-8, 1e-6);
-            double tMin = x;
-            double tMax = tau;
-
-            try {
-                return solver.solve(1000, equation, tMin, tMax);
-            } catch (TooManyEvaluationsException | NoBracketingException e) {
-                throw new IllegalArgumentException("Cannot find corresponding time t in the interval (x, tau).", e);
-            }
+            // (exp(r*(t-x))-1)/(r*NC) = intensity-I_x => t = x+log(1+r*NC*(intensity-I_x))/r
+            return x + Math.log1p(r * NC * (intensity - I_x)) / r;
         } else {
             return tau + N0 * (intensity - I_tau);
         }
@@ -111,7 +92,7 @@ public class Cons_Exp_ConsPopulation implements PopulationFunction {
 
     @Override
     public boolean isAnalytical() {
-        return false;
+        return true;
     }
 
     @Override
@@ -1,12 +1,7 @@
 package lphy.base.evolution.coalescent.populationmodel;
 
 import lphy.base.evolution.coalescent.PopulationFunction;
-import org.apache.commons.math3.analysis.UnivariateFunction;
-import org.apache.commons.math3.analysis.integration.IterativeLegendreGaussIntegrator;
-import org.apache.commons.math3.analysis.solvers.BrentSolver;
-import org.apache.commons.math3.analysis.solvers.UnivariateSolver;
-import org.apache.commons.math3.exception.NoBracketingException;
-import org.apache.commons.math3.exception.TooManyEvaluationsException;
+import lphy.base.math.MathUtils;
 
 /**
  * ExpansionPopulation model with an optional ancestral size (NA), controlled by an indicator I_na.
@@ -18,9 +13,8 @@ import org.apache.commons.math3.exception.TooManyEvaluationsException;
  * If I_na=1 and NA>0, then for t > x:
  *   N(t)= (NC - NA)*exp(-r*(t-x)) + NA
  *
- * We use numerical integration for getIntensity(t) when using NA,
- * and also a purely numerical approach in getInverseIntensity(...) whenever t > x.
- * This avoids closed-form solutions in the second segment.
+ * Both getIntensity(t) and getInverseIntensity(...) have closed-form solutions in both segments,
+ * with or without NA.
  */
 public class ExpansionPopulation implements PopulationFunction {
 
@@ -109,7 +103,7 @@ public class ExpansionPopulation implements PopulationFunction {
     /**
      * Cumulative intensity from 0 to t: ∫(0->t) 1/N(u) du
      *   if t <= x => t/NC
-     *   if t > x => x/NC + numeric integration if using NA, else closed form
+     *   if t > x => x/NC + closed form of the exponential segment with or without NA
      */
     @Override
     public double getIntensity(double t) {
@@ -122,25 +116,13 @@ public class ExpansionPopulation implements PopulationFunction {
             double firstPart = x/NC; // segment [0, x]
 
             if (I_na==1 && NA>0.0) {
-                // no closed form => numeric integration
-                UnivariateFunction integrand = (u) -> {
-                    double popU = getTheta(u); // (NC-NA)*exp(-r(u-x)) + NA
-                    return 1.0 / Math.max(popU, 1e-20);
-                };
-                IterativeLegendreGaussIntegrator integrator = new IterativeLegendreGaussIntegrator(
-                        5, 1.0e-12, 1.0e-8, 2, 10000
-                );
-                double secondPart;
-                try {
-                    secondPart = integrator.integrate(Integer.MAX_VALUE, integrand, x, t);
-                } catch (Exception e) {
-                    throw new RuntimeException("Numeric integration failed from x="+x+" to t="+t, e);
-                }
+                // ∫(x->t) 1/[(NC-NA) e^-r(u-x) + NA] = log(1 + NA*(exp(r*(t-x))-1)/NC)/(r*NA)
+                double secondPart = MathUtils.log1pExpm1(NA / NC, r*(t - x))/(r*NA);
                 return firstPart + secondPart;
             } else {
-                // I_na=0 => NA ignored => we do have closed form
+                // I_na=0 => NA ignored
                 // ∫(x->t) 1/[NC e^-r(u-x)] = (exp(r*(t-x)) -1)/(r*NC)
-                double secondPart = (Math.exp(r*(t - x)) - 1.0)/(r*NC);
+                double secondPart = Math.expm1(r*(t - x))/(r*NC);
                 return firstPart + secondPart;
             }
         }
@@ -148,7 +130,7 @@ public class ExpansionPopulation implements PopulationFunction {
 
     /**
      * Inverse intensity: given intensityVal, solve for t.
-     * We handle segment [0, x] analytically, and use a numeric solver for t>x.
+     * Both segments [0, x] and t>x have closed-form solutions.
      */
     @Override
     public double getInverseIntensity(double intensityVal) {
@@ -163,28 +145,19 @@ public class ExpansionPopulation implements PopulationFunction {
             // intensityVal= t/NC => t= intensityVal*NC
             return intensityVal * NC;
         } else {
-            // 2) second segment => t> x
-            //   use numeric approach in [x, someLargeNumber]
-            //   because we might or might not have closed form
-            //   but user specifically wants "calculator" approach => always numeric
-            UnivariateFunction eqn = (timePoint) -> getIntensity(timePoint) - intensityVal;
-            UnivariateSolver solver = new BrentSolver(1e-9, 1e-9);
-            double tMin = x;
-            double tMax = 1e9; // large bound, can expand if needed
-
-            try {
-                return solver.solve(1000, eqn, tMin, tMax);
-            } catch (NoBracketingException | TooManyEvaluationsException e) {
-                throw new IllegalArgumentException("No valid t in [x, ∞) for intensity="+intensityVal, e);
+            // 2) second segment => t> x, the inverse of the exponential segment
+            double y = intensityVal - Ix;
+            if (I_na==1 && NA>0.0) {
+                return x + MathUtils.log1pExpm1(NC / NA, r*NA*y)/r;
+            } else {
+                return x + Math.log1p(r*NC*y)/r;
             }
         }
     }
 
     @Override
     public boolean isAnalytical() {
-        // We'll treat it as 'not fully analytical' because second segment does numeric for I_na=1
-        // or we might say "true if I_na=0" but let's keep it simple
-        return false;
+        return true;
     }
 
     @Override
@@ -1,10 +1,7 @@
 package lphy.base.evolution.coalescent.populationmodel;
 
 import lphy.base.evolution.coalescent.PopulationFunction;
-import org.apache.commons.math3.analysis.UnivariateFunction;
-import org.apache.commons.math3.analysis.integration.IterativeLegendreGaussIntegrator;
-import org.apache.commons.math3.analysis.solvers.BrentSolver;
-import org.apache.commons.math3.analysis.solvers.UnivariateSolver;
+import lphy.base.math.MathUtils;
 
 /**
  * Exponential growth population model with optional ancestral population size NA.
@@ -18,8 +15,7 @@ import org.apache.commons.math3.analysis.solvers.UnivariateSolver;
  *   If r=0, population size is constant at NA.
  *
  * Intensity calculations:
- * - If not using NA (I_na=0 or NA=0), we have a closed-form solution for intensity and inverse intensity.
- * - If using NA (I_na=1 and NA>0), we must use numerical integration and root finding for intensity and inverse intensity.
+ * - Both the intensity and the inverse intensity have closed-form solutions, with or without NA.
  */
 public class ExponentialPopulation implements PopulationFunction {
 
@@ -133,8 +129,7 @@ public class ExponentialPopulation implements PopulationFunction {
     /**
      * Returns the coalescent intensity at time t:
      * Intensity(t) = ∫(0 to t) (1/N(u)) du.
-     * If not using NA, we have closed-form solutions.
-     * If using NA, use numerical integration.
+     * Closed-form solutions with or without NA.
      *
      * @param t time
      * @return intensity at time t
@@ -155,19 +150,19 @@ public class ExponentialPopulation implements PopulationFunction {
                 // integral from 0 to t of exp(r*u)/(N0) du = (exp(r*t)-1)/(r*N0)
                 return (Math.exp(r * t) - 1.0) / (r * N0);
             }
+        } else if (r == 0.0) {
+            // constant population size NA
+            return t / effNA;
         } else {
-            // using NA, need numerical integration
-            UnivariateFunction f = time -> 1.0 / Math.max(getTheta(time), 1e-20);
-            IterativeLegendreGaussIntegrator integrator =
-                    new IterativeLegendreGaussIntegrator(5, 1.0e-12, 1.0e-8, 2, 10000);
-            return integrator.integrate(Integer.MAX_VALUE, f, 0, t);
+            // integral from 0 to t of exp(r*u)/((N0-NA)+NA*exp(r*u)) du
+            //   = log(1 + NA*(exp(r*t)-1)/N0)/(r*NA)
+            return MathUtils.log1pExpm1(effNA / N0, r * t) / (r * effNA);
         }
     }
 
     /**
      * Inverse intensity function: given x = Intensity(t), solve for t.
-     * If not using NA, we have a closed form solution.
-     * If using NA, we resort to a numerical root-finding approach.
+     * Closed-form solutions with or without NA.
      *
      * @param x intensity value
      * @return time t such that Intensity(t)=x
@@ -185,39 +180,15 @@ public class ExponentialPopulation implements PopulationFunction {
             }
             // (exp(r*t)-1)/(r*N0)=x => exp(r*t)=1+r*N0*x => t=log(1+r*N0*x)/r
             return Math.log(1.0 + x * r * N0) / r;
-        } else {
-            // using NA, need root finding
-            UnivariateFunction f = time -> getIntensity(time) - x;
-            UnivariateSolver solver = new BrentSolver();
-
-            double tMin = 0.0;
-            double tMax = estimateInitialTMax(x, effNA);
-            tMax = Math.min(tMax, Double.MAX_VALUE / 2);
-
-            try {
-                return solver.solve(100, f, tMin, tMax);
-            } catch (Exception e) {
-                // if initial guess fails, try expanding tMax
-                tMax *= 2.0;
-                while (tMax < Double.MAX_VALUE / 2) {
-                    try {
-                        return solver.solve(100, f, tMin, tMax);
-                    } catch (Exception ex) {
-                        tMax *= 2.0;
-                    }
-                }
-                throw new RuntimeException("Failed to find a valid time for intensity x=" + x, e);
-            }
+        } else if (r == 0.0) {
+            return x * effNA;
         }
-    }
-
-    /**
-     * Heuristic for estimating an initial upper bound tMax for the solver.
-     */
-    private double estimateInitialTMax(double x, double effNA) {
-        // Just a heuristic to start searching
-        double estimatedTMax = x * effNA * (N0 - effNA) * 1.5;
-        return Math.max(estimatedTMax, 1.0);
+        // log(1 + NA*(exp(r*t)-1)/N0)/(r*NA)=x => t=log(1+N0*(exp(r*NA*x)-1)/NA)/r
+        double t = MathUtils.log1pExpm1(N0 / effNA, r * effNA * x) / r;
+        // if r<0, the intensity is bounded as the population size grows to infinity
+        if (!(t >= 0.0))
+            throw new RuntimeException("Failed to find a valid time for intensity x=" + x);
+        return t;
     }
 
     /**
@@ -233,12 +204,11 @@ public class ExponentialPopulation implements PopulationFunction {
     }
 
     /**
-     * Indicates if a closed-form solution is used:
-     * When not using NA (I_na=0 or NA=0), we have a closed form for intensity.
+     * Indicates if a closed-form solution is used, which is always true.
      */
     @Override
     public boolean isAnalytical() {
-        return !isUsingAncestralPopulation();
+        return true;
     }
 
     @Override
@@ -9,6 +9,7 @@ import org.apache.commons.math3.exception.NoBracketingException;
 import org.apache.commons.math3.exception.TooManyEvaluationsException;
 
 import java.util.Locale;
+import java.util.Objects;
 
 /**
  * Gompertz population model (f0-parameterized) with an optional ancestral population size (NA)
@@ -237,6 +238,27 @@ public class GompertzPopulation_f0 implements PopulationFunction {
     }
 
 
+    /**
+     * Same parameters are equal, so that the tabulated intensity is shared,
+     * see {@link lphy.base.evolution.coalescent.TabulatedIntensity#of(PopulationFunction)}.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GompertzPopulation_f0 that = (GompertzPopulation_f0) o;
+        return Double.compare(N0, that.N0) == 0 &&
+                Double.compare(f0, that.f0) == 0 &&
+                Double.compare(b, that.b) == 0 &&
+                Double.compare(NA, that.NA) == 0 &&
+                I_na == that.I_na;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(N0, f0, b, NA, I_na);
+    }
+
     @Override
     public String toString() {
         if (isUsingAncestralPopulation()) {
@@ -8,6 +8,8 @@ import org.apache.commons.math3.analysis.integration.IterativeLegendreGaussInteg
 import org.apache.commons.math3.analysis.solvers.BrentSolver;
 import org.apache.commons.math3.analysis.solvers.UnivariateSolver;
 
+import java.util.Objects;
+
 /**
  * Gompertz population model parameterized by t50, with optional ancestral size NA
  * controlled by an indicator I_na (0 or 1).
@@ -237,6 +239,28 @@ public class GompertzPopulation_t50 implements PopulationFunction {
         return N0_minus_NA + NA;
     }
 
+    /**
+     * Same parameters are equal, so that the tabulated intensity is shared,
+     * see {@link lphy.base.evolution.coalescent.TabulatedIntensity#of(PopulationFunction)}.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GompertzPopulation_t50 that = (GompertzPopulation_t50) o;
+        return Double.compare(N0, that.N0) == 0 &&
+                Double.compare(b, that.b) == 0 &&
+                Double.compare(NInfinity, that.NInfinity) == 0 &&
+                Double.compare(t50, that.t50) == 0 &&
+                Double.compare(NA, that.NA) == 0 &&
+                I_na == that.I_na;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(N0, b, NInfinity, t50, NA, I_na);
+    }
+
     @Override
     public String toString() {
         if (useAncestralPopulation) {
@@ -1,10 +1,7 @@
 package lphy.base.evolution.coalescent.populationmodel;
 
 import lphy.base.evolution.coalescent.PopulationFunction;
-import org.apache.commons.math3.analysis.UnivariateFunction;
-import org.apache.commons.math3.analysis.integration.IterativeLegendreGaussIntegrator;
-import org.apache.commons.math3.analysis.solvers.BrentSolver;
-import org.apache.commons.math3.analysis.solvers.UnivariateSolver;
+import lphy.base.math.MathUtils;
 
 import java.util.Locale;
 
@@ -22,7 +19,7 @@ import java.util.Locale;
  *            / (1 + exp[growthRate * (t - t50)])
  * </pre>
  * </p>
- * The coalescent intensity is calculated numerically via ∫1/N(t) dt.
+ * The coalescent intensity ∫1/N(t) dt is calculated in closed form.
  */
 public class LogisticPopulation implements PopulationFunction {
 
@@ -32,9 +29,6 @@ public class LogisticPopulation implements PopulationFunction {
     private final double ancestralPopulation; // NA (may be 0 if ignored)
     private final int iNa;                  // 0 or 1
 
-    // A small "resolution" factor used to check for extremely small N(t) if desired
-    private static final double RESOLUTION_MAGIC_NUMBER = 1e3;
-
     /**
      * A single constructor for logistic growth with an optional ancestral population (NA) and indicator (iNa).
      * <p>
@@ -98,71 +92,95 @@ public class LogisticPopulation implements PopulationFunction {
     }
 
     /**
-     * Returns the coalescent intensity: ∫(0..t) [1/N(u)] du, computed by numerical integration.
+     * Returns the coalescent intensity: ∫(0..t) [1/N(u)] du, in closed form:
+     * <pre>
+     *   without NA: (t + (exp(b*(t-t50)) - exp(-b*t50))/b) / K
+     *   with NA:    t/K + (K-NA)/(K*NA*b) * log((K + NA*exp(b*(t-t50))) / (K + NA*exp(-b*t50)))
+     * </pre>
      */
     @Override
     public double getIntensity(double t) {
         if (t <= 0.0) {
             return 0.0;
         }
-
-        // Optional check for extremely small pop sizes:
-        if (getTheta(t) < carryingCapacity / RESOLUTION_MAGIC_NUMBER) {
-            // e.g. we might throw a warning or skip, but we'll proceed
+        if (growthRate == 0.0) {
+            // constant population size N(0)
+            return t / getTheta(0.0);
         }
 
-        UnivariateFunction integrand = x -> 1.0 / Math.max(getTheta(x), 1e-20);
-        IterativeLegendreGaussIntegrator integrator = new IterativeLegendreGaussIntegrator(
-                5, 1.0e-12, 1.0e-8, 2, 10000
-        );
-        return integrator.integrate(Integer.MAX_VALUE, integrand, 0.0, t);
+        double e0 = Math.exp(-growthRate * t50);
+        if (isUsingAncestralPopulation()) {
+            double K = carryingCapacity;
+            double NA = ancestralPopulation;
+            // log((K + NA*e0*exp(b*t)) / (K + NA*e0))
+            double logRatio = MathUtils.log1pExpm1(NA * e0 / (K + NA * e0), growthRate * t);
+            return t / K + (K - NA) / (K * NA * growthRate) * logRatio;
+        } else {
+            return (t + e0 * Math.expm1(growthRate * t) / growthRate) / carryingCapacity;
+        }
     }
 
     /**
-     * Solves for t given x = Intensity(t), using a Brent solver.
+     * Solves for t given x = Intensity(t), using Newton's method on the closed-form intensity.
+     * As N(t) is monotone between N(0) and N(∞), the root is bracketed by x*N(0) and x*N(∞),
+     * and the bracket is bisected instead, when a Newton step leaves it or does not converge fast,
+     * e.g. where N(t) collapses.
      */
     @Override
     public double getInverseIntensity(double x) {
         if (x <= 0.0) {
             return 0.0;
         }
-
-        UnivariateFunction f = time -> getIntensity(time) - x;
-        UnivariateSolver solver = new BrentSolver();
-
-        double tMin, tMax;
-        double intensityAtT50 = getIntensity(t50);
-
-        if (x <= intensityAtT50) {
-            tMin = 0.0;
-            tMax = t50;
-        } else {
-            tMin = t50;
-            tMax = 2.0 * t50;
-            while (getIntensity(tMax) < x) {
-                if (tMax < Double.MAX_VALUE / 2.0) {
-                    tMax *= 2.0;
-                } else {
-                    tMax = Double.MAX_VALUE;
-                    System.err.println("Reached Double.MAX_VALUE for tMax bracket");
-                    break;
-                }
+        double n0 = getTheta(0.0);
+        if (growthRate == 0.0) {
+            return x * n0;
+        }
+        double nInf = isUsingAncestralPopulation() ? ancestralPopulation : 0.0;
+        double lower = x * Math.min(n0, nInf);
+        double upper = x * Math.max(n0, nInf);
+        double t = 0.5 * (lower + upper);
+        double dxOld = upper - lower;
+        double dx = dxOld;
+
+        for (int i = 0; i < 500; i++) {
+            double g = getIntensity(t) - x;
+            if (g == 0.0) {
+                return t;
+            } else if (g > 0) {
+                upper = t;
+            } else {
+                lower = t;
+            }
+            // Newton step, where the derivative of intensity is 1/N(t)
+            double step = g * getTheta(t);
+            double next = t - step;
+            if (!(next > lower && next < upper) || Math.abs(2.0 * step) > Math.abs(dxOld)) {
+                dxOld = dx;
+                dx = 0.5 * (upper - lower);
+                next = lower + dx;
+            } else {
+                dxOld = dx;
+                dx = step;
+            }
+            if (upper - lower <= 1e-14 * Math.max(next, 1.0) ||
+                    (Math.abs(dx) <= 1e-14 * Math.max(next, 1.0) && Math.abs(g) <= 1e-12 * x)) {
+                return next;
             }
+            t = next;
         }
-
-        try {
-            return solver.solve(100, f, tMin, tMax);
-        } catch (Exception e) {
+        if (!Double.isFinite(t)) {
             throw new RuntimeException(
-                    String.format("Failed to find valid time for intensity=%.4f", x), e
-            );
+                    String.format("Failed to find valid time for intensity=%.4f", x));
         }
+        return t;
     }
 
+    /**
+     * The intensity is in closed form, and its inverse only takes a few Newton iterations.
+     */
     @Override
     public boolean isAnalytical() {
-        // We use numeric integration
-        return false;
+        return true;
     }
 
     /**
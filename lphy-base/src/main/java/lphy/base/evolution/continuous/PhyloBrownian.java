@@ -11,13 +11,10 @@ import lphy.core.model.annotation.Citation;
 import lphy.core.model.annotation.GeneratorCategory;
 import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
-import lphy.core.model.datatype.DoubleValue;
 import lphy.core.simulator.RandomUtils;
-import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.Map;
-import java.util.SortedMap;
 import java.util.TreeMap;
 
 /**
@@ -87,12 +84,9 @@ public class PhyloBrownian implements GenerativeDistribution<ContinuousCharacter
                     "(The sampling distribution that the phylogenetic continuous trait likelihood is derived from.)")
     public RandomVariable<ContinuousCharacterData> sample() {
 
-        SortedMap<String, Integer> idMap = new TreeMap<>();
-        fillIdMap(tree.value().getRoot(), idMap);
-
         Map<String, Double> tipValues = new TreeMap<>();
 
-        traverseTree(tree.value().getRoot(), y0, tipValues, diffusionRate.value(), idMap);
+        traverseTree(tree.value().getRoot(), y0.value(), tipValues, diffusionRate.value());
 
         Taxa taxa = Taxa.createTaxa(tipValues.keySet().toArray());
         Double[][] values = new Double[taxa.ntaxa()][1];
@@ -110,44 +104,25 @@ public class PhyloBrownian implements GenerativeDistribution<ContinuousCharacter
         return "Continuous Character Data";
     }
 
-    private void fillIdMap(TimeTreeNode node, SortedMap<String, Integer> idMap) {
-        if (node.isLeaf()) {
-            Integer i = idMap.get(node.getId());
-            if (i == null) {
-                int nextValue = 0;
-                for (Integer j : idMap.values()) {
-                    if (j >= nextValue) nextValue = j + 1;
-                }
-                idMap.put(node.getId(), nextValue);
-            }
-        } else {
-            for (TimeTreeNode child : node.getChildren()) {
-                fillIdMap(child, idMap);
-            }
-        }
-    }
-
-    private void traverseTree(TimeTreeNode node, Value<Double> nodeState, Map<String, Double> tipValues, double diffusionRate, Map<String, Integer> idMap) {
+    private void traverseTree(TimeTreeNode node, double nodeState, Map<String, Double> tipValues, double diffusionRate) {
         if (node.isLeaf()) {
-            tipValues.put(node.getId(), nodeState.value());
+            tipValues.put(node.getId(), nodeState);
         } else {
             for (TimeTreeNode child : node.getChildren()) {
 
                 double variance = diffusionRate * (node.getAge() - child.getAge());
 
-                double newState = sampleNewState(nodeState.value(), variance, child.getIndex());
+                double newState = sampleNewState(nodeState, variance, child.getIndex());
 
-                traverseTree(child, new DoubleValue("x", newState), tipValues, diffusionRate, idMap);
+                traverseTree(child, newState, tipValues, diffusionRate);
             }
         }
     }
 
     protected double sampleNewState(double initialState, double time, int nodeIndex) {
-        // use code available since apache math 3.1, see #215
-        NormalDistribution distribution = new
-                NormalDistribution(random, initialState, Math.sqrt(time * diffusionRate.value()),
-                NormalDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
-        return handleBoundaries(distribution.sample());
+        // same as NormalDistribution#sample(), but not creating the distribution per branch
+        double sd = Math.sqrt(time * diffusionRate.value());
+        return handleBoundaries(sd * random.nextGaussian() + initialState);
     }
 
     protected double handleBoundaries(double rawValue) {
@@ -1,6 +1,6 @@
 package lphy.base.evolution.continuous;
 
-import lphy.base.array.StringDoubleArrayMap;
+import lphy.base.evolution.Taxa;
 import lphy.base.evolution.alignment.ContinuousCharacterData;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
@@ -10,15 +10,16 @@ import lphy.core.model.Value;
 import lphy.core.model.annotation.GeneratorCategory;
 import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
-import lphy.core.model.datatype.DoubleArrayValue;
+import lphy.core.model.datatype.PrimitiveArrayUtils;
 import lphy.core.simulator.RandomUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.math3.distribution.MultivariateNormalDistribution;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.NonPositiveDefiniteMatrixException;
 import org.apache.commons.math3.random.RandomGenerator;
 
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.*;
 
 /**
  * Created by Alexei Drummond on 2/02/20.
@@ -30,6 +31,10 @@ public class PhyloMultivariateBrownian implements GenerativeDistribution<Continu
     Value<Double[]> y0;
     RandomGenerator random;
 
+    // the square root of the diffusion matrix, and the values it is computed from
+    private double[][] samplingMatrix;
+    private Double[][] cachedDiffusionMatrix;
+
     public static final String treeParamName = "tree";
     public static final String diffusionMatrixParamName = "diffusionMatrix";
     public static final String y0ParamName = "y0";
@@ -49,71 +54,78 @@ public class PhyloMultivariateBrownian implements GenerativeDistribution<Continu
             category = GeneratorCategory.PHYLO_LIKELIHOOD, examples = {"simplePhyloMultivariateBrownian.lphy"},
             description = "The phylogenetic multivariate Brownian motion distribution.")
     public RandomVariable<ContinuousCharacterData> sample() {
-
-        SortedMap<String, Integer> idMap = new TreeMap<>();
-        fillIdMap(tree.value().getRoot(), idMap); // populate idMap in place
-
-        // populate tipValues (key = species name, value = trait values)
-        Map<String, Double[]> tipValues = new StringDoubleArrayMap(); // StringDoubleArrayMap extends Java API's TreeMap
-        fillValuesTraversingTree(tree.value().getRoot(), y0, tipValues, diffusionMatrix.value(), idMap);
-
-        // put tipValues inside contData
-        Double[][] contData = new Double[tree.value().n()][y0.value().length];
-        for (Map.Entry<String, Double[]> entry : tipValues.entrySet()) {
-            contData[tree.value().getTaxa().indexOfTaxon(entry.getKey())] = entry.getValue();
-        }
-
-        return new RandomVariable<>("x", new ContinuousCharacterData(tree.value().getTaxa(), contData), this);
+        return new RandomVariable<>("x", sampleTraitSets(1)[0], this);
     }
 
-    /*
-     * Side-effect: populates idMap in place
-     *
-     * key = the (String) name of a species
-     * value = an integer associated to that species
+    /**
+     * Simulate the independent sets of multivariate traits in one pass over the tree,
+     * where each branch draws the traits of every set.
+     * The sampling matrix of the diffusion matrix is only decomposed once,
+     * because the covariance of a branch is <code>branchLength * diffusionMatrix</code>,
+     * so its square root is <code>sqrt(branchLength)</code> times the one of the diffusion matrix.
+     * @param nSets  the number of trait sets
+     * @return  the trait values at the tips of each set.
      */
-    private void fillIdMap(TimeTreeNode node, SortedMap<String, Integer> idMap) {
-        if (node.isLeaf()) {
-            Integer i = idMap.get(node.getId()); // will be null the first time this is done because idMap is empty!
-
-            if (i == null) {
-                int nextValue = 0; // if looking at first leaf, it's mapped to value 0
-
-                for (Integer j : idMap.values()) {
-                    if (j >= nextValue)
-                        nextValue = j + 1; // if looking at second or later species, we add +1 to integer that will be its value
-                }
-
-                idMap.put(node.getId(), nextValue);
-            }
-        }
-
-        // recur
-        else {
-            for (TimeTreeNode child : node.getChildren()) {
-                fillIdMap(child, idMap);
-            }
+    public ContinuousCharacterData[] sampleTraitSets(int nSets) {
+        if (nSets < 1)
+            throw new IllegalArgumentException("The number of trait sets must be positive ! " + nSets);
+        TimeTree timeTree = tree.value();
+        double[] rootState = PrimitiveArrayUtils.toDoubles(y0.value());
+        double[][] samplingMatrix = getSamplingMatrix(diffusionMatrix.value());
+        if (samplingMatrix.length != rootState.length)
+            throw new IllegalArgumentException("The dimension of diffusion matrix " + samplingMatrix.length +
+                    " does not match the number of traits in y0 " + rootState.length + " !");
+
+        // the row of each tip in contData
+        Taxa taxa = timeTree.getTaxa();
+        String[] taxaNames = taxa.getTaxaNames();
+        Map<String, Integer> taxonIndex = new HashMap<>();
+        for (int i = 0; i < taxaNames.length; i++)
+            taxonIndex.put(taxaNames[i], i);
+
+        double[][] rootStates = new double[nSets][];
+        Arrays.fill(rootStates, rootState);
+        double[][][] tipStates = new double[nSets][timeTree.n()][];
+        // populate tipStates (set, taxon, trait values)
+        fillValuesTraversingTree(timeTree.getRoot(), rootStates, tipStates, samplingMatrix, taxonIndex,
+                new double[rootState.length]);
+
+        ContinuousCharacterData[] data = new ContinuousCharacterData[nSets];
+        for (int s = 0; s < nSets; s++) {
+            // put tip values inside contData
+            Double[][] contData = new Double[timeTree.n()][];
+            for (int t = 0; t < contData.length; t++)
+                contData[t] = tipStates[s][t] != null ? handleBoundaries(tipStates[s][t]) : new Double[rootState.length];
+            data[s] = new ContinuousCharacterData(taxa, contData);
         }
+        return data;
     }
 
     /*
-     * Side-effect: populates tipValues in place
+     * Side-effect: populates tipStates in place
      *
-     * tipValues is a map (key = species name, value = trait values)
+     * nodeStates are the trait values of this node in every set
      */
-    private void fillValuesTraversingTree(TimeTreeNode node, Value<Double[]> nodeState, Map<String, Double[]> tipValues, Double[][] diffusionMatrix, Map<String, Integer> idMap) {
+    private void fillValuesTraversingTree(TimeTreeNode node, double[][] nodeStates, double[][][] tipStates,
+                                          double[][] samplingMatrix, Map<String, Integer> taxonIndex, double[] z) {
         if (node.isLeaf()) {
-            tipValues.put(node.getId(), nodeState.value()); // finished traversing tree, we have our tip values
+            // finished traversing tree, we have our tip values
+            Integer t = taxonIndex.get(node.getId());
+            if (t != null) {
+                for (int s = 0; s < nodeStates.length; s++)
+                    tipStates[s][t] = nodeStates[s];
+            }
         }
 
         // recur
         else {
             for (TimeTreeNode child : node.getChildren()) {
                 double branchLength = node.getAge() - child.getAge();
-                Double[] newIntNodeState = getSampleFromNewMVN(nodeState.value(), diffusionMatrix, branchLength); // MVN sampling here
-                DoubleArrayValue newIntNodeStateValue = new DoubleArrayValue(null, newIntNodeState);
+                double[][] childStates = new double[nodeStates.length][];
+                for (int s = 0; s < nodeStates.length; s++)
+                    childStates[s] = sampleNewState(nodeStates[s], samplingMatrix, branchLength, z); // MVN sampling here
 
-                fillValuesTraversingTree(child, newIntNodeStateValue, tipValues, diffusionMatrix, idMap);
+                fillValuesTraversingTree(child, childStates, tipStates, samplingMatrix, taxonIndex, z);
             }
         }
     }
@@ -133,34 +145,76 @@ public class PhyloMultivariateBrownian implements GenerativeDistribution<Continu
      */
 
     /*
-     * Returns a random sample from a (new) MVN distribution
+     * Returns a random sample from the MVN distribution
      * defined from:
-     * (1) a previous (MVN) mean and var-cov, and
-     * (2) some waiting time during which diffusion happens (branchLength);
-     * at the end of this waiting time, we draw
+     * (1) a previous (MVN) mean, and
+     * (2) some waiting time during which diffusion happens (branchLength),
+     * whose var-cov is diffusionMatrix * branchLength;
+     * at the end of this waiting time, we draw.
+     * It draws the same standard normals as MultivariateNormalDistribution#sample(),
+     * but scales the cached sampling matrix by sqrt(branchLength).
      */
-    Double[] getSampleFromNewMVN(Double[] oldValue, Double[][] diffusionMatrix, double branchLength) {
-        // initializing moment containers of MVN
-        double[] means = new double[oldValue.length];
-        double[][] covariances = new double[diffusionMatrix.length][diffusionMatrix[0].length];
-
-        // populating moment containers
-        for (int i = 0; i < covariances.length; i++) {
-            means[i] = oldValue[i]; // mean remains the same under BM
-
-            /*
-             * variances and co-variances must be updated (they increase with time
-             * as diffusion is happening), which is done here by multiplying
-             * previous var-covars by branchLength
-             */
-            for (int j = 0; j < covariances.length; j++) {
-                covariances[i][j] = diffusionMatrix[i][j] * branchLength;
-            }
+    double[] sampleNewState(double[] oldValue, double[][] samplingMatrix, double branchLength, double[] z) {
+        final int dim = oldValue.length;
+        for (int i = 0; i < dim; i++)
+            z[i] = random.nextGaussian();
+
+        final double scale = Math.sqrt(branchLength);
+        double[] newValue = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            double sum = 0;
+            for (int j = 0; j < dim; j++)
+                sum += samplingMatrix[i][j] * z[j];
+            // mean remains the same under BM
+            newValue[i] = oldValue[i] + scale * sum;
         }
+        return newValue;
+    }
 
-        MultivariateNormalDistribution mvn = new MultivariateNormalDistribution(random, means, covariances);
+    /**
+     * The sampling matrix is the symmetric square root <code>V sqrt(D) V^T</code>
+     * from the eigen decomposition of the diffusion matrix,
+     * as {@link MultivariateNormalDistribution} computes for its covariance matrix.
+     * It is cached until the values of the diffusion matrix change.
+     * @param diffusionMatrix  the diffusion matrix, which must be positive semi-definite.
+     * @return  the sampling matrix.
+     */
+    double[][] getSamplingMatrix(Double[][] diffusionMatrix) {
+        if (samplingMatrix != null && Arrays.deepEquals(diffusionMatrix, cachedDiffusionMatrix))
+            return samplingMatrix;
+
+        final int dim = diffusionMatrix.length;
+        EigenDecomposition decomposition = new EigenDecomposition(
+                new Array2DRowRealMatrix(PrimitiveArrayUtils.toDoubles(diffusionMatrix), false));
+        double[] eigenvalues = decomposition.getRealEigenvalues();
+        for (int i = 0; i < eigenvalues.length; i++) {
+            if (eigenvalues[i] < 0)
+                throw new NonPositiveDefiniteMatrixException(eigenvalues[i], i, 0);
+        }
+        // each column is an eigenvector, scaled by the square root of its eigenvalue
+        double[][] vectors = new double[dim][dim];
+        double[][] scaled = new double[dim][dim];
+        for (int v = 0; v < dim; v++) {
+            double[] eigenvector = decomposition.getEigenvector(v).toArray();
+            double factor = Math.sqrt(eigenvalues[v]);
+            for (int i = 0; i < dim; i++) {
+                vectors[i][v] = eigenvector[i];
+                scaled[i][v] = eigenvector[i] * factor;
+            }
+        }
+        double[][] matrix = new double[dim][dim];
+        for (int i = 0; i < dim; i++) {
+            for (int j = 0; j < dim; j++) {
+                double sum = 0;
+                for (int k = 0; k < dim; k++)
+                    sum += vectors[i][k] * scaled[j][k];
+                matrix[i][j] = sum;
+            }
+        }
 
-        return handleBoundaries(mvn.sample());
+        samplingMatrix = matrix;
+        cachedDiffusionMatrix = Arrays.stream(diffusionMatrix).map(Double[]::clone).toArray(Double[][]::new);
+        return samplingMatrix;
     }
 
     // getParams is in the Generator interface
@@ -7,7 +7,6 @@ import lphy.core.model.Value;
 import lphy.core.model.annotation.GeneratorCategory;
 import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
-import org.apache.commons.math3.distribution.NormalDistribution;
 
 import java.util.SortedMap;
 import java.util.TreeMap;
@@ -82,10 +81,8 @@ public class PhyloOU extends PhyloBrownian {
 
         double variance = v * (1.0 - Math.exp(-2.0 * a * time));
 
-        // use code available since apache math 3.1, see #215
-        NormalDistribution distribution = new NormalDistribution(random, mean, Math.sqrt(variance),
-                NormalDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
-        return handleBoundaries(distribution.sample());
+        // same as NormalDistribution#sample(), but not creating the distribution per branch
+        return handleBoundaries(Math.sqrt(variance) * random.nextGaussian() + mean);
     }
 
     @GeneratorInfo(name = "PhyloOU", verbClause = "is assumed to have evolved under",
@@ -1,6 +1,7 @@
 package lphy.base.evolution.likelihood;
 
 import jebl.evolution.sequences.SequenceType;
+import lphy.base.distribution.Categorical;
 import lphy.base.evolution.alignment.Alignment;
 import lphy.base.evolution.alignment.SimpleAlignment;
 import lphy.base.evolution.tree.TimeTree;
@@ -8,6 +9,7 @@ import lphy.base.evolution.tree.TimeTreeNode;
 import lphy.core.logger.LoggerUtils;
 import lphy.core.model.GenerativeDistribution;
 import lphy.core.model.Value;
+import lphy.core.model.datatype.PrimitiveArrayUtils;
 import lphy.core.simulator.RandomUtils;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.EigenDecomposition;
@@ -15,9 +17,11 @@ import org.apache.commons.math3.linear.RealVector;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.util.FastMath;
 
-import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * Extract Alexei's code shared by {@link PhyloCTMC} and {@link PhyloCTMCSiteModel}
@@ -34,6 +38,7 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
     public static final String LParamName = "L";
     public static final String dataTypeParamName = "dataType";
     public static final String rootSeqParamName = "root";
+    public static final String threadsParamName = "threads";
 
     protected Value<TimeTree> tree;
     protected Value<Number> clockRate;
@@ -42,6 +47,8 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
     protected Value<Double[]> branchRates;
     protected Value<Integer> L;
     protected Value<SequenceType> dataType;
+    // the number of threads to simulate sites in parallel, null or 0 to simulate them sequentially
+    protected Value<Integer> threads;
     protected RandomGenerator random;
 
     // these are all initialized in setup method.
@@ -54,6 +61,24 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
     private double[][] iexp;
     private double[] Eval;
 
+    private int branchCount;
+
+    /**
+     * The tree in the pre-order traversal, where the node index (slot) 0 is the root,
+     * and the child node at slot k has the branch k-1 in the cache above.
+     * preorderParents[k] is the slot of its parent node, and preorderLeafIndices[k] is
+     * the leaf index to output its sequence, or -1 if no sequence is required.
+     */
+    private int[] preorderParents;
+    private int[] preorderLeafIndices;
+    // the number of random numbers to simulate sites per block
+    private static final int DRAWS_PER_BLOCK = 1 << 16;
+    // the maximum number of double values to tabulate the transition probability matrices
+    private static final int MAX_CACHED_TRANS_PROBS = 1 << 23;
+
+    // the minimum number of sites per chunk simulated in parallel, which must not depend on the number of threads
+    private static final int SITES_PER_CHUNK = 1 << 12;
+
 
     public AbstractPhyloCTMC(Value<TimeTree> tree, Value<Number> clockRate, Value<Double[]> freq,
                              Value<Double[]> branchRates, Value<Integer> l, Value<SequenceType> dataType) {
@@ -106,13 +131,9 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
         transProb = new double[numStates][numStates];
         iexp = new double[numStates][numStates];
 
-        double[][] primitive = new double[numStates][numStates];
-        for (int i = 0; i < numStates; i++) {
-            for (int j = 0; j < numStates; j++) {
-                primitive[i][j] = Qm[i][j];
-            }
-        }
-        Array2DRowRealMatrix Qmatrix = new Array2DRowRealMatrix(primitive);
+        double[][] primitive = PrimitiveArrayUtils.toDoubles(Qm);
+        // not copy again
+        Array2DRowRealMatrix Qmatrix = new Array2DRowRealMatrix(primitive, false);
 
         decomposition = new EigenDecomposition(Qmatrix);
         Eval = decomposition.getRealEigenvalues();
@@ -133,8 +154,15 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
         if (rootFreqs == null) {
             rootFreqs = computeEquilibrium(transProb);
         }
+
+        // tree could change since the previous sample
+        fillPreorder(tree.value().getRoot());
     }
 
+    /**
+     * Simulate the states of one site from the node to the tips,
+     * where the transition probability matrix is computed on each branch, and nothing is kept after it.
+     */
     protected void traverseTree(TimeTreeNode node, int nodeState, SimpleAlignment alignment,
                                 int pos, double[][] transProb, double clockRate, double siteRate) {
 
@@ -157,8 +185,293 @@ public abstract class AbstractPhyloCTMC implements GenerativeDistribution<Alignm
         }
     }
 
+    /**
+     * Fill the transition probability matrices of all branches given the rate multiplier,
+     * ordered by the pre-order traversal of the child nodes.
+     * @return  the next branch index after the subtree of the node.
+     */
+    private int fillBranchTransProbs(TimeTreeNode node, double rate, double[][][] branchTransProbs, int branch) {
+        for (TimeTreeNode child : node.getChildren()) {
+            double branchLength = rate * (node.getAge() - child.getAge());
+
+            if (branchRates != null) {
+                branchLength *= branchRates.value()[child.getIndex()];
+            }
+
+            getTransitionProbabilities(branchLength, branchTransProbs[branch]);
+
+            branch = fillBranchTransProbs(child, rate, branchTransProbs, branch + 1);
+        }
+        return branch;
+    }
+
+    private void fillPreorder(TimeTreeNode root) {
+        List<Integer> parents = new ArrayList<>();
+        List<Integer> leafIndices = new ArrayList<>();
+        // iterative pre-order traversal visiting the children in the same order as traverseTree
+        Deque<TimeTreeNode> nodeStack = new ArrayDeque<>();
+        Deque<Integer> parentStack = new ArrayDeque<>();
+        nodeStack.push(root);
+        parentStack.push(-1);
+        while (!nodeStack.isEmpty()) {
+            TimeTreeNode node = nodeStack.pop();
+            int slot = parents.size();
+            parents.add(parentStack.pop());
+            leafIndices.add(node.isLeaf() || (node.isSingleChildNonOrigin() && node.getId() != null) ?
+                    node.getLeafIndex() : -1);
+            List<TimeTreeNode> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                nodeStack.push(children.get(i));
+                parentStack.push(slot);
+            }
+        }
+        preorderParents = parents.stream().mapToInt(Integer::intValue).toArray();
+        preorderLeafIndices = leafIndices.stream().mapToInt(Integer::intValue).toArray();
+        branchCount = preorderParents.length - 1;
+    }
+
+    /**
+     * Simulate all sites of the alignment. If the transition probabilities of the distinct site rates
+     * can be tabulated, the sites are simulated block by block, where the tree is walked once
+     * per block in the pre-order, and the states are drawn from cumulative probability tables.
+     * Otherwise, each site is simulated by {@link #traverseTree(TimeTreeNode, int, SimpleAlignment, int, double[][], double, double)}.
+     * Both give the same alignment for the same seed, because the random numbers are
+     * drawn in the same order as site by site.
+     * The tables are local to this call, so nothing is kept after the alignment is simulated.
+     * @param alignment  the alignment to fill in.
+     * @param rootSeq    the root sequence (taxon 0), or null to draw the root states from the root frequencies.
+     * @param clockRate  the clock rate.
+     * @param siteRates  the rate of each site.
+     */
+    protected void simulateAlignment(SimpleAlignment alignment, Alignment rootSeq,
+                                     double clockRate, double[] siteRates) {
+        final int nSites = alignment.nchar();
+        List<Double> rates = new ArrayList<>();
+        int[] siteRateIndices = indexSiteRates(clockRate, siteRates, rates);
+        if (!isTabulated(rates.size(), nSites)) {
+            simulateSiteBySite(alignment, rootSeq, clockRate, siteRates);
+            return;
+        }
+
+        // the cumulative probability tables of the distinct rates
+        final int numStates = transProb.length;
+        double[][][] branchTransProbs = new double[branchCount][numStates][numStates];
+        double[][][][] cumTransProbsByRate = new double[rates.size()][][][];
+        for (int r = 0; r < rates.size(); r++) {
+            fillBranchTransProbs(tree.value().getRoot(), rates.get(r), branchTransProbs, 0);
+            cumTransProbsByRate[r] = toCumulative(branchTransProbs);
+        }
+        final int nThreads = getSiteThreads();
+        if (nThreads > 0)
+            simulateChunksInParallel(alignment, rootSeq, cumTransProbsByRate, siteRateIndices, nThreads);
+        else
+            // the generator of this thread, without looking it up on every draw
+            simulateBlocks(alignment, rootSeq, cumTransProbsByRate, siteRateIndices, 0, nSites,
+                    RandomUtils.getThreadRandom());
+    }
+
+    /**
+     * @param clockRate  the clock rate.
+     * @param siteRates  the rate of each site.
+     * @param rates      the list to add the distinct rate multipliers (site rate * clock rate) to,
+     *                   in the order of their first sites.
+     * @return  the index of the rate multiplier in the list for each site.
+     */
+    static int[] indexSiteRates(double clockRate, double[] siteRates, List<Double> rates) {
+        Map<Double, Integer> rateIndices = new HashMap<>();
+        int[] siteRateIndices = new int[siteRates.length];
+        for (int i = 0; i < siteRates.length; i++) {
+            // same as the branch length computation
+            final Double rate = siteRates[i] * clockRate;
+            Integer r = rateIndices.get(rate);
+            if (r == null) {
+                r = rates.size();
+                rates.add(rate);
+                rateIndices.put(rate, r);
+            }
+            siteRateIndices[i] = r;
+        }
+        return siteRateIndices;
+    }
+
+    /**
+     * @param nRates  the number of distinct rate multipliers.
+     * @param nSites  the number of sites.
+     * @return  true if the tables of the distinct rates fit in {@link #MAX_CACHED_TRANS_PROBS},
+     *          and each rate is shared by two sites on average, which is not the case for continuous site rates,
+     *          where a table would be used by one site only.
+     */
+    boolean isTabulated(int nRates, int nSites) {
+        final int numStates = transProb.length;
+        return (long) nRates * branchCount * numStates * numStates <= MAX_CACHED_TRANS_PROBS &&
+                (nRates == 1 || 2L * nRates <= nSites);
+    }
+
+    /**
+     * Split the sites into the chunks of {@link #getSitesPerChunk(int)}, and simulate them in parallel
+     * into the disjoint columns of the alignment, whose packed states do not share any long between chunks.
+     * Each chunk uses its own random number generator,
+     * whose seed is derived from a seed drawn from {@link #random} and the chunk index,
+     * so the alignment only depends on the seed but not the number of threads.
+     * The threads are only kept during this simulation.
+     */
+    private void simulateChunksInParallel(SimpleAlignment alignment, Alignment rootSeq,
+                                          double[][][][] cumTransProbs, int[] siteRateIndices, int nThreads) {
+        final int nSites = alignment.nchar();
+        final long chunkSeed = random.nextLong();
+        final int sitesPerChunk = getSitesPerChunk(alignment.getSitesPerWordBoundary());
+        assert sitesPerChunk % alignment.getSitesPerWordBoundary() == 0;
+        final int nChunks = (nSites + sitesPerChunk - 1) / sitesPerChunk;
+
+        List<Callable<Void>> chunks = new ArrayList<>(nChunks);
+        for (int c = 0; c < nChunks; c++) {
+            final int from = c * sitesPerChunk;
+            final int to = Math.min(nSites, from + sitesPerChunk);
+            final int chunk = c;
+            chunks.add(() -> {
+                simulateBlocks(alignment, rootSeq, cumTransProbs, siteRateIndices, from, to,
+                        RandomUtils.createStream(chunkSeed, chunk));
+                return null;
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool(nThreads);
+        try {
+            for (Future<Void> future : pool.invokeAll(chunks))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Simulating sites in parallel is interrupted !", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re)
+                throw re;
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @param sitesPerWordBoundary  {@link SimpleAlignment#getSitesPerWordBoundary()}
+     * @return  {@link #SITES_PER_CHUNK} rounded up to a multiple of the sites per word boundary,
+     *          so that the chunks can be written without locks.
+     */
+    static int getSitesPerChunk(int sitesPerWordBoundary) {
+        return (SITES_PER_CHUNK + sitesPerWordBoundary - 1) / sitesPerWordBoundary * sitesPerWordBoundary;
+    }
+
+    private void simulateSiteBySite(SimpleAlignment alignment, Alignment rootSeq,
+                                    double clockRate, double[] siteRates) {
+        for (int i = 0; i < alignment.nchar(); i++) {
+            // use simulated or user specified root sequence, where root taxon is 0
+            int rootState = rootSeq != null ? rootSeq.getState(0, i) :
+                    Categorical.sample(rootFreqs.value(), random);
+            traverseTree(tree.value().getRoot(), rootState, alignment, i, transProb, clockRate, siteRates[i]);
+        }
+    }
+
+    // simulate the sites in [from, to), which only reads the shared fields
+    private void simulateBlocks(SimpleAlignment alignment, Alignment rootSeq, double[][][][] cumTransProbs,
+                                int[] siteRateIndices, int from, int to, RandomGenerator siteRandom) {
+        final int nSites = to - from;
+        final int nodeCount = preorderParents.length;
+        // random numbers per site: the root state (if no root sequence) and one per branch
+        final int firstBranchDraw = rootSeq == null ? 1 : 0;
+        final int drawsPerSite = firstBranchDraw + branchCount;
+        final int blockSize = Math.max(1, Math.min(nSites, DRAWS_PER_BLOCK / Math.max(1, drawsPerSite)));
+
+        final double[] rootCumFreqs = toCumulative(rootFreqs.value());
+        // node states of a block, where the sites of a node are contiguous
+        final int[] nodeStates = new int[nodeCount * blockSize];
+        final double[] randoms = new double[drawsPerSite * blockSize];
+
+        for (int start = from; start < to; start += blockSize) {
+            final int len = Math.min(blockSize, to - start);
+            // keep the same order of random numbers as simulating site by site
+            for (int n = 0; n < drawsPerSite * len; n++)
+                randoms[n] = siteRandom.nextDouble();
+
+            for (int j = 0; j < len; j++) {
+                nodeStates[j] = rootSeq != null ? rootSeq.getState(0, start + j) :
+                        drawCumulative(rootCumFreqs, randoms[j * drawsPerSite]);
+            }
+            for (int slot = 1; slot < nodeCount; slot++) {
+                final int branch = slot - 1;
+                final int parentOffset = preorderParents[slot] * blockSize;
+                final int offset = slot * blockSize;
+                final int draw = firstBranchDraw + branch;
+                for (int j = 0; j < len; j++) {
+                    double[] cumProbs = cumTransProbs[siteRateIndices[start + j]][branch][nodeStates[parentOffset + j]];
+                    nodeStates[offset + j] = drawCumulative(cumProbs, randoms[j * drawsPerSite + draw]);
+                }
+            }
+            for (int slot = 0; slot < nodeCount; slot++) {
+                if (preorderLeafIndices[slot] >= 0)
+                    alignment.setStates(preorderLeafIndices[slot], start, nodeStates, slot * blockSize, len);
+            }
+        }
+    }
+
+    private static double[][][] toCumulative(double[][][] branchTransProbs) {
+        double[][][] cum = new double[branchTransProbs.length][][];
+        for (int b = 0; b < branchTransProbs.length; b++) {
+            cum[b] = new double[branchTransProbs[b].length][];
+            for (int i = 0; i < branchTransProbs[b].length; i++)
+                cum[b][i] = toCumulative(branchTransProbs[b][i]);
+        }
+        return cum;
+    }
+
+    // sum in the same order as drawState and Categorical
+    private static double[] toCumulative(double[] p) {
+        double[] cum = new double[p.length];
+        double totalP = p[0];
+        cum[0] = totalP;
+        for (int i = 1; i < p.length; i++) {
+            totalP += p[i];
+            cum[i] = totalP;
+        }
+        return cum;
+    }
+
+    private static double[] toCumulative(Double[] p) {
+        return toCumulative(Arrays.stream(p).mapToDouble(Double::doubleValue).toArray());
+    }
+
+    // the same state as drawState given the same random number U
+    private static int drawCumulative(double[] cumProbs, double U) {
+        final int last = cumProbs.length - 1;
+        if (U > cumProbs[last]) {
+            if (Math.abs(cumProbs[last] - 1.0) < 1e-6) return last;
+            throw new RuntimeException("p vector should add to 1.0 but adds to " + cumProbs[last] + " instead.");
+        }
+        // the first state whose cumulative probability >= U
+        int low = 0;
+        int high = last;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (U <= cumProbs[mid]) high = mid;
+            else low = mid + 1;
+        }
+        return low;
+    }
+
     //+++ public and getter +++//
 
+    /**
+     * @return  the number of threads to simulate sites in parallel given by {@link #threadsParamName},
+     *          where 0 is to simulate sites sequentially.
+     *          The parallel mode gives a different alignment from the sequential mode
+     *          given the same seed, but the same alignment for any number of threads.
+     */
+    public int getSiteThreads() {
+        if (threads == null)
+            return 0;
+        int numThreads = threads.value();
+        if (numThreads < 0)
+            throw new IllegalArgumentException("The number of threads cannot be negative ! " + numThreads);
+        return numThreads;
+    }
+
     // setup() before sample()
     public void setup() {
         // overwrite the default if more setup
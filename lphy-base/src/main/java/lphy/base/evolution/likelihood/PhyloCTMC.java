@@ -1,7 +1,6 @@
 package lphy.base.evolution.likelihood;
 
 import jebl.evolution.sequences.SequenceType;
-import lphy.base.distribution.Categorical;
 import lphy.base.evolution.alignment.Alignment;
 import lphy.base.evolution.alignment.SimpleAlignment;
 import lphy.base.evolution.tree.TimeTree;
@@ -45,7 +44,9 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
                              description = "length of the alignment", optional = true) Value<Integer> L,
                      @ParameterInfo(name = AbstractPhyloCTMC.dataTypeParamName, description = "the data type used for simulations, default to nucleotide",
                              narrativeName = "data type used for simulations", optional = true) Value<SequenceType> dataType,
-                     @ParameterInfo(name = AbstractPhyloCTMC.rootSeqParamName, narrativeName="root sequence", description = "root sequence, defaults to root sequence generated from equilibrium frequencies.", optional = true) Value<SimpleAlignment> rootSeq) {
+                     @ParameterInfo(name = AbstractPhyloCTMC.rootSeqParamName, narrativeName="root sequence", description = "root sequence, defaults to root sequence generated from equilibrium frequencies.", optional = true) Value<SimpleAlignment> rootSeq,
+                     @ParameterInfo(name = AbstractPhyloCTMC.threadsParamName, description = "the number of threads to simulate the sites in parallel, default to 0 to simulate them sequentially. " +
+                             "Given the seed, the alignment is same for any number of threads > 0, but different from the sequential simulation.", optional = true) Value<Integer> threads) {
 
         super(tree, mu, rootFreq, branchRates, L, dataType);
         this.Q = Q;
@@ -54,6 +55,7 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
         if (rootSeq != null) {
             this.rootSeq = rootSeq;
         }
+        this.threads = threads;
 
         checkCompatibilities();
     }
@@ -99,6 +101,7 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
         if (L != null) map.put(AbstractPhyloCTMC.LParamName, L);
         if (dataType != null) map.put(AbstractPhyloCTMC.dataTypeParamName, dataType);
         if (rootSeq != null) map.put(AbstractPhyloCTMC.rootSeqParamName, rootSeq);
+        if (threads != null) map.put(AbstractPhyloCTMC.threadsParamName, threads);
         return map;
     }
 
@@ -114,6 +117,7 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
             //        else if (paramName.equals(stateNamesParamName)) stateNames = value;
         else if (paramName.equals(AbstractPhyloCTMC.dataTypeParamName)) dataType = value;
         else if (paramName.equals(AbstractPhyloCTMC.rootSeqParamName)) rootSeq = value;
+        else if (paramName.equals(AbstractPhyloCTMC.threadsParamName)) threads = value;
         else throw new RuntimeException("Unrecognised parameter name: " + paramName);
     }
 
@@ -138,19 +142,12 @@ public class PhyloCTMC extends AbstractPhyloCTMC {
 
         double mu = (this.clockRate == null) ? 1.0 : ValueUtils.doubleValue(clockRate);
 
-        for (int i = 0; i < length; i++) {
-            if (rootSeq != null) {
-                // use simulated or user specified root sequence
-                int rootState = rootSeq.value().getState(0, i); // root taxon is 0
-                traverseTree(tree.value().getRoot(), rootState, a, i, transProb, mu,
-                        (siteRates == null) ? 1.0 : siteRates.value()[i]);
-            } else {
-                int rootState = Categorical.sample(rootFreqs.value(), random);
-                traverseTree(tree.value().getRoot(), rootState, a, i, transProb, mu,
-                        (siteRates == null) ? 1.0 : siteRates.value()[i]);
-            }
+        double[] rates = new double[length];
+        for (int i = 0; i < length; i++)
+            rates[i] = (siteRates == null) ? 1.0 : siteRates.value()[i];
 
-        }
+        // use simulated or user specified root sequence
+        simulateAlignment(a, (rootSeq == null) ? null : rootSeq.value(), mu, rates);
 
         return new RandomVariable<>("D", a, this);
     }
@@ -1,7 +1,6 @@
 package lphy.base.evolution.likelihood;
 
 import jebl.evolution.sequences.SequenceType;
-import lphy.base.distribution.Categorical;
 import lphy.base.evolution.alignment.Alignment;
 import lphy.base.evolution.alignment.SimpleAlignment;
 import lphy.base.evolution.sitemodel.SiteModel;
@@ -148,12 +147,7 @@ public class PhyloCTMCSiteModel extends AbstractPhyloCTMC {
 
         double mu = (this.clockRate == null) ? 1.0 : ValueUtils.doubleValue(clockRate);
 
-        for (int i = 0; i < siteCount; i++) {
-
-            int rootState = Categorical.sample(rootFreqs.value(), random);
-            traverseTree(tree.value().getRoot(), rootState, a, i, transProb, mu,
-                    finalSiteRates[i]);
-        }
+        simulateAlignment(a, null, mu, finalSiteRates);
 
         return new RandomVariable<>(null, a, this);
     }
@@ -0,0 +1,94 @@
+package lphy.base.evolution.tree;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.*;
+
+/**
+ * The active lineages of a tree simulated backwards in time, e.g. by the coalescent.
+ * The lineages are kept in an array where a removed lineage is replaced by the last one,
+ * so that adding, removing by index and drawing a random lineage are all O(1),
+ * instead of O(n) in {@link ArrayList#remove(int)}.
+ * The order of lineages is therefore not preserved.
+ */
+public class ActiveLineages implements Iterable<TimeTreeNode> {
+
+    private TimeTreeNode[] nodes;
+    private int size;
+
+    public ActiveLineages() {
+        this(16);
+    }
+
+    public ActiveLineages(int initialCapacity) {
+        nodes = new TimeTreeNode[Math.max(initialCapacity, 1)];
+    }
+
+    /**
+     * @param nodes  the initial lineages, e.g. the leaf nodes.
+     */
+    public ActiveLineages(Collection<TimeTreeNode> nodes) {
+        this(nodes.size());
+        for (TimeTreeNode node : nodes)
+            add(node);
+    }
+
+    public void add(TimeTreeNode node) {
+        if (size == nodes.length)
+            nodes = Arrays.copyOf(nodes, size * 2);
+        nodes[size++] = node;
+    }
+
+    public void addAll(ActiveLineages lineages) {
+        for (int i = 0; i < lineages.size; i++)
+            add(lineages.nodes[i]);
+    }
+
+    public TimeTreeNode get(int index) {
+        Objects.checkIndex(index, size);
+        return nodes[index];
+    }
+
+    /**
+     * Remove the lineage at the index, and move the last lineage to this index.
+     * @param index  the index of the lineage
+     * @return  the removed lineage.
+     */
+    public TimeTreeNode remove(int index) {
+        Objects.checkIndex(index, size);
+        TimeTreeNode node = nodes[index];
+        nodes[index] = nodes[--size];
+        nodes[size] = null;
+        return node;
+    }
+
+    /**
+     * Draw a lineage uniformly at random without replacement.
+     * @param random  the random number generator
+     * @return  the removed lineage.
+     */
+    public TimeTreeNode removeRandom(RandomGenerator random) {
+        return remove(random.nextInt(size));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return  a copy of the lineages in the current order.
+     */
+    public List<TimeTreeNode> toList() {
+        return new ArrayList<>(Arrays.asList(nodes).subList(0, size));
+    }
+
+    @Override
+    public Iterator<TimeTreeNode> iterator() {
+        return Collections.unmodifiableList(Arrays.asList(nodes).subList(0, size)).iterator();
+    }
+
+}
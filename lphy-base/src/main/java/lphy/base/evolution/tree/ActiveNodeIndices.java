@@ -0,0 +1,62 @@
+package lphy.base.evolution.tree;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The active lineages of a {@link CompactTimeTree} simulated backwards in time, e.g. by the coalescent,
+ * which are the node numbers kept in the same way as {@link ActiveLineages}.
+ * The order of lineages is therefore not preserved.
+ */
+public class ActiveNodeIndices {
+
+    private int[] nodes;
+    private int size;
+
+    public ActiveNodeIndices(int initialCapacity) {
+        nodes = new int[Math.max(initialCapacity, 1)];
+    }
+
+    public void add(int node) {
+        if (size == nodes.length)
+            nodes = Arrays.copyOf(nodes, size * 2);
+        nodes[size++] = node;
+    }
+
+    public int get(int index) {
+        Objects.checkIndex(index, size);
+        return nodes[index];
+    }
+
+    /**
+     * Remove the lineage at the index, and move the last lineage to this index.
+     * @param index  the index of the lineage
+     * @return  the node number of the removed lineage.
+     */
+    public int remove(int index) {
+        Objects.checkIndex(index, size);
+        int node = nodes[index];
+        nodes[index] = nodes[--size];
+        return node;
+    }
+
+    /**
+     * Draw a lineage uniformly at random without replacement.
+     * @param random  the random number generator
+     * @return  the node number of the removed lineage.
+     */
+    public int removeRandom(RandomGenerator random) {
+        return remove(random.nextInt(size));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+}
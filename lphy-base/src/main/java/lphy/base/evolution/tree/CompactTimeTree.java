@@ -0,0 +1,386 @@
+package lphy.base.evolution.tree;
+
+import lphy.base.evolution.Taxa;
+import lphy.base.evolution.Taxon;
+
+import java.util.*;
+
+/**
+ * A time tree stored in parallel primitive arrays indexed by the node number in the order of creation,
+ * which are the parent, the left and right children, the age and the leaf index of each node,
+ * and the branch rates and metadata only if they are set.
+ * It avoids the objects of {@link TimeTreeNode}, their lists of children and metadata maps,
+ * when simulating large trees, and it is given to {@link TimeTree#setRoot(CompactTimeTree)},
+ * which only creates the {@link TimeTreeNode} view when the nodes are requested.
+ * Every node has at most two children, where a single child is the left child.
+ */
+public class CompactTimeTree {
+
+    public static final int NONE = -1;
+
+    private int[] parent;
+    private int[] left;
+    private int[] right;
+    private double[] age;
+    private int[] leafIndex;
+    private String[] id;
+    // null until any branch rate is set, NaN if not set
+    private double[] branchRate = null;
+    // null until any metadata is set
+    private Map<Integer, SortedMap<String, Object>> metaData = null;
+
+    private int nodeCount = 0;
+    private int root = NONE;
+    // the nodes and leaves under the root
+    private int treeNodeCount = 0;
+    private int leafCount = 0;
+
+    public CompactTimeTree() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity  the expected number of nodes, e.g. 2n-1 for a binary tree of n leaves.
+     */
+    public CompactTimeTree(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 2);
+        parent = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        age = new double[capacity];
+        leafIndex = new int[capacity];
+        id = new String[capacity];
+    }
+
+    public CompactTimeTree(CompactTimeTree treeToCopy) {
+        int capacity = Math.max(treeToCopy.nodeCount, 2);
+        parent = Arrays.copyOf(treeToCopy.parent, capacity);
+        left = Arrays.copyOf(treeToCopy.left, capacity);
+        right = Arrays.copyOf(treeToCopy.right, capacity);
+        age = Arrays.copyOf(treeToCopy.age, capacity);
+        leafIndex = Arrays.copyOf(treeToCopy.leafIndex, capacity);
+        id = Arrays.copyOf(treeToCopy.id, capacity);
+        if (treeToCopy.branchRate != null)
+            branchRate = Arrays.copyOf(treeToCopy.branchRate, capacity);
+        if (treeToCopy.metaData != null) {
+            metaData = new HashMap<>();
+            for (Map.Entry<Integer, SortedMap<String, Object>> entry : treeToCopy.metaData.entrySet())
+                metaData.put(entry.getKey(), new TreeMap<>(entry.getValue()));
+        }
+        nodeCount = treeToCopy.nodeCount;
+        root = treeToCopy.root;
+        treeNodeCount = treeToCopy.treeNodeCount;
+        leafCount = treeToCopy.leafCount;
+    }
+
+    /**
+     * Add a node without children, which is a leaf unless children are added to it.
+     * @param id   the id, or null.
+     * @param age  the age.
+     * @return the node number.
+     */
+    public int addNode(String id, double age) {
+        ensureCapacity(nodeCount + 1);
+        int node = nodeCount++;
+        parent[node] = NONE;
+        left[node] = NONE;
+        right[node] = NONE;
+        leafIndex[node] = NONE;
+        this.age[node] = age;
+        this.id[node] = id;
+        return node;
+    }
+
+    /**
+     * Add a leaf with the index of its taxon.
+     * @return the node number.
+     */
+    public int addLeaf(String id, double age, int leafIndex) {
+        int node = addNode(id, age);
+        this.leafIndex[node] = leafIndex;
+        return node;
+    }
+
+    /**
+     * Add the parent of two nodes, e.g. for a coalescent event.
+     * @return the node number of the parent.
+     */
+    public int addParent(double age, int leftChild, int rightChild) {
+        int node = addNode(null, age);
+        addChild(node, leftChild);
+        addChild(node, rightChild);
+        return node;
+    }
+
+    /**
+     * Add the child to the node, as the left child first and then the right child.
+     */
+    public void addChild(int node, int child) {
+        if (parent[child] != NONE)
+            throw new IllegalArgumentException("Node " + child + " already has a parent !");
+        if (left[node] == NONE)
+            left[node] = child;
+        else if (right[node] == NONE)
+            right[node] = child;
+        else
+            throw new IllegalArgumentException("Node " + node + " already has two children !");
+        parent[child] = node;
+    }
+
+    /**
+     * Set the root, and index the leaves without a leaf index in the order of the depth-first traversal,
+     * as in {@link TimeTree#setRoot(TimeTreeNode, boolean)}.
+     * @param root           the node number of the root.
+     * @param reindexLeaves  if true, then index all leaves in the order of the depth-first traversal.
+     */
+    public void setRoot(int root, boolean reindexLeaves) {
+        if (parent[root] != NONE)
+            throw new IllegalArgumentException("The root " + root + " has a parent !");
+        this.root = root;
+        treeNodeCount = 0;
+        int n = 0;
+        int[] stack = new int[Math.max(nodeCount, 1)];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            treeNodeCount += 1;
+            if (left[node] == NONE) {
+                if (leafIndex[node] == NONE || reindexLeaves)
+                    leafIndex[node] = n;
+                n += 1;
+            } else {
+                // the left child first
+                if (right[node] != NONE)
+                    stack[top++] = right[node];
+                stack[top++] = left[node];
+            }
+        }
+        leafCount = n;
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the number of nodes under the root, after {@link #setRoot(int, boolean)}.
+     */
+    public int getNodeCount() {
+        return treeNodeCount;
+    }
+
+    /**
+     * @return the number of leaves under the root, after {@link #setRoot(int, boolean)}.
+     */
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * @return the node numbers under the root in the order of the depth-first traversal from the root.
+     */
+    public int[] getTreeNodes() {
+        int[] treeNodes = new int[treeNodeCount];
+        int i = 0;
+        int[] stack = new int[Math.max(nodeCount, 1)];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            int node = stack[--top];
+            treeNodes[i++] = node;
+            if (right[node] != NONE)
+                stack[top++] = right[node];
+            if (left[node] != NONE)
+                stack[top++] = left[node];
+        }
+        return treeNodes;
+    }
+
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    public int getLeft(int node) {
+        return left[node];
+    }
+
+    public int getRight(int node) {
+        return right[node];
+    }
+
+    public int getChildCount(int node) {
+        if (left[node] == NONE) return 0;
+        return right[node] == NONE ? 1 : 2;
+    }
+
+    public boolean isLeaf(int node) {
+        return left[node] == NONE;
+    }
+
+    public double getAge(int node) {
+        return age[node];
+    }
+
+    public void setAge(int node, double age) {
+        this.age[node] = age;
+    }
+
+    public String getId(int node) {
+        return id[node];
+    }
+
+    public void setId(int node, String id) {
+        this.id[node] = id;
+    }
+
+    public int getLeafIndex(int node) {
+        return leafIndex[node];
+    }
+
+    /**
+     * @return the branch rate, or null if it is not set.
+     */
+    public Double getBranchRate(int node) {
+        if (branchRate == null || Double.isNaN(branchRate[node])) return null;
+        return branchRate[node];
+    }
+
+    public void setBranchRate(int node, double rate) {
+        if (branchRate == null) {
+            branchRate = new double[age.length];
+            Arrays.fill(branchRate, Double.NaN);
+        }
+        branchRate[node] = rate;
+    }
+
+    public Object getMetaData(int node, String key) {
+        if (metaData == null) return null;
+        SortedMap<String, Object> map = metaData.get(node);
+        return map == null ? null : map.get(key);
+    }
+
+    public void setMetaData(int node, String key, Object value) {
+        if (metaData == null)
+            metaData = new HashMap<>();
+        metaData.computeIfAbsent(node, k -> new TreeMap<>()).put(key, value);
+    }
+
+    /**
+     * @return the metadata including the branch rate as "rate", as in {@link TimeTreeNode#getMetaData()},
+     *         or null if there is none.
+     */
+    SortedMap<String, Object> getNodeMetaData(int node) {
+        SortedMap<String, Object> map = metaData == null ? null : metaData.get(node);
+        Double rate = getBranchRate(node);
+        if (rate != null) {
+            map = map == null ? new TreeMap<>() : new TreeMap<>(map);
+            map.put("rate", rate);
+        }
+        return map;
+    }
+
+    /**
+     * @return the taxa of the leaves under the root by their leaf indices.
+     */
+    Taxa createTaxa() {
+        Taxon[] taxa = new Taxon[leafCount];
+        for (int node : getTreeNodes()) {
+            if (isLeaf(node))
+                taxa[leafIndex[node]] = new Taxon(id[node], age[node]);
+        }
+        return Taxa.createTaxa(taxa);
+    }
+
+    /**
+     * Create the {@link TimeTreeNode} objects of the nodes under the root.
+     * @param tree  the tree of the nodes.
+     * @return the root node.
+     */
+    TimeTreeNode toTimeTreeNodes(TimeTree tree) {
+        TimeTreeNode[] nodes = new TimeTreeNode[nodeCount];
+        // parents before children, and the left child before the right child
+        for (int node : getTreeNodes()) {
+            TimeTreeNode timeTreeNode = new TimeTreeNode(id[node], tree);
+            timeTreeNode.setAge(age[node]);
+            timeTreeNode.setLeafIndex(leafIndex[node]);
+            SortedMap<String, Object> map = getNodeMetaData(node);
+            if (map != null)
+                timeTreeNode.metaData = map;
+            nodes[node] = timeTreeNode;
+            if (parent[node] != NONE)
+                nodes[parent[node]].addChild(timeTreeNode);
+        }
+        return nodes[root];
+    }
+
+    /**
+     * @see TimeTree#toNewick(boolean)
+     */
+    String toNewick(boolean includeSingleChildNodes) {
+        StringBuilder builder = new StringBuilder();
+        toNewick(root, builder, includeSingleChildNodes);
+        return builder.toString();
+    }
+
+    private void toNewick(int node, StringBuilder builder, boolean includeSingleChildNodes) {
+        if (!includeSingleChildNodes && getChildCount(node) == 1) {
+            toNewick(left[node], builder, includeSingleChildNodes);
+        } else {
+            if (isLeaf(node)) {
+                builder.append(id[node]);
+                TimeTree.addMetaData(getNodeMetaData(node), builder);
+            } else {
+                builder.append("(");
+                toNewick(left[node], builder, includeSingleChildNodes);
+                if (right[node] != NONE) {
+                    builder.append(",");
+                    toNewick(right[node], builder, includeSingleChildNodes);
+                }
+                builder.append(")");
+            }
+
+            if (!isLeaf(node) && id[node] != null)
+                builder.append(id[node]);
+
+            if (parent[node] == NONE) {
+                builder.append(":0.0;");
+            } else {
+                if (!isLeaf(node)) {
+                    TimeTree.addMetaData(getNodeMetaData(node), builder);
+                }
+                builder.append(":");
+                builder.append(getBranchLength(node, includeSingleChildNodes));
+            }
+        }
+    }
+
+    private double getBranchLength(int node, boolean includeSingleChildNodes) {
+        int p = parent[node];
+        if (!includeSingleChildNodes) {
+            if (getChildCount(p) == 1) {
+                p = parent[p];
+            }
+        }
+        if (p != NONE) return age[p] - age[node];
+        return 0.0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > age.length) {
+            int newCapacity = Math.max(capacity, 2 * age.length);
+            parent = Arrays.copyOf(parent, newCapacity);
+            left = Arrays.copyOf(left, newCapacity);
+            right = Arrays.copyOf(right, newCapacity);
+            age = Arrays.copyOf(age, newCapacity);
+            leafIndex = Arrays.copyOf(leafIndex, newCapacity);
+            id = Arrays.copyOf(id, newCapacity);
+            if (branchRate != null) {
+                int oldLength = branchRate.length;
+                branchRate = Arrays.copyOf(branchRate, newCapacity);
+                Arrays.fill(branchRate, oldLength, newCapacity, Double.NaN);
+            }
+        }
+    }
+
+}
@@ -133,16 +133,53 @@ public abstract class TaxaConditionedTreeGenerator implements GenerativeDistribu
         }
     }
 
+    /**
+     * Add the leaves of the taxa to the compact tree, whose node numbers are the taxon indices
+     * if the compact tree is empty.
+     * @return the node numbers of the leaves as the active lineages.
+     */
+    protected ActiveNodeIndices createActiveLineages(CompactTimeTree tree) {
+
+        if (!taxaConstructed) constructTaxa();
+        String[] names = taxa.getTaxaNames();
+        Double[] ages = taxa.getAges();
+
+        ActiveNodeIndices lineages = new ActiveNodeIndices(names.length);
+        for (int i = 0; i < names.length; i++) {
+            lineages.add(tree.addLeaf(names[i], ages[i], i));
+        }
+        return lineages;
+    }
+
     protected List<TimeTreeNode> createLeafTaxa(TimeTree tree) {
         List<TimeTreeNode> leafNodes = new ArrayList<>();
         createLeafNodes(tree, leafNodes);
         return leafNodes;
     }
 
+    /**
+     * @param tree  the tree these nodes are being constructed for.
+     * @return  the leaf nodes as the active lineages.
+     */
+    protected ActiveLineages createActiveLineages(TimeTree tree) {
+        return new ActiveLineages(createLeafTaxa(tree));
+    }
+
     protected TimeTreeNode drawRandomNode(List<TimeTreeNode> nodeList) {
         return nodeList.remove(random.nextInt(nodeList.size()));
     }
 
+    /**
+     * Draw a random lineage without replacement in O(1).
+     */
+    protected TimeTreeNode drawRandomNode(ActiveLineages lineages) {
+        return lineages.removeRandom(random);
+    }
+
+    protected int drawRandomNode(ActiveNodeIndices lineages) {
+        return lineages.removeRandom(random);
+    }
+
     protected TimeTreeNode drawRandomNodeWithReplacement(List<TimeTreeNode> nodeList) {
         return nodeList.get(random.nextInt(nodeList.size()));
     }
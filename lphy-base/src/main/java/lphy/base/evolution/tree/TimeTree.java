@@ -21,6 +21,8 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     TimeTreeNode rootNode;
 
     private List<TimeTreeNode> nodes;
+    // if not null, then the nodes are created from it when they are requested
+    private volatile CompactTimeTree compactTree = null;
     Taxa taxa = null;
     boolean constructedWithTaxa = false;
 
@@ -37,11 +39,39 @@ public class TimeTree implements HasTaxa, MultiDimensional {
 
     public TimeTree(TimeTree treeToCopy) {
         taxa = treeToCopy.taxa;
-        setRoot(treeToCopy.getRoot().deepCopy(this));
+        CompactTimeTree compactToCopy = treeToCopy.compactTree;
+        if (compactToCopy != null)
+            setRoot(new CompactTimeTree(compactToCopy));
+        else
+            setRoot(treeToCopy.getRoot().deepCopy(this));
     }
 
     public void setRoot(TimeTreeNode root, boolean reindexLeaves) {
 
+        compactTree = null;
+        setRootNode(root, reindexLeaves);
+
+        if (!constructedWithTaxa) taxa = Taxa.createTaxa(root);
+    }
+
+    /**
+     * Set the tree stored in arrays, whose root has been set by {@link CompactTimeTree#setRoot(int, boolean)}.
+     * The {@link TimeTreeNode} objects are only created when the nodes are requested,
+     * and afterwards the changes to the compact tree are not seen by this tree.
+     * @param compactTree  the compact tree, which is owned by this tree.
+     */
+    public void setRoot(CompactTimeTree compactTree) {
+        if (compactTree.getRoot() == CompactTimeTree.NONE)
+            throw new IllegalArgumentException("The root of the compact tree is not set !");
+        rootNode = null;
+        nodes = null;
+        n = compactTree.getLeafCount();
+        if (!constructedWithTaxa) taxa = compactTree.createTaxa();
+        this.compactTree = compactTree;
+    }
+
+    private void setRootNode(TimeTreeNode root, boolean reindexLeaves) {
+
         rootNode = root;
         rootNode.setParent(null);
         rootNode.tree = this;
@@ -50,9 +80,37 @@ public class TimeTree implements HasTaxa, MultiDimensional {
         fillNodeList(rootNode, reindexLeaves);
         indexNodes(rootNode, new int[]{n});
         // root node now last in list, first n nodes are leaves
-        nodes.sort(Comparator.comparingInt(TimeTreeNode::getIndex));
+        sortNodesByIndex();
+    }
 
-        if (!constructedWithTaxa) taxa = Taxa.createTaxa(root);
+    // the node indices are usually 0, ..., nodes.size()-1, so place the nodes without sorting
+    private void sortNodesByIndex() {
+        TimeTreeNode[] sorted = new TimeTreeNode[nodes.size()];
+        for (TimeTreeNode node : nodes) {
+            int index = node.getIndex();
+            if (index < 0 || index >= sorted.length || sorted[index] != null) {
+                nodes.sort(Comparator.comparingInt(TimeTreeNode::getIndex));
+                return;
+            }
+            sorted[index] = node;
+        }
+        nodes = new ArrayList<>(Arrays.asList(sorted));
+    }
+
+    // create the nodes from the compact tree
+    private synchronized void createNodes() {
+        CompactTimeTree compact = compactTree;
+        if (compact != null) {
+            setRootNode(compact.toTimeTreeNodes(this), false);
+            compactTree = null;
+        }
+    }
+
+    /**
+     * @return the compact tree if the nodes have not been created from it, otherwise null.
+     */
+    public CompactTimeTree getCompactTree() {
+        return compactTree;
     }
 
     public void setRoot(TimeTreeNode root) {
@@ -72,18 +130,21 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     }
 
     public int getNodeCount() {
-        return nodes.size();
+        CompactTimeTree compact = compactTree;
+        if (compact != null) return compact.getNodeCount();
+        return getNodes().size();
     }
 
     public int getSingleChildNodeCount() {
         int count = 0;
-        for (TimeTreeNode node : nodes) {
+        for (TimeTreeNode node : getNodes()) {
             if (node.getChildCount() == 1) count += 1;
         }
         return count;
     }
 
     public List<TimeTreeNode> getNodes() {
+        if (compactTree != null) createNodes();
         return nodes;
     }
 
@@ -118,11 +179,7 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     }
 
     public String toString() {
-        StringBuilder builder = new StringBuilder();
-        //builder.append("\"");
-        toNewick(rootNode, builder, true);
-        //builder.append("\"");
-        return builder.toString();
+        return toNewick(true);
     }
 
     private void toNewick(TimeTreeNode node, StringBuilder builder, boolean includeSingleChildNodes) {
@@ -162,7 +219,11 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     }
 
     private void addMetaData(TimeTreeNode node, StringBuilder builder){
-        SortedMap<String, Object> metaData = node.metaData;
+        addMetaData(node.getMetaData(), builder);
+    }
+
+    static void addMetaData(SortedMap<String, Object> metaData, StringBuilder builder){
+        if (metaData == null) return;
         int metaDataSize = metaData.entrySet().size();
         if (metaData.size() > 0) { //if metaData exist then add them
             builder.append("[&");
@@ -192,6 +253,7 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     }
 
     public TimeTreeNode getRoot() {
+        if (compactTree != null) createNodes();
         return rootNode;
     }
 
@@ -211,6 +273,15 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     }
 
     public boolean isUltrametric() {
+        CompactTimeTree compact = compactTree;
+        if (compact != null) {
+            for (int node : compact.getTreeNodes()) {
+                if (compact.isLeaf(node) && compact.getAge(node) != 0.0) {
+                    return false;
+                }
+            }
+            return true;
+        }
         for (TimeTreeNode node : getNodes()) {
             if (node.isLeaf() && node.getAge() != 0.0) {
                 return false;
@@ -220,9 +291,11 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     }
 
     public String toNewick(boolean includeSingleChildNodes) {
+        CompactTimeTree compact = compactTree;
+        if (compact != null) return compact.toNewick(includeSingleChildNodes);
         StringBuilder builder = new StringBuilder();
         //builder.append("\"");
-        toNewick(rootNode, builder, includeSingleChildNodes);
+        toNewick(getRoot(), builder, includeSingleChildNodes);
         //builder.append("\"");
         return builder.toString();
     }
@@ -255,6 +328,16 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     public Double treeLength() {
 
         double TL = 0.0;
+        CompactTimeTree compact = compactTree;
+        if (compact != null) {
+            for (int node : compact.getTreeNodes()) {
+                int parent = compact.getParent(node);
+                if (parent != CompactTimeTree.NONE) {
+                    TL += compact.getAge(parent) - compact.getAge(node);
+                }
+            }
+            return TL;
+        }
         for (TimeTreeNode node : getNodes()) {
             if (!node.isRoot()) {
                 TL += node.getParent().age - node.age;
@@ -268,6 +351,8 @@ public class TimeTree implements HasTaxa, MultiDimensional {
             examples = {"simFossilsCompact.lphy", "simpleBirthDeathSerial.lphy", "simpleCalibratedYule.lphy"})
     public Double rootAge() {
 
+        CompactTimeTree compact = compactTree;
+        if (compact != null) return compact.getAge(compact.getRoot());
         return getRoot().age;
     }
 
@@ -285,6 +370,13 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     @MethodInfo(description = "the total number of extant leaves in the tree (leaf nodes with age 0.0).")
     public Integer extantCount() {
         int count = 0;
+        CompactTimeTree compact = compactTree;
+        if (compact != null) {
+            for (int node : compact.getTreeNodes()) {
+                if (compact.getAge(node) == 0.0 && compact.isLeaf(node)) count += 1;
+            }
+            return count;
+        }
         for (TimeTreeNode node : getNodes()) {
             if (node.age == 0.0 && node.isLeaf()) count += 1;
         }
@@ -316,6 +408,8 @@ public class TimeTree implements HasTaxa, MultiDimensional {
 
     @MethodInfo(description = "returns true if this tree has an origin node (defined as a root node with a single child.")
     public boolean hasOrigin() {
+        CompactTimeTree compact = compactTree;
+        if (compact != null) return compact.getChildCount(compact.getRoot()) == 1;
         return getRoot().isOrigin();
     }
 
@@ -354,7 +448,7 @@ public class TimeTree implements HasTaxa, MultiDimensional {
     @MethodInfo(description = "get the array of all branch rates in the tree.")
     public Double[] getBranchRates(){
         List<Double> branchRates = new ArrayList<>();
-        for (TimeTreeNode node: nodes){
+        for (TimeTreeNode node: getNodes()){
             if (node.getBranchRate() != null) {
                 branchRates.add(node.getBranchRate());
             }
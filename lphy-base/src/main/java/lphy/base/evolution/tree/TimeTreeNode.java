@@ -20,7 +20,8 @@ public class TimeTreeNode {
 
     private static final double zeroBranchLengthTolerance = 1e-15;
 
-    SortedMap<String, Object> metaData = new TreeMap<>();
+    // null until any metadata is set
+    SortedMap<String, Object> metaData = null;
 
     TimeTree tree;
 
@@ -110,18 +111,24 @@ public class TimeTreeNode {
     }
 
     public void setMetaData(String key, Object value) {
+        if (metaData == null) metaData = new TreeMap<>();
         metaData.put(key, value);
     }
 
     public Object getMetaData(String key) {
+        if (metaData == null) return null;
         return metaData.get(key);
     }
 
     public void removeMetaData(String key) {
-        metaData.remove(key);
+        if (metaData != null) metaData.remove(key);
     }
 
+    /**
+     * @return the metadata, which is an empty unmodifiable map if no metadata has been set.
+     */
     public SortedMap<String, Object> getMetaData() {
+        if (metaData == null) return Collections.emptySortedMap();
         return metaData;
     }
 
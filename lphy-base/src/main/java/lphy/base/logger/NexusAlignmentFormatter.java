@@ -5,6 +5,9 @@ import lphy.base.parser.nexus.NexusUtils;
 import lphy.core.logger.ValueFormatter;
 import lphy.core.model.Symbols;
 
+import java.io.IOException;
+import java.io.Writer;
+
 public class NexusAlignmentFormatter implements ValueFormatter<SimpleAlignment> {
 
     SimpleAlignment simpleAlignment;
@@ -50,6 +53,11 @@ public class NexusAlignmentFormatter implements ValueFormatter<SimpleAlignment>
         return NexusUtils.buildBody(simpleAlignment);
     }
 
+    @Override
+    public void writeTo(SimpleAlignment simpleAlignment, Writer writer) throws IOException {
+        NexusUtils.writeBody(simpleAlignment, writer);
+    }
+
     @Override
     public String footer() {
         return NexusUtils.buildFooter();
@@ -22,6 +22,22 @@ public class MathUtils {
     }
 
 
+    /**
+     * Compute log(1 + a*(exp(y)-1)) without overflow for large y,
+     * which is the intensity of the exponential population models with an ancestral size.
+     * @param a  a positive scale
+     * @param y  the exponent
+     * @return log(1 + a*(exp(y)-1)), which is NaN if the argument of log is negative.
+     */
+    public static double log1pExpm1(double a, double y) {
+        if (y > 1.0) {
+            // 1 + a*(exp(y)-1) = exp(y) * (a + (1-a)*exp(-y))
+            return y + Math.log(a + (1.0 - a) * Math.exp(-y));
+        }
+        return Math.log1p(a * Math.expm1(y));
+    }
+
+
         /**
          * Count the number of ways to select two out of n elements.
          *
@@ -19,6 +19,8 @@ package lphy.base.parser.nexus;
 
 import lphy.base.evolution.alignment.SimpleAlignment;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -67,5 +69,23 @@ public class CharactersBlock extends NexusBlock {
         
         return lines;
     }
+
+    /**
+     * Write the same lines as {@link #getBlockLines()} indented by a tab and ended by ';',
+     * but the sequences are written straight from the states of the alignment.
+     * @param writer  the writer, which is not closed here.
+     * @throws IOException
+     */
+    public void writeBlockLines(Writer writer) throws IOException {
+        writer.write("\tdimensions nchar=" + alignment.nchar() + ";\n");
+        writer.write("\tformat datatype=" + alignment.getSequenceTypeStr() + ";\n");
+
+        writer.write("\tmatrix ");
+        for (int i=0; i<alignment.ntaxa(); i++) {
+            writer.write("\n\t\t" + alignment.getTaxonName(i) + " ");
+            alignment.writeSequence(i, writer);
+        }
+        writer.write(";\n");
+    }
     
 }
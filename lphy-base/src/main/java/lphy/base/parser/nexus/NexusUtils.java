@@ -4,6 +4,8 @@ import lphy.base.evolution.HasTaxa;
 import lphy.base.evolution.alignment.SimpleAlignment;
 import lphy.base.evolution.tree.TimeTree;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 import java.util.Objects;
 
@@ -34,6 +36,15 @@ public class NexusUtils {
         return builder.toString();
     }
 
+    /**
+     * Write the same text as {@link #buildBody(SimpleAlignment)},
+     * without building the string of the whole alignment.
+     */
+    public static void writeBody(SimpleAlignment simpleAlignment, Writer writer) throws IOException {
+        CharactersBlock charactersBlock = new CharactersBlock(Objects.requireNonNull(simpleAlignment));
+        charactersBlock.writeBlockLines(writer);
+    }
+
     public static String buildBody(TimeTree tree) {
         String newick = Objects.requireNonNull(tree).toString();
         if (! newick.endsWith(";")) {
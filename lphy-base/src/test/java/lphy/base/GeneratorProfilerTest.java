@@ -0,0 +1,84 @@
+package lphy.base;
+
+import lphy.core.parser.REPL;
+import lphy.core.simulator.GeneratorProfiler;
+import lphy.core.simulator.RandomUtils;
+import lphy.core.simulator.Sampler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeneratorProfilerTest {
+
+    @BeforeEach
+    void setUp() {
+        RandomUtils.setSeed(777);
+        GeneratorProfiler.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        GeneratorProfiler.setEnabled(false);
+        GeneratorProfiler.reset();
+    }
+
+    /**
+     * Profile the parsing and resampling, where the value ids are assigned after some generators are called.
+     */
+    @Test
+    public void testProfiles() {
+        final int n = 16;
+        final int reps = 3;
+        GeneratorProfiler.setEnabled(true);
+        REPL parser = new REPL();
+        parser.parse("model { Θ ~ LogNormal(meanlog=3.0, sdlog=1.0); " +
+                "ψ ~ Coalescent(n=" + n + ", theta=Θ); x = rep(element=Θ, times=3); }");
+
+        Sampler sampler = new Sampler(parser);
+        for (int i = 0; i < reps; i++)
+            sampler.sample(null);
+        GeneratorProfiler.setEnabled(false);
+
+        List<GeneratorProfiler.Profile> profiles = GeneratorProfiler.getProfiles();
+        GeneratorProfiler.Profile coalescent = getProfile(profiles, "Coalescent", "ψ");
+        // parsing and replicates
+        assertEquals(reps + 1, coalescent.calls());
+        assertTrue(coalescent.nanos() > 0);
+        assertTrue(coalescent.getMeanOutputSize() >= n);
+        assertEquals(reps + 1, getProfile(profiles, "LogNormal", "Θ").calls());
+        assertEquals(reps + 1, getProfile(profiles, "rep", "x").calls());
+        // the call of rep is moved to x once its id is assigned
+        assertTrue(profiles.stream().noneMatch(p -> p.generator().equals("rep") &&
+                p.id().equals(GeneratorProfiler.ANONYMOUS_ID)));
+        // sorted by total time
+        for (int i = 1; i < profiles.size(); i++)
+            assertTrue(profiles.get(i - 1).nanos() >= profiles.get(i).nanos());
+
+        String[] report = GeneratorProfiler.getReport().split("\n");
+        assertEquals(String.join("\t", GeneratorProfiler.REPORT_COLUMNS), report[0]);
+        assertEquals(profiles.size() + 1, report.length);
+
+        // nothing is recorded when disabled
+        sampler.sample(null);
+        assertEquals(reps + 1, getProfile(GeneratorProfiler.getProfiles(), "Coalescent", "ψ").calls());
+    }
+
+    @Test
+    public void testSize() {
+        assertEquals(0, GeneratorProfiler.getSize(null));
+        assertEquals(1, GeneratorProfiler.getSize(1.0));
+        assertEquals(3, GeneratorProfiler.getSize(new Double[]{1.0, 2.0, 3.0}));
+        assertEquals(5, GeneratorProfiler.getSize(new Integer[][]{{1, 2}, {3, 4, 5}}));
+        assertEquals(2, GeneratorProfiler.getSize(List.of("a", "b")));
+    }
+
+    private GeneratorProfiler.Profile getProfile(List<GeneratorProfiler.Profile> profiles, String generator, String id) {
+        return profiles.stream().filter(p -> p.generator().equals(generator) && p.id().equals(id))
+                .findFirst().orElseThrow(() -> new AssertionError("No profile of " + generator + " " + id + " in " + profiles));
+    }
+
+}
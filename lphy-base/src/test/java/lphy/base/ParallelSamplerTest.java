@@ -0,0 +1,71 @@
+package lphy.base;
+
+import lphy.base.evolution.alignment.SimpleAlignment;
+import lphy.core.model.Value;
+import lphy.core.simulator.NamedRandomValueSimulator;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSamplerTest {
+
+    private final String WD = System.getProperty("user.dir");
+
+    /**
+     * The same seed and replicate index must produce the same values,
+     * whatever the number of threads.
+     */
+    @Test
+    void testReproducibleAcrossThreads() throws IOException {
+        Path lphyPath = Paths.get(WD, "..", "examples", "coalescent", "hkyCoalescent.lphy");
+        File lphyFile = lphyPath.toFile();
+        assertTrue(lphyFile.exists(), "Cannot find LPhy file : " + lphyPath);
+
+        final int numReps = 6;
+        final long seed = 777;
+
+        NamedRandomValueSimulator simulator1 = new NamedRandomValueSimulator();
+        simulator1.setNumThreads(1);
+        Map<Integer, List<Value>> reps1 = simulator1.simulate(lphyFile, numReps, null, null, seed);
+
+        NamedRandomValueSimulator simulator3 = new NamedRandomValueSimulator();
+        simulator3.setNumThreads(3);
+        Map<Integer, List<Value>> reps3 = simulator3.simulate(lphyFile, numReps, null, null, seed);
+
+        assertEquals(numReps, reps1.size());
+        assertEquals(numReps, reps3.size());
+        for (int i = 0; i < numReps; i++) {
+            List<Value> values1 = reps1.get(i);
+            List<Value> values3 = reps3.get(i);
+            assertEquals(values1.size(), values3.size(), "Replicate " + i);
+            for (int j = 0; j < values1.size(); j++) {
+                assertEquals(values1.get(j).getId(), values3.get(j).getId(), "Replicate " + i);
+                assertEquals(valueToString(values1.get(j)), valueToString(values3.get(j)),
+                        "Replicate " + i + " value " + values1.get(j).getId());
+            }
+        }
+        // replicates are sampled from different seeds
+        assertNotEquals(repToString(reps1.get(0)), repToString(reps1.get(1)));
+    }
+
+    private String repToString(List<Value> values) {
+        return values.stream().map(this::valueToString).collect(Collectors.joining("\n"));
+    }
+
+    private String valueToString(Value value) {
+        if (value.value() instanceof Object[] arr)
+            return Arrays.deepToString(arr);
+        if (value.value() instanceof SimpleAlignment alignment)
+            return alignment.toJSON();
+        return value.value().toString();
+    }
+}
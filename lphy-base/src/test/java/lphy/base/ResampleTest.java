@@ -7,6 +7,7 @@ import lphy.core.parser.LPhyListenerImpl;
 import lphy.core.parser.LPhyParserDictionary;
 import lphy.core.parser.ParserSingleton;
 import lphy.core.parser.REPL;
+import lphy.core.parser.graphicalmodel.GraphicalModelUtils;
 import lphy.core.simulator.RandomUtils;
 import lphy.core.simulator.Sampler;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +15,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -92,6 +94,128 @@ public class ResampleTest {
         assertEquals(ntaxa, tree.leafCount());
     }
 
+    /**
+     * Test {@link Sampler#resample(java.util.Collection, Long)} only re-samples
+     * the given variable and its descendants.
+     */
+    @Test
+    public void testResampleDirty() {
+        LPhyListenerImpl parser = new LPhyListenerImpl(new REPL());
+        parser.parse("model{\n" +
+                "    Θ ~ LogNormal(meanlog=3.0, sdlog=1.0);\n" +
+                "    ψ ~ Coalescent(n=10, theta=Θ);\n" +
+                "    μ ~ LogNormal(meanlog=-1.0, sdlog=0.5);\n" +
+                "    r = 2 * μ;\n" +
+                "}\n");
+        LPhyParserDictionary parserDictionary = parser.getParserDictionary();
+        Map<String, Value<?>> modelDict = parserDictionary.getModelDictionary();
+        final int modelValueSetSize = parserDictionary.getModelValues().size();
+
+        Value thetaV = modelDict.get("Θ");
+        Value treeV = modelDict.get("ψ");
+        Value muV = modelDict.get("μ");
+        Value rV = modelDict.get("r");
+
+        Sampler sampler = new Sampler(parserDictionary);
+        sampler.resample(Set.of("μ"), null);
+
+        // not descendants of μ, so the same instances
+        assertSame(thetaV, modelDict.get("Θ"));
+        assertSame(treeV, modelDict.get("ψ"));
+        // re-sampled
+        assertNotSame(muV, modelDict.get("μ"));
+        assertNotEquals(muV.value(), modelDict.get("μ").value(), "μ should change");
+        assertNotSame(rV, modelDict.get("r"));
+        assertEquals(2 * (Double) modelDict.get("μ").value(), (Double) modelDict.get("r").value(), 1e-12);
+
+        assertEquals(modelValueSetSize, parserDictionary.getModelValues().size());
+        assertTrue(parserDictionary.getModelValues().contains(modelDict.get("r")));
+        for (Value value : parserDictionary.getModelValues())
+            assertFalse(value.isDirty(), value.getId() + " is still dirty");
+
+        assertThrows(IllegalArgumentException.class, () -> sampler.resample(Set.of("x"), null));
+    }
+
+    /**
+     * Test {@link lphy.core.simulator.ExecutionPlan} samples the same graphical model as
+     * walking the graph, and keeps the parser dictionary updated.
+     */
+    @Test
+    public void testExecutionPlan() {
+        LPhyListenerImpl parser = new LPhyListenerImpl(new REPL());
+        parser.parse("data{\n" +
+                "    taxa = taxa(names=1:10);\n" +
+                "}\n" +
+                "model{\n" +
+                "    Θ ~ LogNormal(meanlog=3.0, sdlog=1.0);\n" +
+                "    ψ ~ Coalescent(taxa=taxa, theta=Θ);\n" +
+                "    r = 2 * Θ;\n" +
+                "}\n");
+        LPhyParserDictionary parserDictionary = parser.getParserDictionary();
+        Map<String, Value<?>> modelDict = parserDictionary.getModelDictionary();
+        final int modelValueSetSize = parserDictionary.getModelValues().size();
+        Value taxaV = parserDictionary.getDataDictionary().get("taxa");
+
+        Sampler sampler = new Sampler(parserDictionary);
+        sampler.setUseExecutionPlan(true);
+
+        List<Value> values1 = sampler.sample(777L);
+        List<String> ids = GraphicalModelUtils.getAllValuesFromSinks(parserDictionary).stream()
+                .map(Value::getId).toList();
+        assertEquals(ids, values1.stream().map(Value::getId).toList());
+        assertTrue(values1.contains(modelDict.get("Θ")));
+        assertEquals(2 * (Double) modelDict.get("Θ").value(), (Double) modelDict.get("r").value(), 1e-12);
+        assertSame(taxaV, parserDictionary.getDataDictionary().get("taxa"));
+        assertEquals(modelValueSetSize, parserDictionary.getModelValues().size());
+        assertTrue(parserDictionary.getModelValues().contains(modelDict.get("ψ")));
+        TimeTree tree = (TimeTree) modelDict.get("ψ").value();
+        assertEquals(10, tree.n());
+        final String tree1 = tree.toString();
+        final Object theta1 = modelDict.get("Θ").value();
+
+        sampler.sample(null);
+        assertNotEquals(theta1, modelDict.get("Θ").value());
+        // same seed
+        sampler.sample(777L);
+        assertEquals(theta1, modelDict.get("Θ").value());
+        assertEquals(tree1, modelDict.get("ψ").value().toString());
+    }
+
+    /**
+     * Test the {@link lphy.core.simulator.ExecutionPlan} is compiled again,
+     * after {@link Sampler#resampleDirty(Long)} replaces the values in the parser dictionary.
+     */
+    @Test
+    public void testExecutionPlanAfterResampleDirty() {
+        LPhyListenerImpl parser = new LPhyListenerImpl(new REPL());
+        parser.parse("model{\n" +
+                "    Θ ~ LogNormal(meanlog=3.0, sdlog=1.0);\n" +
+                "    ψ ~ Coalescent(n=10, theta=Θ);\n" +
+                "    μ ~ LogNormal(meanlog=-1.0, sdlog=0.5);\n" +
+                "    r = 2 * μ;\n" +
+                "}\n");
+        LPhyParserDictionary parserDictionary = parser.getParserDictionary();
+        Map<String, Value<?>> modelDict = parserDictionary.getModelDictionary();
+        final int modelValueSetSize = parserDictionary.getModelValues().size();
+
+        Sampler sampler = new Sampler(parserDictionary);
+        sampler.setUseExecutionPlan(true);
+        sampler.sample(null);
+
+        sampler.resample(Set.of("μ"), null);
+        Value muV = modelDict.get("μ");
+
+        List<Value> values = sampler.sample(null);
+        // the plan regenerates the values in the dictionary, not the values replaced by re-sampling
+        assertNotSame(muV, modelDict.get("μ"));
+        for (String id : List.of("Θ", "ψ", "μ", "r")) {
+            assertTrue(values.contains(modelDict.get(id)), id + " is not from the execution plan");
+            assertTrue(parserDictionary.getModelValues().contains(modelDict.get(id)));
+        }
+        assertEquals(2 * (Double) modelDict.get("μ").value(), (Double) modelDict.get("r").value(), 1e-12);
+        assertEquals(modelValueSetSize, parserDictionary.getModelValues().size());
+    }
+
     @Test
     public void testDataModel() {
         LPhyListenerImpl parser = new LPhyListenerImpl(new REPL());
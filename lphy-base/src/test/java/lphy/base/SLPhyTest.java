@@ -5,6 +5,7 @@ import lphy.core.simulator.SLPhy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import picocli.CommandLine;
 
 import java.io.IOException;
@@ -68,4 +69,35 @@ public class SLPhyTest {
 
 
     }
+
+    /**
+     * The streaming mode must write the same trees and log as the default mode.
+     */
+    @Test
+    void testStreaming(@TempDir Path tempDir) throws IOException {
+        Path lphyPath = Paths.get(exampleDir.toAbsolutePath().toString(), "coalescent", "hkyCoalescent.lphy");
+        assertTrue(lphyPath.toFile().exists(), "Cannot find LPhy file : " + lphyPath);
+
+        Path defaultDir = Files.createDirectory(tempDir.resolve("default"));
+        Path streamDir = Files.createDirectory(tempDir.resolve("stream"));
+        Path defaultLPhy = Files.copy(lphyPath, defaultDir.resolve("hkyCoalescent.lphy"));
+        Path streamLPhy = Files.copy(lphyPath, streamDir.resolve("hkyCoalescent.lphy"));
+
+        // --threads makes the replicates reproducible given the seed
+        int exitCode = new CommandLine(new SLPhy()).execute("-r", "3", "-seed", "777", "-t", "1",
+                defaultLPhy.toString());
+        assertEquals(0, exitCode);
+        exitCode = new CommandLine(new SLPhy()).execute("-r", "3", "-seed", "777", "-t", "1", "--stream",
+                streamLPhy.toString());
+        assertEquals(0, exitCode);
+
+        String[] fileNames = {"hkyCoalescent.log", "hkyCoalescent_psi.trees", "hkyCoalescent_r2_D.nexus"};
+        for (String fileName : fileNames) {
+            Path expected = defaultDir.resolve(fileName);
+            Path actual = streamDir.resolve(fileName);
+            assertTrue(expected.toFile().exists(), "SLPhy output file does not exist : " + expected);
+            assertTrue(actual.toFile().exists(), "SLPhy output file does not exist : " + actual);
+            assertEquals(Files.readString(expected).trim(), Files.readString(actual).trim(), fileName);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package lphy.base.evolution.alignment;
+
+import jebl.evolution.sequences.SequenceType;
+import lphy.base.parser.nexus.NexusUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The streaming writers must output the same text as building the strings.
+ */
+class AlignmentWriterTest {
+
+    SimpleAlignment alignment;
+
+    @BeforeEach
+    void setUp() {
+        final int ntaxa = 5;
+        // more than the buffer of writeSequence
+        final int nchar = 10000;
+        Map<String, Integer> idMap = new TreeMap<>();
+        for (int t = 0; t < ntaxa; t++)
+            idMap.put("taxon" + t, t);
+        alignment = new SimpleAlignment(idMap, nchar, SequenceType.NUCLEOTIDE);
+        Random random = new Random(777);
+        for (int t = 0; t < ntaxa; t++) {
+            for (int i = 0; i < nchar; i++)
+                alignment.setState(t, i, random.nextInt(SequenceType.NUCLEOTIDE.getStateCount()));
+        }
+    }
+
+    @Test
+    void testWriteSequence() throws IOException {
+        for (int t = 0; t < alignment.ntaxa(); t++) {
+            StringWriter writer = new StringWriter();
+            alignment.writeSequence(t, writer);
+            assertEquals(alignment.getSequence(t), writer.toString());
+        }
+    }
+
+    @Test
+    void testFasta() throws IOException {
+        FastaAlignment fastaAlignment = new FastaAlignment(alignment);
+        StringWriter writer = new StringWriter();
+        fastaAlignment.writeTo(writer);
+
+        StringBuilder expected = new StringBuilder();
+        for (String line : fastaAlignment.getTextForFile())
+            expected.append(line).append(System.lineSeparator());
+        assertEquals(expected.toString(), writer.toString());
+    }
+
+    @Test
+    void testNexusBody() throws IOException {
+        StringWriter writer = new StringWriter();
+        NexusUtils.writeBody(alignment, writer);
+        assertEquals(NexusUtils.buildBody(alignment), writer.toString());
+    }
+}
@@ -0,0 +1,89 @@
+package lphy.base.evolution.alignment;
+
+import jebl.evolution.sequences.SequenceType;
+import lphy.base.evolution.datatype.Binary;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedStatesTest {
+
+    @Test
+    void testBitsPerState() {
+        // the largest of 17 nucleotide states and of 4 binary states
+        assertEquals(5, PackedStates.bitsPerState(SequenceType.NUCLEOTIDE.getStateCount() - 1));
+        assertEquals(2, PackedStates.bitsPerState(Binary.getInstance().getStateCount() - 1));
+        assertEquals(1, PackedStates.bitsPerState(0));
+        assertEquals(31, PackedStates.bitsPerState(Integer.MAX_VALUE));
+    }
+
+    /**
+     * The states must be same after packed, including the states crossing two longs.
+     */
+    @Test
+    void testSetGetStates() {
+        final int ntaxa = 7;
+        final int nchar = 1001;
+        Map<String, Integer> idMap = new TreeMap<>();
+        for (int t = 0; t < ntaxa; t++)
+            idMap.put("t" + t, t);
+        SimpleAlignment alignment = new SimpleAlignment(idMap, nchar, SequenceType.NUCLEOTIDE);
+        final int maxState = SequenceType.NUCLEOTIDE.getStateCount() - 1;
+
+        Random random = new Random(777);
+        int[][] expected = new int[ntaxa][nchar];
+        for (int t = 0; t < ntaxa; t++) {
+            for (int i = 0; i < nchar; i++) {
+                expected[t][i] = random.nextInt(maxState + 1);
+                alignment.setState(t, i, expected[t][i]);
+            }
+        }
+        // bulk set in the middle of a sequence
+        int[] states = {16, 0, 16, 3, 1, 2};
+        alignment.setStates(2, 500, states, 1, 4);
+        System.arraycopy(states, 1, expected[2], 500, 4);
+
+        for (int t = 0; t < ntaxa; t++) {
+            for (int i = 0; i < nchar; i++)
+                assertEquals(expected[t][i], alignment.getState(t, i), "taxon " + t + " site " + i);
+        }
+        // the state count is out of range
+        assertThrows(IllegalArgumentException.class, () -> alignment.setState(0, 0, maxState + 1));
+        assertThrows(IllegalArgumentException.class, () -> alignment.setStates(0, 0, new int[]{maxState + 1}, 0, 1));
+    }
+
+    /**
+     * The packed states of n x L sites take bits / 32 of the memory of the same states in int[],
+     * plus at most one spare long per taxon, at each bit width.
+     */
+    @Test
+    void testMemoryUsage() {
+        final int ntaxa = 100;
+        final int nchar = 100000;
+        for (int bits = 1; bits <= 31; bits++) {
+            PackedStates states = new PackedStates(ntaxa, nchar, (1 << bits) - 1);
+            assertEquals(bits, states.getBitsPerState());
+            // the size of int[ntaxa][nchar] excluding the object headers
+            long intBytes = (long) ntaxa * nchar * Integer.BYTES;
+            assertTrue(states.getSizeInBytes() >= intBytes * bits / Integer.SIZE, bits + " bits per state");
+            assertTrue(states.getSizeInBytes() < intBytes * bits / Integer.SIZE + ntaxa * Long.BYTES,
+                    bits + " bits per state");
+            // the last site fits in the words
+            states.set(ntaxa - 1, nchar - 1, (1 << bits) - 1);
+            assertEquals((1 << bits) - 1, states.get(ntaxa - 1, nchar - 1));
+        }
+
+        Map<String, Integer> idMap = new TreeMap<>();
+        for (int t = 0; t < ntaxa; t++)
+            idMap.put("t" + t, t);
+        SimpleAlignment alignment = new SimpleAlignment(idMap, nchar, SequenceType.NUCLEOTIDE);
+        // 5 bits per nucleotide state, 40 MB of int[] is 6.25 MB plus a spare half long per taxon
+        assertEquals(5, alignment.alignment.getBitsPerState());
+        assertEquals(40_000_000L, (long) ntaxa * nchar * Integer.BYTES);
+        assertEquals(6_250_000L + ntaxa * Long.BYTES / 2, alignment.alignment.getSizeInBytes());
+    }
+}
@@ -0,0 +1,172 @@
+package lphy.base.evolution.birthdeath;
+
+import lphy.base.evolution.tree.TimeTree;
+import lphy.base.evolution.tree.TimeTreeNode;
+import lphy.core.model.Value;
+import lphy.core.simulator.RandomUtils;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FullBirthDeathTreeTest {
+
+    final double lambda = 1.0;
+    final double mu = 0.5;
+    final double age = 3.0;
+    final int reps = 4000;
+
+    @BeforeEach
+    void setUp() {
+        RandomUtils.setSeed(777);
+    }
+
+    // extant and extinct leaves
+    private int[] countLeaves(TimeTree tree) {
+        int[] counts = new int[2];
+        for (TimeTreeNode node : tree.getNodes()) {
+            if (node.getParent() != null)
+                assertTrue(node.getAge() <= node.getParent().getAge(), "Child is older than parent !");
+            if (node.isLeaf()) {
+                if (node.getAge() == 0.0) {
+                    assertNotNull(node.getId());
+                    counts[0]++;
+                } else
+                    counts[1]++;
+            } else if (node.getParent() != null)
+                assertEquals(2, node.getChildCount());
+        }
+        return counts;
+    }
+
+    // the forward simulation by rejection, which returns extant and extinct leaves
+    private int[] simulateByRejection(int lineages, RandomGenerator random) {
+        while (true) {
+            int active = lineages;
+            int extinct = 0;
+            double time = age;
+            while (active > 0) {
+                time += Math.log(random.nextDouble()) / ((lambda + mu) * active);
+                if (time < 0)
+                    break;
+                if (random.nextDouble() < lambda / (lambda + mu))
+                    active++;
+                else {
+                    active--;
+                    extinct++;
+                }
+            }
+            if (active > 0)
+                return new int[]{active, extinct};
+        }
+    }
+
+    /**
+     * Compare the extant and extinct leaves with the forward simulation by rejection,
+     * where E[extant | extant > 0] = 1 + lambda (e^{(lambda-mu) T} - 1) / (lambda - mu) under the origin.
+     */
+    @Test
+    public void testConditionedOnOrigin() {
+        FullBirthDeathTree birthDeathTree = new FullBirthDeathTree(new Value<>(null, lambda),
+                new Value<>(null, mu), null, new Value<>(null, age));
+        assertEquals(1.0 - mu * Math.expm1(-(lambda - mu) * age) / (mu * Math.exp(-(lambda - mu) * age) - lambda),
+                birthDeathTree.getAcceptanceProbability(), 1e-12);
+
+        SummaryStatistics extant = new SummaryStatistics();
+        SummaryStatistics extinct = new SummaryStatistics();
+        SummaryStatistics expectedExtinct = new SummaryStatistics();
+        RandomGenerator random = RandomUtils.getRandom();
+        for (int i = 0; i < reps; i++) {
+            TimeTree tree = birthDeathTree.sample().value();
+            assertEquals(1, tree.getRoot().getChildCount());
+            assertEquals(age, tree.getRoot().getAge(), 1e-12);
+            int[] counts = countLeaves(tree);
+            extant.addValue(counts[0]);
+            extinct.addValue(counts[1]);
+            expectedExtinct.addValue(simulateByRejection(1, random)[1]);
+        }
+        double expectedExtant = 1 + lambda * Math.expm1((lambda - mu) * age) / (lambda - mu);
+        assertEquals(expectedExtant, extant.getMean(), 4 * extant.getStandardDeviation() / Math.sqrt(reps));
+        assertEquals(expectedExtinct.getMean(), extinct.getMean(),
+                4 * Math.sqrt((extinct.getVariance() + expectedExtinct.getVariance()) / reps));
+
+        // conditioned on at least the number of extant species
+        for (int i = 0; i < 100; i++)
+            assertTrue(countLeaves(birthDeathTree.sample(10).value())[0] >= 10);
+    }
+
+    @Test
+    public void testConditionedOnRoot() {
+        FullBirthDeathTree birthDeathTree = new FullBirthDeathTree(new Value<>(null, lambda),
+                new Value<>(null, mu), new Value<>(null, age), null);
+
+        SummaryStatistics extant = new SummaryStatistics();
+        SummaryStatistics expectedExtant = new SummaryStatistics();
+        SummaryStatistics extinct = new SummaryStatistics();
+        SummaryStatistics expectedExtinct = new SummaryStatistics();
+        RandomGenerator random = RandomUtils.getRandom();
+        for (int i = 0; i < reps; i++) {
+            TimeTree tree = birthDeathTree.sample().value();
+            assertEquals(2, tree.getRoot().getChildCount());
+            assertEquals(age, tree.getRoot().getAge(), 1e-12);
+            int[] counts = countLeaves(tree);
+            extant.addValue(counts[0]);
+            extinct.addValue(counts[1]);
+            int[] expected = simulateByRejection(2, random);
+            expectedExtant.addValue(expected[0]);
+            expectedExtinct.addValue(expected[1]);
+        }
+        assertEquals(expectedExtant.getMean(), extant.getMean(),
+                4 * Math.sqrt((extant.getVariance() + expectedExtant.getVariance()) / reps));
+        assertEquals(expectedExtinct.getMean(), extinct.getMean(),
+                4 * Math.sqrt((extinct.getVariance() + expectedExtinct.getVariance()) / reps));
+    }
+
+    /**
+     * E[sampled tips | sampled tips > 0] = m rho / (1 - (1-rho)^m).
+     */
+    @Test
+    public void testRhoSampleTips() {
+        final int m = 5;
+        final double rho = 0.1;
+        List<TimeTreeNode> tips = new ArrayList<>();
+        for (int i = 0; i < m; i++)
+            tips.add(new TimeTreeNode(i + "", null));
+
+        SummaryStatistics sampled = new SummaryStatistics();
+        RandomGenerator random = RandomUtils.getRandom();
+        for (int i = 0; i < reps; i++) {
+            int size = RhoSampleTree.sampleTips(tips, rho, random).size();
+            assertTrue(size >= 1 && size <= m);
+            sampled.addValue(size);
+        }
+        double expected = m * rho / (1 - Math.pow(1 - rho, m));
+        assertEquals(expected, sampled.getMean(), 4 * sampled.getStandardDeviation() / Math.sqrt(reps));
+        assertEquals(1 - Math.pow(1 - rho, m), RhoSampleTree.atLeastOneSampled(m, rho), 1e-12);
+        assertEquals(m, RhoSampleTree.sampleTips(tips, 1.0, random).size());
+    }
+
+    @Test
+    public void testMinExtant() {
+        assertEquals(1, SimFBDAge.getMinExtant(1.0));
+        assertEquals(2, SimFBDAge.getMinExtant(0.5));
+        assertEquals(2, SimFBDAge.getMinExtant(0.4));
+        // round(50 * 0.99) = 50
+        assertEquals(51, SimFBDAge.getMinExtant(0.01));
+        assertThrows(IllegalArgumentException.class, () -> SimFBDAge.getMinExtant(0.0));
+
+        // the full tree needs at least 2 extant species, whose probability is the survival times q^{n-1}
+        SimFBDAge simFBDAge = new SimFBDAge(new Value<>(null, lambda), new Value<>(null, mu),
+                new Value<>(null, 0.5), new Value<>(null, 0.1), new Value<>(null, age));
+        double r = lambda - mu;
+        double q = lambda * Math.expm1(r * age) / (lambda * Math.exp(r * age) - mu);
+        double survival = r * Math.exp(r * age) / (lambda * Math.exp(r * age) - mu);
+        assertEquals(survival * q, simFBDAge.getAcceptanceProbability(), 1e-12);
+    }
+
+}
@@ -0,0 +1,116 @@
+package lphy.base.evolution.birthdeath;
+
+import lphy.base.evolution.tree.TimeTree;
+import lphy.base.evolution.tree.TimeTreeNode;
+import lphy.core.model.Value;
+import lphy.core.simulator.RandomUtils;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GLMBirthDeathTreeTest {
+
+    @BeforeEach
+    void setUp() {
+        RandomUtils.setSeed(777);
+    }
+
+    private GLMBirthDeathTree create(double beta, double x0, double diffRate, double mu, double originAge, Integer steps) {
+        return new GLMBirthDeathTree(new Value<>(null, new Number[]{beta}), new Value<>(null, new Number[]{x0}),
+                new Value<>(null, new Number[]{diffRate}), new Value<>(null, mu), new Value<>(null, originAge),
+                steps == null ? null : new Value<>(null, steps));
+    }
+
+    private int countExtant(TimeTree tree) {
+        int extant = 0;
+        for (TimeTreeNode node : tree.getNodes()) {
+            if (node.getParent() != null)
+                assertTrue(node.getAge() <= node.getParent().getAge(), "Child is older than parent !");
+            if (node.isLeaf() && node.getAge() == 0.0)
+                extant++;
+        }
+        return extant;
+    }
+
+    /**
+     * Without trait evolution, the birth rate is constant exp(beta * x0),
+     * so E[N(T)] = exp((lambda - mu) T) for one lineage at the origin.
+     */
+    @Test
+    public void testConstantRates() {
+        final double lambda = 1.0;
+        final double mu = 0.5;
+        final double originAge = 3.0;
+        GLMBirthDeathTree glmBirthDeathTree = create(1.0, Math.log(lambda), 0.0, mu, originAge, null);
+
+        SummaryStatistics extant = new SummaryStatistics();
+        for (int i = 0; i < 2000; i++)
+            extant.addValue(countExtant(glmBirthDeathTree.sample().value()));
+
+        assertEquals(Math.exp((lambda - mu) * originAge), extant.getMean(), 4 * extant.getStandardDeviation() / Math.sqrt(extant.getN()));
+        long[] stats = glmBirthDeathTree.getThinningStatistics();
+        // the bound is exact without trait evolution
+        assertEquals(0, stats[1]);
+        assertEquals(0, stats[2]);
+    }
+
+    /**
+     * The simulation by adaptive thinning agrees with the fine fixed time steps, when the traits evolve.
+     */
+    @Test
+    public void testTraitDependentRates() {
+        final double originAge = 2.0;
+        GLMBirthDeathTree thinning = create(1.0, 0.0, 0.3, 0.5, originAge, null);
+        GLMBirthDeathTree fixedSteps = create(1.0, 0.0, 0.3, 0.5, originAge, 200);
+
+        SummaryStatistics thinningExtant = new SummaryStatistics();
+        SummaryStatistics fixedStepsExtant = new SummaryStatistics();
+        for (int i = 0; i < 1000; i++) {
+            thinningExtant.addValue(countExtant(thinning.sample().value()));
+            fixedStepsExtant.addValue(countExtant(fixedSteps.sample().value()));
+        }
+        double stdErr = Math.sqrt(thinningExtant.getVariance() / thinningExtant.getN() +
+                fixedStepsExtant.getVariance() / fixedStepsExtant.getN());
+        assertEquals(fixedStepsExtant.getMean(), thinningExtant.getMean(), 4 * stdErr);
+
+        long[] stats = thinning.getThinningStatistics();
+        assertTrue(stats[0] >= stats[1]);
+    }
+
+    @Test
+    public void testLineageEventQueue() {
+        Random random = new Random(777);
+        LineageEventQueue queue = new LineageEventQueue(2);
+        double[] times = new double[100];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = random.nextDouble();
+            queue.schedule(i, times[i]);
+        }
+        // reschedule and remove some lineages
+        for (int i = 0; i < times.length; i += 3) {
+            times[i] = random.nextDouble();
+            queue.schedule(i, times[i]);
+        }
+        for (int i = 1; i < times.length; i += 7) {
+            queue.remove(i);
+            times[i] = Double.NaN;
+        }
+
+        double last = Double.NEGATIVE_INFINITY;
+        int count = 0;
+        while (!queue.isEmpty()) {
+            int lineage = queue.peekLineage();
+            assertEquals(times[lineage], queue.peekTime());
+            assertTrue(queue.peekTime() >= last);
+            last = queue.peekTime();
+            queue.remove(lineage);
+            count++;
+        }
+        assertEquals(times.length - (times.length + 5) / 7, count);
+    }
+
+}
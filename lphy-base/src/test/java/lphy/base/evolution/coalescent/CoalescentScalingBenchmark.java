@@ -0,0 +1,40 @@
+package lphy.base.evolution.coalescent;
+
+import lphy.base.evolution.tree.TimeTree;
+import lphy.core.model.Value;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The scaling of coalescent simulations from 1k to 1M tips, which should be close to linear.
+ * It is not run by the default build, use:
+ * <pre>
+ * mvn test -pl lphy,lphy-base -Dtest=CoalescentScalingBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ */
+public class CoalescentScalingBenchmark {
+
+    static final int[] N_TIPS = new int[]{1_000, 10_000, 100_000, 1_000_000};
+    static final int REPEATS = 3;
+
+    @Test
+    public void coalescentScaling() {
+        System.out.println("ntips\tms per tree\tns per tip");
+        for (int nTips : N_TIPS) {
+            Coalescent coalescent = new Coalescent(new Value<>("Θ", 10.0), new Value<>("n", nTips), null);
+            // warm up
+            coalescent.sample();
+
+            long start = System.nanoTime();
+            TimeTree tree = null;
+            for (int i = 0; i < REPEATS; i++)
+                tree = coalescent.sample().value();
+            long nanos = (System.nanoTime() - start) / REPEATS;
+
+            assertEquals(nTips, (int) tree.leafCount());
+            System.out.println(nTips + "\t" + nanos / 1e6 + "\t" + nanos / nTips);
+        }
+    }
+
+}
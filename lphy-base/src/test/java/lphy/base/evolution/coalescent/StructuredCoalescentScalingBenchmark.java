@@ -0,0 +1,100 @@
+package lphy.base.evolution.coalescent;
+
+import lphy.base.evolution.tree.TimeTree;
+import lphy.core.model.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The scaling of the structured coalescent with the number of demes,
+ * comparing the event selection by the full rate matrix and by {@link DemePropensities}.
+ * It is not run by the default build, use:
+ * <pre>
+ * mvn test -pl lphy,lphy-base -Dtest=StructuredCoalescentScalingBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ */
+public class StructuredCoalescentScalingBenchmark {
+
+    static final int[] N_DEMES = new int[]{10, 50, 100, 200};
+    static final int TIPS_PER_DEME = 5;
+    static final int EVENTS = 20_000;
+
+    static Double[][] islandModel(int nDemes) {
+        Double[][] theta = new Double[nDemes][nDemes];
+        for (int i = 0; i < nDemes; i++)
+            for (int j = 0; j < nDemes; j++)
+                theta[i][j] = i == j ? 1.0 : 1.0 / nDemes;
+        return theta;
+    }
+
+    @Test
+    public void eventSelectionScaling() {
+        System.out.println("demes\tns per event (rate matrix)\tns per event (propensities)");
+        java.util.Random random = new java.util.Random(777);
+        double sum = 0;
+        for (int nDemes : N_DEMES) {
+            Double[][] theta = islandModel(nDemes);
+            int[] sampleSizes = new int[nDemes];
+            Arrays.fill(sampleSizes, TIPS_PER_DEME);
+
+            // the previous engine: repopulate the rate matrix and scan it for every event
+            double[][] rates = new double[nDemes][nDemes];
+            long start = System.nanoTime();
+            for (int e = 0; e < EVENTS; e++) {
+                int deme = e % nDemes;
+                sampleSizes[deme] = TIPS_PER_DEME + (e & 1);
+                double totalRate = StructuredCoalescent.populateRateMatrix(sampleSizes, theta, rates);
+                double U = random.nextDouble() * totalRate;
+                scan:
+                for (int i = 0; i < nDemes; i++) {
+                    for (int j = 0; j < nDemes; j++) {
+                        if (U > rates[i][j]) U -= rates[i][j];
+                        else { sum += i + j; break scan; }
+                    }
+                }
+            }
+            long denseNanos = (System.nanoTime() - start) / EVENTS;
+
+            DemePropensities propensities = new DemePropensities(theta);
+            for (int i = 0; i < nDemes; i++)
+                propensities.setLineageCount(i, TIPS_PER_DEME);
+            start = System.nanoTime();
+            for (int e = 0; e < EVENTS; e++) {
+                int deme = e % nDemes;
+                propensities.setLineageCount(deme, TIPS_PER_DEME + (e & 1));
+                int[] event = propensities.selectEvent(random.nextDouble() * propensities.getTotalRate());
+                sum += event[0] + event[1];
+            }
+            long treeNanos = (System.nanoTime() - start) / EVENTS;
+
+            System.out.println(nDemes + "\t" + denseNanos + "\t" + treeNanos);
+        }
+        // use the selected events
+        assertTrue(sum > 0);
+    }
+
+    @Test
+    public void treeScaling() {
+        System.out.println("demes\tms per tree");
+        for (int nDemes : N_DEMES) {
+            Integer[] k = new Integer[nDemes];
+            Arrays.fill(k, TIPS_PER_DEME);
+            StructuredCoalescent coalescent = new StructuredCoalescent(new Value<>("M", islandModel(nDemes)),
+                    new Value<>("k", k), null, null, null);
+            // warm up
+            coalescent.sample();
+
+            long start = System.nanoTime();
+            TimeTree tree = coalescent.sample().value();
+            long nanos = System.nanoTime() - start;
+
+            assertEquals(nDemes * TIPS_PER_DEME, (int) tree.leafCount());
+            System.out.println(nDemes + "\t" + nanos / 1e6);
+        }
+    }
+
+}
@@ -88,6 +88,43 @@ public class StructuredCoalescentTest {
         }
     }
 
+    @Test
+    public void testDemePropensities() {
+        final int nDemes = 7;
+        java.util.Random rnd = new java.util.Random(777);
+        Double[][] theta = new Double[nDemes][nDemes];
+        for (int i = 0; i < nDemes; i++)
+            for (int j = 0; j < nDemes; j++)
+                // some zero migration rates
+                theta[i][j] = i == j ? 0.5 + rnd.nextDouble() : (rnd.nextDouble() < 0.3 ? 0.0 : rnd.nextDouble());
+
+        int[] sampleSizes = new int[nDemes];
+        DemePropensities propensities = new DemePropensities(theta);
+        for (int i = 0; i < nDemes; i++) {
+            sampleSizes[i] = rnd.nextInt(4);
+            propensities.setLineageCount(i, sampleSizes[i]);
+        }
+
+        double[][] rates = new double[nDemes][nDemes];
+        double totalRate = StructuredCoalescent.populateRateMatrix(sampleSizes, theta, rates);
+        assertEquals(totalRate, propensities.getTotalRate(), 1e-12);
+        assertEquals(Arrays.stream(sampleSizes).sum(), propensities.getTotalLineages());
+
+        // same event as scanning the rate matrix row by row
+        for (int k = 0; k < 10000; k++) {
+            double U = rnd.nextDouble() * totalRate;
+            int[] event = propensities.selectEvent(U);
+            int[] expected = null;
+            for (int i = 0; i < nDemes && expected == null; i++) {
+                for (int j = 0; j < nDemes && expected == null; j++) {
+                    if (U > rates[i][j]) U -= rates[i][j];
+                    else expected = new int[]{i, j};
+                }
+            }
+            assertEquals(Arrays.toString(expected), Arrays.toString(event), "U = " + U);
+        }
+    }
+
     @Test
     public void testSortDemes() {
 
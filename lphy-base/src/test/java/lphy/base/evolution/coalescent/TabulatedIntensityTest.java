@@ -0,0 +1,52 @@
+package lphy.base.evolution.coalescent;
+
+import lphy.base.evolution.coalescent.populationmodel.GompertzPopulation_f0;
+import lphy.base.evolution.coalescent.populationmodel.GompertzPopulation_t50;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TabulatedIntensityTest {
+
+    @Test
+    public void testIntensityMatchesIntegration() {
+        GompertzPopulation_f0 gompertz = new GompertzPopulation_f0(100, 0.1, 0.5, 5);
+        TabulatedIntensity tabulated = new TabulatedIntensity(gompertz, TabulatedIntensity.DEFAULT_TOLERANCE);
+
+        for (double t : new double[]{0.0, 0.01, 0.5, 1.0, 2.5, 5.0, 10.0, 20.0}) {
+            double expected = gompertz.getIntensity(t);
+            assertEquals(expected, tabulated.getIntensity(t), 1e-7 * Math.max(expected, 1e-3), "t = " + t);
+            // the inverse of the table
+            double x = tabulated.getIntensity(t);
+            assertEquals(t, tabulated.getInverseIntensity(x), 1e-9 * Math.max(t, 1.0), "x = " + x);
+        }
+    }
+
+    @Test
+    public void testInverseIntensityExtendsTable() {
+        GompertzPopulation_t50 gompertz = new GompertzPopulation_t50(5, 0.3, 1000);
+        TabulatedIntensity tabulated = new TabulatedIntensity(gompertz, TabulatedIntensity.DEFAULT_TOLERANCE);
+
+        double previous = 0;
+        for (double x = 0.001; x < 10; x *= 2) {
+            double t = tabulated.getInverseIntensity(x);
+            assertTrue(t > previous, "The inverse intensity must be increasing !");
+            assertEquals(x, gompertz.getIntensity(t), 1e-7 * x);
+            previous = t;
+        }
+    }
+
+    @Test
+    public void testTablesAreShared() {
+        PopulationFunction pf1 = TabulatedIntensity.of(new GompertzPopulation_f0(100, 0.1, 0.5));
+        PopulationFunction pf2 = TabulatedIntensity.of(new GompertzPopulation_f0(100, 0.1, 0.5));
+        PopulationFunction pf3 = TabulatedIntensity.of(new GompertzPopulation_f0(100, 0.1, 0.6));
+        assertInstanceOf(TabulatedIntensity.class, pf1);
+        assertSame(pf1, pf2);
+        assertNotSame(pf1, pf3);
+        // no table for analytical functions
+        PopulationFunction exponential = new lphy.base.evolution.coalescent.populationmodel.ExponentialPopulation(0.1, 100, 50);
+        assertSame(exponential, TabulatedIntensity.of(exponential));
+    }
+
+}
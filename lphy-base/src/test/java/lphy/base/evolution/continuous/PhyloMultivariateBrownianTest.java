@@ -12,13 +12,13 @@ import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTree;
+import org.apache.commons.math3.distribution.MultivariateNormalDistribution;
 import org.apache.commons.math3.stat.StatUtils;
 import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author: Fabio K. Mendes
@@ -190,4 +190,39 @@ public class PhyloMultivariateBrownianTest {
         assertTrue(StatUtils.mean(diffsSp3Sp1[0]) > StatUtils.mean(diffsSp3Sp2[0]) && StatUtils.mean(diffsSp3Sp2[0]) > StatUtils.mean(diffsSp3Sp4[0]));
         assertEquals(StatUtils.mean(diffsSp3Sp1[0]), StatUtils.mean(diffsSp4Sp1[0]), 0.001);
     }
-}
\ No newline at end of file
+
+    /*
+     * The cached sampling matrix scaled by sqrt(branch length) should draw
+     * the same values as a new MVN with var-cov diffusionMatrix * branchLength.
+     */
+    @Test
+    public void cachedSamplingMatrixTest() {
+        Double[][] diffusion = new Double[][] { {1.0, 0.5, 0.25}, {0.5, 1.0, 0.25}, {0.25, 0.25, 1.0} };
+        double[] mean = new double[] { 0.0, 1.0, 2.0 };
+        double branchLength = 2.5;
+        double[][] covariances = new double[3][3];
+        for (int i = 0; i < 3; i++)
+            for (int j = 0; j < 3; j++)
+                covariances[i][j] = diffusion[i][j] * branchLength;
+
+        TimeTree tree = initializeTree("(sp1:1.0,sp2:1.0)0:0.0;");
+        PhyloMultivariateBrownian phyloMB = new PhyloMultivariateBrownian(new Value<>("tree", tree),
+                new Value<>("rate", diffusion), new Value<>("y0", new Double[] { 0.0, 1.0, 2.0 }));
+        double[][] samplingMatrix = phyloMB.getSamplingMatrix(diffusion);
+        // cached
+        assertSame(samplingMatrix, phyloMB.getSamplingMatrix(new Double[][] { {1.0, 0.5, 0.25}, {0.5, 1.0, 0.25}, {0.25, 0.25, 1.0} }));
+
+        RandomUtils.setSeed(777);
+        double[] expected = new MultivariateNormalDistribution(RandomUtils.getRandom(), mean, covariances).sample();
+        RandomUtils.setSeed(777);
+        double[] observed = phyloMB.sampleNewState(mean, samplingMatrix, branchLength, new double[3]);
+        assertArrayEquals(expected, observed, 1e-10);
+
+        ContinuousCharacterData[] traitSets = phyloMB.sampleTraitSets(5);
+        assertEquals(5, traitSets.length);
+        for (ContinuousCharacterData data : traitSets) {
+            assertNotNull(data.getState("sp1", 2));
+            assertNotNull(data.getState("sp2", 0));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package lphy.base.evolution.likelihood;
+
+import jebl.evolution.sequences.SequenceType;
+import lphy.base.distribution.Categorical;
+import lphy.base.evolution.alignment.Alignment;
+import lphy.base.evolution.alignment.PackedStates;
+import lphy.base.evolution.alignment.SimpleAlignment;
+import lphy.base.evolution.coalescent.Coalescent;
+import lphy.base.evolution.substitutionmodel.GTR;
+import lphy.base.evolution.tree.TimeTree;
+import lphy.base.evolution.tree.TimeTreeNode;
+import lphy.core.model.Value;
+import lphy.core.simulator.RandomUtils;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhyloCTMCTest {
+
+    final int ntaxa = 20;
+    // more than one block of sites
+    final int L = 5000;
+
+    Value<TimeTree> tree;
+    Value<Double[][]> Q;
+
+    @BeforeEach
+    void setUp() {
+        RandomUtils.setSeed(123);
+        Coalescent coalescent = new Coalescent(new Value<>("theta", 1.0),
+                new Value<>("n", ntaxa), null);
+        tree = coalescent.sample();
+
+        GTR gtr = new GTR(new Value<>("rates", new Double[]{0.2, 10.0, 0.3, 0.4, 5.0, 0.5}),
+                new Value<>("freqs", new Double[]{0.20, 0.30, 0.25, 0.25}), new Value<>("meanRate", 1.0));
+        Q = gtr.apply();
+    }
+
+    /**
+     * The transition probabilities tabulated per branch must simulate the same alignment
+     * as computing them per branch per site, given the same seed.
+     */
+    @Test
+    void testTabulatedTransProbs() {
+        // discrete site rates, e.g. from DiscretizedGamma
+        final double[] categories = {0.1, 0.5, 1.2, 2.2};
+        Double[] siteRates = new Double[L];
+        for (int i = 0; i < L; i++)
+            siteRates[i] = categories[i % categories.length];
+        Double[] branchRates = new Double[tree.value().getNodeCount()];
+        for (int i = 0; i < branchRates.length; i++)
+            branchRates[i] = 0.5 + 0.1 * (i % 10);
+
+        PhyloCTMC phyloCTMC = new PhyloCTMC(tree, new Value<>("mu", 0.8), null, Q,
+                new Value<>("siteRates", siteRates), new Value<>("branchRates", branchRates),
+                new Value<>("L", L), null, null, null);
+
+        RandomUtils.setSeed(777);
+        Alignment actual = phyloCTMC.sample().value();
+
+        RandomUtils.setSeed(777);
+        SimpleAlignment expected = sampleSiteBySite(phyloCTMC, siteRates, 0.8, null);
+
+        assertAlignmentEquals(expected, actual);
+    }
+
+    /**
+     * Only the shared rate multipliers are tabulated, but not continuous site rates,
+     * which must still simulate the same alignment as site by site.
+     */
+    @Test
+    void testContinuousSiteRates() {
+        List<Double> rates = new ArrayList<>();
+        // the same rate multiplier 0.4
+        int[] siteRateIndices = AbstractPhyloCTMC.indexSiteRates(0.8, new double[]{0.5, 1.0, 0.5, 0.5}, rates);
+        assertArrayEquals(new int[]{0, 1, 0, 0}, siteRateIndices);
+        assertEquals(List.of(0.4, 0.8), rates);
+
+        Double[] siteRates = new Double[L];
+        for (int i = 0; i < L; i++)
+            siteRates[i] = 0.5 + (double) i / L;
+        PhyloCTMC phyloCTMC = new PhyloCTMC(tree, new Value<>("mu", 0.8), null, Q,
+                new Value<>("siteRates", siteRates), null, new Value<>("L", L), null, null, null);
+        phyloCTMC.setup();
+        assertTrue(phyloCTMC.isTabulated(4, L));
+        assertTrue(phyloCTMC.isTabulated(1, 1));
+        assertFalse(phyloCTMC.isTabulated(L, L));
+
+        RandomUtils.setSeed(777);
+        Alignment actual = phyloCTMC.sample().value();
+
+        RandomUtils.setSeed(777);
+        SimpleAlignment expected = sampleSiteBySite(phyloCTMC, siteRates, 0.8, null);
+
+        assertAlignmentEquals(expected, actual);
+    }
+
+    @Test
+    void testRootSequence() {
+        Map<String, Integer> idMap = new TreeMap<>();
+        idMap.put("root", 0);
+        SimpleAlignment rootSeq = new SimpleAlignment(idMap, L, SequenceType.NUCLEOTIDE);
+        for (int i = 0; i < L; i++)
+            rootSeq.setState(0, i, i % 4);
+        Double[] siteRates = new Double[L];
+        Arrays.fill(siteRates, 1.0);
+
+        PhyloCTMC phyloCTMC = new PhyloCTMC(tree, null, null, Q, null, null,
+                new Value<>("L", L), null, new Value<>("root", rootSeq), null);
+
+        RandomUtils.setSeed(777);
+        Alignment actual = phyloCTMC.sample().value();
+
+        RandomUtils.setSeed(777);
+        SimpleAlignment expected = sampleSiteBySite(phyloCTMC, siteRates, 1.0, rootSeq);
+
+        assertAlignmentEquals(expected, actual);
+    }
+
+    /**
+     * The parallel mode must simulate the same alignment for the same seed,
+     * whatever the number of threads.
+     */
+    @Test
+    void testSiteParallel() {
+        // the chunks must not share any long of the packed states
+        for (int bits = 1; bits <= 31; bits++) {
+            PackedStates states = new PackedStates(1, 1, (1 << bits) - 1);
+            assertEquals(bits, states.getBitsPerState());
+            int sitesPerChunk = AbstractPhyloCTMC.getSitesPerChunk(states.getSitesPerWordBoundary());
+            assertEquals(0, (long) sitesPerChunk * bits % Long.SIZE, bits + " bits per state");
+        }
+
+        PhyloCTMC phyloCTMC = new PhyloCTMC(tree, null, null, Q, null, null,
+                new Value<>("L", 3 * L), null, null, new Value<>(null, 1));
+        RandomUtils.setSeed(777);
+        Alignment expected = phyloCTMC.sample().value();
+
+        phyloCTMC.setParam(AbstractPhyloCTMC.threadsParamName, new Value<>(null, 4));
+        RandomUtils.setSeed(777);
+        Alignment actual = phyloCTMC.sample().value();
+
+        assertAlignmentEquals((SimpleAlignment) expected, actual);
+    }
+
+    private void assertAlignmentEquals(SimpleAlignment expected, Alignment actual) {
+        assertEquals(expected.ntaxa(), actual.ntaxa());
+        assertEquals(expected.nchar(), actual.nchar());
+        for (int t = 0; t < expected.ntaxa(); t++) {
+            for (int i = 0; i < expected.nchar(); i++)
+                assertEquals(expected.getState(t, i), actual.getState(t, i), "taxon " + t + " site " + i);
+        }
+    }
+
+    // the implementation computing P(t) for every branch at every site
+    private SimpleAlignment sampleSiteBySite(PhyloCTMC phyloCTMC, Double[] siteRates, double mu,
+                                             SimpleAlignment rootSeq) {
+        phyloCTMC.setup();
+        RandomGenerator random = RandomUtils.getRandom();
+        SimpleAlignment a = new SimpleAlignment(phyloCTMC.idMap, L, phyloCTMC.getDataType());
+        double[][] transProb = new double[4][4];
+        for (int i = 0; i < L; i++) {
+            int rootState = rootSeq != null ? rootSeq.getState(0, i) :
+                    Categorical.sample(phyloCTMC.rootFreqs.value(), random);
+            traverseTree(phyloCTMC, tree.value().getRoot(), rootState, a, i, transProb, mu, siteRates[i], random);
+        }
+        return a;
+    }
+
+    private void traverseTree(PhyloCTMC phyloCTMC, TimeTreeNode node, int nodeState, SimpleAlignment alignment,
+                              int pos, double[][] transProb, double clockRate, double siteRate, RandomGenerator random) {
+        if (node.isLeaf() || (node.isSingleChildNonOrigin() && node.getId() != null))
+            alignment.setState(node.getLeafIndex(), pos, nodeState);
+        for (TimeTreeNode child : node.getChildren()) {
+            double branchLength = siteRate * clockRate * (node.getAge() - child.getAge());
+            if (phyloCTMC.getBranchRates() != null)
+                branchLength *= phyloCTMC.getBranchRates().value()[child.getIndex()];
+
+            phyloCTMC.getTransitionProbabilities(branchLength, transProb);
+            int state = drawState(transProb[nodeState], random);
+
+            traverseTree(phyloCTMC, child, state, alignment, pos, transProb, clockRate, siteRate, random);
+        }
+    }
+
+    private int drawState(double[] p, RandomGenerator random) {
+        double U = random.nextDouble();
+        double totalP = p[0];
+        if (U <= totalP) return 0;
+        for (int i = 1; i < p.length; i++) {
+            totalP += p[i];
+            if (U <= totalP) return i;
+        }
+        return p.length - 1;
+    }
+
+}
@@ -98,7 +98,7 @@ class BinaryCovarionTest {
         System.out.println("Q matrix: " + Arrays.deepToString(Q.value()));
 
         PhyloCTMC phyloCTMC = new PhyloCTMC(tree, null, null, Q,
-                null, null, new Value<>("L", 100), null, null);
+                null, null, new Value<>("L", 100), null, null, null);
         // not simulate sequences, so ignore sample(), then tree stats and L should not affect the result
         phyloCTMC.setup();
 
@@ -131,7 +131,7 @@ class BinaryCovarionTest {
         System.out.println("Q matrix: " + Arrays.deepToString(Q.value()));
 
         PhyloCTMC phyloCTMC = new PhyloCTMC(tree, null, null, Q,
-                null, null, new Value<>("L", 100), null, null);
+                null, null, new Value<>("L", 100), null, null, null);
         // not simulate sequences, so ignore sample(), then tree stats and L should not affect the result
         phyloCTMC.setup();
 
@@ -65,7 +65,7 @@ class GTRTest {
         final Value Q = gtr.apply();
 
         PhyloCTMC phyloCTMC = new PhyloCTMC(tree, null, null, Q,
-                null, null, new Value<>("L", 100), null, null);
+                null, null, new Value<>("L", 100), null, null, null);
         // not simulate sequences, so ignore sample(), then tree stats and L should not affect the result
         phyloCTMC.setup();
         double[][] p = new double[4][4];
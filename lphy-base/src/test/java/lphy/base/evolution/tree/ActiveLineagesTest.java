@@ -0,0 +1,47 @@
+package lphy.base.evolution.tree;
+
+import lphy.core.simulator.RandomUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActiveLineagesTest {
+
+    @Test
+    void swapRemove() {
+        TimeTreeNode[] nodes = new TimeTreeNode[5];
+        ActiveLineages lineages = new ActiveLineages(1);
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new TimeTreeNode(i);
+            lineages.add(nodes[i]);
+        }
+        assertEquals(5, lineages.size());
+
+        // the last lineage is moved to the removed index
+        assertSame(nodes[1], lineages.remove(1));
+        assertEquals(List.of(nodes[0], nodes[4], nodes[2], nodes[3]), lineages.toList());
+        assertSame(nodes[3], lineages.remove(3));
+        assertEquals(3, lineages.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> lineages.get(3));
+    }
+
+    @Test
+    void removeRandom() {
+        RandomUtils.setSeed(777);
+        ActiveLineages lineages = new ActiveLineages();
+        Set<TimeTreeNode> all = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            TimeTreeNode node = new TimeTreeNode(i);
+            lineages.add(node);
+            all.add(node);
+        }
+        Set<TimeTreeNode> removed = new HashSet<>();
+        while (!lineages.isEmpty())
+            assertTrue(removed.add(lineages.removeRandom(RandomUtils.getRandom())), "Drawn without replacement !");
+        assertEquals(all, removed);
+    }
+}
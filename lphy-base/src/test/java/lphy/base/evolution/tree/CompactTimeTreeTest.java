@@ -0,0 +1,103 @@
+package lphy.base.evolution.tree;
+
+import lphy.base.evolution.birthdeath.FullBirthDeathTree;
+import lphy.base.evolution.coalescent.Coalescent;
+import lphy.core.model.Value;
+import lphy.core.simulator.RandomUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactTimeTreeTest {
+
+    @BeforeEach
+    void setUp() {
+        RandomUtils.setSeed(777);
+    }
+
+    // the statistics from the compact tree must be the same after the nodes are created
+    private void assertSameAfterCreatingNodes(TimeTree tree) {
+        assertNotNull(tree.getCompactTree());
+        String newick = tree.toNewick(true);
+        String newickNoSingleChild = tree.toNewick(false);
+        double treeLength = tree.treeLength();
+        double rootAge = tree.rootAge();
+        int nodeCount = tree.getNodeCount();
+        int extantCount = tree.extantCount();
+        boolean ultrametric = tree.isUltrametric();
+        boolean hasOrigin = tree.hasOrigin();
+        String[] taxaNames = tree.getTaxaNames();
+
+        // copy without creating the nodes
+        TimeTree copy = new TimeTree(tree);
+        assertNotNull(copy.getCompactTree());
+        assertEquals(newick, copy.toString());
+
+        assertNotNull(tree.getRoot());
+        assertNull(tree.getCompactTree());
+        assertEquals(newick, tree.toNewick(true));
+        assertEquals(newickNoSingleChild, tree.toNewick(false));
+        assertEquals(treeLength, tree.treeLength(), 1e-9);
+        assertEquals(rootAge, tree.rootAge());
+        assertEquals(nodeCount, tree.getNodeCount());
+        assertEquals(nodeCount, tree.getNodes().size());
+        assertEquals(extantCount, tree.extantCount());
+        assertEquals(ultrametric, tree.isUltrametric());
+        assertEquals(hasOrigin, tree.hasOrigin());
+        assertArrayEquals(taxaNames, tree.getTaxaNames());
+        for (int i = 0; i < tree.getNodeCount(); i++)
+            assertEquals(i, tree.getNodeByIndex(i).getIndex());
+        for (TimeTreeNode leaf : tree.getLeafNodes())
+            assertEquals(leaf.getId(), taxaNames[leaf.getLeafIndex()]);
+
+        // the copy is independent
+        assertEquals(newick, copy.toNewick(true));
+        assertNotSame(tree.getRoot(), copy.getRoot());
+    }
+
+    @Test
+    void coalescent() {
+        Coalescent coalescent = new Coalescent(new Value<>(null, 1.0), new Value<>(null, 50), null);
+        TimeTree tree = coalescent.sample().value();
+        assertEquals(50, tree.n());
+        assertEquals(99, tree.getNodeCount());
+        assertSameAfterCreatingNodes(tree);
+    }
+
+    @Test
+    void fullBirthDeath() {
+        FullBirthDeathTree birthDeathTree = new FullBirthDeathTree(new Value<>(null, 1.0),
+                new Value<>(null, 0.5), null, new Value<>(null, 3.0));
+        TimeTree tree = birthDeathTree.sample().value();
+        assertTrue(tree.hasOrigin());
+        assertSameAfterCreatingNodes(tree);
+    }
+
+    @Test
+    void metaData() {
+        CompactTimeTree compactTree = new CompactTimeTree(1);
+        int a = compactTree.addLeaf("a", 0.0, 1);
+        int b = compactTree.addLeaf("b", 0.5, 0);
+        int parent = compactTree.addParent(2.0, a, b);
+        int origin = compactTree.addNode(null, 3.0);
+        compactTree.addChild(origin, parent);
+        compactTree.setBranchRate(a, 1.5);
+        compactTree.setMetaData(b, "label", "x");
+        assertThrows(IllegalArgumentException.class, () -> compactTree.addChild(origin, a));
+        assertThrows(IllegalArgumentException.class, () -> new TimeTree().setRoot(compactTree));
+        compactTree.setRoot(origin, false);
+
+        TimeTree tree = new TimeTree();
+        tree.setRoot(compactTree);
+        assertEquals(2, tree.n());
+        assertArrayEquals(new String[]{"b", "a"}, tree.getTaxaNames());
+        assertEquals("((a[&rate=1.5]:2.0,b[&label=x]:1.5):1.0):0.0;", tree.toString());
+        assertSameAfterCreatingNodes(tree);
+
+        assertEquals(1.5, tree.getNodeByIndex(1).getBranchRate());
+        assertEquals("b", tree.getLabeledNode("x").getId());
+        assertArrayEquals(new Double[]{1.5}, tree.getBranchRates());
+    }
+
+}
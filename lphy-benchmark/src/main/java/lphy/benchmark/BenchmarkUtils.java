@@ -0,0 +1,61 @@
+package lphy.benchmark;
+
+import lphy.core.model.GenerativeDistribution;
+import lphy.core.model.RandomVariable;
+import lphy.core.model.Value;
+import lphy.core.parser.LPhyParserDictionary;
+import lphy.core.parser.REPL;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The utils to find the bundled examples and to create generators for the benchmarks.
+ */
+public final class BenchmarkUtils {
+
+    /**
+     * The system property of the examples folder, e.g. -Dlphy.examples=/path/to/examples,
+     * otherwise it is searched in the working directory and its parent.
+     */
+    public static final String EXAMPLES_DIR_PROPERTY = "lphy.examples";
+
+    private BenchmarkUtils() { }
+
+    public static File getExamplesDir() {
+        String dir = System.getProperty(EXAMPLES_DIR_PROPERTY);
+        if (dir != null)
+            return requireDir(Paths.get(dir));
+        Path wd = Paths.get(System.getProperty("user.dir")).toAbsolutePath();
+        for (Path candidate : new Path[]{wd.resolve("examples"), wd.resolve("..").resolve("examples")}) {
+            if (candidate.toFile().isDirectory())
+                return candidate.normalize().toFile();
+        }
+        throw new IllegalArgumentException("Cannot find the examples folder from " + wd +
+                ", please set -D" + EXAMPLES_DIR_PROPERTY + " !");
+    }
+
+    private static File requireDir(Path path) {
+        File dir = path.toAbsolutePath().normalize().toFile();
+        if (!dir.isDirectory())
+            throw new IllegalArgumentException("Cannot find the folder " + dir + " !");
+        return dir;
+    }
+
+    /**
+     * @param script  the lphy script in one line.
+     * @param id      the id of the random variable.
+     * @return  the generative distribution of the random variable after parsing the script,
+     *          whose parameters are the values sampled by parsing.
+     */
+    public static GenerativeDistribution<?> getGenerativeDistribution(String script, String id) {
+        LPhyParserDictionary parser = new REPL();
+        parser.parse(script);
+        Value<?> value = parser.getModelDictionary().get(id);
+        if (!(value instanceof RandomVariable<?> randomVariable))
+            throw new IllegalArgumentException("Cannot find the random variable " + id + " in " + script + " !");
+        return randomVariable.getGenerativeDistribution();
+    }
+
+}
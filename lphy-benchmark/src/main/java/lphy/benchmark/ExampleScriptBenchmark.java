@@ -0,0 +1,82 @@
+package lphy.benchmark;
+
+import lphy.core.io.UserDir;
+import lphy.core.model.Value;
+import lphy.core.parser.LPhyParserDictionary;
+import lphy.core.parser.REPL;
+import lphy.core.simulator.Sampler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse and sample the bundled examples, which is what slphy does for each script and replicate.
+ * The examples are chosen to cover coalescent, birth-death, simulation and vectorization,
+ * and not to read data files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExampleScriptBenchmark {
+
+    @Param({"coalescent/jcCoalescent.lphy", "coalescent/hkyCoalescent.lphy", "coalescent/gtrGammaCoalescent.lphy",
+            "coalescent/skylineCoalescent.lphy", "coalescent/simpleStructuredCoalescent.lphy",
+            "birth-death/simpleYule.lphy", "birth-death/simpleExtantBirthDeath.lphy", "birth-death/yuleRelaxed.lphy",
+            "simulation/jcSimData.lphy", "vectorization/IID.lphy", "vectorization/arrays.lphy"})
+    public String script;
+
+    private String code;
+    private Sampler sampler;
+    private Sampler planSampler;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        File file = new File(BenchmarkUtils.getExamplesDir(), script);
+        UserDir.setUserDir(file.getParent());
+        code = Files.readString(file.toPath());
+
+        sampler = new Sampler(parse());
+        planSampler = new Sampler(parse());
+        planSampler.setUseExecutionPlan(true);
+    }
+
+    private LPhyParserDictionary parse() throws IOException {
+        LPhyParserDictionary parser = new REPL();
+        parser.source(new BufferedReader(new StringReader(code)), null);
+        return parser;
+    }
+
+    /**
+     * Parse the script, which also samples the values once.
+     */
+    @Benchmark
+    public LPhyParserDictionary parseScript() throws IOException {
+        return parse();
+    }
+
+    /**
+     * Re-sample all values of a parsed script.
+     */
+    @Benchmark
+    public List<Value> sample() {
+        return sampler.sample(null);
+    }
+
+    /**
+     * Re-sample all values by the compiled {@link lphy.core.simulator.ExecutionPlan}.
+     */
+    @Benchmark
+    public List<Value> sampleByExecutionPlan() {
+        return planSampler.sample(null);
+    }
+
+}
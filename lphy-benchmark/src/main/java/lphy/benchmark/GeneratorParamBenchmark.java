@@ -0,0 +1,51 @@
+package lphy.benchmark;
+
+import lphy.core.model.GenerativeDistribution;
+import lphy.core.model.Value;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Set a parameter of distributions, which is done by {@link lphy.core.model.Generator#setParam(String, Value)}
+ * through the cached setters, e.g. when values are re-sampled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorParamBenchmark {
+
+    @Param({"Normal", "LogNormal", "Gamma"})
+    public String distribution;
+
+    private GenerativeDistribution<?> generator;
+    private String paramName;
+    private Value<Double> value;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String script = switch (distribution) {
+            case "Normal" -> "x ~ Normal(mean=0.0, sd=1.0);";
+            case "LogNormal" -> "x ~ LogNormal(meanlog=0.0, sdlog=1.0);";
+            case "Gamma" -> "x ~ Gamma(shape=2.0, scale=1.0);";
+            default -> throw new IllegalArgumentException("Unsupported distribution " + distribution + " !");
+        };
+        paramName = switch (distribution) {
+            case "Normal" -> "mean";
+            case "LogNormal" -> "meanlog";
+            default -> "shape";
+        };
+        generator = BenchmarkUtils.getGenerativeDistribution(script, "x");
+        value = new Value<>(null, 1.5);
+    }
+
+    @Benchmark
+    public GenerativeDistribution<?> setParam() {
+        generator.setParam(paramName, value);
+        return generator;
+    }
+
+}
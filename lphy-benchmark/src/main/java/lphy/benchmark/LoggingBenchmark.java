@@ -0,0 +1,90 @@
+package lphy.benchmark;
+
+import lphy.core.io.OutputSystem;
+import lphy.core.io.UserDir;
+import lphy.core.logger.ValueFileLoggerListener;
+import lphy.core.model.Value;
+import lphy.core.simulator.NamedRandomValueSimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Log the replicates of a simulation to files by {@link ValueFileLoggerListener},
+ * and simulate and log them as slphy does, by the number of replicates.
+ * The script is copied into a temporary folder, where slphy writes the files,
+ * and the folder is deleted after the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+
+    @Param({"coalescent/jcCoalescent.lphy"})
+    public String script;
+
+    @Param({"10", "100"})
+    public int replicates;
+
+    @Param({"false", "true"})
+    public boolean streaming;
+
+    private File lphyFile;
+    private Path outputDir;
+    private Map<Integer, List<Value>> sampledReplicates;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        File exampleFile = new File(BenchmarkUtils.getExamplesDir(), script);
+        outputDir = Files.createTempDirectory("lphy-benchmark");
+        lphyFile = outputDir.resolve(exampleFile.getName()).toFile();
+        Files.copy(exampleFile.toPath(), lphyFile.toPath());
+        UserDir.setUserDir(outputDir.toString());
+        OutputSystem.setOutputDirectory(outputDir.toString());
+
+        sampledReplicates = new NamedRandomValueSimulator().simulate(lphyFile, replicates,
+                null, null, 777L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Log the replicates sampled in the setup.
+     */
+    @Benchmark
+    public ValueFileLoggerListener logReplicates() {
+        ValueFileLoggerListener logger = new ValueFileLoggerListener(streaming);
+        logger.start(replicates, "benchmark");
+        for (Map.Entry<Integer, List<Value>> entry : sampledReplicates.entrySet())
+            logger.replicate(entry.getKey(), entry.getValue());
+        logger.complete();
+        return logger;
+    }
+
+    /**
+     * Parse, sample and log the replicates.
+     */
+    @Benchmark
+    public Map<Integer, List<Value>> simulateAndLog() throws IOException {
+        NamedRandomValueSimulator simulator = new NamedRandomValueSimulator(new ValueFileLoggerListener(streaming));
+        simulator.setStreaming(streaming);
+        return simulator.simulateAndLog(lphyFile, "benchmark", replicates, null, null, null);
+    }
+
+}
@@ -0,0 +1,42 @@
+package lphy.benchmark;
+
+import lphy.core.model.GenerativeDistribution;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulate alignments by PhyloCTMC on a fixed coalescent tree,
+ * by the number of taxa, the alignment length and the substitution model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhyloCTMCBenchmark {
+
+    @Param({"16", "256"})
+    public int nTips;
+
+    @Param({"100", "1000", "10000"})
+    public int L;
+
+    @Param({"jukesCantor()", "hky(kappa=2.0, freq=[0.2, 0.3, 0.3, 0.2])"})
+    public String Q;
+
+    private GenerativeDistribution<?> phyloCTMC;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        phyloCTMC = BenchmarkUtils.getGenerativeDistribution("ψ ~ Coalescent(theta=1.0, n=" + nTips + "); " +
+                "D ~ PhyloCTMC(L=" + L + ", Q=" + Q + ", tree=ψ);", "D");
+    }
+
+    @Benchmark
+    public Object sample() {
+        return phyloCTMC.sample();
+    }
+
+}
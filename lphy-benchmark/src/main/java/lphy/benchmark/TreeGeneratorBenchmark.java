@@ -0,0 +1,45 @@
+package lphy.benchmark;
+
+import lphy.core.model.GenerativeDistribution;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sample trees from the coalescent and birth-death generators by the number of taxa.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeGeneratorBenchmark {
+
+    @Param({"Coalescent", "StructuredCoalescent", "Yule", "BirthDeath"})
+    public String generator;
+
+    @Param({"16", "256", "2048"})
+    public int nTips;
+
+    private GenerativeDistribution<?> distribution;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String script = switch (generator) {
+            case "Coalescent" -> "ψ ~ Coalescent(theta=1.0, n=" + nTips + ");";
+            case "StructuredCoalescent" -> "ψ ~ StructuredCoalescent(M=[[1.0, 0.1], [0.1, 1.0]], k=[" +
+                    nTips / 2 + ", " + (nTips - nTips / 2) + "]);";
+            case "Yule" -> "ψ ~ Yule(lambda=1.0, n=" + nTips + ");";
+            case "BirthDeath" -> "ψ ~ BirthDeath(lambda=1.0, mu=0.5, n=" + nTips + ", rootAge=10.0);";
+            default -> throw new IllegalArgumentException("Unsupported tree generator " + generator + " !");
+        };
+        distribution = BenchmarkUtils.getGenerativeDistribution(script, "ψ");
+    }
+
+    @Benchmark
+    public Object sample() {
+        return distribution.sample();
+    }
+
+}
@@ -301,7 +301,9 @@ public class LinguaPhyloStudio {
                     ValueFileLoggerListener fileLoggerListener = new ValueFileLoggerListener();
                     // set alignment directory
                     fileLoggerListener.setOutputDir(selectedDir.getAbsolutePath());
-                    LoggerUtils.log.info("Save the alignments to: " + selectedDir.getAbsolutePath());
+                    // only the most recent replicates are kept after sampling
+                    LoggerUtils.log.info("Save the alignments of the last " + valuesMap.size() +
+                            " replicates to: " + selectedDir.getAbsolutePath());
 
                     // Key is the replicate index
                     fileLoggerListener.start(valuesMap.size(), parserDictionary.getName());
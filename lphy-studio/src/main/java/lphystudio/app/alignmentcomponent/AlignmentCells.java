@@ -0,0 +1,54 @@
+package lphystudio.app.alignmentcomponent;
+
+import java.util.Arrays;
+
+/**
+ * The rows or sites to draw along one axis, and their positions and size in pixels.
+ * If a cell is smaller than one pixel, only the cell at the centre of each pixel is drawn,
+ * so the cost scales with the pixel area instead of the number of cells.
+ */
+record AlignmentCells(int[] indices, double[] positions, double size) {
+
+    /**
+     * @param from    the first pixel.
+     * @param length  the number of pixels.
+     * @param origin  the position of the first cell.
+     * @param size    the size of a cell.
+     * @param count   the number of cells.
+     */
+    static AlignmentCells inside(int from, int length, double origin, double size, int count) {
+        if (size >= 1) {
+            int first = Math.max(0, (int) Math.floor((from - origin) / size));
+            int last = Math.min(count - 1, (int) Math.floor((from + length - origin) / size));
+            int n = Math.max(0, last - first + 1);
+            int[] indices = new int[n];
+            double[] positions = new double[n];
+            for (int k = 0; k < n; k++) {
+                indices[k] = first + k;
+                positions[k] = origin + (first + k) * size;
+            }
+            return new AlignmentCells(indices, positions, size);
+        }
+        int[] indices = new int[length];
+        double[] positions = new double[length];
+        int n = 0;
+        for (int px = from; px < from + length; px++) {
+            int index = (int) Math.floor((px + 0.5 - origin) / size);
+            if (index >= 0 && index < count) {
+                indices[n] = index;
+                positions[n] = px;
+                n++;
+            }
+        }
+        return new AlignmentCells(Arrays.copyOf(indices, n), Arrays.copyOf(positions, n), 1.0);
+    }
+
+    /**
+     * @param cellSize  the size of a cell before collapsing to pixels.
+     * @param fraction  the fraction of the cell to fill, leaving a gap between cells.
+     * @return  the size to fill, which is the whole pixel if the cells are smaller than a pixel.
+     */
+    double fill(double cellSize, double fraction) {
+        return size > cellSize ? size : cellSize * fraction;
+    }
+}
@@ -11,15 +11,23 @@ import lphy.core.model.RandomVariable;
 import lphy.core.model.Value;
 import lphystudio.app.FontUtils;
 import lphystudio.app.treecomponent.TimeTreeComponent;
+import lphystudio.core.swing.TileCache;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.Rectangle2D;
 import java.util.Arrays;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.prefs.Preferences;
 
+/**
+ * The sites are drawn into the cached tiles of {@link TileCache}, which are rendered again only
+ * when the size, the order of taxa or the display of errors change,
+ * and only the rows and sites inside a tile are drawn.
+ * If the cells are smaller than a pixel, only one cell per pixel is drawn.
+ */
 public class AlignmentComponent extends JComponent {
     public static boolean showErrorsIfAvailable = true;
 
@@ -36,6 +44,16 @@ public class AlignmentComponent extends JComponent {
 
     private Font taxaFont = taxaMinFont;
 
+    // the tree drawn next to the alignment, which is reused by every paint
+    private TimeTreeComponent treeComponent = null;
+    private final TileCache tileCache = new TileCache();
+    // the taxa in the order to draw, their row indices in the alignment, and the widths of their names
+    private String[] taxa2Draw = null;
+    private int[] rowIndices = null;
+    private Font taxaWidthsFont = null;
+    private int[] taxaWidths = null;
+    private int maxWidth = 0;
+
 //    private boolean isClamped;
 
     public AlignmentComponent(Value<? extends Alignment> av) {
@@ -154,63 +172,121 @@ public class AlignmentComponent extends JComponent {
             int treeHeight = (int)Math.round(height - h);
             g.translate(0, ytrans);
 
-            TimeTreeComponent treeComponent = new TimeTreeComponent(timeTree.value());
-            treeComponent.setBorder(BorderFactory.createEmptyBorder(1,1,1,0));
+            TimeTreeComponent treeComponent = getTreeComponent();
             treeComponent.setSize(maxTaxaWidth*2, treeHeight);
             treeComponent.paintComponent(g);
             width -= 2.0*maxTaxaWidth;
             xdelta = 2*maxTaxaWidth;
             g.translate(0, -ytrans);
 
-            taxa2Draw = treeComponent.getTips2Draw();
-            assert taxa2Draw.length == alignment.ntaxa();
-        }
-
-        int maxWidth = 0;
-        int[] sWidth = new int[taxa2Draw.length];
-        // compute max width of taxa names
-        for (int i = 0; i < taxa2Draw.length; i++) {
-            sWidth[i] = g.getFontMetrics().stringWidth(taxa2Draw[i]);
-            if (sWidth[i] > maxWidth) maxWidth = sWidth[i];
+            // the alignment taxa order is used until the layout of a large tree is computed off the EDT
+            if (treeComponent.isLayoutReady()) {
+                taxa2Draw = treeComponent.getTips2Draw();
+                assert taxa2Draw.length == alignment.ntaxa();
+            }
         }
+        setTaxa2Draw(taxa2Draw, g.getFontMetrics());
 
         double w = (width - maxWidth - spacer) / (double) visibleNChar();
 
         int ascent = g.getFontMetrics().getAscent();
         double ydelta = (h - ascent) / 2.0 + ascent;
 
-        List<String> algTaxaNames = Arrays.asList(alignment.taxaNames());
+        // only draw the names of taxa inside the clip
+        Rectangle clip = g.getClipBounds();
+        int firstRow = 0;
+        int lastRow = this.taxa2Draw.length - 1;
+        if (clip != null) {
+            firstRow = Math.max(firstRow, (int) Math.floor(clip.y / h));
+            lastRow = Math.min(lastRow, (int) Math.floor((clip.y + clip.height) / h));
+        }
+        if (!isShowingTree()) {
+            g.setColor(Color.black);
+            for (int i = firstRow; i <= lastRow; i++) {
+                double y = i * h;
+                g.drawString(this.taxa2Draw[i], maxWidth-taxaWidths[i]+xdelta,(int)Math.round(y+ydelta));
+            }
+        }
+
         // draw alignment
-        for (int i = 0; i < taxa2Draw.length; i++) {
-            double y = i * h;
+        if (w > 0 && h > 0) {
+            double x0 = xdelta + maxWidth + spacer;
+            boolean showErrors = alignment instanceof ErrorAlignment && showErrorsIfAvailable;
+            Rectangle area = new Rectangle((int) x0, 0,
+                    (int) Math.ceil(visibleNChar() * w) + 1, (int) Math.ceil(alignment.ntaxa() * h));
+            tileCache.paint(g2d, Arrays.asList(this.taxa2Draw, x0, w, h, showErrors), area,
+                    (tileGraphics, tile) -> drawSites(tileGraphics, tile, x0, w, h, showErrors));
+        }
+        g.translate(-insets.left, -insets.top);
+
+    }
+
+    private TimeTreeComponent getTreeComponent() {
+        if (treeComponent == null || treeComponent.getTimeTree() != timeTree.value()) {
+            treeComponent = new TimeTreeComponent(timeTree.value());
+            treeComponent.setBorder(BorderFactory.createEmptyBorder(1,1,1,0));
+            treeComponent.addLayoutListener(this::repaint);
+        }
+        return treeComponent;
+    }
+
+    // map the taxa to the rows of the alignment once, and cache the widths of the names per font
+    private void setTaxa2Draw(String[] taxa2Draw, FontMetrics fontMetrics) {
+        if (!Arrays.equals(taxa2Draw, this.taxa2Draw)) {
+            Map<String, Integer> algTaxaIndices = new HashMap<>();
+            String[] algTaxaNames = alignment.taxaNames();
+            for (int i = 0; i < algTaxaNames.length; i++)
+                algTaxaIndices.put(algTaxaNames[i], i);
+
+            // need to adjust id according to what taxa order is used.
+            rowIndices = new int[taxa2Draw.length];
+            for (int i = 0; i < taxa2Draw.length; i++)
+                rowIndices[i] = algTaxaIndices.get(taxa2Draw[i]);
+            this.taxa2Draw = taxa2Draw;
+            taxaWidths = null;
+        }
 
-            if (!isShowingTree()) {
-                g.setColor(Color.black);
-                g.drawString(taxa2Draw[i], maxWidth-sWidth[i]+xdelta,(int)Math.round(y+ydelta));
+        if (taxaWidths == null || !fontMetrics.getFont().equals(taxaWidthsFont)) {
+            maxWidth = 0;
+            taxaWidths = new int[taxa2Draw.length];
+            // compute max width of taxa names
+            for (int i = 0; i < taxa2Draw.length; i++) {
+                taxaWidths[i] = fontMetrics.stringWidth(taxa2Draw[i]);
+                if (taxaWidths[i] > maxWidth) maxWidth = taxaWidths[i];
             }
+            taxaWidthsFont = fontMetrics.getFont();
+        }
+    }
 
-            for (int j = 0; j < visibleNChar(); j++) {
-                // need to adjust id according to what taxa order is used.
-                int adjustedId = algTaxaNames.indexOf(taxa2Draw[i]);
+    // draw the sites of the rows inside the tile
+    private void drawSites(Graphics2D g, Rectangle tile, double x0, double w, double h, boolean showErrors) {
+        AlignmentCells rows = AlignmentCells.inside(tile.y, tile.height, 0, h, taxa2Draw.length);
+        AlignmentCells sites = AlignmentCells.inside(tile.x, tile.width, x0, w, visibleNChar());
+        // the gap between rows only if they are not collapsed to pixels
+        double rowHeight = rows.fill(h, 0.95);
 
+        Rectangle2D.Double rect2D = new Rectangle2D.Double();
+        for (int r = 0; r < rows.indices().length; r++) {
+            double y = rows.positions()[r];
+            int adjustedId = rowIndices[rows.indices()[r]];
+
+            for (int s = 0; s < sites.indices().length; s++) {
+                int j = sites.indices()[s];
                 int state = alignment.getState(adjustedId, j);
 //                int col = SequenceTypeFactory.getColourIndex(state, alignment.getSequenceType());
                 Color c = ColourPalette.getColour(state, colors);
 
-                if (alignment instanceof ErrorAlignment && showErrorsIfAvailable
-                        && ((ErrorAlignment)alignment).isError(adjustedId,j)) {
+                if (showErrors && ((ErrorAlignment)alignment).isError(adjustedId,j)) {
                     c = new Color(255-c.getRed(), 255-c.getGreen(), 255-c.getBlue());
                 }
 
                 g.setColor(c);
 
-                Rectangle2D rect2D = new Rectangle2D.Double(j * w + xdelta + maxWidth + spacer, y, w, h * 0.95);
+                rect2D.setRect(sites.positions()[s], y, sites.size(), rowHeight);
 
-                g2d.fill(rect2D);
+                g.fill(rect2D);
             }
         }
-        g.translate(-insets.left, -insets.top);
-
     }
 
     boolean isShowingTree() {
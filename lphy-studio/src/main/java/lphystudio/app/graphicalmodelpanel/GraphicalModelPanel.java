@@ -7,7 +7,6 @@ import lphy.core.model.*;
 import lphy.core.parser.LPhyParserDictionary;
 import lphy.core.parser.graphicalmodel.GraphicalModel;
 import lphy.core.parser.graphicalmodel.GraphicalModelListener;
-import lphy.core.simulator.Sampler;
 import lphy.core.simulator.SimulatorListener;
 import lphy.core.vectorization.VectorizedFunction;
 import lphystudio.app.alignmentcomponent.AlignmentComponent;
@@ -38,6 +37,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 /**
  * The main panel to include prob graphical model,
@@ -79,6 +79,13 @@ public class GraphicalModelPanel extends JPanel {
 
     private JProgressBar progressBar;
 
+    // the number of most recent replicates kept after sampling, e.g. to save alignments
+    public static final int MAX_STORED_REPLICATES = 100;
+
+    private SwingWorker<Map<Integer, List<Value>>, Void> sampleWorker;
+    // set on the EDT by the Cancel button, and checked by the sampling thread
+    private volatile boolean samplingCancelled = false;
+
     public GraphicalModelPanel(GraphicalModelParserDictionary parser, UndoManagerHelper undoManagerHelper) {
 
         modelInterpreter = new StudioConsoleInterpreter(parser, LPhyParserDictionary.Context.model, null, undoManagerHelper);
@@ -110,6 +117,12 @@ public class GraphicalModelPanel extends JPanel {
 //        buttonPanel.add(editValues);
 
         sampleButton.addActionListener(e -> {
+            // the button cancels the sampling in progress
+            if (sampleWorker != null && !sampleWorker.isDone()) {
+                samplingCancelled = true;
+                sampleButton.setEnabled(false);
+                return;
+            }
             if (LPhyParserDictionary.Utils.isSampleValuesUsingParser()) {
                 sampleButton.setText("Sample");
                 sampleButton.setToolTipText(LPhyParserDictionary.Utils.SAMPLE_FROM_PARSER);
@@ -244,39 +257,60 @@ public class GraphicalModelPanel extends JPanel {
     }
 
     private void startLongRunningTask() {
-        // Create a SwingWorker to perform the calculations
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-                // Make the progress bar visible
-                SwingUtilities.invokeLater(() -> progressBar.setVisible(true));
-
-                // Simulate long-running task
-//                for (int i = 0; i <= 100; i++) {
-//                    Thread.sleep(50); // Simulate work
-//                    setProgress(i); // Update progress
-//                }
-                sample(getReps(), progressBar);
-                return null;
-            }
+        final int reps = getReps();
+        final String sampleText = sampleButton.getText();
+        final String sampleToolTip = sampleButton.getToolTipText();
 
+        final String id = displayedElement instanceof Value && !((Value) displayedElement).isAnonymous() ?
+                ((Value) displayedElement).getId() : null;
+        // add Loggers here, to trigger after click Sample button
+        final List<SimulatorListener> loggers = rightPane.getGUISimulatorListener();
+        // the GraphicalModelChangeListeners are notified on the EDT after sampling
+        final GraphicalModelSampler sampler = new GraphicalModelSampler(component.getParserDictionary());
+
+        samplingCancelled = false;
+        progressBar.setValue(0);
+        progressBar.setVisible(true);
+        sampleButton.setText("Cancel");
+        sampleButton.setToolTipText("Stop sampling after the current replicate");
+
+        final long start = System.currentTimeMillis();
+        // sample off the EDT, where the loggers are updated in batches during sampling
+        sampleWorker = new SwingWorker<>() {
             @Override
-            protected void process(java.util.List<Void> chunks) {
-                // Update the progress bar
-                progressBar.setValue(getProgress());
+            protected Map<Integer, List<Value>> doInBackground() {
+                // Sampler use the lphy code in component.getParser(), and output results to loggers
+                // if null then use a random seed
+                return sampler.sampleAll(reps, loggers, null, MAX_STORED_REPLICATES,
+                        i -> setProgress((int) (100L * i / reps)), () -> samplingCancelled);
             }
 
             @Override
             protected void done() {
-                // Task is done, reset the progress bar
-//                progressBar.setVisible(false);
-//                progressBar.setValue(0);
-//                JOptionPane.showMessageDialog(component, "Task completed!");
+                try {
+                    valuesAllRepsMap = get();
+                    sampled(id);
+                } catch (InterruptedException | ExecutionException e) {
+                    LoggerUtils.log.severe("Sampling failed : " + e.getCause());
+                    if (e.getCause() instanceof Exception ex)
+                        LoggerUtils.logStackTrace(ex);
+                }
+                long end = System.currentTimeMillis();
+                LoggerUtils.log.info("sample(" + reps + ") " + (samplingCancelled ? "was cancelled after " : "took ") +
+                        (end - start) + " ms.");
+
+                sampleButton.setText(sampleText);
+                sampleButton.setToolTipText(sampleToolTip);
+                sampleButton.setEnabled(true);
             }
         };
+        sampleWorker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName()))
+                progressBar.setValue((Integer) evt.getNewValue());
+        });
 
         // Execute the worker thread
-        worker.execute();
+        sampleWorker.execute();
     }
 
     public JProgressBar getProgressBar() {
@@ -335,36 +369,18 @@ public class GraphicalModelPanel extends JPanel {
     // Key is the replicate index, value is the result of each replicate.
     Map<Integer, List<Value>> valuesAllRepsMap;
 
+    /**
+     * @return  the results of the most recent replicates, at most {@link #MAX_STORED_REPLICATES},
+     *          where the key is the replicate index.
+     */
     public Map<Integer, List<Value>> getValuesAllRepsMap() {
         return valuesAllRepsMap;
     }
 
-    private void sample(int reps, JProgressBar progressBar) {
-        sampleButton.setEnabled(false);
-        progressBar.setValue(0);
-
-        long start = System.currentTimeMillis();
-
-        // add Loggers here, to trigger after click Sample button
-        List<SimulatorListener> loggers = rightPane.getGUISimulatorListener();
-
-        String id = null;
-        if (displayedElement instanceof Value && !((Value) displayedElement).isAnonymous()) {
-            id = ((Value) displayedElement).getId();
-        }
-
-        progressBar.setValue(5);
-        // GraphicalModelSampler notifies listeners in ParserDictionary
-        Sampler sampler = new GraphicalModelSampler(component.getParserDictionary());
-        progressBar.setValue(10);
-        // Sampler use the lphy code in component.getParser(), and output results to loggers
-        // if null then use a random seed
-        valuesAllRepsMap = sampler.sampleAll(reps, loggers, null);
-//        this.sampler = sampler;
-        progressBar.setValue(90);
-
-        // refresh graphical nodes
-        component.modelChanged();
+    // update GUI on the EDT after sampling
+    private void sampled(String id) {
+        // GraphicalModelSampler does not notify listeners in ParserDictionary during sampling
+        component.getParserDictionary().notifyListeners();
 
         // show current selected value
         if (id != null) {
@@ -382,16 +398,11 @@ public class GraphicalModelPanel extends JPanel {
                 }
             }
         }
-        long end = System.currentTimeMillis();
-        LoggerUtils.log.info("sample(" + reps + ") took " + (end - start) + " ms.");
-
-        progressBar.setValue(95);
 
         // refresh all viewerComponent
         rightPane.refresh();
 
         progressBar.setValue(100);
-        sampleButton.setEnabled(true);
     }
 
     void showValue(Value value) {
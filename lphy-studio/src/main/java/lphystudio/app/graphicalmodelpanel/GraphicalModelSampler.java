@@ -6,8 +6,12 @@ import lphy.core.parser.graphicalmodel.GraphicalModelChangeListener;
 import lphy.core.simulator.Sampler;
 import lphy.core.simulator.SimulatorListener;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
 
 /**
  * Sampler for graphical model, which notifies {@link GraphicalModelChangeListener}
@@ -36,6 +40,55 @@ public class GraphicalModelSampler extends Sampler {
         return res;
     }
 
+    /**
+     * Sample the replicates progressively for the studio, which can be cancelled between replicates.
+     * The loggers receive every replicate, but only the most recent replicates are kept in the returned map,
+     * so that the memory is bounded however many replicates are sampled.
+     * The {@link GraphicalModelChangeListener}s are not notified,
+     * which update GUI, so the caller should notify them on the EDT after sampling.
+     *
+     * @param numReplicates        the number of times to sample
+     * @param loggers              the loggers to log to, cannot be null
+     * @param seed                 the seed value, if null then use a random number.
+     * @param maxStoredReplicates  the number of most recent replicates to keep.
+     * @param progress             called with the number of completed replicates.
+     * @param cancelled            checked before each replicate, which stops sampling if true.
+     * @return  a map whose key is the index of replicates, value is the result of each replicate,
+     *          which only contains the most recent replicates.
+     */
+    public Map<Integer, List<Value>> sampleAll(int numReplicates, List<? extends SimulatorListener> loggers, Long seed,
+                                               final int maxStoredReplicates, IntConsumer progress,
+                                               BooleanSupplier cancelled) {
+        Objects.requireNonNull(loggers, "Simulation result loggers must not be null !");
+        if (maxStoredReplicates < 1)
+            throw new IllegalArgumentException("The number of stored replicates must be > 0 !");
+
+        // a ring buffer of the most recent replicates
+        Map<Integer, List<Value>> valuesRecentRepsMap = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Value>> eldest) {
+                return size() > maxStoredReplicates;
+            }
+        };
+        for (SimulatorListener logger : loggers)
+            logger.start(numReplicates);
+
+        for (int i = SimulatorListener.REPLICATES_START_INDEX; i < numReplicates && !cancelled.getAsBoolean(); i++) {
+            // not notify GUI listeners for every replicate
+            List<Value> values = super.sample(seed);
+            valuesRecentRepsMap.put(i, values);
+
+            for (SimulatorListener logger : loggers)
+                logger.replicate(i, values);
+            progress.accept(i + 1);
+        }
+        // the loggers show the replicates sampled before cancelling
+        for (SimulatorListener logger : loggers)
+            logger.complete();
+
+        return valuesRecentRepsMap;
+    }
+
     @Override
     public LPhyParserDictionary getParserDictionary() {
         return this.parserDictionary;
@@ -3,6 +3,7 @@ package lphystudio.app.graphicalmodelpanel;
 import lphy.core.simulator.SimulatorListener;
 import lphystudio.app.graphicalmodelcomponent.GraphicalModelComponent;
 import lphystudio.core.logger.AlignmentTextArea;
+import lphystudio.core.logger.GeneratorProfilerPanel;
 import lphystudio.core.logger.TreeTextArea;
 import lphystudio.core.logger.VariableSummaryTable;
 import lphystudio.core.logger.VariableTextArea;
@@ -32,6 +33,7 @@ public class ViewerPane extends JTabbedPane {
     JScrollPane variableLogScrollPane;
     JScrollPane treeLogScrollPane;
     AlignmentLogPanel alignmentLogPanel;
+    GeneratorProfilerPanel generatorProfilerPanel;
 
     ErrorPanel errorPanel;
 
@@ -63,6 +65,7 @@ public class ViewerPane extends JTabbedPane {
         Variable_Log("Variable Log"),
         Tree_Log ("Tree Log"),
         Alignment_Log ("Alignment"),
+        Profiler ("Profiler"),
         Errors ("Errors");
 
         public String name;
@@ -99,6 +102,8 @@ public class ViewerPane extends JTabbedPane {
         alignmentTextArea = new AlignmentTextArea(parserDictionary);
         alignmentLogPanel = new AlignmentLogPanel(alignmentTextArea);
 
+        generatorProfilerPanel = new GeneratorProfilerPanel();
+
         errorPanel = new ErrorPanel();
 
         viewerComponent[Viewer.Current.ordinal()] = currentSelectionContainer;
@@ -111,6 +116,7 @@ public class ViewerPane extends JTabbedPane {
         viewerComponent[Viewer.Variable_Log.ordinal()] = variableLogScrollPane;
         viewerComponent[Viewer.Tree_Log.ordinal()] = treeLogScrollPane;
         viewerComponent[Viewer.Alignment_Log.ordinal()] = alignmentLogPanel;
+        viewerComponent[Viewer.Profiler.ordinal()] = generatorProfilerPanel;
         viewerComponent[Viewer.Errors.ordinal()] = errorPanel;
 
         for (Viewer viewer : Viewer.values()) {
@@ -144,7 +150,7 @@ public class ViewerPane extends JTabbedPane {
     }
 
     public List<SimulatorListener> getGUISimulatorListener() {
-        return List.of(variableTextArea, treeTextArea, variableSummary, alignmentTextArea);
+        return List.of(variableTextArea, treeTextArea, variableSummary, alignmentTextArea, generatorProfilerPanel);
     }
 
     @Deprecated
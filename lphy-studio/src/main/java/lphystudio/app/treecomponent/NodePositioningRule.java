@@ -13,7 +13,27 @@ public interface NodePositioningRule {
 
     public TraversalOrder getTraversalOrder();
 
-    void setPosition(TimeTreeNode node, String positionLabel);
+    /**
+     * The canonical positions of the nodes computed so far,
+     * and the range of the positions of the tips under each node.
+     */
+    interface NodePositions {
+
+        double getPosition(TimeTreeNode node);
+
+        double getMinTipPosition(TimeTreeNode node);
+
+        double getMaxTipPosition(TimeTreeNode node);
+    }
+
+    /**
+     * The position is computed without changing the node, so that the layout can be computed off the EDT.
+     * @param node       an internal node.
+     * @param positions  the positions of its children in {@link TraversalOrder#POST_ORDER},
+     *                   or of its parent in {@link TraversalOrder#PRE_ORDER}.
+     * @return the canonical position of the node.
+     */
+    double getPosition(TimeTreeNode node, NodePositions positions);
 
     public NodePositioningRule AVERAGE_OF_CHILDREN = new NodePositioningRule() {
         @Override
@@ -22,17 +42,17 @@ public interface NodePositioningRule {
         }
 
         @Override
-        public void setPosition(TimeTreeNode node, String positionLabel) {
+        public double getPosition(TimeTreeNode node, NodePositions positions) {
 
             double averagePos = 0;
             int count = 0;
             for (TimeTreeNode child : node.getChildren()) {
-                averagePos += (Double) child.getMetaData(positionLabel);
+                averagePos += positions.getPosition(child);
                 count += 1;
             }
 
             averagePos /= (double) count;
-            node.setMetaData(positionLabel, averagePos);
+            return averagePos;
         }
     };
 
@@ -43,9 +63,9 @@ public interface NodePositioningRule {
         }
 
         @Override
-        public void setPosition(TimeTreeNode node, String positionLabel) {
+        public double getPosition(TimeTreeNode node, NodePositions positions) {
 
-            node.setMetaData(positionLabel, node.getChildren().get(0).getMetaData(positionLabel));
+            return positions.getPosition(node.getChildren().get(0));
         }
     };
 
@@ -57,7 +77,7 @@ public interface NodePositioningRule {
         }
 
         @Override
-        public void setPosition(TimeTreeNode node, String positionLabel) {
+        public double getPosition(TimeTreeNode node, NodePositions positions) {
 
             double py;
             if (node.isRoot()) {
@@ -66,12 +86,12 @@ public interface NodePositioningRule {
 
                 TimeTreeNode parent = node.getParent();
 
-                double ppy = (Double) parent.getMetaData(positionLabel);
+                double ppy = positions.getPosition(parent);
                 double ph = parent.getAge();
                 double h = node.getAge();
 
-                double ymin = (Double) node.getMetaData(positionLabel + "_min");
-                double ymax = (Double) node.getMetaData(positionLabel + "_max");
+                double ymin = positions.getMinTipPosition(node);
+                double ymax = positions.getMaxTipPosition(node);
 
                 double yminDist = Math.abs(ppy - ymin);
                 double ymaxDist = Math.abs(ppy - ymax);
@@ -82,7 +102,7 @@ public interface NodePositioningRule {
                     py = ((ppy * h) + (ymax * (ph - h))) / ph;
                 }
             }
-            node.setMetaData(positionLabel, py);
+            return py;
         }
     };
 }
@@ -3,7 +3,9 @@ package lphystudio.app.treecomponent;
 import lphy.base.evolution.coalescent.StructuredCoalescent;
 import lphy.base.evolution.tree.TimeTree;
 import lphy.base.evolution.tree.TimeTreeNode;
+import lphy.core.logger.LoggerUtils;
 import lphystudio.app.FontUtils;
+import lphystudio.core.swing.TileCache;
 
 import javax.swing.*;
 import javax.swing.border.Border;
@@ -15,13 +17,20 @@ import java.awt.geom.Rectangle2D;
 import java.text.NumberFormat;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.prefs.Preferences;
 
 /**
+ * The tree is drawn into the cached tiles of {@link TileCache}, which are rendered again only when
+ * the size or the drawing options change. The layout of a tree with at least
+ * {@link #ASYNC_LAYOUT_MIN_NODES} nodes is computed by a background thread,
+ * while a placeholder is painted.
  * @author Alexei Drummond
  */
 public class TimeTreeComponent extends JComponent {
 
+    public static final int ASYNC_LAYOUT_MIN_NODES = 5000;
+
     static Preferences preferences = Preferences.userNodeForPackage(TimeTreeComponent.class);
 
     TimeTreeDrawing treeDrawing;
@@ -37,8 +46,11 @@ public class TimeTreeComponent extends JComponent {
 
     TimeTree tree;
 
-    // the position of the "current" leaf node
-    private double p = 0;
+    // only accessed on the EDT
+    private TreeLayout layout = null;
+    private SwingWorker<TreeLayout, Void> layoutWorker = null;
+    private final List<Runnable> layoutListeners = new ArrayList<>();
+    private final TileCache tileCache = new TileCache();
 
     NumberFormat format = NumberFormat.getInstance();
 
@@ -52,11 +64,6 @@ public class TimeTreeComponent extends JComponent {
 
     private boolean showNodeIndices = preferences.getBoolean("showNodeIndices", false);
 
-    // for indexing String traits
-    private List<Object> uniqueMetaData = new ArrayList<>();
-
-    List<String> tips2Draw = null;
-
     public TimeTreeComponent() {
     }
 
@@ -81,6 +88,12 @@ public class TimeTreeComponent extends JComponent {
 
     public void setTimeTree(TimeTree timeTree) {
         tree = timeTree;
+        layout = null;
+        if (layoutWorker != null) {
+            layoutWorker.cancel(false);
+            layoutWorker = null;
+        }
+        tileCache.invalidate();
         treeDrawing = new TimeTreeDrawing(this);
         treeDrawing.setRootHeightForCanonicalScaling(tree.getRoot().getAge());
 
@@ -138,42 +151,73 @@ public class TimeTreeComponent extends JComponent {
         //setSize((int) bounds.getWidth(), (int) bounds.getHeight());
     }
 
-    void setTipValues(TimeTreeNode node) {
-        if (node.isLeaf()) {
-            node.setMetaData("p", p);
-            node.setMetaData("p_min", p);
-            node.setMetaData("p_max", p);
-            p += getCanonicalNodeSpacing(tree);
-        } else {
-            double pmin = Double.MAX_VALUE;
-            double pmax = Double.MIN_VALUE;
-            for (TimeTreeNode childNode : node.getChildren()) {
-                setTipValues(childNode);
-
-                double cpmin = (Double) childNode.getMetaData("p_min");
-                double cpmax = (Double) childNode.getMetaData("p_max");
-
-                if (cpmin < pmin) pmin = cpmin;
-                if (cpmax > pmax) pmax = cpmax;
+    /**
+     * @param wait  if true, compute the layout on this thread when it is not available,
+     *              otherwise the layout of a large tree is computed by a background thread.
+     * @return the layout of the tree, or null if it is being computed by a background thread.
+     */
+    private TreeLayout getLayout(boolean wait) {
+        if (layout != null && layout.isLayoutOf(tree, positioningRule))
+            return layout;
+        if (wait || tree.getNodeCount() < ASYNC_LAYOUT_MIN_NODES) {
+            if (layoutWorker != null) {
+                layoutWorker.cancel(false);
+                layoutWorker = null;
             }
-            node.setMetaData("p_min", pmin);
-            node.setMetaData("p_max", pmax);
+            layout = new TreeLayout(tree, positioningRule);
+            return layout;
         }
+        if (layoutWorker == null)
+            startLayoutWorker();
+        return null;
     }
 
-    void positionInternalNodes(TimeTreeNode node) {
-        if (!node.isLeaf()) {
-            if (positioningRule.getTraversalOrder() == NodePositioningRule.TraversalOrder.PRE_ORDER) {
-                positioningRule.setPosition(node, "p");
+    private void startLayoutWorker() {
+        final TimeTree tree = this.tree;
+        final NodePositioningRule positioningRule = this.positioningRule;
+        layoutWorker = new SwingWorker<>() {
+            @Override
+            protected TreeLayout doInBackground() {
+                return new TreeLayout(tree, positioningRule);
             }
-            for (TimeTreeNode child : node.getChildren()) {
-                positionInternalNodes(child);
-            }
-            if (positioningRule.getTraversalOrder() == NodePositioningRule.TraversalOrder.POST_ORDER) {
-                positioningRule.setPosition(node, "p");
+
+            @Override
+            protected void done() {
+                if (isCancelled() || layoutWorker != this)
+                    return;
+                layoutWorker = null;
+                try {
+                    layout = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    LoggerUtils.log.severe("Cannot compute the layout of the tree : " + e.getCause());
+                    return;
+                }
+                tileCache.invalidate();
+                repaint();
+                for (Runnable listener : List.copyOf(layoutListeners))
+                    listener.run();
             }
+        };
+        layoutWorker.execute();
+    }
 
-        }
+    /**
+     * @return true if the layout of the tree is available without waiting for the background thread.
+     */
+    public boolean isLayoutReady() {
+        return getLayout(false) != null;
+    }
+
+    /**
+     * @param listener  to run on the EDT, when the layout computed by the background thread is available,
+     *                  e.g. to repaint the component drawing this tree without being added to a container.
+     */
+    public void addLayoutListener(Runnable listener) {
+        layoutListeners.add(listener);
+    }
+
+    public void removeLayoutListener(Runnable listener) {
+        layoutListeners.remove(listener);
     }
 
     void drawNode(Point2D p, Graphics2D g, NodeDecorator decorator) {
@@ -220,7 +264,7 @@ public class TimeTreeComponent extends JComponent {
     }
 
     private double getCanonicalNodeX(TimeTreeNode node) {
-        return (Double) node.getMetaData("p");
+        return layout.getPosition(node);
     }
 
     private double getCanonicalNodeY(double height) {
@@ -233,10 +277,6 @@ public class TimeTreeComponent extends JComponent {
         return h;
     }
 
-    private double getCanonicalNodeSpacing(TimeTree tree) {
-        return 1.0 / (tree.n() - 1);
-    }
-
     private Point2D getTransformedNodePoint2D(TimeTreeNode node) {
         return getTransformedPoint2D(getCanonicalNodePoint2D(node));
     }
@@ -263,27 +303,19 @@ public class TimeTreeComponent extends JComponent {
         Shape shape = branchStyle.getBranchShape(getCanonicalNodePoint2D(childNode), getCanonicalNodePoint2D(node));
         Shape transformed = orientation.getTransform(bounds).createTransformedShape(shape);
 
-        g.draw(transformed);
-    }
+        // skip the branches outside the tile being rendered
+        Rectangle branchBounds = transformed.getBounds();
+        if (!g.hitClip(branchBounds.x - 1, branchBounds.y - 1, branchBounds.width + 2, branchBounds.height + 2))
+            return;
 
-    private void getUniqueMetaData(String traitName, TimeTreeNode node, List<Object> uniqueMetaData) {
-        Object md = node.getMetaData(traitName);
-        if (node.isLeaf()) {
-            if (! uniqueMetaData.contains(md))
-                uniqueMetaData.add(md);
-        } else {
-            for (TimeTreeNode childNode : node.getChildren())
-                getUniqueMetaData(traitName, childNode, uniqueMetaData);
-
-            if (! uniqueMetaData.contains(md))
-                uniqueMetaData.add(md);
-        }
+        g.draw(transformed);
     }
 
     private int getIntegerTrait(TimeTreeNode childNode, String traitName) {
         Object trait = childNode.getMetaData(traitName);
         if (trait instanceof Integer) return (Integer) trait;
         if (trait instanceof String) {
+            List<Object> uniqueMetaData = layout.getUniqueMetaData();
             if (uniqueMetaData.size() < 1)
                 throw new IllegalArgumentException("metaData List cannot be empty !");
             if (! uniqueMetaData.contains(trait))
@@ -318,12 +350,15 @@ public class TimeTreeComponent extends JComponent {
                 int colorIndex = getIntegerTrait(node, colorTraitName);
                 if (colorIndex >= 0) g.setColor(traitColorTable.getColor(colorIndex));
             }
-            treeDrawing.drawString(node.getId(), nodePoint.getX(), nodePoint.getY(), g);
+            // skip the labels outside the tile being rendered, which are drawn to the right of the nodes
+            int fontHeight = g.getFontMetrics().getHeight();
+            if (g.hitClip((int) nodePoint.getX(), (int) nodePoint.getY() - fontHeight, getWidth(), 2 * fontHeight))
+                treeDrawing.drawString(node.getId(), nodePoint.getX(), nodePoint.getY(), g);
         }
     }
 
     /**
-     * Draws the tree
+     * Draws the tree by the current layout
      *
      * @param treeDrawing
      * @param node
@@ -335,21 +370,6 @@ public class TimeTreeComponent extends JComponent {
 
         g.setStroke(new BasicStroke((float) treeDrawing.getLineThickness()));
 
-        p = 0.0; // canonical positioning goes from 0 to 1.
-
-        if (node.isRoot()) {
-            setTipValues(node);
-            positionInternalNodes(node);
-
-            //TODO only available for StructuredCoalescent demes now
-            if (node.getMetaData(StructuredCoalescent.populationLabel) != null) {
-                uniqueMetaData.clear();
-                getUniqueMetaData(StructuredCoalescent.populationLabel, node, uniqueMetaData);
-            }
-
-            tips2Draw = new ArrayList<>();
-        }
-
         if (treeDrawing.showLeafLabels()) {
             drawNodeLabel(node, g);
         }
@@ -397,7 +417,6 @@ public class TimeTreeComponent extends JComponent {
                 }
             }
         }
-        if (node.isLeaf()) tips2Draw.add(node.getId());
     }
 
     public void paintComponent(Graphics g) {
@@ -425,7 +444,18 @@ public class TimeTreeComponent extends JComponent {
 
         TimeTree tree = treeDrawing.getTree();
 
-        draw(treeDrawing, tree.getRoot(), g2d);
+        if (getLayout(false) == null) {
+            g2d.setColor(Color.gray);
+            g2d.drawString("Computing the layout of " + tree.n() + " tips ...", 0, g.getFontMetrics().getAscent());
+        } else {
+            // the labels are drawn in the insets
+            Rectangle area = new Rectangle(-insets.left, -insets.top, getWidth(), getHeight());
+            List<Object> zoomKey = Arrays.asList(layout, width, height, g2d.getFont(), g2d.getColor(),
+                    orientation, branchStyle, leafDecorator, internalNodeDecorator,
+                    colorTraitName, traitColorTable, showNodeIndices);
+            tileCache.paint(g2d, zoomKey, area, (tileGraphics, tile) ->
+                    draw(treeDrawing, tree.getRoot(), tileGraphics));
+        }
         g.translate(-insets.left, -insets.top);
     }
 
@@ -435,14 +465,20 @@ public class TimeTreeComponent extends JComponent {
 
     public void setColorTraitName(String colorTraitName) {
         this.colorTraitName = colorTraitName;
+        tileCache.invalidate();
     }
 
     public void setTraitColorTable(ColorTable colorTable) {
         this.traitColorTable = colorTable;
+        tileCache.invalidate();
     }
 
+    /**
+     * @return the ids of the tips in the order to draw them,
+     *         where the layout is computed on this thread if it is not available.
+     */
     public String[] getTips2Draw() {
-        return tips2Draw.toArray(String[]::new);
+        return getLayout(true).getTips();
     }
 }
 
@@ -0,0 +1,119 @@
+package lphystudio.app.treecomponent;
+
+import lphy.base.evolution.coalescent.StructuredCoalescent;
+import lphy.base.evolution.tree.TimeTree;
+import lphy.base.evolution.tree.TimeTreeNode;
+
+import java.util.*;
+
+/**
+ * The canonical layout of a {@link TimeTree} by a {@link NodePositioningRule},
+ * where the tips are evenly spaced from 0 to 1 in the order to draw them.
+ * It keeps the positions in its own map instead of the metadata of the nodes,
+ * so that the layout of a large tree can be computed off the EDT without changing the tree,
+ * and it is reused by every paint until the tree or the rule changes.
+ */
+final class TreeLayout implements NodePositioningRule.NodePositions {
+
+    private final TimeTree tree;
+    private final NodePositioningRule positioningRule;
+
+    // position, min and max tip positions of each node
+    private final Map<TimeTreeNode, double[]> positions;
+    private final List<String> tips;
+    // for indexing String traits
+    private final List<Object> uniqueMetaData = new ArrayList<>();
+
+    // the position of the "current" leaf node
+    private double p = 0.0;
+
+    TreeLayout(TimeTree tree, NodePositioningRule positioningRule) {
+        this.tree = tree;
+        this.positioningRule = positioningRule;
+        positions = new IdentityHashMap<>(tree.getNodeCount());
+        tips = new ArrayList<>(tree.n());
+
+        TimeTreeNode root = tree.getRoot();
+        // canonical positioning goes from 0 to 1.
+        setTipValues(root);
+        positionInternalNodes(root);
+
+        //TODO only available for StructuredCoalescent demes now
+        if (root.getMetaData(StructuredCoalescent.populationLabel) != null)
+            getUniqueMetaData(StructuredCoalescent.populationLabel, root);
+    }
+
+    boolean isLayoutOf(TimeTree tree, NodePositioningRule positioningRule) {
+        return this.tree == tree && this.positioningRule == positioningRule;
+    }
+
+    private void setTipValues(TimeTreeNode node) {
+        if (node.isLeaf()) {
+            positions.put(node, new double[]{p, p, p});
+            tips.add(node.getId());
+            p += 1.0 / (tree.n() - 1);
+        } else {
+            double pmin = Double.MAX_VALUE;
+            double pmax = Double.MIN_VALUE;
+            for (TimeTreeNode childNode : node.getChildren()) {
+                setTipValues(childNode);
+
+                double[] childPositions = positions.get(childNode);
+                if (childPositions[1] < pmin) pmin = childPositions[1];
+                if (childPositions[2] > pmax) pmax = childPositions[2];
+            }
+            positions.put(node, new double[]{Double.NaN, pmin, pmax});
+        }
+    }
+
+    private void positionInternalNodes(TimeTreeNode node) {
+        if (!node.isLeaf()) {
+            if (positioningRule.getTraversalOrder() == NodePositioningRule.TraversalOrder.PRE_ORDER) {
+                positions.get(node)[0] = positioningRule.getPosition(node, this);
+            }
+            for (TimeTreeNode child : node.getChildren()) {
+                positionInternalNodes(child);
+            }
+            if (positioningRule.getTraversalOrder() == NodePositioningRule.TraversalOrder.POST_ORDER) {
+                positions.get(node)[0] = positioningRule.getPosition(node, this);
+            }
+        }
+    }
+
+    private void getUniqueMetaData(String traitName, TimeTreeNode node) {
+        if (!node.isLeaf()) {
+            for (TimeTreeNode childNode : node.getChildren())
+                getUniqueMetaData(traitName, childNode);
+        }
+        Object md = node.getMetaData(traitName);
+        if (!uniqueMetaData.contains(md))
+            uniqueMetaData.add(md);
+    }
+
+    @Override
+    public double getPosition(TimeTreeNode node) {
+        return positions.get(node)[0];
+    }
+
+    @Override
+    public double getMinTipPosition(TimeTreeNode node) {
+        return positions.get(node)[1];
+    }
+
+    @Override
+    public double getMaxTipPosition(TimeTreeNode node) {
+        return positions.get(node)[2];
+    }
+
+    /**
+     * @return the ids of the tips in the order to draw them.
+     */
+    String[] getTips() {
+        return tips.toArray(String[]::new);
+    }
+
+    List<Object> getUniqueMetaData() {
+        return Collections.unmodifiableList(uniqueMetaData);
+    }
+
+}
@@ -5,21 +5,20 @@ import lphy.core.logger.ValueFormatResolver;
 import lphy.core.logger.ValueFormatter;
 import lphy.core.model.Value;
 import lphy.core.parser.LPhyParserDictionary;
-import lphy.core.simulator.SimulatorListener;
 
-import javax.swing.*;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
 /**
- * Write each alignment to a file during sampling.
+ * Log the summary of each simulated alignment during sampling,
+ * which keeps the alignments of the most recent replicates.
  * The viewer is {@link lphystudio.app.graphicalmodelpanel.AlignmentLogPanel}.
  * This is a duplicated version of
  * but contains GUI code.
  * @author Walter Xie
  */
-public class AlignmentTextArea extends JTextArea implements SimulatorListener {
+public class AlignmentTextArea extends RecentRowsTextArea {
 
     final LPhyParserDictionary parser;
 
@@ -39,8 +38,9 @@ public class AlignmentTextArea extends JTextArea implements SimulatorListener {
         this.parser = parser;
     }
 
+    @Override
     public void clear() {
-        setText("");
+        super.clear();
         setEditable(false);
     }
 
@@ -57,6 +57,7 @@ public class AlignmentTextArea extends JTextArea implements SimulatorListener {
 
     @Override
     public void start(Object... configs) {
+        super.start(configs);
 //        allAlgValues.clear();
         for (int i = 0; i < configs.length; i++) {
             if (configs[0] instanceof Integer numReplicates)
@@ -72,44 +73,39 @@ public class AlignmentTextArea extends JTextArea implements SimulatorListener {
 
         if (index == 0) {
 //            allAlgValues.clear();
-            setText("sample");
+            StringBuilder header = new StringBuilder("sample");
             for (int i = 0; i < alignmentValuePerRep.size(); i++) {
                 Value alV = alignmentValuePerRep.get(i);
 
                 List<ValueFormatter> valueFormatterList = ValueFormatResolver
                         .createFormatter(AlignmentTextFormatter.class, alV);
                 for (ValueFormatter valueFormatter : valueFormatterList) {
-                    append("\t" + valueFormatter.header());
+                    header.append("\t").append(valueFormatter.header());
                 }
             }
-            append("\n");
+            setHeader(header.toString());
         }
 
-        append(index+"");
+        StringBuilder row = new StringBuilder(index+"");
         for (int i = 0; i < alignmentValuePerRep.size(); i++) {
             Value<SimpleAlignment> alV = alignmentValuePerRep.get(i);
 
             List<ValueFormatter> valueFormatterList = ValueFormatResolver
                     .createFormatter(AlignmentTextFormatter.class, alV);
             for (ValueFormatter valueFormatter : valueFormatterList) {
-                append("\t" + valueFormatter.format(alV.value()));
+                row.append("\t").append(valueFormatter.format(alV.value()));
 
 //                if (toLogAlignment()) {
 //                    writeAlignment(index, alV);
 //                }
             }
         }
-        append("\n");
+        addRow(row.toString());
 
         // store all alignments
 //        allAlgValues.add(alignmentValuePerRep);
     }
 
-    @Override
-    public void complete() {
-
-    }
-
     // can be SimpleAlignment or SimpleAlignment[]
     public static List<Value> getSimulatedAlignmentValues(List<Value> variables, final LPhyParserDictionary parser) {
         List<Value> values = new ArrayList<>();
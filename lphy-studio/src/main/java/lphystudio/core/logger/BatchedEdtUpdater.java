@@ -0,0 +1,71 @@
+package lphystudio.core.logger;
+
+import javax.swing.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesce the updates of a logger panel requested by the sampling thread into batches on the EDT,
+ * so that the panel is redrawn at most once per interval, however many replicates are logged.
+ * The last request is never lost, it is run after the interval.
+ */
+public class BatchedEdtUpdater {
+
+    public static final int DEFAULT_INTERVAL_MILLIS = 250;
+
+    private final Runnable update;
+    private final int intervalMillis;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    // only accessed on the EDT
+    private final Timer timer;
+    private long lastUpdate = 0;
+
+    /**
+     * @param update          the update of the panel, which is run on the EDT.
+     * @param intervalMillis  the minimum interval between two updates in milliseconds.
+     */
+    public BatchedEdtUpdater(Runnable update, int intervalMillis) {
+        this.update = update;
+        this.intervalMillis = intervalMillis;
+        timer = new Timer(intervalMillis, e -> runUpdate());
+        timer.setRepeats(false);
+    }
+
+    public BatchedEdtUpdater(Runnable update) {
+        this(update, DEFAULT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Request an update from any thread, which is merged with other requests until it runs.
+     */
+    public void request() {
+        if (scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                long wait = intervalMillis - (System.currentTimeMillis() - lastUpdate);
+                if (wait <= 0) {
+                    runUpdate();
+                } else {
+                    timer.setInitialDelay((int) wait);
+                    timer.restart();
+                }
+            });
+        }
+    }
+
+    /**
+     * Run the update as soon as possible from any thread, e.g. when the sampling is complete.
+     */
+    public void flush() {
+        SwingUtilities.invokeLater(() -> {
+            timer.stop();
+            runUpdate();
+        });
+    }
+
+    private void runUpdate() {
+        // requests from now on schedule the next update
+        scheduled.set(false);
+        lastUpdate = System.currentTimeMillis();
+        update.run();
+    }
+
+}
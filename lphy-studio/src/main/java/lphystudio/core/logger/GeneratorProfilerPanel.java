@@ -0,0 +1,130 @@
+package lphystudio.core.logger;
+
+import lphy.core.model.Value;
+import lphy.core.simulator.GeneratorProfiler;
+import lphy.core.simulator.SimulatorListener;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The profiles of the generators by {@link GeneratorProfiler}, which is only enabled during sampling
+ * if profiling is selected, and the table is updated in batches during sampling.
+ */
+public class GeneratorProfilerPanel extends JPanel implements SimulatorListener {
+
+    private static final String[] COLUMN_NAMES = new String[]{"Generator", "Variable", "Calls",
+            "Total (ms)", "Mean (ms)", "Mean allocated (bytes)", "Mean output size"};
+
+    final JCheckBox profileCheckBox = new JCheckBox("Profile generators when sampling");
+    final JTable table;
+    AbstractTableModel tableModel;
+
+    List<GeneratorProfiler.Profile> profiles = new ArrayList<>();
+
+    // read by the sampling thread
+    private volatile boolean profiling = false;
+    private final BatchedEdtUpdater updater = new BatchedEdtUpdater(this::updateRows);
+
+    public GeneratorProfilerPanel() {
+
+        tableModel = new AbstractTableModel() {
+            @Override
+            public int getRowCount() {
+                return profiles.size();
+            }
+
+            @Override
+            public int getColumnCount() {
+                return COLUMN_NAMES.length;
+            }
+
+            @Override
+            public String getColumnName(int columnIndex) {
+                return COLUMN_NAMES[columnIndex];
+            }
+
+            @Override
+            public Class<?> getColumnClass(int columnIndex) {
+                switch (columnIndex) {
+                    case 0:
+                    case 1:
+                        return String.class;
+                    case 2:
+                        return Long.class;
+                    default:
+                        return Double.class;
+                }
+            }
+
+            @Override
+            public boolean isCellEditable(int rowIndex, int columnIndex) {
+                return false;
+            }
+
+            @Override
+            public Object getValueAt(int rowIndex, int columnIndex) {
+                GeneratorProfiler.Profile profile = profiles.get(rowIndex);
+                switch (columnIndex) {
+                    case 0:
+                        return profile.generator();
+                    case 1:
+                        return profile.id();
+                    case 2:
+                        return profile.calls();
+                    case 3:
+                        return profile.getTotalMillis();
+                    case 4:
+                        return profile.getMeanMillis();
+                    case 5:
+                        return profile.getMeanAllocatedBytes();
+                    case 6:
+                        return profile.getMeanOutputSize();
+                }
+                return "";
+            }
+        };
+        table = new JTable(tableModel);
+        table.setAutoCreateRowSorter(true);
+
+        profileCheckBox.setToolTipText("Record the number of calls, the time, the allocated bytes " +
+                "and the size of outputs of every generator in the next sampling");
+        profileCheckBox.addActionListener(e -> profiling = profileCheckBox.isSelected());
+
+        setLayout(new BorderLayout());
+        add(profileCheckBox, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+    }
+
+    @Override
+    public void start(Object... configs) {
+        if (profiling) {
+            GeneratorProfiler.reset();
+            GeneratorProfiler.setEnabled(true);
+        }
+    }
+
+    @Override
+    public void replicate(int index, List<Value> values) {
+        if (GeneratorProfiler.isEnabled())
+            updater.request();
+    }
+
+    @Override
+    public void complete() {
+        if (GeneratorProfiler.isEnabled()) {
+            GeneratorProfiler.setEnabled(false);
+            updater.flush();
+        }
+    }
+
+    // on the EDT
+    private void updateRows() {
+        profiles = GeneratorProfiler.getProfiles();
+        tableModel.fireTableDataChanged();
+    }
+
+}
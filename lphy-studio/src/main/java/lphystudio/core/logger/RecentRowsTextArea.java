@@ -0,0 +1,116 @@
+package lphystudio.core.logger;
+
+import lphy.core.simulator.SimulatorListener;
+
+import javax.swing.*;
+import java.util.ArrayDeque;
+
+/**
+ * The text logger in the studio, which keeps the header and a bounded ring buffer of the rows
+ * from the most recent replicates. The rows are added by the sampling thread,
+ * and shown in batches on the EDT during sampling by {@link BatchedEdtUpdater}.
+ * So that sampling many replicates neither freezes the studio nor keeps all of them in memory.
+ */
+public abstract class RecentRowsTextArea extends JTextArea implements SimulatorListener {
+
+    public static final int DEFAULT_MAX_ROWS = 1000;
+
+    private final int maxRows;
+
+    // guarded by lock, which are written by the sampling thread
+    private final Object lock = new Object();
+    private String header = null;
+    private final ArrayDeque<String> rows = new ArrayDeque<>();
+    private int rowCount = 0;
+
+    private final BatchedEdtUpdater updater = new BatchedEdtUpdater(() -> setText(getBufferedText()));
+
+    /**
+     * @param maxRows  the number of most recent rows to keep.
+     */
+    public RecentRowsTextArea(int maxRows) {
+        if (maxRows < 1)
+            throw new IllegalArgumentException("The maximum number of rows must be > 0 !");
+        this.maxRows = maxRows;
+    }
+
+    public RecentRowsTextArea() {
+        this(DEFAULT_MAX_ROWS);
+    }
+
+    public void clear() {
+        clearBuffer();
+        setText("");
+    }
+
+    private void clearBuffer() {
+        synchronized (lock) {
+            header = null;
+            rows.clear();
+            rowCount = 0;
+        }
+    }
+
+    @Override
+    public void start(Object... configs) {
+        clearBuffer();
+    }
+
+    @Override
+    public void complete() {
+        updater.flush();
+    }
+
+    /**
+     * Set the header, normally at the 1st replicate.
+     * @param header  the header line without the line separator.
+     */
+    protected void setHeader(String header) {
+        synchronized (lock) {
+            this.header = header;
+        }
+    }
+
+    /**
+     * Add the row of a replicate, where the oldest row is removed when the buffer is full.
+     * This can be called by any thread.
+     * @param row  the row without the line separator.
+     */
+    protected void addRow(String row) {
+        synchronized (lock) {
+            if (rows.size() == maxRows)
+                rows.removeFirst();
+            rows.addLast(row);
+            rowCount++;
+        }
+        updater.request();
+    }
+
+    /**
+     * @return  the header followed by the most recent rows, each ending with the line separator.
+     */
+    public String getBufferedText() {
+        synchronized (lock) {
+            StringBuilder builder = new StringBuilder();
+            if (header != null)
+                builder.append(header).append("\n");
+            for (String row : rows)
+                builder.append(row).append("\n");
+            return builder.toString();
+        }
+    }
+
+    /**
+     * @return  the number of rows added since the start, including the ones removed from the buffer.
+     */
+    public int getReplicateCount() {
+        synchronized (lock) {
+            return rowCount;
+        }
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+}
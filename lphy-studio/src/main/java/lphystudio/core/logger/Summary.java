@@ -1,7 +1,12 @@
 package lphystudio.core.logger;
 
+import lphy.core.logger.StreamingStatistics;
+
 import java.util.List;
 
+/**
+ * Use {@link StreamingStatistics} instead, which does not require all values.
+ */
 @Deprecated
 public class Summary {
 
@@ -19,6 +24,15 @@ public class Summary {
         if (allSameLength) {
             int length = values.get(0).length;
 
+            // one pass over the values
+            StreamingStatistics[] stats = new StreamingStatistics[length];
+            for (int i = 0; i < length; i++)
+                stats[i] = new StreamingStatistics(new double[0], 0);
+            for (Double[] val : values) {
+                for (int i = 0; i < length; i++)
+                    stats[i].addValue(val[i]);
+            }
+
             mean = new double[length];
             stdev = new double[length];
             stderr = new double[length];
@@ -26,46 +40,20 @@ public class Summary {
             max = new double[length];
 
             for (int i = 0; i < length; i++) {
-                min[i] = Double.POSITIVE_INFINITY;
-                max[i] = Double.NEGATIVE_INFINITY;
-            }
-
-            for (Double[] val : values) {
-                for (int i = 0; i < length; i++) {
-                    mean[i] += val[i];
-                    if (val[i] < min[i]) min[i] = val[i];
-                    if (val[i] > max[i]) max[i] = val[i];
-                }
-            }
-            for (int i = 0; i < length; i++) {
-                mean[i] /= values.size();
-            }
-
-            for (Double[] val : values) {
-                for (int i = 0; i < length; i++) {
-                    stdev[i] += (val[i] - mean[i]) * (val[i] - mean[i]);
-                }
-            }
-            for (int i = 0; i < length; i++) {
-                stdev[i] = Math.sqrt(stdev[i] / values.size());
+                mean[i] = stats[i].getMean();
+                stdev[i] = Math.sqrt(stats[i].getPopulationVariance());
                 stderr[i] = stdev[i] / Math.sqrt(values.size());
+                min[i] = stats[i].getMin();
+                max[i] = stats[i].getMax();
             }
         } else {
-            mean = new double[1];
-            stdev = new double[1];
-            stderr = new double[1];
-
-            for (Double[] doubles : values) {
-                mean[0] += doubles.length;
-            }
-            mean[0] /= values.size();
+            StreamingStatistics stats = new StreamingStatistics(new double[0], 0);
+            for (Double[] doubles : values)
+                stats.addValue(doubles.length);
 
-            for (Double[] doubles : values) {
-                double val = doubles.length;
-                stdev[0] += (val - mean[0]) * (val - mean[0]);
-            }
-            stdev[0] = Math.sqrt(stdev[0] / values.size());
-            stderr[0] = stdev[0] / Math.sqrt(values.size());
+            mean = new double[]{stats.getMean()};
+            stdev = new double[]{Math.sqrt(stats.getPopulationVariance())};
+            stderr = new double[]{stdev[0] / Math.sqrt(values.size())};
         }
 
         isLengthSummary = !allSameLength;
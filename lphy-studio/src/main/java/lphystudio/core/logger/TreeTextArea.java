@@ -4,30 +4,25 @@ import lphy.base.evolution.tree.TimeTree;
 import lphy.core.logger.ValueFormatResolver;
 import lphy.core.logger.ValueFormatter;
 import lphy.core.model.Value;
-import lphy.core.simulator.SimulatorListener;
 
-import javax.swing.*;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
 /**
- * Log tree to GUI,
+ * Log tree to GUI, which keeps the trees of the most recent replicates.
  */
-public class TreeTextArea extends JTextArea implements SimulatorListener {
+public class TreeTextArea extends RecentRowsTextArea {
 
     int numReplicates = 1000;
 
     public TreeTextArea() { }
 
-    public void clear() {
-        setText("");
-    }
-
 //    List<Value<TimeTree>> treeVariables;
 
     @Override
     public void start(Object... configs) {
+        super.start(configs);
         for (int i = 0; i < configs.length; i++) {
             if (configs[0] instanceof Integer numReplicates)
                 this.numReplicates = numReplicates;
@@ -39,31 +34,26 @@ public class TreeTextArea extends JTextArea implements SimulatorListener {
         List<Value> treeValuePerRep = getTreeValues(values);
 
         if (index == 0) {
-            setText("sample");
+            StringBuilder header = new StringBuilder("sample");
             for (Value treV : treeValuePerRep) {
                 List<ValueFormatter> valueFormatterList = ValueFormatResolver
                         .createFormatter(TreeTextFormatter.class, treV);
                 for (ValueFormatter valueFormatter : valueFormatterList) {
-                    append("\t" + valueFormatter.header());
+                    header.append("\t").append(valueFormatter.header());
                 }
             }
-            append("\n");
+            setHeader(header.toString());
         }
 
-        append(index+"");
+        StringBuilder row = new StringBuilder(index+"");
         for (Value treV : treeValuePerRep) {
             List<ValueFormatter> valueFormatterList = ValueFormatResolver
                     .createFormatter(TreeTextFormatter.class, treV);
             for (ValueFormatter valueFormatter : valueFormatterList) {
-                append("\t" + valueFormatter.format(treV.value()));
+                row.append("\t").append(valueFormatter.format(treV.value()));
             }
         }
-        append("\n");
-    }
-
-    @Override
-    public void complete() {
-
+        addRow(row.toString());
     }
 
     // can be TimeTree or SimpleATimeTreelignment[]
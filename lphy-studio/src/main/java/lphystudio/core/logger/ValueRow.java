@@ -1,14 +1,14 @@
 package lphystudio.core.logger;
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import lphy.core.logger.StreamingStatistics;
 
 public class ValueRow {
 
     public final String title;
-    public final DescriptiveStatistics stats;
+    public final StreamingStatistics stats;
     public final int row;
 
-    public ValueRow(String title, int row, DescriptiveStatistics stats) {
+    public ValueRow(String title, int row, StreamingStatistics stats) {
         this.title = title;
         this.stats = stats;
         this.row = row;
@@ -1,16 +1,22 @@
 package lphystudio.core.logger;
 
 import lphy.core.logger.RandomNumberLoggerListener;
+import lphy.core.logger.StreamingStatistics;
 import lphy.core.model.Value;
 import lphy.core.simulator.SimulatorListener;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
-import org.apache.commons.math3.stat.descriptive.SynchronizedDescriptiveStatistics;
 
 import javax.swing.*;
 import javax.swing.table.AbstractTableModel;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * The summary of named random numbers, which is updated in batches during sampling.
+ * The statistics are running summaries by {@link StreamingStatistics},
+ * so the values of replicates are not kept.
+ */
 public class VariableSummaryTable extends JTable implements SimulatorListener {
 
 //    boolean logVariables;
@@ -22,6 +28,11 @@ public class VariableSummaryTable extends JTable implements SimulatorListener {
 
     AbstractTableModel tableModel;
 
+    // the running summaries by value id, which are updated by the sampling thread, guarded by itself
+    private final Map<String, StreamingStatistics> runningStats = new LinkedHashMap<>();
+
+    private final BatchedEdtUpdater updater = new BatchedEdtUpdater(this::updateRows);
+
     public VariableSummaryTable() { // boolean logStatistics, boolean logVariables
 
 //        this.logStatistics = logStatistics;
@@ -36,7 +47,7 @@ public class VariableSummaryTable extends JTable implements SimulatorListener {
 
             @Override
             public int getColumnCount() {
-                return 6;
+                return 9;
             }
 
             @Override
@@ -53,6 +64,12 @@ public class VariableSummaryTable extends JTable implements SimulatorListener {
                     case 4:
                         return "Min";
                     case 5:
+                        return "2.5%";
+                    case 6:
+                        return "Median";
+                    case 7:
+                        return "97.5%";
+                    case 8:
                         return "Max";
                 }
                 return "";
@@ -68,6 +85,9 @@ public class VariableSummaryTable extends JTable implements SimulatorListener {
                     case 3:
                     case 4:
                     case 5:
+                    case 6:
+                    case 7:
+                    case 8:
                         return Double.class;
                 }
                 return Object.class;
@@ -106,7 +126,7 @@ public class VariableSummaryTable extends JTable implements SimulatorListener {
                     case 3:
                         if (valueRow != null) {
                             // standard err of the mean
-                            return valueRow.stats.getStandardDeviation() / Math.sqrt(valueRow.stats.getN());
+                            return valueRow.stats.getStandardError();
                         } else {
                             return Double.NaN;
                         }
@@ -117,6 +137,15 @@ public class VariableSummaryTable extends JTable implements SimulatorListener {
                             return Double.NaN;
                         }
                     case 5:
+                    case 6:
+                    case 7:
+                        if (valueRow != null) {
+                            // the quantiles of default probabilities 0.025, 0.5, 0.975
+                            return valueRow.stats.getQuantile(columnIndex - 5);
+                        } else {
+                            return Double.NaN;
+                        }
+                    case 8:
                         if (valueRow != null) {
                             return valueRow.stats.getMax();
                         } else {
@@ -132,40 +161,46 @@ public class VariableSummaryTable extends JTable implements SimulatorListener {
 
     @Override
     public void start(Object... configs) {
-
+        synchronized (runningStats) {
+            runningStats.clear();
+        }
     }
 
     @Override
     public void replicate(int index, List<Value> values) {
-        if (index == 0) valueRows.clear();
-
-        randomNumberLogger.replicate(index, values);
+        RandomNumberLoggerListener.NumberRow row = randomNumberLogger.getNumberRow(index, values);
+        synchronized (runningStats) {
+            if (index == 0) runningStats.clear();
+            for (int i = 0; i < row.ids().size(); i++) {
+                String id = row.ids().get(i);
+                if (id == null) {
+                    throw new RuntimeException("Not expecting null id in variable summary!");
+                }
+                // the replicates are independent, so no ESS
+                runningStats.computeIfAbsent(id, k -> new StreamingStatistics(StreamingStatistics.DEFAULT_PROBABILITIES, 0))
+                        .addValue(row.numbers().get(i));
+            }
+        }
+        updater.request();
     }
 
     @Override
     public void complete() {
+        updater.flush();
+    }
 
-        List<String> headers = randomNumberLogger.getHeaders();
-        for (int i = 0; i < headers.size(); i++) {
-            String id = headers.get(i);
-            if (id == null) {
-                throw new RuntimeException("Not expecting null id in variable summary!");
-            }
-            List<Double> randomNumbers = randomNumberLogger.getFormattedValuesById().get(id);
-
-            //TODO use Apache
-            DescriptiveStatistics stats = new SynchronizedDescriptiveStatistics();
-            // Add the data
-            for (int j = 0; j < randomNumbers.size(); j++) {
-                stats.addValue(randomNumbers.get(j));
+    // on the EDT, show the copies of running summaries
+    private void updateRows() {
+        List<ValueRow> rows = new ArrayList<>();
+        synchronized (runningStats) {
+            int i = 0;
+            for (Map.Entry<String, StreamingStatistics> entry : runningStats.entrySet()) {
+                rows.add(new ValueRow(entry.getKey(), i, entry.getValue().copy()));
+                i++;
             }
-
-            valueRows.add(new ValueRow(id, i, stats));
-
         }
-
+        valueRows = rows;
         tableModel.fireTableDataChanged();
     }
 
-
 }
@@ -0,0 +1,176 @@
+package lphystudio.core.swing;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The off-screen images of a component drawn in square tiles, for the components which are expensive to draw,
+ * such as large alignments and trees. Only the tiles intersecting the clip are painted,
+ * and a tile is rendered once until the zoom key changes or it is invalidated,
+ * so that repainting, e.g. after scrolling or uncovering the component, mostly copies images.
+ * The least recently used tiles are dropped beyond the maximum number of tiles.
+ * The tiles are rendered at the device scale, so they are sharp on HiDPI screens.
+ * This is only used on the EDT.
+ */
+public class TileCache {
+
+    public static final int DEFAULT_TILE_SIZE = 256;
+    public static final int DEFAULT_MAX_TILES = 256;
+
+    /**
+     * Render the content inside a tile.
+     */
+    @FunctionalInterface
+    public interface TileRenderer {
+        /**
+         * @param g     the graphics in the same coordinates as the graphics given to
+         *              {@link #paint(Graphics2D, Object, Rectangle, TileRenderer)}, which is clipped to the tile.
+         * @param tile  the bounds of the tile in these coordinates.
+         */
+        void render(Graphics2D g, Rectangle tile);
+    }
+
+    private record TileIndex(int column, int row) { }
+
+    private final int tileSize;
+    private final int maxTiles;
+    private final Map<TileIndex, BufferedImage> tiles;
+
+    // the key of cached tiles, including the area and the device scale
+    private Object zoomKey = null;
+    private int renderCount = 0;
+
+    /**
+     * @param tileSize  the width and height of tiles in the user space.
+     * @param maxTiles  the maximum number of tiles to keep.
+     */
+    public TileCache(int tileSize, int maxTiles) {
+        if (tileSize < 1 || maxTiles < 1)
+            throw new IllegalArgumentException("The tile size and the maximum number of tiles must be > 0 !");
+        this.tileSize = tileSize;
+        this.maxTiles = maxTiles;
+        tiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TileIndex, BufferedImage> eldest) {
+                return size() > TileCache.this.maxTiles;
+            }
+        };
+    }
+
+    public TileCache() {
+        this(DEFAULT_TILE_SIZE, DEFAULT_MAX_TILES);
+    }
+
+    /**
+     * Paint the part of the area inside the clip of the graphics by the tiles,
+     * and render the tiles which are not cached.
+     * @param g         the graphics of the component.
+     * @param zoomKey   anything changing the content of the tiles, such as the size and the zoom level,
+     *                  which must implement equals. All tiles are invalidated when it changes.
+     * @param area      the bounds of the content, where the tiles start from its top-left corner.
+     * @param renderer  to render a tile.
+     */
+    public void paint(Graphics2D g, Object zoomKey, Rectangle area, TileRenderer renderer) {
+        if (area.isEmpty())
+            return;
+        AffineTransform transform = g.getTransform();
+        double scaleX = Math.abs(transform.getScaleX());
+        double scaleY = Math.abs(transform.getScaleY());
+        Object key = Arrays.asList(zoomKey, area, scaleX, scaleY);
+        if (!Objects.equals(key, this.zoomKey)) {
+            tiles.clear();
+            this.zoomKey = key;
+        }
+
+        Rectangle visible = g.getClipBounds();
+        visible = visible == null ? area : visible.intersection(area);
+        if (visible.isEmpty())
+            return;
+
+        int firstColumn = (visible.x - area.x) / tileSize;
+        int lastColumn = (visible.x + visible.width - 1 - area.x) / tileSize;
+        int firstRow = (visible.y - area.y) / tileSize;
+        int lastRow = (visible.y + visible.height - 1 - area.y) / tileSize;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                Rectangle tile = getTileBounds(area, column, row);
+                BufferedImage image = tiles.get(new TileIndex(column, row));
+                if (image == null) {
+                    image = render(g, tile, scaleX, scaleY, renderer);
+                    tiles.put(new TileIndex(column, row), image);
+                }
+                g.drawImage(image, tile.x, tile.y, tile.width, tile.height, null);
+            }
+        }
+    }
+
+    private Rectangle getTileBounds(Rectangle area, int column, int row) {
+        return new Rectangle(area.x + column * tileSize, area.y + row * tileSize, tileSize, tileSize);
+    }
+
+    private BufferedImage render(Graphics2D g, Rectangle tile, double scaleX, double scaleY, TileRenderer renderer) {
+        BufferedImage image = new BufferedImage((int) Math.ceil(tile.width * scaleX),
+                (int) Math.ceil(tile.height * scaleY), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D tileGraphics = image.createGraphics();
+        try {
+            tileGraphics.setRenderingHints(g.getRenderingHints());
+            tileGraphics.setFont(g.getFont());
+            tileGraphics.setColor(g.getColor());
+            tileGraphics.setStroke(g.getStroke());
+            tileGraphics.scale(scaleX, scaleY);
+            tileGraphics.translate(-tile.x, -tile.y);
+            tileGraphics.clip(tile);
+            renderer.render(tileGraphics, tile);
+        } finally {
+            tileGraphics.dispose();
+        }
+        renderCount++;
+        return image;
+    }
+
+    /**
+     * Invalidate all tiles.
+     */
+    public void invalidate() {
+        tiles.clear();
+    }
+
+    /**
+     * Invalidate the tiles intersecting the dirty region, which are rendered again at the next paint.
+     * @param area   the bounds of the content given to the last paint.
+     * @param dirty  the dirty region in the same coordinates.
+     */
+    public void invalidate(Rectangle area, Rectangle dirty) {
+        Iterator<TileIndex> iterator = tiles.keySet().iterator();
+        while (iterator.hasNext()) {
+            TileIndex index = iterator.next();
+            if (getTileBounds(area, index.column(), index.row()).intersects(dirty))
+                iterator.remove();
+        }
+    }
+
+    /**
+     * @return  the number of cached tiles.
+     */
+    public int getTileCount() {
+        return tiles.size();
+    }
+
+    /**
+     * @return  the number of tiles rendered since this cache is created.
+     */
+    public int getRenderCount() {
+        return renderCount;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+}
@@ -0,0 +1,33 @@
+package lphystudio.app.alignmentcomponent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AlignmentCellsTest {
+
+    @Test
+    public void rowHeightBelowPixel() {
+        // 400 taxa in 100 pixels, so one row per pixel
+        double h = 0.25;
+        AlignmentCells rows = AlignmentCells.inside(0, 100, 0, h, 400);
+        assertEquals(100, rows.indices().length);
+        assertEquals(1.0, rows.size());
+        // the whole pixel is drawn without a gap
+        assertEquals(1.0, rows.fill(h, 0.95), 1e-12);
+        // the row at the centre of each pixel
+        assertEquals(2, rows.indices()[0]);
+        assertEquals(398, rows.indices()[99]);
+    }
+
+    @Test
+    public void rowHeightAbovePixel() {
+        double h = 10;
+        AlignmentCells rows = AlignmentCells.inside(15, 20, 0, h, 400);
+        assertArrayEquals(new int[]{1, 2, 3}, rows.indices());
+        assertArrayEquals(new double[]{10, 20, 30}, rows.positions(), 1e-12);
+        // the gap between rows
+        assertEquals(9.5, rows.fill(h, 0.95), 1e-12);
+    }
+}
@@ -0,0 +1,43 @@
+package lphystudio.app.graphicalmodelpanel;
+
+import lphy.core.model.Value;
+import lphy.core.parser.LPhyParserDictionary;
+import lphystudio.core.logger.TreeTextArea;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GraphicalModelSamplerTest {
+
+    @Test
+    public void sampleAllCancellable() {
+        GraphicalModelParserDictionary parserDictionary = new GraphicalModelParserDictionary();
+        StudioConsoleInterpreter dataInterpreter = new StudioConsoleInterpreter(parserDictionary,
+                LPhyParserDictionary.Context.data, null, null);
+        StudioConsoleInterpreter modelInterpreter = new StudioConsoleInterpreter(parserDictionary,
+                LPhyParserDictionary.Context.model, dataInterpreter, null);
+        dataInterpreter.interpretInput("taxa = taxa(names=1:5);", LPhyParserDictionary.Context.data);
+        modelInterpreter.interpretInput("ψ ~ Coalescent(theta=2, taxa=taxa);", LPhyParserDictionary.Context.model);
+
+        TreeTextArea treeLog = new TreeTextArea();
+        GraphicalModelSampler sampler = new GraphicalModelSampler(parserDictionary);
+        List<Integer> progress = new ArrayList<>();
+
+        // cancel after 7 replicates
+        Map<Integer, List<Value>> values = sampler.sampleAll(20, List.of(treeLog), 777L, 5,
+                progress::add, () -> progress.size() >= 7);
+
+        assertEquals(7, progress.size());
+        assertEquals(7, progress.get(6));
+        // only keep the most recent replicates
+        assertEquals(List.of(2, 3, 4, 5, 6), new ArrayList<>(values.keySet()));
+        assertEquals(7, treeLog.getReplicateCount());
+        // the header and 7 rows
+        assertEquals(8, treeLog.getBufferedText().split("\n").length);
+    }
+
+}
@@ -0,0 +1,87 @@
+package lphystudio.core.swing;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TileCacheTest {
+
+    private static final TileCache.TileRenderer RED_RENDERER = (g, tile) -> {
+        g.setColor(Color.red);
+        g.fillRect(0, 0, 1000, 1000);
+    };
+
+    @Test
+    public void paintVisibleTiles() {
+        TileCache tileCache = new TileCache(100, 50);
+        Rectangle area = new Rectangle(0, 0, 1000, 1000);
+        BufferedImage image = new BufferedImage(1000, 1000, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D g = image.createGraphics();
+        // 2 x 2 tiles are visible
+        g.setClip(150, 150, 100, 100);
+        tileCache.paint(g, "zoom1", area, RED_RENDERER);
+        assertEquals(4, tileCache.getRenderCount());
+        assertEquals(Color.red.getRGB(), image.getRGB(199, 199));
+        assertEquals(Color.red.getRGB(), image.getRGB(249, 249));
+        // outside the clip
+        assertEquals(0, image.getRGB(260, 260));
+
+        // cached
+        tileCache.paint(g, "zoom1", area, RED_RENDERER);
+        assertEquals(4, tileCache.getRenderCount());
+
+        // only the dirty tile is rendered again
+        tileCache.invalidate(area, new Rectangle(210, 210, 5, 5));
+        assertEquals(3, tileCache.getTileCount());
+        tileCache.paint(g, "zoom1", area, RED_RENDERER);
+        assertEquals(5, tileCache.getRenderCount());
+
+        // scroll to 1 new tile
+        g.setClip(250, 150, 100, 100);
+        tileCache.paint(g, "zoom1", area, RED_RENDERER);
+        assertEquals(7, tileCache.getRenderCount());
+
+        // zoom
+        tileCache.paint(g, "zoom2", area, RED_RENDERER);
+        assertEquals(11, tileCache.getRenderCount());
+        assertEquals(4, tileCache.getTileCount());
+        g.dispose();
+    }
+
+    @Test
+    public void leastRecentlyUsedTiles() {
+        TileCache tileCache = new TileCache(10, 5);
+        Rectangle area = new Rectangle(0, 0, 100, 100);
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D g = image.createGraphics();
+        tileCache.paint(g, "zoom", area, RED_RENDERER);
+        assertEquals(100, tileCache.getRenderCount());
+        assertEquals(5, tileCache.getTileCount());
+        g.dispose();
+    }
+
+    @Test
+    public void deviceScale() {
+        TileCache tileCache = new TileCache(100, 50);
+        Rectangle area = new Rectangle(0, 0, 100, 100);
+        BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D g = image.createGraphics();
+        g.scale(2, 2);
+        tileCache.paint(g, "zoom", area, (tileGraphics, tile) -> {
+            tileGraphics.setColor(Color.blue);
+            tileGraphics.fillRect(50, 50, 50, 50);
+        });
+        g.dispose();
+        // drawn in device pixels
+        assertEquals(0, image.getRGB(99, 99));
+        assertEquals(Color.blue.getRGB(), image.getRGB(100, 100));
+        assertEquals(Color.blue.getRGB(), image.getRGB(199, 199));
+    }
+
+}
@@ -2,11 +2,11 @@ package lphy.core.io;
 
 import lphy.core.logger.LoggerUtils;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintStream;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Objects;
 import java.util.prefs.Preferences;
 
 public class OutputSystem {
@@ -66,8 +66,7 @@ public class OutputSystem {
             try {
                 out = new PrintStream(outputFile);
             } catch (FileNotFoundException e) {
-                LoggerUtils.log.severe("Cannot denote the output file : " + outputFileName +
-                        "\ninto the resolved path : " + outputFile.getAbsolutePath());
+                logCannotCreate(outputFileName, outputFile);
                 throw new RuntimeException(e);
             }
             // setUseSystemOut(false);
@@ -78,6 +77,29 @@ public class OutputSystem {
 
     }
 
+    /**
+     * Create a buffered {@link PrintStream} of the output file in the output directory,
+     * which is independent of {@link OutputSystem#out}, so that multiple files can be
+     * written incrementally at the same time. The caller has to close it.
+     * @param outputFileName  the output file name, or the absolute path.
+     * @return  the buffered PrintStream using UTF-8.
+     */
+    public static PrintStream createPrintStream(String outputFileName) {
+        File outputFile = getOutputFile(Objects.requireNonNull(outputFileName), true);
+        try {
+            return new PrintStream(new BufferedOutputStream(new FileOutputStream(outputFile)),
+                    false, StandardCharsets.UTF_8);
+        } catch (FileNotFoundException e) {
+            logCannotCreate(outputFileName, outputFile);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void logCannotCreate(String outputFileName, File outputFile) {
+        LoggerUtils.log.severe("Cannot denote the output file : " + outputFileName +
+                "\ninto the resolved path : " + outputFile.getAbsolutePath());
+    }
+
     // consider outputFileName could be the absolute path, or relative, or only file name.
     // also check if the preferred output dir
     public static File getOutputFile(String outputFileName, boolean usePreferredOutDir) {
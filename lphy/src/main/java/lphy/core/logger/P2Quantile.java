@@ -0,0 +1,126 @@
+package lphy.core.logger;
+
+import java.util.Arrays;
+
+/**
+ * The P<sup>2</sup> algorithm to estimate a quantile in one pass with 5 markers, without storing the values.
+ * The quantile is exact until 5 values are added.
+ * Jain, R., & Chlamtac, I. (1985). The P<sup>2</sup> algorithm for dynamic calculation of quantiles
+ * and histograms without storing observations. Communications of the ACM, 28(10), 1076-1085.
+ */
+public class P2Quantile {
+
+    private final double p;
+
+    // the heights and actual positions (1-based) of the markers
+    private final double[] q = new double[5];
+    private final double[] n = new double[5];
+    // the desired positions and their increments
+    private final double[] np = new double[5];
+    private final double[] dn;
+
+    private long count = 0;
+
+    /**
+     * @param p  the probability of the quantile in (0, 1), e.g. 0.5 for the median.
+     */
+    public P2Quantile(double p) {
+        if (!(p > 0 && p < 1))
+            throw new IllegalArgumentException("The probability of the quantile must be in (0, 1) ! But p = " + p);
+        this.p = p;
+        dn = new double[]{0, p / 2, p, (1 + p) / 2, 1};
+    }
+
+    public P2Quantile copy() {
+        P2Quantile copy = new P2Quantile(p);
+        System.arraycopy(q, 0, copy.q, 0, 5);
+        System.arraycopy(n, 0, copy.n, 0, 5);
+        System.arraycopy(np, 0, copy.np, 0, 5);
+        copy.count = count;
+        return copy;
+    }
+
+    public void addValue(double x) {
+        if (count < 5) {
+            q[(int) count] = x;
+            count++;
+            if (count == 5) {
+                Arrays.sort(q);
+                for (int i = 0; i < 5; i++)
+                    n[i] = i + 1;
+                np[0] = 1;
+                np[1] = 1 + 2 * p;
+                np[2] = 1 + 4 * p;
+                np[3] = 3 + 2 * p;
+                np[4] = 5;
+            }
+            return;
+        }
+        count++;
+
+        // the cell k containing x, and adjust the extreme markers
+        int k;
+        if (x < q[0]) {
+            q[0] = x;
+            k = 0;
+        } else if (x >= q[4]) {
+            q[4] = x;
+            k = 3;
+        } else {
+            k = 0;
+            while (x >= q[k + 1])
+                k++;
+        }
+        for (int i = k + 1; i < 5; i++)
+            n[i]++;
+        for (int i = 0; i < 5; i++)
+            np[i] += dn[i];
+
+        // adjust the heights of the middle markers
+        for (int i = 1; i < 4; i++) {
+            double d = np[i] - n[i];
+            if ((d >= 1 && n[i + 1] - n[i] > 1) || (d <= -1 && n[i - 1] - n[i] < -1)) {
+                int ds = d >= 0 ? 1 : -1;
+                double qp = parabolic(i, ds);
+                if (q[i - 1] < qp && qp < q[i + 1])
+                    q[i] = qp;
+                else
+                    q[i] = q[i] + ds * (q[i + ds] - q[i]) / (n[i + ds] - n[i]);
+                n[i] += ds;
+            }
+        }
+    }
+
+    // the piecewise-parabolic prediction
+    private double parabolic(int i, int d) {
+        return q[i] + d / (n[i + 1] - n[i - 1]) *
+                ((n[i] - n[i - 1] + d) * (q[i + 1] - q[i]) / (n[i + 1] - n[i]) +
+                        (n[i + 1] - n[i] - d) * (q[i] - q[i - 1]) / (n[i] - n[i - 1]));
+    }
+
+    /**
+     * @return  the estimated quantile, or NaN if no value is added.
+     */
+    public double getQuantile() {
+        if (count == 0)
+            return Double.NaN;
+        if (count >= 5)
+            return q[2];
+        // exact by linear interpolation
+        double[] sorted = Arrays.copyOf(q, (int) count);
+        Arrays.sort(sorted);
+        double pos = p * (count - 1);
+        int lower = (int) Math.floor(pos);
+        int upper = Math.min(lower + 1, (int) count - 1);
+        return sorted[lower] + (pos - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    public double getProbability() {
+        return p;
+    }
+
+    public long getN() {
+        return count;
+    }
+
+}
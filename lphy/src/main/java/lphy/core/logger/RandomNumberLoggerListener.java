@@ -60,8 +60,50 @@ public class RandomNumberLoggerListener implements SimulatorListener {
             formattedValuesById.clear();
         }
 
-        int n = 0;
-        boolean isFirstValue = true;
+        NumberRow row = getNumberRow(index, values);
+        if (index == 0)
+            headers.addAll(row.headers());
+        if (row.rowName() != null)
+            rowNames.add(row.rowName());
+        for (int i = 0; i < row.ids().size(); i++) {
+            // formatted value in string
+            List<Double> formattedValues = formattedValuesById
+                    .computeIfAbsent(row.ids().get(i), k -> new ArrayList<>());
+            formattedValues.add(row.numbers().get(i));
+        }
+
+        if (row.numbers().isEmpty())
+            LoggerUtils.log.warning("Named random number should > 0 when requesting logging at replicate " +
+                            index + " ! value size = " + values.size());
+        sampleCount = index + 1;
+        // row name is added before the 1st value each row, sampleCount + 1 after each replicate,
+        // they should be same, otherwise there is a problem during simulations.
+        if (!row.numbers().isEmpty() && sampleCount != rowNames.size())
+            throw new IllegalArgumentException("Row names " + rowNames.size() +
+                    " must be same to the sample count " + sampleCount + " during logging !");
+    }
+
+    /**
+     * The named random numbers of one replicate, where an array has one column per element.
+     * @param rowName  the row name, or null if there is no named random number.
+     * @param ids      the value ids, if value is array, then id will be appended by index of the element.
+     * @param headers  the column names.
+     * @param numbers  the values, where boolean is converted to 1.0 or 0.0.
+     */
+    public record NumberRow(String rowName, List<String> ids, List<String> headers, List<Double> numbers) { }
+
+    /**
+     * Format the named random numbers of one replicate without keeping them,
+     * so that a logger can summarise or display the replicates progressively.
+     * @param index   the index of the replicate.
+     * @param values  the list of {@link Value} from the replicate.
+     * @return  the row of numbers in the same order as the headers.
+     */
+    public NumberRow getNumberRow(int index, List<Value> values) {
+        String rowName = null;
+        List<String> ids = new ArrayList<>();
+        List<String> rowHeaders = new ArrayList<>();
+        List<Double> numbers = new ArrayList<>();
         for (Value value : values) {
 
             if (isNamedRandomNumber(value)) {
@@ -74,23 +116,13 @@ public class RandomNumberLoggerListener implements SimulatorListener {
                     // this covers f != null
                     if (formatter != null) {
                         // If value is array, the id will be appended with index
-                        String id = formatter.getValueID();
-
-                        if (index == 0) {
-                            String header = formatter.header();
-                            headers.add(header);
-                        }
+                        ids.add(formatter.getValueID());
+                        rowHeaders.add(formatter.header());
 
                         // row names
-                        String rowName = formatter.getRowName(index);
-                        if (isFirstValue) {
-                            rowNames.add(rowName);
-                            isFirstValue = false;
-                        }
+                        if (rowName == null)
+                            rowName = formatter.getRowName(index);
 
-                        // formatted value in string
-                        List<Double> formattedValues = formattedValuesById
-                                .computeIfAbsent(id, k -> new ArrayList<>());
                         // here require the original value if value is array,
                         // but return the formatted string at ith element
                         String body = formatter.format(value.value());
@@ -108,23 +140,14 @@ public class RandomNumberLoggerListener implements SimulatorListener {
                            else
                                throw new RuntimeException("Number is required, but " + body);
                         }
-                        formattedValues.add(num);
+                        numbers.add(num);
                     } else
                         throw new IllegalArgumentException("ValueFormatter cannot be null ! " +
                                 "Default ValueFormatter is not loaded properly !"); // end if
                 } // end for j
-                n++;
             } // end if isNamedRandomNumber
         }
-        if (n < 1)
-            LoggerUtils.log.warning("Named random number should > 0 when requesting logging at replicate " +
-                            index + " ! value size = " + values.size());
-        sampleCount = index + 1;
-        // row name is added before the 1st value each row, sampleCount + 1 after each replicate,
-        // they should be same, otherwise there is a problem during simulations.
-        if (n > 0 && sampleCount != rowNames.size())
-            throw new IllegalArgumentException("Row names " + rowNames.size() +
-                    " must be same to the sample count " + sampleCount + " during logging !");
+        return new NumberRow(rowName, ids, rowHeaders, numbers);
     }
 
     @Override
@@ -0,0 +1,97 @@
+package lphy.core.logger;
+
+import lphy.core.model.Value;
+import lphy.core.simulator.SimulatorListener;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summarise the named random numbers over replicates by {@link StreamingStatistics},
+ * which are updated per replicate without keeping the replicates,
+ * and print the summary table when the simulation is complete.
+ * If value is array, then each element is summarised separately.
+ */
+public class StatisticsLoggerListener implements SimulatorListener {
+
+    private final RandomNumberLoggerListener randomNumberLogger = new RandomNumberLoggerListener();
+
+    private final PrintStream out;
+    private final double[] probabilities;
+    private final int maxLag;
+
+    // the key is the value id, if value is array, then id will be appended by index of the element.
+    private final Map<String, StreamingStatistics> statisticsById = new LinkedHashMap<>();
+
+    /**
+     * @param out            where to print the summary, or null to not print.
+     * @param probabilities  the probabilities of the quantiles to estimate.
+     * @param maxLag         the maximum lag of autocorrelations for ESS, 0 to not compute ESS.
+     */
+    public StatisticsLoggerListener(PrintStream out, double[] probabilities, int maxLag) {
+        this.out = out;
+        this.probabilities = probabilities;
+        this.maxLag = maxLag;
+    }
+
+    public StatisticsLoggerListener() {
+        this(System.out, StreamingStatistics.DEFAULT_PROBABILITIES, StreamingStatistics.DEFAULT_MAX_LAG);
+    }
+
+    @Override
+    public void start(Object... configs) {
+        statisticsById.clear();
+    }
+
+    @Override
+    public synchronized void replicate(int index, List<Value> values) {
+        RandomNumberLoggerListener.NumberRow row = randomNumberLogger.getNumberRow(index, values);
+        for (int i = 0; i < row.ids().size(); i++) {
+            statisticsById.computeIfAbsent(row.ids().get(i), id -> new StreamingStatistics(probabilities, maxLag))
+                    .addValue(row.numbers().get(i));
+        }
+    }
+
+    @Override
+    public void complete() {
+        if (out != null && !statisticsById.isEmpty())
+            out.print(getSummary());
+    }
+
+    /**
+     * @return  the summary statistics by value id, in the order of the 1st replicate.
+     */
+    public Map<String, StreamingStatistics> getStatisticsById() {
+        return statisticsById;
+    }
+
+    /**
+     * @return  the table of summary statistics separated by tab, one row per value id.
+     */
+    public String getSummary() {
+        StringBuilder builder = new StringBuilder("id\tmean\tstdev\tstderr\tmin");
+        for (double p : probabilities)
+            builder.append("\t").append(p == 0.5 ? "median" : (p * 100) + "%");
+        builder.append("\tmax");
+        if (maxLag > 0)
+            builder.append("\tESS");
+        builder.append("\n");
+
+        for (Map.Entry<String, StreamingStatistics> entry : statisticsById.entrySet()) {
+            StreamingStatistics stats = entry.getValue();
+            builder.append(entry.getKey()).append("\t").append(stats.getMean()).append("\t")
+                    .append(stats.getStandardDeviation()).append("\t").append(stats.getStandardError())
+                    .append("\t").append(stats.getMin());
+            for (int i = 0; i < probabilities.length; i++)
+                builder.append("\t").append(stats.getQuantile(i));
+            builder.append("\t").append(stats.getMax());
+            if (maxLag > 0)
+                builder.append("\t").append(stats.getESS());
+            builder.append("\n");
+        }
+        return builder.toString();
+    }
+
+}
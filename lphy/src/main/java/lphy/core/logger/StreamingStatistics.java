@@ -0,0 +1,219 @@
+package lphy.core.logger;
+
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
+
+import java.util.Arrays;
+
+/**
+ * The summary statistics of a stream of values computed in one pass,
+ * where the memory does not grow with the number of values:
+ * mean and variance by Welford's algorithm, min, max, quantiles by {@link P2Quantile},
+ * and the effective sample size (ESS) for correlated values such as a chain,
+ * from the autocorrelations up to a maximum lag.
+ */
+public class StreamingStatistics implements StatisticalSummary {
+
+    public static final double[] DEFAULT_PROBABILITIES = new double[]{0.025, 0.5, 0.975};
+    public static final int DEFAULT_MAX_LAG = 100;
+
+    private long n = 0;
+    private double mean = 0.0;
+    // the sum of squared differences from the mean
+    private double m2 = 0.0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    private final P2Quantile[] quantiles;
+
+    // the autocorrelations are computed on the values shifted by the first value to reduce the rounding errors
+    private final int maxLag;
+    private double shift;
+    private double shiftedSum = 0.0;
+    // lagSums[k-1] = sum of y[t] * y[t-k] over t >= k
+    private final double[] lagSums;
+    // the first and the most recent maxLag shifted values
+    private final double[] head;
+    private final double[] recent;
+
+    /**
+     * @param probabilities  the probabilities of the quantiles to estimate.
+     * @param maxLag         the maximum lag of autocorrelations for ESS, 0 to not compute ESS.
+     */
+    public StreamingStatistics(double[] probabilities, int maxLag) {
+        if (maxLag < 0)
+            throw new IllegalArgumentException("The maximum lag must be >= 0 ! But maxLag = " + maxLag);
+        quantiles = new P2Quantile[probabilities.length];
+        for (int i = 0; i < probabilities.length; i++)
+            quantiles[i] = new P2Quantile(probabilities[i]);
+        this.maxLag = maxLag;
+        lagSums = new double[maxLag];
+        head = new double[maxLag];
+        recent = new double[maxLag];
+    }
+
+    public StreamingStatistics() {
+        this(DEFAULT_PROBABILITIES, DEFAULT_MAX_LAG);
+    }
+
+    /**
+     * Update all statistics by a value in O(1) time and memory, which is O(maxLag) for ESS.
+     */
+    public void addValue(double x) {
+        n++;
+        double delta = x - mean;
+        mean += delta / n;
+        m2 += delta * (x - mean);
+        if (n == 1) {
+            min = x;
+            max = x;
+            shift = x;
+        } else {
+            if (x < min) min = x;
+            if (x > max) max = x;
+        }
+        for (P2Quantile quantile : quantiles)
+            quantile.addValue(x);
+
+        if (maxLag > 0) {
+            double y = x - shift;
+            // the index of this value is t = n - 1
+            long t = n - 1;
+            for (int k = 1; k <= Math.min(maxLag, t); k++)
+                lagSums[k - 1] += y * recent[(int) ((t - k) % maxLag)];
+            recent[(int) (t % maxLag)] = y;
+            if (t < maxLag)
+                head[(int) t] = y;
+            shiftedSum += y;
+        }
+    }
+
+    public StreamingStatistics copy() {
+        double[] probabilities = new double[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++)
+            probabilities[i] = quantiles[i].getProbability();
+        StreamingStatistics copy = new StreamingStatistics(probabilities, maxLag);
+        copy.n = n;
+        copy.mean = mean;
+        copy.m2 = m2;
+        copy.min = min;
+        copy.max = max;
+        for (int i = 0; i < quantiles.length; i++)
+            copy.quantiles[i] = quantiles[i].copy();
+        copy.shift = shift;
+        copy.shiftedSum = shiftedSum;
+        System.arraycopy(lagSums, 0, copy.lagSums, 0, maxLag);
+        System.arraycopy(head, 0, copy.head, 0, maxLag);
+        System.arraycopy(recent, 0, copy.recent, 0, maxLag);
+        return copy;
+    }
+
+    @Override
+    public long getN() {
+        return n;
+    }
+
+    @Override
+    public double getMean() {
+        return n > 0 ? mean : Double.NaN;
+    }
+
+    @Override
+    public double getSum() {
+        return mean * n;
+    }
+
+    /**
+     * @return  the sample variance divided by n - 1.
+     */
+    @Override
+    public double getVariance() {
+        if (n == 0)
+            return Double.NaN;
+        return n > 1 ? m2 / (n - 1) : 0.0;
+    }
+
+    /**
+     * @return  the population variance divided by n.
+     */
+    public double getPopulationVariance() {
+        return n > 0 ? m2 / n : Double.NaN;
+    }
+
+    @Override
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return  the standard error of the mean, assuming the values are independent.
+     */
+    public double getStandardError() {
+        return getStandardDeviation() / Math.sqrt(n);
+    }
+
+    @Override
+    public double getMin() {
+        return min;
+    }
+
+    @Override
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return  the probabilities of the quantiles.
+     */
+    public double[] getProbabilities() {
+        return Arrays.stream(quantiles).mapToDouble(P2Quantile::getProbability).toArray();
+    }
+
+    /**
+     * @param i  the index of the probabilities given in the constructor.
+     * @return  the estimated quantile.
+     */
+    public double getQuantile(int i) {
+        return quantiles[i].getQuantile();
+    }
+
+    /**
+     * @return  the autocorrelation at the lag from 1 to maxLag, or NaN if it is not available.
+     */
+    public double getAutocorrelation(int lag) {
+        if (lag < 1 || lag > maxLag || lag >= n || !(m2 > 0))
+            return Double.NaN;
+        // the sums of y[t] over t >= lag and over t < n - lag
+        double tailSum = shiftedSum;
+        for (int t = 0; t < lag; t++)
+            tailSum -= head[t];
+        double headSum = shiftedSum;
+        for (long t = n - lag; t < n; t++)
+            headSum -= recent[(int) (t % maxLag)];
+        double m = mean - shift;
+        double autocovariance = lagSums[lag - 1] - m * (tailSum + headSum) + (n - lag) * m * m;
+        return autocovariance / m2;
+    }
+
+    /**
+     * The effective sample size n / (1 + 2 * sum of autocorrelations),
+     * where the sum is truncated by Geyer's initial positive sequence of the paired autocorrelations,
+     * or at the maximum lag.
+     * Geyer, C. J. (1992). Practical Markov chain Monte Carlo. Statistical science, 473-483.
+     * @return  the ESS, which is about n for independent values,
+     *          or NaN if ESS is not computed, or there are less than 3 values, or all values are same.
+     */
+    public double getESS() {
+        if (maxLag == 0 || n < 3 || !(m2 > 0))
+            return Double.NaN;
+        // tau = -1 + 2 * sum of (rho[2m] + rho[2m+1]), where rho[0] = 1
+        double tau = -1.0;
+        for (int k = 0; k + 1 <= Math.min(maxLag, n - 1); k += 2) {
+            double pair = (k == 0 ? 1.0 : getAutocorrelation(k)) + getAutocorrelation(k + 1);
+            if (!(pair > 0))
+                break;
+            tau += 2 * pair;
+        }
+        return tau > 0 ? n / tau : Double.NaN;
+    }
+
+}
@@ -2,6 +2,8 @@ package lphy.core.logger;
 
 import lphy.core.model.Value;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
@@ -15,6 +17,20 @@ public interface TextFileFormatted {
 
     List<String> getTextForFile();
 
+    /**
+     * Write the text into a file, where each line is followed by the line separator.
+     * Override this to write large values incrementally, without creating all lines
+     * by {@link #getTextForFile()} in memory.
+     * @param writer  the writer of the file, which is closed by the caller.
+     * @throws IOException
+     */
+    default void writeTo(Writer writer) throws IOException {
+        for (String line : getTextForFile()) {
+            writer.write(line);
+            writer.write(System.lineSeparator());
+        }
+    }
+
     String getFileType();
 
     static List<Value> getLoggableValues(List<Value> allValues, Class clsMatched) {
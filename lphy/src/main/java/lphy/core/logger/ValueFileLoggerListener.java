@@ -8,6 +8,8 @@ import lphy.core.spi.LoaderManager;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Arrays;
@@ -44,11 +46,37 @@ public class  ValueFileLoggerListener implements SimulatorListener {
     StringBuilder valuesByRepColNamesBuilder;
     StringBuilder valuesByRepBuilder;
 
+    /**
+     * For the streaming mode, the files are opened at the 1st replicate,
+     * and each replicate is appended to them as soon as it is logged.
+     * So no replicate is kept in memory, where the key of streamsById is the value id
+     * of ValuePerLine, and valuesByRepStream is used by ValuePerCell.
+     */
+    private final boolean streaming;
+    Map<String, PrintStream> streamsById;
+    PrintStream valuesByRepStream;
+
     // numReplicates, filePrefix
     FileConfig fileConfig;
 
     private static final ValueFormatResolver valueFormatResolver = LoaderManager.valueFormatResolver;
 
+    public ValueFileLoggerListener() {
+        this(false);
+    }
+
+    /**
+     * @param streaming  if true, the values are written into the files incrementally after each replicate,
+     *                   instead of storing all replicates in memory until {@link #complete()}.
+     */
+    public ValueFileLoggerListener(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
     public void setOutputDir(String dir) {
         OutputSystem.setOutputDirectory(dir);
     }
@@ -97,6 +125,9 @@ public class  ValueFileLoggerListener implements SimulatorListener {
      */
     @Override
     public void replicate(int index, List<Value> values) {
+        if (streaming && index < 1)
+            closeStreams(); // in case of the previous simulation not completed
+
         if (metadataById == null)
             metadataById = new TreeMap<>(); // sort by value id
         else if (index < 1) // index starts from 0
@@ -111,6 +142,9 @@ public class  ValueFileLoggerListener implements SimulatorListener {
             valuesByRepBuilder = new StringBuilder();
             valuesByRepColNamesBuilder = new StringBuilder();
         }
+        // only keep the current replicate in streaming mode
+        if (streaming)
+            valuesByRepBuilder.setLength(0);
 
         validate(index, fileConfig.numReplicates);
 
@@ -139,9 +173,9 @@ public class  ValueFileLoggerListener implements SimulatorListener {
                         fileConfig.getNumReplicates(), fileConfig.getFilePrefix(), fileExtension);
                 File outputFile = OutputSystem.getOutputFile(fileName, true);
 
-                List<String> lines = fileFormatted.getTextForFile();
-                try {
-                    Files.write(outputFile.toPath(), lines, StandardCharsets.UTF_8);
+                // write straight to the file, not creating all lines in memory
+                try (Writer writer = Files.newBufferedWriter(outputFile.toPath(), StandardCharsets.UTF_8)) {
+                    fileFormatted.writeTo(writer);
                 } catch (IOException e) {
                     LoggerUtils.log.severe("Cannot write " + canonicalId + " to file : " +
                             outputFile.getAbsolutePath() +  " !");
@@ -176,7 +210,10 @@ public class  ValueFileLoggerListener implements SimulatorListener {
                                     metadataById, fileConfig.getFilePrefix());
 
                         // e.g. Trees
-                        ValueFormatHandler.ValuePerLine.populateValues(index, value, formatter, linesById);
+                        if (streaming)
+                            writeLine(index, value, formatter);
+                        else
+                            ValueFormatHandler.ValuePerLine.populateValues(index, value, formatter, linesById);
 
                     } else if (formatter.getMode() == ValueFormatter.Mode.VALUE_PER_CELL) {
                         // add col names and parameters values
@@ -191,12 +228,54 @@ public class  ValueFileLoggerListener implements SimulatorListener {
             } // end if else
         } // end for i
         // ValuePerCell each line finish here
-        valuesByRepBuilder.append("\n");
+        if (streaming)
+            writeRow();
+        else
+            valuesByRepBuilder.append("\n");
+    }
+
+    // streaming mode: append the line of the value to its file, which is created at the 1st replicate
+    private void writeLine(int index, Value value, ValueFormatter formatter) {
+        if (streamsById == null)
+            streamsById = new TreeMap<>();
+        String id = formatter.getValueID();
+        PrintStream out = streamsById.computeIfAbsent(id,
+                k -> ValueFormatHandler.ValuePerLine.openFile(metadataById.get(k)));
+        String line = ValueFormatHandler.ValuePerLine.formatLine(index, value, formatter);
+        ValueFormatHandler.ValuePerLine.writeLine(out, line);
+    }
+
+    // streaming mode: append the row of the current replicate to the log file
+    private void writeRow() {
+        if (isStringBuilderEmpty(valuesByRepBuilder))
+            return;
+        if (valuesByRepStream == null)
+            // e.g. .log
+            valuesByRepStream = ValueFormatHandler.ValuePerCell.openFile(valuesByRepColNamesBuilder,
+                    ".log", fileConfig.getFilePrefix());
+        valuesByRepStream.println(valuesByRepBuilder);
+    }
+
+    private void closeStreams() {
+        if (streamsById != null) {
+            streamsById.forEach((id, out) ->
+                    ValueFormatHandler.ValuePerLine.closeFile(out, metadataById.get(id)));
+            streamsById = null;
+        }
+        if (valuesByRepStream != null) {
+            valuesByRepStream.close();
+            valuesByRepStream = null;
+        }
     }
 
     @Override
     public void complete() {
 
+        if (streaming) {
+            closeStreams();
+            return;
+        }
+
         if (linesById != null)
             ValueFormatHandler.ValuePerLine.exportValuePerLine(linesById, metadataById);
 
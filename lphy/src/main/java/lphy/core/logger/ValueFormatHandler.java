@@ -4,6 +4,8 @@ import lphy.core.io.FileConfig;
 import lphy.core.io.OutputSystem;
 import lphy.core.model.Value;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -43,26 +45,34 @@ public class ValueFormatHandler {
 
 
         public static void exportValuePerFile(int index, Value value, ValueFormatter formatter) {
+            // the value is written incrementally through a buffer, not formatted into a whole string
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(OutputSystem.out, StandardCharsets.UTF_8))) {
+                // here require the original id if value is array
+                String header = formatter.header();
+                // in case 1 header for multiple bodies
+                if (header != null)
+                    writeLine(writer, header);
+
+                // overwrite to get indents
+                String indent = formatter.getRowName(index);
+                writer.write(indent);
+                // here require the original value if value is array,
+                // but write the formatted string at ith element
+                formatter.writeTo(value.value(), writer);
+                writer.write(System.lineSeparator());
+
+                String footer = formatter.footer();
+                if (footer != null)
+                    writeLine(writer, footer);
+            } catch (IOException e) {
+                LoggerUtils.log.severe("Cannot write " + formatter.getValueID() + " to file : " + e.getMessage());
+            }
+        }
 
-            // here require the original id if value is array
-            String header = formatter.header();
-            // in case 1 header for multiple bodies
-            if (header != null || !header.trim().isEmpty())
-                OutputSystem.out.println(header);
-
-            // overwrite to get indents
-            String indent = formatter.getRowName(index);
-            // here require the original value if value is array,
-            // but return the formatted string at ith element
-            String body = formatter.format(value.value());
-            OutputSystem.out.println(indent + body);
-
-            String footer = formatter.footer();
-            if (footer != null || !footer.trim().isEmpty())
-                OutputSystem.out.println(footer);
-
-            OutputSystem.out.close();
-
+        private static void writeLine(Writer writer, String line) throws IOException {
+            writer.write(line);
+            writer.write(System.lineSeparator());
         }
 
     }
@@ -96,18 +106,56 @@ public class ValueFormatHandler {
             // If value is array, the id will be appended with index
             String id = formatter.getValueID();
 
+            // for a value, one replicate per line,
+            String line = formatLine(index, value, formatter);
+            List<String> formattedLines = formattedLinesByValueID
+                    .computeIfAbsent(id, k -> new ArrayList<>());
+            formattedLines.add(line);
+
+        }
+
+        /**
+         * @return the line of one replicate of the value, which is the row name followed by the body.
+         */
+        public static String formatLine(int index, Value value, ValueFormatter formatter) {
             // here require the original value if value is array,
             // but return the formatted string at ith element
             String body = formatter.format(value.value());
             // overwrite for trees
             String rowName = formatter.getRowName(index);
+            return rowName + body;
+        }
 
-            // for a value, one replicate per line,
-            String line = rowName + body;
-            List<String> formattedLines = formattedLinesByValueID
-                    .computeIfAbsent(id, k -> new ArrayList<>());
-            formattedLines.add(line);
+        /**
+         * Streaming mode: create the file of the value given its metadata, and write the header,
+         * then the lines can be appended incrementally by {@link #writeLine(PrintStream, String)}.
+         * @param metadata  the metadata created by {@link #processHeaderFooter(ValueFormatter, Map, String)}
+         * @return  the stream to write the lines, which must be closed by {@link #closeFile(PrintStream, String[])}.
+         */
+        public static PrintStream openFile(String[] metadata) {
+            // e.g. _psi.trees
+            String fileName = metadata[FILE_NAME_ID];
+            PrintStream out = OutputSystem.createPrintStream(fileName);
+            System.out.println("Create file : " + fileName);
+
+            // use same header per value
+            String header = metadata[HEADER_ID];
+            if (header != null && !header.trim().isEmpty())
+                out.println(header);
+            return out;
+        }
+
+        public static void writeLine(PrintStream out, String line) {
+            if (line != null && !line.isEmpty())
+                out.println(line);
+        }
 
+        public static void closeFile(PrintStream out, String[] metadata) {
+            // use same footer per value
+            String footer = metadata[FOOTER_ID];
+            if (footer != null && !footer.trim().isEmpty())
+                out.println(footer);
+            out.close();
         }
 
 
@@ -188,6 +236,21 @@ public class ValueFormatHandler {
 
         }
 
+        /**
+         * Streaming mode: create the file and write the column names,
+         * then the rows can be appended incrementally after each replicate.
+         * @return  the stream to write the rows, which must be closed after the last replicate.
+         */
+        public static PrintStream openFile(StringBuilder valuesByRepColNamesBuilder,
+                                           String fileExtension, String filePrefix ) {
+            String fileName = FileConfig.getOutFileName(filePrefix, fileExtension);
+            PrintStream out = OutputSystem.createPrintStream(fileName);
+            System.out.println("Create file : " + fileName);
+
+            out.println(valuesByRepColNamesBuilder);
+            return out;
+        }
+
     }
 
 
@@ -3,6 +3,9 @@ package lphy.core.logger;
 import lphy.core.model.Symbols;
 import lphy.core.model.Value;
 
+import java.io.IOException;
+import java.io.Writer;
+
 /**
  * Note: this cannot be extended by lphy extension developers,
  *       please use {@link TextFileFormatted}.
@@ -47,6 +50,18 @@ public interface ValueFormatter<T> {
         return value.toString();
     }
 
+    /**
+     * Write the formatted value, override this to avoid building the whole string
+     * of a large value (e.g. alignment) in memory.
+     * @param value   It is from {@link lphy.core.model.Value#value()}
+     * @param writer  the writer, which is not closed here.
+     * @throws IOException
+     * @see #format(Object)
+     */
+    default void writeTo(T value, Writer writer) throws IOException {
+        writer.write(format(value));
+    }
+
     default String footer() {
         return "";
     }
@@ -7,7 +7,6 @@ import lphy.core.model.annotation.GeneratorInfo;
 import lphy.core.model.annotation.ParameterInfo;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
@@ -68,6 +67,7 @@ public interface Generator<T> extends GraphicalModelNode<T> {
      * <code>public void setLambda(double p) {</code>
      * <code>    this.lambda.setValue(p);    </code>
      * <code>}</code>
+     * The setters of each class are only looked up once, see {@link ParamSetters}.
      * @param paramName   parameter (argument) name
      * @param value       {@link Value}
      */
@@ -76,41 +76,7 @@ public interface Generator<T> extends GraphicalModelNode<T> {
         // such as, public void setLambda(double p) {
         //        this.lambda.setValue(p);
         //        constructDistribution(random); }
-        String methodName = "set" + Character.toUpperCase(paramName.charAt(0)) + paramName.substring(1);
-
-        try {
-            // just one setter
-            Method method = getClass().getMethod(methodName, value.value().getClass());
-
-            method.invoke(this, value.value());
-        } catch (NoSuchMethodException e) {
-            // multiple setters due to multiple parameters
-            Method[] methods = getClass().getMethods();
-            for (Method method : methods) {
-                if (method.getName().equals(methodName)) {
-                    try {
-                        method.invoke(this, value.value());
-                        break;
-                    } catch (IllegalArgumentException mismatch) {
-                        //TODO Cannot handle inheritance, such as Number,
-                        // it must specify to primary type, such as double
-                        String msg = mismatch.getMessage() + " in " + this.getClass().getSimpleName() +
-                                ", where " + methodName + "(" + method.getGenericParameterTypes()[0] +
-                                ") does not match the value type " + value.getType() +
-                                "!\nPlease either overwrite setParam(), or change setter value type to " +
-                                value.getType() + " !";
-                        LoggerUtils.log.severe(msg); // log to studio as well
-                        throw new RuntimeException(msg, e);
-                    } catch (InvocationTargetException | IllegalAccessException err) {
-                        String msg = methodName + " err : " + err.getMessage();
-                        LoggerUtils.log.severe(msg); // log to studio as well
-                        throw new RuntimeException(msg, e);
-                    }
-                }
-            }
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            e.printStackTrace();
-        }
+        ParamSetters.of(getClass()).setParam(this, paramName, value);
     }
 
     @Override
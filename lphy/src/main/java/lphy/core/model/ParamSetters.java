@@ -0,0 +1,163 @@
+package lphy.core.model;
+
+import lphy.core.logger.LoggerUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The table of setters of a generator class used by the default {@link Generator#setParam(String, Value)},
+ * which is built once per class, so that setting a parameter does not look up methods by reflection again.
+ * The setter of a parameter, e.g. <code>setLambda</code> for "lambda", is invoked through a
+ * {@link MethodHandle} if its parameter type accepts the value, otherwise through reflection,
+ * which also handles the primitive widening, e.g. Integer to double.
+ */
+public final class ParamSetters {
+
+    private static final ClassValue<ParamSetters> settersByClass = new ClassValue<>() {
+        @Override
+        protected ParamSetters computeValue(Class<?> type) {
+            return new ParamSetters(type);
+        }
+    };
+
+    private static final Setter[] NO_SETTER = new Setter[0];
+
+    private final Class<?> generatorClass;
+    // the setters by method name, in the order of getMethods()
+    private final Map<String, Setter[]> settersByMethodName;
+    // cache the setters by parameter name, to avoid building the method name in every call
+    private final Map<String, Setter[]> settersByParamName = new ConcurrentHashMap<>();
+
+    private ParamSetters(Class<?> generatorClass) {
+        this.generatorClass = generatorClass;
+        Map<String, List<Setter>> setters = new HashMap<>();
+        for (Method method : generatorClass.getMethods()) {
+            if (method.getName().startsWith("set"))
+                setters.computeIfAbsent(method.getName(), k -> new ArrayList<>()).add(new Setter(method));
+        }
+        settersByMethodName = new HashMap<>();
+        setters.forEach((name, list) -> settersByMethodName.put(name, list.toArray(NO_SETTER)));
+    }
+
+    /**
+     * @param generatorClass  the class of {@link Generator}
+     * @return  the cached setters of the class.
+     */
+    public static ParamSetters of(Class<?> generatorClass) {
+        return settersByClass.get(generatorClass);
+    }
+
+    /**
+     * Set the value to the parameter by its setter. Do nothing if there is no setter.
+     * @param generator  the instance of the generator class
+     * @param paramName  parameter (argument) name
+     * @param value      {@link Value}
+     */
+    public void setParam(Generator<?> generator, String paramName, Value<?> value) {
+        Setter[] setters = getSetters(paramName);
+        if (setters.length == 0)
+            return;
+
+        Object v = value.value();
+        if (v != null) {
+            // the exact type first, then any type accepting the value
+            for (Setter setter : setters) {
+                if (setter.handle != null && setter.boxedType == v.getClass()) {
+                    setter.invoke(generator, v);
+                    return;
+                }
+            }
+            for (Setter setter : setters) {
+                if (setter.handle != null && setter.boxedType.isInstance(v)) {
+                    setter.invoke(generator, v);
+                    return;
+                }
+            }
+        }
+        // e.g. Integer to double setter, or the mismatched type
+        setters[0].reflect(generator, value);
+    }
+
+    /**
+     * @param paramName  parameter (argument) name
+     * @return  the setters named by the parameter, which could be empty.
+     */
+    private Setter[] getSetters(String paramName) {
+        Setter[] setters = settersByParamName.get(paramName);
+        if (setters == null) {
+            String methodName = "set" + Character.toUpperCase(paramName.charAt(0)) + paramName.substring(1);
+            setters = settersByMethodName.getOrDefault(methodName, NO_SETTER);
+            settersByParamName.put(paramName, setters);
+        }
+        return setters;
+    }
+
+    private final class Setter {
+        final Method method;
+        // the wrapper type of a primitive parameter
+        final Class<?> boxedType;
+        // (Object, Object) -> void, null if only reflection works
+        final MethodHandle handle;
+
+        Setter(Method method) {
+            this.method = method;
+            Class<?>[] types = method.getParameterTypes();
+            this.boxedType = types.length == 1 ? MethodType.methodType(types[0]).wrap().returnType() : null;
+            this.handle = boxedType != null ? createHandle(method) : null;
+        }
+
+        private MethodHandle createHandle(Method method) {
+            try {
+                // reflection assumes readability, but method handles require it
+                Module module = ParamSetters.class.getModule();
+                if (module.isNamed())
+                    module.addReads(method.getDeclaringClass().getModule());
+                return MethodHandles.lookup().unreflect(method)
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                LoggerUtils.log.fine("Use reflection to call " + method + " : " + e.getMessage());
+                return null;
+            }
+        }
+
+        void invoke(Generator<?> generator, Object v) {
+            try {
+                handle.invokeExact((Object) generator, v);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                String msg = method.getName() + " err : " + e.getMessage();
+                LoggerUtils.log.severe(msg); // log to studio as well
+                throw new RuntimeException(msg, e);
+            }
+        }
+
+        void reflect(Generator<?> generator, Value<?> value) {
+            try {
+                method.invoke(generator, value.value());
+            } catch (IllegalArgumentException mismatch) {
+                //TODO Cannot handle inheritance, such as Number,
+                // it must specify to primary type, such as double
+                String msg = mismatch.getMessage() + " in " + generatorClass.getSimpleName() +
+                        ", where " + method.getName() + "(" + String.join(", ", Arrays.stream(method.getGenericParameterTypes())
+                        .map(Object::toString).toList()) +
+                        ") does not match the value type " + value.getType() +
+                        "!\nPlease either overwrite setParam(), or change setter value type to " +
+                        value.getType() + " !";
+                LoggerUtils.log.severe(msg); // log to studio as well
+                throw new RuntimeException(msg, mismatch);
+            } catch (InvocationTargetException | IllegalAccessException err) {
+                String msg = method.getName() + " err : " + err.getMessage();
+                LoggerUtils.log.severe(msg); // log to studio as well
+                throw new RuntimeException(msg, err);
+            }
+        }
+    }
+
+}
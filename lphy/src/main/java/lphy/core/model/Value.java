@@ -54,7 +54,7 @@ public class Value<T> implements GraphicalModelNode<T> {
     }
 
     public final Class getType() {
-        return value.getClass();
+        return value().getClass();
     }
 
     /**
@@ -69,9 +69,20 @@ public class Value<T> implements GraphicalModelNode<T> {
     }
 
     public final T value() {
+        if (value == null)
+            value = boxValue();
         return value;
     }
 
+    /**
+     * The values backed by another representation, such as the primitive arrays,
+     * create their value only when {@link #value()} is called.
+     * @return  the value, or null by default.
+     */
+    protected T boxValue() {
+        return null;
+    }
+
     public String getLabel() {
         if (isAnonymous()) {
             if (getOutputs().size() > 0) {
@@ -115,11 +126,11 @@ public class Value<T> implements GraphicalModelNode<T> {
 
     public String valueToString() {
 
-        return ValueUtils.valueToString(value);
+        return ValueUtils.valueToString(value());
     }
 
     public void setValue(T value) {
-        T oldValue = this.value;
+        T oldValue = value();
         this.value = value;
         for (ValueListener listener : listeners) {
             listener.valueSet(oldValue, value);
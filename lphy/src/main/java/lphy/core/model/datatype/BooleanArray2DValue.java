@@ -5,6 +5,10 @@ import lphy.core.model.Value;
 
 public class BooleanArray2DValue extends Value<Boolean[][]> {
 
+    // the primitive values stored row-major until the boxed value is required, see #boxValue()
+    private boolean[] rowMajorValues;
+    private int ncol;
+
     public BooleanArray2DValue(String id, Boolean[][] value) {
         super(id, value);
     }
@@ -13,6 +17,45 @@ public class BooleanArray2DValue extends Value<Boolean[][]> {
         super(id, value, function);
     }
 
+    /**
+     * Constructs the value backed by the primitive array stored row-major,
+     * such as the result of the element-wise kernels, which is only boxed when {@link #value()} is called.
+     * @param rowMajor  the values row by row.
+     * @param ncol      the number of columns, which must be positive.
+     */
+    public BooleanArray2DValue(String id, boolean[] rowMajor, int ncol) {
+        super(id, (Boolean[][]) null);
+        if (ncol < 1 || rowMajor.length % ncol != 0)
+            throw new IllegalArgumentException("Illegal number of columns " + ncol +
+                    " for the row-major array of length " + rowMajor.length + " !");
+        this.rowMajorValues = rowMajor;
+        this.ncol = ncol;
+    }
+
+    /**
+     * @return  the primitive array backing this value row by row, or null if the value is boxed.
+     * @see #getColumnCount()
+     */
+    public boolean[] getRowMajorValues() {
+        return rowMajorValues;
+    }
+
+    /**
+     * @return  the number of columns of {@link #getRowMajorValues()}.
+     */
+    public int getColumnCount() {
+        return ncol;
+    }
+
+    @Override
+    protected Boolean[][] boxValue() {
+        if (rowMajorValues == null)
+            return null;
+        Boolean[][] array2D = PrimitiveArrayUtils.toBooleanArray2D(rowMajorValues, ncol);
+        rowMajorValues = null;
+        return array2D;
+    }
+
     public String toString() {
         return Array2DUtils.toString(this);
     }
@@ -2,8 +2,13 @@ package lphy.core.model.datatype;
 
 import lphy.core.model.DeterministicFunction;
 
+import java.util.Objects;
+
 public class BooleanArrayValue extends VectorValue<Boolean> {
 
+    // the primitive values until the boxed value is required, see #boxValue()
+    private boolean[] primitiveValues;
+
     public BooleanArrayValue(String id, Boolean[] value) {
         super(id, value);
     }
@@ -11,4 +16,29 @@ public class BooleanArrayValue extends VectorValue<Boolean> {
     public BooleanArrayValue(String id, Boolean[] value, DeterministicFunction function) {
         super(id, value, function);
     }
+
+    /**
+     * Constructs the value backed by the primitive array, such as the result of the element-wise kernels,
+     * which is only boxed when {@link #value()} is called.
+     */
+    public BooleanArrayValue(String id, boolean[] values) {
+        super(id, (Boolean[]) null);
+        this.primitiveValues = Objects.requireNonNull(values);
+    }
+
+    /**
+     * @return  the primitive array backing this value, or null if the value is boxed.
+     */
+    public boolean[] getPrimitiveValues() {
+        return primitiveValues;
+    }
+
+    @Override
+    protected Boolean[] boxValue() {
+        if (primitiveValues == null)
+            return null;
+        Boolean[] array = PrimitiveArrayUtils.toBooleanArray(primitiveValues);
+        primitiveValues = null;
+        return array;
+    }
 }
@@ -5,6 +5,10 @@ import lphy.core.model.Value;
 
 public class DoubleArray2DValue extends Value<Double[][]> {
 
+    // the primitive values stored row-major until the boxed value is required, see #boxValue()
+    private double[] rowMajorValues;
+    private int ncol;
+
     public DoubleArray2DValue(String id, Double[][] value) {
         super(id, value);
     }
@@ -13,6 +17,45 @@ public class DoubleArray2DValue extends Value<Double[][]> {
         super(id, value, function);
     }
 
+    /**
+     * Constructs the value backed by the primitive array stored row-major,
+     * such as the result of the element-wise kernels, which is only boxed when {@link #value()} is called.
+     * @param rowMajor  the values row by row.
+     * @param ncol      the number of columns, which must be positive.
+     */
+    public DoubleArray2DValue(String id, double[] rowMajor, int ncol) {
+        super(id, (Double[][]) null);
+        if (ncol < 1 || rowMajor.length % ncol != 0)
+            throw new IllegalArgumentException("Illegal number of columns " + ncol +
+                    " for the row-major array of length " + rowMajor.length + " !");
+        this.rowMajorValues = rowMajor;
+        this.ncol = ncol;
+    }
+
+    /**
+     * @return  the primitive array backing this value row by row, or null if the value is boxed.
+     * @see #getColumnCount()
+     */
+    public double[] getRowMajorValues() {
+        return rowMajorValues;
+    }
+
+    /**
+     * @return  the number of columns of {@link #getRowMajorValues()}.
+     */
+    public int getColumnCount() {
+        return ncol;
+    }
+
+    @Override
+    protected Double[][] boxValue() {
+        if (rowMajorValues == null)
+            return null;
+        Double[][] array2D = PrimitiveArrayUtils.toDoubleArray2D(rowMajorValues, ncol);
+        rowMajorValues = null;
+        return array2D;
+    }
+
     /**
      * Constructs an anonymous value of type {@code Value<Double[][]>}
      * @param value
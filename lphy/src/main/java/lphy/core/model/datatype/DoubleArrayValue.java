@@ -2,8 +2,13 @@ package lphy.core.model.datatype;
 
 import lphy.core.model.DeterministicFunction;
 
+import java.util.Objects;
+
 public class DoubleArrayValue extends VectorValue<Double> {
 
+    // the primitive values until the boxed value is required, see #boxValue()
+    private double[] primitiveValues;
+
     public DoubleArrayValue(String id, Double[] value) {
         super(id, value);
     }
@@ -11,4 +16,29 @@ public class DoubleArrayValue extends VectorValue<Double> {
     public DoubleArrayValue(String id, Double[] value, DeterministicFunction function) {
         super(id, value, function);
     }
+
+    /**
+     * Constructs the value backed by the primitive array, such as the result of the element-wise kernels,
+     * which is only boxed when {@link #value()} is called.
+     */
+    public DoubleArrayValue(String id, double[] values) {
+        super(id, (Double[]) null);
+        this.primitiveValues = Objects.requireNonNull(values);
+    }
+
+    /**
+     * @return  the primitive array backing this value, or null if the value is boxed.
+     */
+    public double[] getPrimitiveValues() {
+        return primitiveValues;
+    }
+
+    @Override
+    protected Double[] boxValue() {
+        if (primitiveValues == null)
+            return null;
+        Double[] array = PrimitiveArrayUtils.toDoubleArray(primitiveValues);
+        primitiveValues = null;
+        return array;
+    }
 }
@@ -3,8 +3,13 @@ package lphy.core.model.datatype;
 import lphy.core.model.DeterministicFunction;
 
 import java.util.Arrays;
+import java.util.Objects;
+
 public class IntegerArrayValue extends VectorValue<Integer> implements RangeElement {
 
+    // the primitive values until the boxed value is required, see #boxValue()
+    private int[] primitiveValues;
+
     public IntegerArrayValue(String id, Integer[] value) {
         super(id, value);
     }
@@ -13,6 +18,31 @@ public class IntegerArrayValue extends VectorValue<Integer> implements RangeElem
         super(id, value, function);
     }
 
+    /**
+     * Constructs the value backed by the primitive array, such as the result of the element-wise kernels,
+     * which is only boxed when {@link #value()} is called.
+     */
+    public IntegerArrayValue(String id, int[] values) {
+        super(id, (Integer[]) null);
+        this.primitiveValues = Objects.requireNonNull(values);
+    }
+
+    /**
+     * @return  the primitive array backing this value, or null if the value is boxed.
+     */
+    public int[] getPrimitiveValues() {
+        return primitiveValues;
+    }
+
+    @Override
+    protected Integer[] boxValue() {
+        if (primitiveValues == null)
+            return null;
+        Integer[] array = PrimitiveArrayUtils.toIntegerArray(primitiveValues);
+        primitiveValues = null;
+        return array;
+    }
+
     public String toString() {
         return (isAnonymous() ? "" : (getId() + " = ")) + Arrays.toString(value());
     }
@@ -0,0 +1,87 @@
+package lphy.core.model.datatype;
+
+/**
+ * The conversions between the boxed arrays used by values in LPhy, such as Double[] and Integer[],
+ * and the primitive arrays used by the computation, where a 2d array is stored row-major in one array.
+ */
+public class PrimitiveArrayUtils {
+
+    /**
+     * @param array  the numbers, which cannot contain null.
+     * @return  the unboxed values.
+     */
+    public static double[] toDoubles(Number[] array) {
+        double[] values = new double[array.length];
+        for (int i = 0; i < array.length; i++)
+            values[i] = array[i].doubleValue();
+        return values;
+    }
+
+    /**
+     * @param array2D  the 2d array of numbers, which cannot contain null.
+     * @return  the unboxed values, e.g. to create a matrix in Apache Commons Math.
+     */
+    public static double[][] toDoubles(Number[][] array2D) {
+        double[][] values = new double[array2D.length][];
+        for (int i = 0; i < array2D.length; i++)
+            values[i] = toDoubles(array2D[i]);
+        return values;
+    }
+
+    public static Double[] toDoubleArray(double[] values) {
+        Double[] array = new Double[values.length];
+        for (int i = 0; i < values.length; i++)
+            array[i] = values[i];
+        return array;
+    }
+
+    public static Integer[] toIntegerArray(int[] values) {
+        Integer[] array = new Integer[values.length];
+        for (int i = 0; i < values.length; i++)
+            array[i] = values[i];
+        return array;
+    }
+
+    public static Boolean[] toBooleanArray(boolean[] values) {
+        Boolean[] array = new Boolean[values.length];
+        for (int i = 0; i < values.length; i++)
+            array[i] = values[i];
+        return array;
+    }
+
+    /**
+     * @param rowMajor  the values of a 2d array stored row by row.
+     * @param ncol      the number of columns.
+     * @return  the boxed 2d array.
+     */
+    public static Double[][] toDoubleArray2D(double[] rowMajor, int ncol) {
+        Double[][] array2D = new Double[rowMajor.length / ncol][ncol];
+        for (int i = 0; i < array2D.length; i++)
+            for (int j = 0; j < ncol; j++)
+                array2D[i][j] = rowMajor[i * ncol + j];
+        return array2D;
+    }
+
+    /**
+     * @see #toDoubleArray2D(double[], int)
+     */
+    public static Integer[][] toIntegerArray2D(int[] rowMajor, int ncol) {
+        Integer[][] array2D = new Integer[rowMajor.length / ncol][ncol];
+        for (int i = 0; i < array2D.length; i++)
+            for (int j = 0; j < ncol; j++)
+                array2D[i][j] = rowMajor[i * ncol + j];
+        return array2D;
+    }
+
+    /**
+     * @see #toDoubleArray2D(double[], int)
+     */
+    public static Boolean[][] toBooleanArray2D(boolean[] rowMajor, int ncol) {
+        Boolean[][] array2D = new Boolean[rowMajor.length / ncol][ncol];
+        for (int i = 0; i < array2D.length; i++)
+            for (int j = 0; j < ncol; j++)
+                array2D[i][j] = rowMajor[i * ncol + j];
+        return array2D;
+    }
+
+}
@@ -13,6 +13,7 @@ import lphy.core.parser.function.ExpressionNode2Args;
 import lphy.core.parser.function.MapFunction;
 import lphy.core.parser.function.MethodCall;
 import lphy.core.parser.graphicalmodel.ArrayCreator;
+import lphy.core.simulator.GeneratorProfiler;
 import lphy.core.spi.LoaderManager;
 import lphy.core.vectorization.IID;
 import lphy.core.vectorization.VectorizedDistribution;
@@ -254,12 +255,14 @@ public class LPhyListenerImpl extends LPhyBaseListener implements LPhyParserActi
 
             if (expr instanceof DeterministicFunction) {
                 DeterministicFunction f = (DeterministicFunction) expr;
-                Value value = f.apply();
+                Value value = GeneratorProfiler.apply(f, id);
                 var.assign(value, f, context);
                 return value;
             } else if (expr instanceof Value) {
                 Value value = (Value) expr;
                 var.assign(value, null, context);
+                // e.g. the value of a method call, whose id is assigned after the call
+                GeneratorProfiler.assignId(value);
                 return value;
             } else {
                 LoggerUtils.log.severe("in visitDeterm_relation() expecting a function or a value! " + expr);
@@ -305,7 +308,7 @@ public class LPhyListenerImpl extends LPhyBaseListener implements LPhyParserActi
                         " in the 'model' block is replaced by the value of " + var.getId() + " in the 'data' block .");
 
             } else {
-                variable = genDist.sample(var.getId());
+                variable = GeneratorProfiler.sample(genDist, var.getId());
             }
 
             if (variable != null && !var.isRangedVar()) {
@@ -515,7 +518,7 @@ public class LPhyListenerImpl extends LPhyBaseListener implements LPhyParserActi
                 if (obj instanceof Value) return (Value) obj;
                 if (obj instanceof DeterministicFunction) {
                     DeterministicFunction func = (DeterministicFunction) obj;
-                    Value val = func.apply();
+                    Value val = GeneratorProfiler.apply(func, null);
                     val.setFunction(func);
                     return val;
                 }
@@ -529,7 +532,7 @@ public class LPhyListenerImpl extends LPhyBaseListener implements LPhyParserActi
             Object obj = visit(ctx.getChild(2));
 
             if (obj instanceof DeterministicFunction) {
-                Value value = ((DeterministicFunction) obj).apply();
+                Value value = GeneratorProfiler.apply((DeterministicFunction) obj, null);
                 value.setFunction(((DeterministicFunction) obj));
                 ArgumentValue v = new ArgumentValue(name, value, parserDictionary, context);
                 return v;
@@ -602,7 +605,7 @@ public class LPhyListenerImpl extends LPhyBaseListener implements LPhyParserActi
                 Object obj = visit(ctx.getChild(i));
 
                 if (obj instanceof DeterministicFunction) {
-                    Value value = ((DeterministicFunction) obj).apply();
+                    Value value = GeneratorProfiler.apply((DeterministicFunction) obj, null);
                     value.setFunction(((DeterministicFunction) obj));
                     list.add(value);
                 } else if (obj instanceof Value) {
@@ -944,7 +947,7 @@ public class LPhyListenerImpl extends LPhyBaseListener implements LPhyParserActi
                     for (Map.Entry<String, Value> entry : arguments.entrySet()) {
                         generator.setInput(entry.getKey(), entry.getValue());
                     }
-                    return generator.generate();
+                    return GeneratorProfiler.generate(generator, null);
             }
 
         }
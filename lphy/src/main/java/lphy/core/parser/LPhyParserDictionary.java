@@ -9,6 +9,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -83,7 +84,8 @@ public interface LPhyParserDictionary extends GraphicalModel {
      * @param constants      constants inputted by user using macro
      */
     default void source(File sourceFile, String[] constants) throws IOException {
-        FileReader reader = new FileReader(sourceFile);
+        // lphy scripts use Greek letters as identifiers, so not the default charset
+        FileReader reader = new FileReader(sourceFile, StandardCharsets.UTF_8);
         BufferedReader bufferedReader = new BufferedReader(reader);
         source(bufferedReader, constants);
         reader.close();
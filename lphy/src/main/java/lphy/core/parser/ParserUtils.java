@@ -6,6 +6,7 @@ import lphy.core.model.Generator;
 import lphy.core.model.Value;
 import lphy.core.parser.argument.Argument;
 import lphy.core.parser.argument.ArgumentUtils;
+import lphy.core.parser.argument.GeneratorSignature;
 import lphy.core.spi.LoaderManager;
 import lphy.core.vectorization.IID;
 import lphy.core.vectorization.VectorMatchUtils;
@@ -60,24 +61,23 @@ public class ParserUtils {
 
         List<Generator> matches = new ArrayList<>();
 
-        for (Constructor constructor : generatorClass.getConstructors()) {
-            List<Argument> argumentInfo = ArgumentUtils.getArguments(constructor);
-            List<Object> initargs = new ArrayList<>();
+        // the arguments and constructors are cached in the signatures
+        for (GeneratorSignature signature : GeneratorSignature.getSignatures(generatorClass)) {
+            List<Argument> argumentInfo = signature.getArguments();
 
-            if (match(arguments, argumentInfo)) {
+            if (match(arguments, signature)) {
+                Object[] initargs = new Object[argumentInfo.size()];
 
                 for (int i = 0; i < argumentInfo.size(); i++) {
                     Value arg = arguments.get(argumentInfo.get(i).name);
                     if (arg != null) {
-                        initargs.add(arg);
+                        initargs[i] = arg;
                     } else if (!argumentInfo.get(i).optional) {
                         throw new RuntimeException("Required argument " + argumentInfo.get(i).name + " not found!");
-                    } else {
-                        initargs.add(null);
                     }
                 }
 
-                matches.add(constructGenerator(name, constructor, argumentInfo, initargs.toArray(), arguments,false));
+                matches.add(constructGenerator(name, signature, initargs, arguments,false));
             }
         }
         return matches;
@@ -89,49 +89,41 @@ public class ParserUtils {
      * an iid match occurs if the required parameters are in the argument map and the remaining arguments include "replicates" and are otherwise named matchs for the optional arguments
      *
      * @param arguments the arguments that are attempting to be passed.
-     * @param argumentInfo the arguments of the constructor
+     * @param signature the signature of the constructor
      * @return
      */
-    private static boolean match(Map<String, Value> arguments, List<Argument> argumentInfo) {
-
-        Set<String> requiredArguments = new TreeSet<>();
-        Set<String> optionalArguments = new TreeSet<>();
-        Set<String> keys = new TreeSet<>();
-        keys.addAll(arguments.keySet());
-
-        for (Argument argumentInf : argumentInfo) {
-            if (argumentInf.optional) {
-                optionalArguments.add(argumentInf.name);
-            } else {
-                requiredArguments.add(argumentInf.name);
-            }
-        }
+    private static boolean match(Map<String, Value> arguments, GeneratorSignature signature) {
 
+        Set<String> keys = arguments.keySet();
         // return false if not all required arguments are present
-        if (!keys.containsAll(requiredArguments)) {
+        if (!keys.containsAll(signature.getRequiredNames())) {
             return false;
         }
 
-        keys.removeAll(requiredArguments);
-        keys.removeAll(optionalArguments);
-        return keys.size() == 0 || (keys.size() == 1 && keys.contains(REPLICATES_PARAM_NAME));
+        // the remaining arguments must be optional arguments or replicates
+        Set<String> argumentNames = signature.getArgumentNames();
+        for (String key : keys) {
+            if (!argumentNames.contains(key) && !key.equals(REPLICATES_PARAM_NAME))
+                return false;
+        }
+        return true;
     }
 
     private static List<DeterministicFunction> getFunctionByArguments(String name, Value[] argValues, Class generatorClass) {
 
         List<DeterministicFunction> matches = new ArrayList<>();
-        for (Constructor constructor : generatorClass.getConstructors()) {
-            List<Argument> arguments = ArgumentUtils.getArguments(constructor);
+        for (GeneratorSignature signature : GeneratorSignature.getSignatures(generatorClass)) {
+            List<Argument> arguments = signature.getArguments();
 
             // unnamed args
             if (argValues.length == arguments.size() &&
                     (argValues.length > 0 && argValues.length <= MAX_UNNAMED_ARGS) ){
-                DeterministicFunction f = (DeterministicFunction) constructGenerator(name, constructor, arguments, argValues, null, false);
+                DeterministicFunction f = (DeterministicFunction) constructGenerator(name, signature, argValues, null, false);
                 if (f != null) {
                     matches.add(f);
                 }
-            } else if (argValues.length == 0 && arguments.stream().allMatch(x -> x.optional)) {
-                DeterministicFunction f = (DeterministicFunction) constructGenerator(name, constructor, arguments, new Object[arguments.size()], null, false);
+            } else if (argValues.length == 0 && signature.getRequiredNames().isEmpty()) {
+                DeterministicFunction f = (DeterministicFunction) constructGenerator(name, signature, new Object[arguments.size()], null, false);
                 if (f != null) {
                     matches.add(f);
                 }
@@ -142,17 +134,18 @@ public class ParserUtils {
 
     /**
      * @param name the name of the generator
-     * @param constructor the constructor
-     * @param arguments
+     * @param signature the signature of the constructor
      * @param initargs
      * @param params
      * @param lightweight
      * @return
      */
-    private static Generator constructGenerator(String name, Constructor constructor, List<Argument> arguments, Object[] initargs, Map<String, Value> params, boolean lightweight) {
+    private static Generator constructGenerator(String name, GeneratorSignature signature, Object[] initargs, Map<String, Value> params, boolean lightweight) {
+        Constructor constructor = signature.getConstructor();
+        List<Argument> arguments = signature.getArguments();
         try {
             if (ArgumentUtils.matchingParameterTypes(arguments, initargs, params, lightweight)) {
-                return (Generator) constructor.newInstance(initargs);
+                return (Generator) signature.newInstance(initargs);
             } else if (IID.match(constructor, arguments, initargs, params)) {
                 IID iid = new IID(constructor, initargs, params);
                 // if replicates = 1, do not apply IID
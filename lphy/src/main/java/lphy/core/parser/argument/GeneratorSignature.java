@@ -0,0 +1,146 @@
+package lphy.core.parser.argument;
+
+import lphy.core.logger.LoggerUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The signature of a public constructor of a generator, which caches its {@link Argument}s
+ * parsed from {@link lphy.core.model.annotation.ParameterInfo}, the names of the arguments,
+ * and a precompiled {@link MethodHandle} to create the instance.
+ * The signatures of each generator class are only created once,
+ * see {@link #getSignatures(Class)}.
+ */
+public final class GeneratorSignature {
+
+    // the signatures of public constructors by generator class
+    private static final Map<Class<?>, List<GeneratorSignature>> signaturesByClass = new ConcurrentHashMap<>();
+
+    private final Constructor<?> constructor;
+    private final Class<?>[] parameterTypes;
+    private final List<Argument> arguments;
+    private final Set<String> argumentNames;
+    private final Set<String> requiredNames;
+    // (Object[]) -> Object, null if the constructor is not accessible by method handles
+    private final MethodHandle factory;
+
+    private GeneratorSignature(Constructor<?> constructor) {
+        this.constructor = constructor;
+        this.parameterTypes = constructor.getParameterTypes();
+        this.arguments = Collections.unmodifiableList(ArgumentUtils.getArguments(constructor));
+        Set<String> names = new HashSet<>();
+        Set<String> required = new HashSet<>();
+        for (Argument argument : arguments) {
+            names.add(argument.name);
+            if (!argument.optional)
+                required.add(argument.name);
+        }
+        this.argumentNames = Collections.unmodifiableSet(names);
+        this.requiredNames = Collections.unmodifiableSet(required);
+        this.factory = createFactory(constructor);
+    }
+
+    private static MethodHandle createFactory(Constructor<?> constructor) {
+        // the widening of primitives is left to reflection, generators take Values anyway
+        for (Class<?> type : constructor.getParameterTypes()) {
+            if (type.isPrimitive())
+                return null;
+        }
+        try {
+            // reflection assumes readability, but method handles require it
+            Module module = GeneratorSignature.class.getModule();
+            if (module.isNamed())
+                module.addReads(constructor.getDeclaringClass().getModule());
+            return MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, constructor.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            LoggerUtils.log.fine("Use reflection to create " + constructor + " : " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param generatorClass  the class of {@link lphy.core.model.Generator}
+     * @return  the cached signatures of all public constructors of the class.
+     */
+    public static List<GeneratorSignature> getSignatures(Class<?> generatorClass) {
+        return signaturesByClass.computeIfAbsent(generatorClass, c -> {
+            Constructor<?>[] constructors = c.getConstructors();
+            List<GeneratorSignature> signatures = new ArrayList<>(constructors.length);
+            for (Constructor<?> constructor : constructors)
+                signatures.add(new GeneratorSignature(constructor));
+            return Collections.unmodifiableList(signatures);
+        });
+    }
+
+    /**
+     * Create the signatures of the given generator classes in advance,
+     * e.g. after all extensions are loaded.
+     * @param generatorClasses  the classes of {@link lphy.core.model.Generator}
+     */
+    public static void register(Collection<Class<?>> generatorClasses) {
+        for (Class<?> generatorClass : generatorClasses)
+            getSignatures(generatorClass);
+    }
+
+    /**
+     * Create the instance in the same way as {@link Constructor#newInstance(Object...)}.
+     * @param initargs  the arguments in the order of the constructor parameters.
+     * @return  the new instance.
+     * @throws IllegalArgumentException if the number or the types of the arguments do not match.
+     * @throws InvocationTargetException if the constructor throws an exception.
+     */
+    public Object newInstance(Object[] initargs)
+            throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        if (factory == null)
+            return constructor.newInstance(initargs);
+        if (initargs.length != constructor.getParameterCount())
+            throw new IllegalArgumentException("Wrong number of arguments for " + constructor +
+                    " : " + initargs.length);
+        // check before invoking, so that a ClassCastException of the handle can only come from the constructor
+        for (int i = 0; i < initargs.length; i++) {
+            if (initargs[i] != null && !parameterTypes[i].isInstance(initargs[i]))
+                throw new IllegalArgumentException("Argument " + i + " of " + constructor + " has the type " +
+                        initargs[i].getClass().getName() + " instead of " + parameterTypes[i].getName() + " !");
+        }
+        try {
+            return (Object) factory.invokeExact(initargs);
+        } catch (Throwable e) {
+            // only thrown by the constructor, same as reflection
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    public Constructor<?> getConstructor() {
+        return constructor;
+    }
+
+    /**
+     * @return  the unmodifiable list of the arguments in the order of the constructor parameters.
+     */
+    public List<Argument> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * @return  the names of all arguments.
+     */
+    public Set<String> getArgumentNames() {
+        return argumentNames;
+    }
+
+    /**
+     * @return  the names of the arguments which are not optional.
+     */
+    public Set<String> getRequiredNames() {
+        return requiredNames;
+    }
+
+}
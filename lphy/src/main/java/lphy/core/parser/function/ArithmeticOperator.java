@@ -0,0 +1,33 @@
+package lphy.core.parser.function;
+
+import java.util.function.BiFunction;
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * The arithmetic operators in LPhy, which compute in double as the boxed version
+ * {@link #apply(Number, Number)}, and also provide the primitive version
+ * {@link #applyAsDouble(double, double)} for the element-wise kernels.
+ * @see ElementWiseKernels
+ */
+public enum ArithmeticOperator implements BiFunction<Number, Number, Number>, DoubleBinaryOperator {
+
+    PLUS, MINUS, TIMES, DIVIDE, POW, MOD;
+
+    @Override
+    public Number apply(Number a, Number b) {
+        return applyAsDouble(a.doubleValue(), b.doubleValue());
+    }
+
+    @Override
+    public double applyAsDouble(double a, double b) {
+        return switch (this) {
+            case PLUS -> a + b;
+            case MINUS -> a - b;
+            case TIMES -> a * b;
+            case DIVIDE -> a / b;
+            case POW -> Math.pow(a, b);
+            case MOD -> a % b;
+        };
+    }
+
+}
@@ -0,0 +1,43 @@
+package lphy.core.parser.function;
+
+import java.util.Arrays;
+import java.util.function.BiFunction;
+
+/**
+ * The comparison operators in LPhy, which compare numbers in double,
+ * and also provide the primitive version {@link #test(double, double)} for the element-wise kernels.
+ * The equality operators also compare other objects, such as arrays.
+ * @see ElementWiseKernels
+ */
+public enum ComparisonOperator implements BiFunction<Object, Object, Boolean> {
+
+    EQUALS, NE, LE, LESS, GE, GREATER;
+
+    @Override
+    public Boolean apply(Object a, Object b) {
+        if (this == EQUALS || this == NE) {
+            //*** the first two needs to consider all Comparable ***//
+            if (!(a instanceof Number && b instanceof Number)) {
+                boolean equals;
+                if (a instanceof Object[] aA && b instanceof Object[] bA)
+                    equals = Arrays.deepEquals(aA, bA);
+                else
+                    equals = a.equals(b);
+                return this == EQUALS ? equals : !equals;
+            }
+        }
+        return test(((Number) a).doubleValue(), ((Number) b).doubleValue());
+    }
+
+    public boolean test(double a, double b) {
+        return switch (this) {
+            case EQUALS -> a == b;
+            case NE -> a != b;
+            case LE -> a <= b;
+            case LESS -> a < b;
+            case GE -> a >= b;
+            case GREATER -> a > b;
+        };
+    }
+
+}
@@ -51,6 +51,10 @@ public interface ElementWise2Args<R,S> {
 	 */
 	static ElementWise2Args<Value<Object>, Value<Object[]>> elementWiseOO1() {
 		return (a,b,o) -> {
+			// primitive kernels for arithmetic and comparisons, which do not box the primitive-backed values
+			Value kernel = ElementWiseKernels.apply(a, b, o);
+			if (kernel != null)
+				return kernel;
 			Object va = a.value();
 			Object[] vb = b.value();
 			// check types
@@ -98,6 +102,10 @@ public interface ElementWise2Args<R,S> {
 	 */
 	static ElementWise2Args<Value<Object[]>, Value<Object>> elementWiseO1O() {
 		return (a,b,o) -> {
+			// primitive kernels for arithmetic and comparisons, which do not box the primitive-backed values
+			Value kernel = ElementWiseKernels.apply(a, b, o);
+			if (kernel != null)
+				return kernel;
 			Object[] va = a.value();
 			Object vb = b.value();
 			// check types
@@ -145,6 +153,10 @@ public interface ElementWise2Args<R,S> {
 	 */
 	static ElementWise2Args<Value<Object[]>, Value<Object[]>> elementWiseO1O1() {
 		return (a,b,o) -> {
+			// primitive kernels for arithmetic and comparisons, which do not box the primitive-backed values
+			Value kernel = ElementWiseKernels.apply(a, b, o);
+			if (kernel != null)
+				return kernel;
 			Object[] va = a.value();
 			Object[] vb = b.value();
 			if (va.length != vb.length)
@@ -195,6 +207,10 @@ public interface ElementWise2Args<R,S> {
 	 */
 	static ElementWise2Args<Value<Object>, Value<Object[][]>> elementWiseOO2() {
 		return (a,b,o) -> {
+			// primitive kernels for arithmetic and comparisons, which do not box the primitive-backed values
+			Value kernel = ElementWiseKernels.apply(a, b, o);
+			if (kernel != null)
+				return kernel;
 			Object va = a.value();
 			Object[][] vb = b.value();
 			Object result = o.apply(va, vb[0][0]);
@@ -249,6 +265,10 @@ public interface ElementWise2Args<R,S> {
 	 */
 	static ElementWise2Args<Value<Object[][]>, Value<Object>> elementWiseO2O() {
 		return (a,b,o) -> {
+			// primitive kernels for arithmetic and comparisons, which do not box the primitive-backed values
+			Value kernel = ElementWiseKernels.apply(a, b, o);
+			if (kernel != null)
+				return kernel;
 			Object[][] va = a.value();
 			Object vb = b.value();
 			Object result = o.apply(va[0][0], vb);
@@ -306,6 +326,10 @@ public interface ElementWise2Args<R,S> {
 	 */
 	static ElementWise2Args<Value<Object[]>, Value<Object[][]>> elementWiseO1O2() {
 		return (a,b,o) -> {
+			// primitive kernels for arithmetic and comparisons, which do not box the primitive-backed values
+			Value kernel = ElementWiseKernels.apply(a, b, o);
+			if (kernel != null)
+				return kernel;
 			Object[] va = a.value();
 			Object[][] vb = b.value();
 			if (va.length != vb[0].length)
@@ -368,6 +392,10 @@ public interface ElementWise2Args<R,S> {
 	 */
 	static ElementWise2Args<Value<Object[][]>, Value<Object[]>> elementWiseO2O1() {
 		return (a,b,o) -> {
+			// primitive kernels for arithmetic and comparisons, which do not box the primitive-backed values
+			Value kernel = ElementWiseKernels.apply(a, b, o);
+			if (kernel != null)
+				return kernel;
 			Object[][] va = a.value();
 			Object[] vb = b.value();
 			if (va[0].length != vb.length)
@@ -427,6 +455,10 @@ public interface ElementWise2Args<R,S> {
 	 */
 	static ElementWise2Args<Value<Object[][]>, Value<Object[][]>> elementWiseO2O2() {
 		return (a,b,o) -> {
+			// primitive kernels for arithmetic and comparisons, which do not box the primitive-backed values
+			Value kernel = ElementWiseKernels.apply(a, b, o);
+			if (kernel != null)
+				return kernel;
 			Object[][] va = a.value();
 			Object[][] vb = b.value();
 			if (va.length != vb.length || va[0].length != vb[0].length)
@@ -0,0 +1,184 @@
+package lphy.core.parser.function;
+
+import lphy.core.model.Value;
+import lphy.core.model.datatype.BooleanArray2DValue;
+import lphy.core.model.datatype.BooleanArrayValue;
+import lphy.core.model.datatype.DoubleArray2DValue;
+import lphy.core.model.datatype.DoubleArrayValue;
+import lphy.core.model.datatype.IntegerArray2DValue;
+import lphy.core.model.datatype.IntegerArrayValue;
+import lphy.core.model.datatype.PrimitiveArrayUtils;
+
+import java.util.function.BiFunction;
+
+/**
+ * The element-wise kernels of {@link ArithmeticOperator} and {@link ComparisonOperator}
+ * on Double and Integer arrays, which compute in tight loops over primitive arrays,
+ * instead of dispatching every pair of elements through the generic {@link BiFunction}.
+ * A 2d array is stored row-major in one primitive array.
+ * The inputs backed by primitive arrays, e.g. {@link DoubleArrayValue#getPrimitiveValues()},
+ * are read without unboxing, and the results are also backed by primitive arrays,
+ * which are only boxed when their values are required, e.g. by a generator or a logger.
+ * So a chain of element-wise operations does not box its intermediate results.
+ * The results are same as {@link ElementWise2Args}, including the value types,
+ * where both inputs have to be integer to return integers.
+ * A scalar is broadcast to every element, and a 1d array to every row of a 2d array.
+ */
+public final class ElementWiseKernels {
+
+    private ElementWiseKernels() { }
+
+    /**
+     * @param a   the value of Integer, Double, or their 1d or 2d arrays.
+     * @param b   the value of Integer, Double, or their 1d or 2d arrays.
+     * @param o   the operator.
+     * @return  the result value, or null if the kernels do not apply,
+     *          e.g. other operators, other types, two scalars, or mismatched dimensions.
+     */
+    public static Value apply(Value a, Value b, BiFunction o) {
+        if (!(o instanceof ArithmeticOperator) && !(o instanceof ComparisonOperator))
+            return null;
+        Operand x = Operand.of(a);
+        Operand y = Operand.of(b);
+        if (x == null || y == null || (x.dims == 0 && y.dims == 0))
+            return null;
+
+        Operand shape = x.dims >= y.dims ? x : y;
+        final int nrow = shape.nrow;
+        final int ncol = shape.ncol;
+        if (!x.fits(nrow, ncol) || !y.fits(nrow, ncol))
+            return null;
+
+        if (o instanceof ArithmeticOperator op) {
+            double[] r = new double[nrow * ncol];
+            apply(op, x, y, nrow, ncol, r);
+            // both inputs have to be integer to return integers
+            if (x.integer && y.integer) {
+                // cast to int, same as Number#intValue()
+                int[] ri = new int[r.length];
+                for (int k = 0; k < r.length; k++)
+                    ri[k] = (int) r[k];
+                return shape.dims == 1 ? new IntegerArrayValue(null, ri) : new IntegerArray2DValue(null, ri, ncol);
+            }
+            return shape.dims == 1 ? new DoubleArrayValue("", r) : new DoubleArray2DValue("", r, ncol);
+        } else {
+            boolean[] r = new boolean[nrow * ncol];
+            test((ComparisonOperator) o, x, y, nrow, ncol, r);
+            return shape.dims == 1 ? new BooleanArrayValue("", r) : new BooleanArray2DValue("", r, ncol);
+        }
+    }
+
+    /**
+     * The kernel of arithmetic operators, where r is row-major.
+     */
+    static void apply(ArithmeticOperator op, Operand x, Operand y, int nrow, int ncol, double[] r) {
+        final double[] a = x.data, b = y.data;
+        final int as = x.stride(), bs = y.stride();
+        for (int i = 0; i < nrow; i++) {
+            final int ao = x.offset(i), bo = y.offset(i), ro = i * ncol;
+            switch (op) {
+                case PLUS -> { for (int j = 0; j < ncol; j++) r[ro + j] = a[ao + j * as] + b[bo + j * bs]; }
+                case MINUS -> { for (int j = 0; j < ncol; j++) r[ro + j] = a[ao + j * as] - b[bo + j * bs]; }
+                case TIMES -> { for (int j = 0; j < ncol; j++) r[ro + j] = a[ao + j * as] * b[bo + j * bs]; }
+                case DIVIDE -> { for (int j = 0; j < ncol; j++) r[ro + j] = a[ao + j * as] / b[bo + j * bs]; }
+                default -> { for (int j = 0; j < ncol; j++) r[ro + j] = op.applyAsDouble(a[ao + j * as], b[bo + j * bs]); }
+            }
+        }
+    }
+
+    /**
+     * The kernel of comparison operators, where r is row-major.
+     */
+    static void test(ComparisonOperator op, Operand x, Operand y, int nrow, int ncol, boolean[] r) {
+        final double[] a = x.data, b = y.data;
+        final int as = x.stride(), bs = y.stride();
+        for (int i = 0; i < nrow; i++) {
+            final int ao = x.offset(i), bo = y.offset(i), ro = i * ncol;
+            switch (op) {
+                case LE -> { for (int j = 0; j < ncol; j++) r[ro + j] = a[ao + j * as] <= b[bo + j * bs]; }
+                case LESS -> { for (int j = 0; j < ncol; j++) r[ro + j] = a[ao + j * as] < b[bo + j * bs]; }
+                case GE -> { for (int j = 0; j < ncol; j++) r[ro + j] = a[ao + j * as] >= b[bo + j * bs]; }
+                case GREATER -> { for (int j = 0; j < ncol; j++) r[ro + j] = a[ao + j * as] > b[bo + j * bs]; }
+                default -> { for (int j = 0; j < ncol; j++) r[ro + j] = op.test(a[ao + j * as], b[bo + j * bs]); }
+            }
+        }
+    }
+
+    /**
+     * A scalar (dims = 0), 1d array, or rectangular 2d array of Integer or Double,
+     * whose values are in a primitive array, where a 2d array is row-major.
+     */
+    record Operand(int dims, int nrow, int ncol, double[] data, boolean integer) {
+
+        static Operand of(Value value) {
+            // the values backed by primitive arrays are not boxed
+            if (value instanceof DoubleArrayValue v && v.getPrimitiveValues() != null) {
+                double[] data = v.getPrimitiveValues();
+                return data.length < 1 ? null : new Operand(1, 1, data.length, data, false);
+            } else if (value instanceof IntegerArrayValue v && v.getPrimitiveValues() != null) {
+                double[] data = toDoubles(v.getPrimitiveValues());
+                return data.length < 1 ? null : new Operand(1, 1, data.length, data, true);
+            } else if (value instanceof DoubleArray2DValue v && v.getRowMajorValues() != null) {
+                double[] data = v.getRowMajorValues();
+                return data.length < 1 ? null : new Operand(2, data.length / v.getColumnCount(), v.getColumnCount(), data, false);
+            } else if (value instanceof IntegerArray2DValue v && v.getRowMajorValues() != null) {
+                double[] data = toDoubles(v.getRowMajorValues());
+                return data.length < 1 ? null : new Operand(2, data.length / v.getColumnCount(), v.getColumnCount(), data, true);
+            }
+            return of(value.value());
+        }
+
+        static Operand of(Object value) {
+            if (value instanceof Integer || value instanceof Double) {
+                return new Operand(0, 1, 1, new double[]{((Number) value).doubleValue()}, value instanceof Integer);
+            } else if (value instanceof Integer[] || value instanceof Double[]) {
+                Number[] array = (Number[]) value;
+                if (array.length < 1)
+                    return null;
+                return new Operand(1, 1, array.length, PrimitiveArrayUtils.toDoubles(array), value instanceof Integer[]);
+            } else if (value instanceof Integer[][] || value instanceof Double[][]) {
+                Number[][] array2D = (Number[][]) value;
+                if (array2D.length < 1 || array2D[0] == null || array2D[0].length < 1)
+                    return null;
+                final int ncol = array2D[0].length;
+                double[] data = new double[array2D.length * ncol];
+                for (int i = 0; i < array2D.length; i++) {
+                    // only rectangular
+                    if (array2D[i] == null || array2D[i].length != ncol)
+                        return null;
+                    for (int j = 0; j < ncol; j++)
+                        data[i * ncol + j] = array2D[i][j].doubleValue();
+                }
+                return new Operand(2, array2D.length, ncol, data, value instanceof Integer[][]);
+            }
+            return null;
+        }
+
+        private static double[] toDoubles(int[] values) {
+            double[] data = new double[values.length];
+            for (int i = 0; i < values.length; i++)
+                data[i] = values[i];
+            return data;
+        }
+
+        // a 1d array is broadcast to every row
+        boolean fits(int nrow, int ncol) {
+            return switch (dims) {
+                case 0 -> true;
+                case 1 -> this.ncol == ncol;
+                default -> this.nrow == nrow && this.ncol == ncol;
+            };
+        }
+
+        // the step between two columns, where a scalar is broadcast to every column
+        int stride() {
+            return dims == 0 ? 0 : 1;
+        }
+
+        // the index of the first column of the i-th row, where a 1d array is same for every row
+        int offset(int i) {
+            return dims == 2 ? i * ncol : 0;
+        }
+    }
+
+}
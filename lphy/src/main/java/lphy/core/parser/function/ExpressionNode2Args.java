@@ -69,28 +69,28 @@ public class ExpressionNode2Args<T> extends ExpressionNode {
     }
 
     // binary operators
-    public static BiFunction<Number, Number, Number> plus() {
-        return (a, b) -> a.doubleValue() + b.doubleValue();
+    public static ArithmeticOperator plus() {
+        return ArithmeticOperator.PLUS;
     }
 
-    public static BiFunction<Number, Number, Number> minus() {
-        return (a, b) -> a.doubleValue() - b.doubleValue();
+    public static ArithmeticOperator minus() {
+        return ArithmeticOperator.MINUS;
     }
 
-    public static BiFunction<Number, Number, Number> times() {
-        return (a, b) -> a.doubleValue() * b.doubleValue();
+    public static ArithmeticOperator times() {
+        return ArithmeticOperator.TIMES;
     }
 
-    public static BiFunction<Number, Number, Number> divide() {
-        return (a, b) -> a.doubleValue() / b.doubleValue();
+    public static ArithmeticOperator divide() {
+        return ArithmeticOperator.DIVIDE;
     }
 
-    public static BiFunction<Number, Number, Number> pow() {
-        return (a, b) -> Math.pow(a.doubleValue(), b.doubleValue());
+    public static ArithmeticOperator pow() {
+        return ArithmeticOperator.POW;
     }
 
-    public static BiFunction<Number, Number, Number> mod() {
-        return (a, b) -> a.doubleValue() % b.doubleValue();
+    public static ArithmeticOperator mod() {
+        return ArithmeticOperator.MOD;
     }
 
     //*** logical ***//
@@ -105,43 +105,28 @@ public class ExpressionNode2Args<T> extends ExpressionNode {
 
     //*** the first two needs to consider all Comparable ***//
 
-    public static BiFunction<Object, Object, Boolean> equals() {
-        return (a, b) -> {
-            if (a instanceof Number aN && b instanceof Number bN)
-                return aN.doubleValue() == bN.doubleValue();
-            else if (a instanceof Object[] aA && b instanceof Object[] bA)
-                return Arrays.deepEquals(aA, bA);
-            else {
-                return a.equals(b);
-            }
-        };
+    public static ComparisonOperator equals() {
+        return ComparisonOperator.EQUALS;
     }
 
-    public static BiFunction<Object, Object, Boolean> ne() {
-        return (a, b) -> {
-            if (a instanceof Number aN && b instanceof Number bN)
-                return aN.doubleValue() != bN.doubleValue() ;
-            else if (a instanceof Object[] aA && b instanceof Object[] bA)
-                    return !Arrays.deepEquals(aA, bA);
-            else
-                return !a.equals(b);
-        };
+    public static ComparisonOperator ne() {
+        return ComparisonOperator.NE;
     }
 
-    public static BiFunction<Number, Number, Boolean> le() {
-        return (a, b) -> a.doubleValue() <= b.doubleValue() ;
+    public static ComparisonOperator le() {
+        return ComparisonOperator.LE;
     }
 
-    public static BiFunction<Number, Number, Boolean> less() {
-        return (a, b) -> a.doubleValue() < b.doubleValue() ;
+    public static ComparisonOperator less() {
+        return ComparisonOperator.LESS;
     }
 
-    public static BiFunction<Number, Number, Boolean> ge() {
-        return (a, b) -> a.doubleValue() >= b.doubleValue() ;
+    public static ComparisonOperator ge() {
+        return ComparisonOperator.GE;
     }
 
-    public static BiFunction<Number, Number, Boolean> greater() {
-        return (a, b) -> a.doubleValue() > b.doubleValue() ;
+    public static ComparisonOperator greater() {
+        return ComparisonOperator.GREATER;
     }
 
 //TODO check
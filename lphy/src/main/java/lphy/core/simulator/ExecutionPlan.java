@@ -0,0 +1,189 @@
+package lphy.core.simulator;
+
+import lphy.core.model.Generator;
+import lphy.core.model.Value;
+import lphy.core.parser.LPhyParserDictionary;
+import lphy.core.parser.graphicalmodel.GraphicalModelUtils;
+import lphy.core.vectorization.CompoundVectorValue;
+
+import java.util.*;
+
+/**
+ * The graphical model of a {@link LPhyParserDictionary} compiled once into an array of steps
+ * in topological order, where each step regenerates one value from its generator,
+ * whose inputs are either fixed values or the outputs of the previous steps.
+ * So each replicate only executes the steps, and does not walk the graph or
+ * look up the dictionary again.
+ * The values re-sampled are same as {@link Sampler#resampleFromDictionary(LPhyParserDictionary)},
+ * i.e. all values having a generator except of the values from the data block.
+ * The plan must be compiled again, if the lphy script is parsed again.
+ */
+public class ExecutionPlan {
+
+    private final LPhyParserDictionary parserDict;
+
+    // in topological order, the inputs are always before their outputs
+    private final Value[] values;
+    // null if the value is fixed, e.g. constants or the values from the data block
+    private final Generator[] generators;
+    // for each step, the parameter names and the slots of the inputs which are regenerated
+    private final String[][] argNames;
+    private final int[][] argSlots;
+    // the slots in the order of GraphicalModelUtils.getAllValuesFromSinks
+    private final int[] outputSlots;
+    // the slots of the values in the model dictionary or the model value set
+    private final int[] modelSlots;
+
+    private ExecutionPlan(LPhyParserDictionary parserDict, List<Value> values,
+                          Map<Value, Integer> slots, List<Value> valuesFromSinks) {
+        this.parserDict = parserDict;
+        final int n = values.size();
+        this.values = values.toArray(new Value[n]);
+        this.generators = new Generator[n];
+        this.argNames = new String[n][];
+        this.argSlots = new int[n][];
+
+        Set<Value> dataValues = parserDict.getDataValues();
+        Set<Value> modelValues = parserDict.getModelValues();
+        Map<String, Value<?>> modelDict = parserDict.getModelDictionary();
+        List<Integer> modelSlotList = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            Value value = this.values[i];
+            Generator generator = value.getGenerator();
+            if (generator == null || dataValues.contains(value))
+                continue;
+            generators[i] = generator;
+
+            List<String> names = new ArrayList<>();
+            List<Integer> argSlotList = new ArrayList<>();
+            Map<String, Value> params = generator.getParams();
+            for (Map.Entry<String, Value> e : params.entrySet()) {
+                // value can be null if it is an optional arg
+                if (e.getValue() == null)
+                    continue;
+                int slot = slots.get(e.getValue());
+                // the fixed inputs are already set
+                if (isRegenerated(slot)) {
+                    names.add(e.getKey());
+                    argSlotList.add(slot);
+                }
+            }
+            argNames[i] = names.toArray(new String[0]);
+            argSlots[i] = argSlotList.stream().mapToInt(Integer::intValue).toArray();
+
+            if (modelValues.contains(value) ||
+                    (!value.isAnonymous() && modelDict.get(value.getId()) == value))
+                modelSlotList.add(i);
+        }
+        this.modelSlots = modelSlotList.stream().mapToInt(Integer::intValue).toArray();
+
+        this.outputSlots = new int[valuesFromSinks.size()];
+        for (int j = 0; j < outputSlots.length; j++)
+            outputSlots[j] = slots.get(valuesFromSinks.get(j));
+    }
+
+    /**
+     * Compile the current graphical model in the parser dictionary.
+     * @param parserDict  the parser dictionary after parsing a lphy script.
+     * @return  the execution plan.
+     */
+    public static ExecutionPlan compile(LPhyParserDictionary parserDict) {
+        Objects.requireNonNull(parserDict);
+        List<Value> values = new ArrayList<>();
+        Map<Value, Integer> slots = new IdentityHashMap<>();
+        for (Value<?> sink : parserDict.getDataModelSinks())
+            addInTopologicalOrder(sink, values, slots);
+
+        List<Value> valuesFromSinks = GraphicalModelUtils.getAllValuesFromSinks(parserDict);
+        return new ExecutionPlan(parserDict, values, slots, valuesFromSinks);
+    }
+
+    // post-order, so that the inputs are added before the value
+    private static void addInTopologicalOrder(Value value, List<Value> values, Map<Value, Integer> slots) {
+        if (slots.containsKey(value))
+            return;
+        Generator generator = value.getGenerator();
+        if (generator != null) {
+            Map<String, Value> params = generator.getParams();
+            for (Value param : params.values()) {
+                if (param != null)
+                    addInTopologicalOrder(param, values, slots);
+            }
+        }
+        slots.put(value, values.size());
+        values.add(value);
+    }
+
+    /**
+     * Regenerate all values in the plan, and replace the old values in the parser dictionary.
+     * @return the list {@link Value} in the same order as
+     *         {@link GraphicalModelUtils#getAllValuesFromSinks(lphy.core.parser.graphicalmodel.GraphicalModel)}.
+     */
+    public List<Value> execute() {
+        final int n = values.length;
+        Value[] newValues = Arrays.copyOf(values, n);
+
+        for (int i = 0; i < n; i++) {
+            Generator generator = generators[i];
+            if (generator == null)
+                continue;
+            // only set the inputs which are regenerated in this replicate
+            final String[] names = argNames[i];
+            final int[] slots = argSlots[i];
+            for (int a = 0; a < slots.length; a++)
+                generator.setInput(names[a], newValues[slots[a]]);
+
+            Value oldValue = values[i];
+            Value newVal = GeneratorProfiler.generate(generator, oldValue.getId());
+            newVal.setId(oldValue.getId());
+            if (oldValue instanceof CompoundVectorValue<?> oldCVV && newVal instanceof CompoundVectorValue<?> newCVV) {
+                // the component values require ids for narratives
+                for (int c = 0; c < oldCVV.size(); c++)
+                    newCVV.getComponentValue(c).setId(oldCVV.getComponentValue(c).getId());
+            }
+            newValues[i] = newVal;
+        }
+
+        replaceValuesInModel(newValues);
+        // the new values become the old values of the next replicate
+        System.arraycopy(newValues, 0, values, 0, n);
+
+        List<Value> result = new ArrayList<>(outputSlots.length);
+        for (int slot : outputSlots)
+            result.add(newValues[slot]);
+        return result;
+    }
+
+    private void replaceValuesInModel(Value[] newValues) {
+        Set<Value> modelValues = parserDict.getModelValues();
+        Map<String, Value<?>> modelDict = parserDict.getModelDictionary();
+        for (int slot : modelSlots) {
+            Value oldValue = values[slot];
+            Value newValue = newValues[slot];
+            if (modelValues.remove(oldValue))
+                modelValues.add(newValue);
+            if (!newValue.isAnonymous() && modelDict.get(newValue.getId()) == oldValue)
+                modelDict.put(newValue.getId(), newValue);
+        }
+    }
+
+    private boolean isRegenerated(int slot) {
+        return generators[slot] != null;
+    }
+
+    /**
+     * @return  the number of values in the plan.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @return  the number of values regenerated in each replicate.
+     */
+    public int getNumberOfSteps() {
+        return (int) Arrays.stream(generators).filter(Objects::nonNull).count();
+    }
+
+}
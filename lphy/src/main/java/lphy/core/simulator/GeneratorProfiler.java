@@ -0,0 +1,301 @@
+package lphy.core.simulator;
+
+import lphy.core.logger.LoggerUtils;
+import lphy.core.model.*;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The opt-in profiler of the generators during simulation, which records the number of calls,
+ * the wall time, the bytes allocated by the calling thread and the size of the output value
+ * of {@link Generator#generate()}, {@link GenerativeDistribution#sample()} and {@link DeterministicFunction#apply()},
+ * per generator name and value id.
+ * The parser and samplers call the generators through {@link #generate(Generator, String)},
+ * which only calls the generator when the profiler is disabled, so it costs nothing by default.
+ * The time of a call includes the time of the generators called inside it,
+ * but the parser and samplers generate the inputs before calling a generator, so they are not nested.
+ * It can be used by multiple threads, e.g. by {@link ParallelSampler}.
+ */
+public class GeneratorProfiler {
+
+    /**
+     * The value id of the values which have no id, such as the arguments generated inline.
+     */
+    public static final String ANONYMOUS_ID = "<anonymous>";
+
+    /**
+     * The columns of {@link #getReport()}.
+     */
+    public static final String[] REPORT_COLUMNS = new String[]{"generator", "id", "calls",
+            "total_ms", "mean_ms", "allocated_bytes", "mean_allocated_bytes", "mean_output_size"};
+
+    private static volatile boolean enabled = false;
+
+    private record Key(String generator, String id) { }
+
+    private static final class Stats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+        final LongAdder outputSize = new LongAdder();
+
+        void add(long nanos, long allocatedBytes, long outputSize) {
+            calls.increment();
+            this.nanos.add(nanos);
+            this.allocatedBytes.add(allocatedBytes);
+            this.outputSize.add(outputSize);
+        }
+
+        void remove(long nanos, long allocatedBytes, long outputSize) {
+            calls.decrement();
+            this.nanos.add(-nanos);
+            this.allocatedBytes.add(-allocatedBytes);
+            this.outputSize.add(-outputSize);
+        }
+    }
+
+    // the last call of a thread recorded as anonymous, whose value id may be assigned right after the call
+    // by the parser, where the value is weakly referenced so that it is not kept by the profiler
+    private record AnonymousCall(String generator, WeakReference<Value<?>> value,
+                                 long nanos, long allocatedBytes, long outputSize) { }
+
+    private static final Map<Key, Stats> statsByKey = new ConcurrentHashMap<>();
+    private static final ThreadLocal<AnonymousCall> lastAnonymousCall = new ThreadLocal<>();
+
+    // null if the JVM cannot count the allocated bytes per thread
+    private static final com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+
+    /**
+     * The profile of a generator and value id.
+     * @param generator       the name of the generator.
+     * @param id              the value id, or {@link #ANONYMOUS_ID}.
+     * @param calls           the number of calls.
+     * @param nanos           the total wall time in nanoseconds.
+     * @param allocatedBytes  the total bytes allocated by the calling threads, or -1 if not supported by the JVM.
+     * @param outputSize      the total size of the output values, see {@link #getSize(Object)}.
+     */
+    public record Profile(String generator, String id, long calls, long nanos, long allocatedBytes, long outputSize) {
+
+        public double getTotalMillis() {
+            return nanos / 1e6;
+        }
+
+        public double getMeanMillis() {
+            return calls > 0 ? getTotalMillis() / calls : Double.NaN;
+        }
+
+        public double getMeanAllocatedBytes() {
+            return calls > 0 && allocatedBytes >= 0 ? (double) allocatedBytes / calls : Double.NaN;
+        }
+
+        public double getMeanOutputSize() {
+            return calls > 0 ? (double) outputSize / calls : Double.NaN;
+        }
+    }
+
+    private GeneratorProfiler() { }
+
+    /**
+     * @param enabled  if true, then record the calls from now on, and the records are kept until {@link #reset()}.
+     */
+    public static void setEnabled(boolean enabled) {
+        if (enabled && threadMXBean == null)
+            LoggerUtils.log.warning("The allocated bytes are not available in this JVM, " +
+                    "which are reported as -1 by the generator profiler.");
+        GeneratorProfiler.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Remove all records.
+     */
+    public static void reset() {
+        statsByKey.clear();
+        lastAnonymousCall.remove();
+    }
+
+    /**
+     * Call {@link Generator#generate()}, and record it if the profiler is enabled.
+     * @param generator  the generator
+     * @param id         the id of the output value, or null if the id is assigned after this call,
+     *                   which is then recorded as {@link #ANONYMOUS_ID} until {@link #assignId(Value)}.
+     * @return the output value of the generator.
+     */
+    public static <T> Value<T> generate(Generator<T> generator, String id) {
+        if (!enabled)
+            return generator.generate();
+        final long bytes = getAllocatedBytes();
+        final long start = System.nanoTime();
+        Value<T> value = generator.generate();
+        record(generator, id, value, System.nanoTime() - start, bytes);
+        return value;
+    }
+
+    /**
+     * Call {@link GenerativeDistribution#sample(String)}, and record it if the profiler is enabled.
+     * @see #generate(Generator, String)
+     */
+    public static <T> RandomVariable<T> sample(GenerativeDistribution<T> generativeDistribution, String id) {
+        if (!enabled)
+            return generativeDistribution.sample(id);
+        final long bytes = getAllocatedBytes();
+        final long start = System.nanoTime();
+        RandomVariable<T> variable = generativeDistribution.sample(id);
+        record(generativeDistribution, id, variable, System.nanoTime() - start, bytes);
+        return variable;
+    }
+
+    /**
+     * Call {@link DeterministicFunction#apply()}, and record it if the profiler is enabled.
+     * @see #generate(Generator, String)
+     */
+    public static <T> Value<T> apply(DeterministicFunction<T> function, String id) {
+        if (!enabled)
+            return function.apply();
+        final long bytes = getAllocatedBytes();
+        final long start = System.nanoTime();
+        Value<T> value = function.apply();
+        record(function, id, value, System.nanoTime() - start, bytes);
+        return value;
+    }
+
+    private static void record(Generator<?> generator, String id, Value<?> value, long nanos, long bytesBefore) {
+        long allocatedBytes = bytesBefore < 0 ? -1 : getAllocatedBytes() - bytesBefore;
+        long size = value == null ? 0 : getSize(value.value());
+        String name = generator.getName();
+        // aggregate now, so no value is kept until the report
+        getStats(name, id).add(nanos, allocatedBytes, size);
+        if (id == null && value != null)
+            lastAnonymousCall.set(new AnonymousCall(name, new WeakReference<>(value), nanos, allocatedBytes, size));
+        else
+            lastAnonymousCall.remove();
+    }
+
+    /**
+     * Move the record of the last call of this thread from {@link #ANONYMOUS_ID} to the id of its output value,
+     * if the id is assigned right after the call, e.g. by the parser.
+     * @param value  the output value whose id has been assigned.
+     */
+    public static void assignId(Value<?> value) {
+        AnonymousCall call = lastAnonymousCall.get();
+        if (call == null || call.value().get() != value)
+            return;
+        lastAnonymousCall.remove();
+        if (value.isAnonymous())
+            return;
+        getStats(call.generator(), null).remove(call.nanos(), call.allocatedBytes(), call.outputSize());
+        getStats(call.generator(), value.getId()).add(call.nanos(), call.allocatedBytes(), call.outputSize());
+    }
+
+    private static Stats getStats(String generator, String id) {
+        Key key = new Key(generator, id == null || id.isEmpty() ? ANONYMOUS_ID : id);
+        return statsByKey.computeIfAbsent(key, k -> new Stats());
+    }
+
+    /**
+     * @return  the profiles sorted by the total time in descending order.
+     */
+    public static List<Profile> getProfiles() {
+        List<Profile> profiles = new ArrayList<>(statsByKey.size());
+        for (Map.Entry<Key, Stats> entry : statsByKey.entrySet()) {
+            Stats stats = entry.getValue();
+            long calls = stats.calls.sum();
+            // all calls moved to the assigned ids
+            if (calls == 0)
+                continue;
+            long allocatedBytes = threadMXBean == null ? -1 : stats.allocatedBytes.sum();
+            profiles.add(new Profile(entry.getKey().generator(), entry.getKey().id(), calls,
+                    stats.nanos.sum(), allocatedBytes, stats.outputSize.sum()));
+        }
+        profiles.sort(Comparator.comparingLong(Profile::nanos).reversed()
+                .thenComparing(Profile::generator).thenComparing(Profile::id));
+        return profiles;
+    }
+
+    /**
+     * @return  the table of profiles separated by tab, one row per generator and value id,
+     *          whose columns are {@link #REPORT_COLUMNS}.
+     */
+    public static String getReport() {
+        StringBuilder builder = new StringBuilder(String.join("\t", REPORT_COLUMNS)).append("\n");
+        for (Profile profile : getProfiles()) {
+            builder.append(profile.generator()).append("\t").append(profile.id()).append("\t")
+                    .append(profile.calls()).append("\t").append(profile.getTotalMillis()).append("\t")
+                    .append(profile.getMeanMillis()).append("\t").append(profile.allocatedBytes()).append("\t")
+                    .append(profile.getMeanAllocatedBytes()).append("\t").append(profile.getMeanOutputSize())
+                    .append("\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Write {@link #getReport()} into a file.
+     * @param file  the report file, which is overwritten.
+     * @throws IOException
+     */
+    public static void writeReport(Path file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            writer.print(getReport());
+        }
+        LoggerUtils.log.info("Write the generator profiles to " + file.toAbsolutePath());
+    }
+
+    /**
+     * @param value  the value of a {@link Value}
+     * @return  the dimension of {@link MultiDimensional}, the number of elements of an array,
+     *          including the elements of the inner arrays, the size of a collection or map,
+     *          otherwise 1, or 0 for null.
+     */
+    public static long getSize(Object value) {
+        if (value == null)
+            return 0;
+        if (value instanceof MultiDimensional multiDimensional)
+            return multiDimensional.getDimension();
+        if (value instanceof Collection<?> collection)
+            return collection.size();
+        if (value instanceof Map<?, ?> map)
+            return map.size();
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            if (!value.getClass().getComponentType().isArray())
+                return length;
+            long size = 0;
+            for (int i = 0; i < length; i++)
+                size += getSize(Array.get(value, i));
+            return size;
+        }
+        return 1;
+    }
+
+    private static long getAllocatedBytes() {
+        return threadMXBean == null ? -1 : threadMXBean.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean &&
+                    bean.isThreadAllocatedMemorySupported()) {
+                if (!bean.isThreadAllocatedMemoryEnabled())
+                    bean.setThreadAllocatedMemoryEnabled(true);
+                return bean;
+            }
+        } catch (UnsupportedOperationException | SecurityException e) {
+            LoggerUtils.log.fine("Cannot count the allocated bytes per thread : " + e.getMessage());
+        }
+        return null;
+    }
+
+}
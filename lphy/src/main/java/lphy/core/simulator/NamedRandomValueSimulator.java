@@ -1,6 +1,7 @@
 package lphy.core.simulator;
 
 import lphy.core.io.FileConfig;
+import lphy.core.logger.LoggerUtils;
 import lphy.core.logger.ValueFileLoggerListener;
 import lphy.core.model.RandomVariable;
 import lphy.core.model.Value;
@@ -9,10 +10,8 @@ import lphy.core.parser.graphicalmodel.GraphicalModelUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.BiConsumer;
 
 import static lphy.core.io.FileConfig.getLPhyFilePrefix;
 
@@ -28,6 +27,15 @@ public class NamedRandomValueSimulator {
 
     protected Sampler sampler;
 
+    // if > 0, then sample the replicates in this number of threads using ParallelSampler
+    protected int numThreads = 0;
+
+    // if true, then log each replicate as soon as it is sampled, and not keep it in memory
+    protected boolean streaming = false;
+
+    // if true, then the replicates after parsing are sampled by the compiled ExecutionPlan
+    protected boolean useExecutionPlan = false;
+
     public NamedRandomValueSimulator() {
         this(new ValueFileLoggerListener());
     }
@@ -41,6 +49,51 @@ public class NamedRandomValueSimulator {
         return sampler.getParserDictionary();
     }
 
+    /**
+     * @param numThreads  if it is greater than 0, then the replicates are sampled
+     *                    by {@link ParallelSampler} in the given number of threads,
+     *                    where each replicate uses the seed derived from the given seed and its index,
+     *                    so that the results are same whatever the number of threads.
+     *                    If 0 as default, then all replicates are sampled sequentially by one {@link Sampler}.
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 0)
+            throw new IllegalArgumentException("The number of threads cannot be negative ! " + numThreads);
+        this.numThreads = numThreads;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * @param streaming  if true, {@link #simulateAndLog(File, String, int, String[], String[], Long)}
+     *                   passes each replicate to the {@link SimulatorListener} as soon as it is sampled,
+     *                   and then drops it, so the memory does not grow with the number of replicates.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * @param useExecutionPlan  if true, the replicates are sampled by the {@link ExecutionPlan}
+     *                          compiled once from the parsed script, which saves walking the graph
+     *                          and looking up the dictionary for each replicate, or parsing the canonical
+     *                          code again if {@link LPhyParserDictionary.Utils#isSampleValuesUsingParser()}.
+     * @see Sampler#setUseExecutionPlan(boolean)
+     */
+    public void setUseExecutionPlan(boolean useExecutionPlan) {
+        this.useExecutionPlan = useExecutionPlan;
+    }
+
+    public boolean isUseExecutionPlan() {
+        return useExecutionPlan;
+    }
+
     /**
      * Simulate using the model defined by a lphy file, which may contain Macro.
      * Call {@link #simulate(File, int, String[], String[], Long)},
@@ -53,6 +106,7 @@ public class NamedRandomValueSimulator {
      * @param constants    constants inputted by user using macro
      * @param seed         the seed value, if null then use a random seed.
      * @return             All simulation results in a map, key is the index of replicates.
+     *                     It is empty in the streaming mode, see {@link #setStreaming(boolean)}.
      * @throws IOException
      */
     public Map<Integer, List<Value>> simulateAndLog(File lphyFile, String outputFilePrefix, int numReplicates,
@@ -66,6 +120,17 @@ public class NamedRandomValueSimulator {
             outputFilePrefix = getLPhyFilePrefix(lphyFile);
         simulatorListener.start(numReplicates, outputFilePrefix);
 
+        if (streaming) {
+            // log each replicate straight after it is sampled, and not keep it
+            try {
+                simulate(lphyFile, numReplicates, constants, varNotLog, seed, simulatorListener::replicate);
+            } finally {
+                // close the files kept open by streaming, even if a replicate fails
+                simulatorListener.complete();
+            }
+            return Collections.emptyMap();
+        }
+
         // TODO duplicate to maps in ValueFileLoggerListener
         // must provide File lphyFile, int numReplicates, Long seed
         Map<Integer, List<Value>> allReps = simulate(lphyFile, numReplicates, constants, varNotLog, seed);
@@ -94,37 +159,70 @@ public class NamedRandomValueSimulator {
      */
     public Map<Integer, List<Value>> simulate(File lphyFile, int numReplicates, String[] constants,
                                               String[] varNotLog, Long seed) throws IOException {
+        Map<Integer, List<Value>> simResMap = new HashMap<>();
+        simulate(lphyFile, numReplicates, constants, varNotLog, seed, simResMap::put);
+        return simResMap;
+    }
+
+    /**
+     * Simulate using the model defined by a lphy file, which may contain Macro,
+     * and pass each replicate to the consumer in the order of the replicate index,
+     * as soon as it is sampled. The replicates are not kept by this method.
+     * @param lphyFile         input file
+     * @param numReplicates    number of replicates of simulations
+     * @param constants    constants inputted by user using macro
+     * @param seed         the seed value, if null then use a random seed.
+     * @param consumer     takes the index of the replicate and its named random values.
+     * @throws IOException
+     */
+    public void simulate(File lphyFile, int numReplicates, String[] constants, String[] varNotLog,
+                         Long seed, BiConsumer<Integer, List<Value>> consumer) throws IOException {
 
         if (numReplicates < 1)
             throw new IllegalArgumentException("The replicate must be at least 1 time ! " +
                     "But numReplicates = " + numReplicates);
 
-        Map<Integer, List<Value>> simResMap = new HashMap<>();
-
         long start = System.currentTimeMillis();
 
+        if (numThreads > 0) {
+            // the master seed has to be fixed to derive the seed of each replicate
+            long masterSeed = seed != null ? seed : new Random().nextLong();
+            if (seed == null)
+                LoggerUtils.log.info("Sample replicates in parallel using the random seed " + masterSeed);
+
+            sampler = null;
+            ParallelSampler parallelSampler = new ParallelSampler(lphyFile, constants, numThreads);
+            parallelSampler.setUseExecutionPlan(useExecutionPlan);
+            parallelSampler.sampleAll(numReplicates, masterSeed,
+                    (i, values) -> consumer.accept(i, getNamedRandomValues(values, varNotLog)));
+            printTime(lphyFile, numReplicates, start);
+            return;
+        }
+
         // create Sampler by parsing a lphy script file,
         // during parsing, the values are simulated.
         sampler = Sampler.createSampler(lphyFile, constants);
+        sampler.setUseExecutionPlan(useExecutionPlan);
         // take the values already simulated from parsing
         List<Value> values = GraphicalModelUtils.getAllValuesFromSinks(getParserDictionary());
-        List<Value> namedRandomValueList = getNamedRandomValues(values, varNotLog);
-        simResMap.put(SimulatorListener.REPLICATES_START_INDEX, namedRandomValueList);
+        consumer.accept(SimulatorListener.REPLICATES_START_INDEX, getNamedRandomValues(values, varNotLog));
 
         // start from 2nd replicate
         for (int i = SimulatorListener.REPLICATES_START_INDEX + 1; i < numReplicates; i++) {
             // sample() does not parse the script again
             values = sampler.sample(seed);
             // filter to RandomValue
-            namedRandomValueList = getNamedRandomValues(values, varNotLog);
-
-            simResMap.put(i, namedRandomValueList);
+            consumer.accept(i, getNamedRandomValues(values, varNotLog));
         }
 
+        printTime(lphyFile, numReplicates, start);
+    }
+
+    private void printTime(File lphyFile, int numReplicates, long start) {
         long end = System.currentTimeMillis();
         System.out.println("Sampled " + lphyFile + " at " + numReplicates + (numReplicates >1?" times":" time") +
+                (numThreads > 0 ? " in " + numThreads + (numThreads > 1 ? " threads" : " thread") : "") +
                 " which takes " + (end - start) + " ms.");
-        return simResMap;
     }
 
     /**
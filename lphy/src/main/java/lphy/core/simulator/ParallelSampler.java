@@ -0,0 +1,114 @@
+package lphy.core.simulator;
+
+import lphy.core.model.Value;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Sample the replicates of a lphy script in multiple threads.
+ * Each worker thread parses the script into its own {@link Sampler},
+ * and has its own random number generators, see {@link RandomUtils#bindThreadRandom(long)}.
+ * The replicate i is always sampled from the seed {@link RandomUtils#deriveSeed(long, long)},
+ * so the result of a given seed and replicate index does not depend on the number of threads.
+ * The replicates are passed to the consumer in the order of their index in the calling thread,
+ * therefore the loggers do not need to be thread-safe.
+ */
+public class ParallelSampler {
+
+    // how many replicates each thread is allowed to sample ahead of the consumer
+    private static final int REPLICATES_AHEAD_PER_THREAD = 2;
+
+    private final File lphyFile;
+    private final String[] constants;
+    private final int numThreads;
+    private boolean useExecutionPlan = false;
+
+    /**
+     * @param lphyFile    a File containing LPhy script.
+     * @param constants   constants inputted by user using macro
+     * @param numThreads  the number of worker threads, which must be at least 1.
+     */
+    public ParallelSampler(File lphyFile, String[] constants, int numThreads) {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("The number of threads must be at least 1 ! " +
+                    "But numThreads = " + numThreads);
+        this.lphyFile = Objects.requireNonNull(lphyFile);
+        this.constants = constants;
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Sample all replicates, and pass each of them to the consumer in the order of the replicate index.
+     * @param numReplicates  the number of replicates
+     * @param seed           the master seed, where each replicate seed is derived from.
+     * @param consumer       takes the index of the replicate and the list of {@link Value}
+     *                       from that replicate, which is called in the current thread.
+     */
+    public void sampleAll(int numReplicates, long seed, BiConsumer<Integer, List<Value>> consumer) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread thread = new Thread(r, "lphy-sampler-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // one sampler per worker thread, because the generators are not thread-safe,
+        // and their draws come from the random number stream bound to this thread.
+        final ThreadLocal<Sampler> samplers = ThreadLocal.withInitial(() -> {
+            RandomUtils.bindThreadRandom(seed);
+            try {
+                Sampler sampler = Sampler.createSampler(lphyFile, constants);
+                sampler.setUseExecutionPlan(useExecutionPlan);
+                return sampler;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        Deque<Future<List<Value>>> inProgress = new ArrayDeque<>();
+        final int maxAhead = numThreads * REPLICATES_AHEAD_PER_THREAD;
+        int next = SimulatorListener.REPLICATES_START_INDEX;
+        try {
+            for (int i = SimulatorListener.REPLICATES_START_INDEX; i < numReplicates; i++) {
+                // keep a bounded number of replicates in memory
+                while (next < numReplicates && next - i < maxAhead) {
+                    final long repSeed = RandomUtils.deriveSeed(seed, next);
+                    inProgress.addLast(executor.submit(() -> samplers.get().sample(repSeed)));
+                    next++;
+                }
+                List<Value> values = inProgress.removeFirst().get();
+                consumer.accept(i, values);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Sampling replicates is interrupted !", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re)
+                throw re;
+            throw new RuntimeException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @param useExecutionPlan  if true, each worker samples by its {@link ExecutionPlan}.
+     * @see Sampler#setUseExecutionPlan(boolean)
+     */
+    public void setUseExecutionPlan(boolean useExecutionPlan) {
+        this.useExecutionPlan = useExecutionPlan;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+}
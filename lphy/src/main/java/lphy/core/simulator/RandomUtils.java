@@ -6,6 +6,14 @@ import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.Random;
 
+/**
+ * The random number generators in LPhy.
+ * The generators returned by {@link #getRandom()} and {@link #getJavaRandom()} are kept by
+ * the generators in lphy at their construction, but they delegate every draw to the stream of
+ * the current thread, if {@link #bindThreadRandom(long)} was called in this thread,
+ * otherwise to the shared generators. So the same model can be sampled in multiple threads,
+ * each of which has its own stream seeded by {@link #deriveSeed(long, long)}.
+ */
 public class RandomUtils {
 
     public static final String SEED_PARA_NAME = "seed";
@@ -16,21 +24,53 @@ public class RandomUtils {
     // for only using Java Random
     private static Random javaRandom = new Random();
 
+    // the random number generators bound to a worker thread, which override the shared ones above.
+    private static final ThreadLocal<RandomGenerator> threadRandom = new ThreadLocal<>();
+    private static final ThreadLocal<Random> threadJavaRandom = new ThreadLocal<>();
+
+    // the generators given to lphy, which delegate to the generators of the current thread
+    private static final RandomGenerator currentRandom = new CurrentRandom();
+    private static final Random currentJavaRandom = new CurrentJavaRandom();
+
     /**
-     * @return a pseudo-random number generator developed by
+     * @return a pseudo-random number generator, which draws from the stream bound to the current thread
+     * by {@link #bindThreadRandom(long)}, otherwise from the shared MersenneTwister developed by
      * Makoto Matsumoto and Takuji Nishimura during 1996-1997.
      * @see MersenneTwister
+     * @see SplittableRandomGenerator
      */
     public static RandomGenerator getRandom() {
-        return random;
+        return currentRandom;
     }
 
     /**
-     * @return  a random number generator from java.util.random.
+     * @return  a random number generator from java.util.random, which draws from the generator
+     * bound to the current thread by {@link #bindThreadRandom(long)}, otherwise from the shared one.
      * @see Random
      */
     public static Random getJavaRandom() {
-        return javaRandom;
+        return currentJavaRandom;
+    }
+
+    /**
+     * @return  the generator which the current thread draws from, i.e. the stream bound by
+     * {@link #bindThreadRandom(long)}, otherwise the shared one. A hot loop can keep it
+     * during one call of sample(), instead of looking up the thread on every draw
+     * through {@link #getRandom()}, but must not keep it across the calls.
+     */
+    public static RandomGenerator getThreadRandom() {
+        return current();
+    }
+
+    // the generator which the current thread draws from
+    private static RandomGenerator current() {
+        RandomGenerator r = threadRandom.get();
+        return r != null ? r : random;
+    }
+
+    private static Random currentJava() {
+        Random r = threadJavaRandom.get();
+        return r != null ? r : javaRandom;
     }
 
     //TODO either create a new Random or setSeed
@@ -42,15 +82,185 @@ public class RandomUtils {
     /**
      * Sets the seed of the underlying random number generator using an int seed.
      * Sequences of values generated starting with the same seeds should be identical.
+     * If random number generators are bound to the current thread, only they are seeded.
      * @param seed  the seed value
      * @see RandomGenerator#setSeed(long)
      * @see Random#setSeed(long)
      */
     public static void setSeed(long seed) {
-        random.setSeed(seed);
-        javaRandom.setSeed(seed);
+        current().setSeed(seed);
+        currentJava().setSeed(seed);
         LoggerUtils.log.info("Set seed " + seed + " to LPhy random number generator.");
     }
 
+    /**
+     * Create the random number generators only used by the current thread,
+     * where {@link #getRandom()} draws from a {@link SplittableRandomGenerator}.
+     * @param seed  the seed value of the thread's own random number generators.
+     */
+    public static void bindThreadRandom(long seed) {
+        threadRandom.set(new SplittableRandomGenerator(seed));
+        threadJavaRandom.set(new Random(seed));
+    }
+
+    /**
+     * Remove the random number generators bound to the current thread,
+     * so that {@link #getRandom()} draws from the shared generator again.
+     */
+    public static void unbindThreadRandom() {
+        threadRandom.remove();
+        threadJavaRandom.remove();
+    }
+
+    /**
+     * Create an independent stream of random numbers for a task, such as a replicate or a block of sites,
+     * which is determined only by the master seed and the task index,
+     * but not by the thread or the order to run the tasks.
+     * @param masterSeed  the master seed
+     * @param index       the index of the task
+     * @return  a new {@link SplittableRandomGenerator}, which is not thread-safe.
+     */
+    public static SplittableRandomGenerator createStream(long masterSeed, long index) {
+        return new SplittableRandomGenerator(deriveSeed(masterSeed, index));
+    }
+
+    /**
+     * Derive a seed deterministically from a master seed and an index (e.g. the replicate index),
+     * using the SplitMix64 finaliser, so that the neighbouring indices give uncorrelated seeds.
+     * @param masterSeed  the seed given by users
+     * @param index       the index of a replicate or a task
+     * @return  the derived seed, which only depends on the master seed and the index.
+     */
+    public static long deriveSeed(long masterSeed, long index) {
+        long z = masterSeed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Delegate to {@link #current()}, so the generators keeping it draw from the current thread.
+     */
+    private static final class CurrentRandom implements RandomGenerator {
+        @Override
+        public void setSeed(int seed) {
+            current().setSeed(seed);
+        }
+        @Override
+        public void setSeed(int[] seed) {
+            current().setSeed(seed);
+        }
+        @Override
+        public void setSeed(long seed) {
+            current().setSeed(seed);
+        }
+        @Override
+        public void nextBytes(byte[] bytes) {
+            current().nextBytes(bytes);
+        }
+        @Override
+        public int nextInt() {
+            return current().nextInt();
+        }
+        @Override
+        public int nextInt(int n) {
+            return current().nextInt(n);
+        }
+        @Override
+        public long nextLong() {
+            return current().nextLong();
+        }
+        @Override
+        public boolean nextBoolean() {
+            return current().nextBoolean();
+        }
+        @Override
+        public float nextFloat() {
+            return current().nextFloat();
+        }
+        @Override
+        public double nextDouble() {
+            return current().nextDouble();
+        }
+        @Override
+        public double nextGaussian() {
+            return current().nextGaussian();
+        }
+    }
+
+    /**
+     * Delegate to {@link #currentJava()}, so the code keeping it draws from the current thread.
+     */
+    private static final class CurrentJavaRandom extends Random {
+        // Random() calls setSeed before this class is initialised
+        private final boolean initialised;
+
+        CurrentJavaRandom() {
+            super();
+            initialised = true;
+        }
+        @Override
+        public void setSeed(long seed) {
+            if (initialised)
+                currentJava().setSeed(seed);
+        }
+        @Override
+        protected int next(int bits) {
+            // only reachable by the methods not overridden below
+            return currentJava().nextInt() >>> (32 - bits);
+        }
+        @Override
+        public void nextBytes(byte[] bytes) {
+            currentJava().nextBytes(bytes);
+        }
+        @Override
+        public int nextInt() {
+            return currentJava().nextInt();
+        }
+        @Override
+        public int nextInt(int bound) {
+            return currentJava().nextInt(bound);
+        }
+        @Override
+        public int nextInt(int origin, int bound) {
+            return currentJava().nextInt(origin, bound);
+        }
+        @Override
+        public long nextLong() {
+            return currentJava().nextLong();
+        }
+        @Override
+        public long nextLong(long bound) {
+            return currentJava().nextLong(bound);
+        }
+        @Override
+        public long nextLong(long origin, long bound) {
+            return currentJava().nextLong(origin, bound);
+        }
+        @Override
+        public boolean nextBoolean() {
+            return currentJava().nextBoolean();
+        }
+        @Override
+        public float nextFloat() {
+            return currentJava().nextFloat();
+        }
+        @Override
+        public double nextDouble() {
+            return currentJava().nextDouble();
+        }
+        @Override
+        public double nextDouble(double bound) {
+            return currentJava().nextDouble(bound);
+        }
+        @Override
+        public double nextDouble(double origin, double bound) {
+            return currentJava().nextDouble(origin, bound);
+        }
+        @Override
+        public double nextGaussian() {
+            return currentJava().nextGaussian();
+        }
+    }
 
 }
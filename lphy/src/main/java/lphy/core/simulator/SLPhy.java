@@ -1,6 +1,8 @@
 package lphy.core.simulator;
 
 import lphy.core.logger.LoggerUtils;
+import lphy.core.logger.StatisticsLoggerListener;
+import lphy.core.logger.ValueFileLoggerListener;
 import lphy.core.model.Value;
 import picocli.CommandLine;
 import picocli.CommandLine.PicocliException;
@@ -41,6 +43,33 @@ public class SLPhy implements Callable<Integer> {
             "usually to create data for well-calibrated study.") int numReps = 1;
     @CommandLine.Option(names = {"-seed", "--seed"}, description = "the seed.") Long seed;
 
+    @CommandLine.Option(names = {"-t", "--threads"}, defaultValue = "0", showDefaultValue = ALWAYS,
+            description = "the number of threads to sample the replicates in parallel. " +
+                    "If it is > 0, the seed of each replicate is derived from the seed and the replicate index, " +
+                    "so that the results are reproducible whatever the number of threads. " +
+                    "0 is to sample all replicates sequentially in one thread.") int numThreads = 0;
+
+    @CommandLine.Option(names = {"-s", "--stream"}, description = "write each replicate into the output files " +
+            "as soon as it is sampled, instead of keeping all replicates in memory until the end. " +
+            "It is recommended for a large number of replicates.") boolean streaming;
+
+    @CommandLine.Option(names = {"-p", "--plan"}, description = "sample the replicates by executing " +
+            "the graphical model compiled once into steps in topological order, which saves walking the graph " +
+            "and looking up the dictionary for each replicate, or parsing the canonical code again " +
+            "if the preference to sample values using the parser is on. " +
+            "It is much faster for a small model with many replicates, " +
+            "but the values sampled from a seed may differ from the default.") boolean useExecutionPlan;
+
+    @CommandLine.Option(names = {"-sum", "--summary"}, description = "print the summary statistics " +
+            "(mean, standard deviation, quantiles and ESS) of the named random numbers over the replicates, " +
+            "which are computed in one pass without keeping the replicates.") boolean summary;
+
+    @CommandLine.Option(names = {"-prof", "--profile"}, arity = "0..1", fallbackValue = "", paramLabel = "report_file",
+            description = "profile the generators, and print the number of calls, the time, the allocated bytes " +
+                    "and the size of outputs per generator and value id. The profiles are also written into " +
+                    "a tab-delimited report file, which is '<script_name>_profile.tsv' beside the LPhy script " +
+                    "if the file path is not given.") String profileReport;
+
     @CommandLine.Option(names = {"-D", "--data"}, split = ";",
             description = "Replace the constant value in the lphy script, multiple constants must be quoted " +
                     "and split by ';', but no ';' at the last: e.g. -D \"n=12;L=100\" or -D n=20")
@@ -66,19 +95,49 @@ public class SLPhy implements Callable<Integer> {
     @Override
     public Integer call() throws PicocliException {
 
+        if (profileReport != null) {
+            GeneratorProfiler.reset();
+            GeneratorProfiler.setEnabled(true);
+        }
         try {
-            simulator = new NamedRandomValueSimulator();
+            SimulatorListener fileLogger = new ValueFileLoggerListener(streaming);
+            simulator = new NamedRandomValueSimulator(summary ?
+                    SimulatorListener.of(fileLogger, new StatisticsLoggerListener()) : fileLogger);
+            simulator.setNumThreads(numThreads);
+            simulator.setStreaming(streaming);
+            simulator.setUseExecutionPlan(useExecutionPlan);
             // must provide File lphyFile, int numReplicates, Long seed
             Map<Integer, List<Value>> allReps = simulator.simulateAndLog(infile.toFile(), null,
                     numReps, lphyConst, varNotLog, seed);
             // TODO save Map<Integer, List<Value>> simResMap ?
+            if (profileReport != null)
+                reportProfiles();
         } catch (IOException e) {
             throw new PicocliException(e.getMessage(), e);
+        } finally {
+            GeneratorProfiler.setEnabled(false);
         }
 
         return 0;
     }
 
+    private void reportProfiles() throws IOException {
+        String report = GeneratorProfiler.getReport();
+        System.out.println("\nGenerator profiles :\n" + report);
+
+        Path reportFile;
+        if (profileReport.isBlank()) {
+            String fileName = infile.getFileName().toString();
+            // remove the extension .lphy
+            if (fileName.lastIndexOf(".") > 0)
+                fileName = fileName.substring(0, fileName.lastIndexOf("."));
+            reportFile = infile.toAbsolutePath().resolveSibling(fileName + "_profile.tsv");
+        } else {
+            reportFile = Path.of(profileReport);
+        }
+        GeneratorProfiler.writeReport(reportFile);
+    }
+
     public static void main(String[] args) {
 
         // must set -Dpicocli.disable.closures=true using picocli:4.7.0
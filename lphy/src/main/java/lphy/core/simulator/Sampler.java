@@ -30,6 +30,10 @@ public class Sampler {
 
     protected boolean isSampleValuesUsingParser = LPhyParserDictionary.Utils.isSampleValuesUsingParser();
 
+    // if true, then re-sample by executing the compiled plan, instead of parsing or walking the graph
+    protected boolean useExecutionPlan = false;
+    ExecutionPlan executionPlan;
+
     public Sampler() {
 
     }
@@ -87,6 +91,9 @@ public class Sampler {
             LoggerUtils.log.info("Set seed = " + seed );
         }
 
+        if (useExecutionPlan)
+            return getExecutionPlan().execute();
+
         LPhyParserDictionary parserDict = getParserDictionary();
         if (isSampleValuesUsingParser)
             sampleUsingParser(parserDict);
@@ -105,6 +112,30 @@ public class Sampler {
         String lphyCode = codeBuilder.getCode(parserDict);
         parserDict.clear(); // dict must be cleared before parse, even same code
         parserDict.parse(lphyCode);
+        // the values in the plan are replaced by parsing
+        executionPlan = null;
+    }
+
+    /**
+     * @param useExecutionPlan  if true, {@link #sample(Long)} executes the {@link ExecutionPlan}
+     *                          compiled once from the parser dictionary,
+     *                          which is faster for small models sampled many times.
+     */
+    public void setUseExecutionPlan(boolean useExecutionPlan) {
+        this.useExecutionPlan = useExecutionPlan;
+    }
+
+    public boolean isUseExecutionPlan() {
+        return useExecutionPlan;
+    }
+
+    /**
+     * @return  the {@link ExecutionPlan} compiled at the first call.
+     */
+    public ExecutionPlan getExecutionPlan() {
+        if (executionPlan == null)
+            executionPlan = ExecutionPlan.compile(getParserDictionary());
+        return executionPlan;
     }
 
     protected void resampleFromDictionary(LPhyParserDictionary parserDict) {
@@ -173,6 +204,119 @@ public class Sampler {
             throw new RuntimeException("The number of values generated from the data block of lphy script cannot be re-sampled !");
     }
 
+    /**
+     * Re-sample only the given random variables and the values depending on them,
+     * while all other values in the {@link LPhyParserDictionary} stay fixed,
+     * e.g. re-sample only the alignment given a fixed tree.
+     * @param ids   the ids of the values in the model block to be re-sampled.
+     * @param seed  the seed value, if null then use a random seed.
+     * @return the list {@link Value} from one simulation.
+     * @see #resampleDirty(Long)
+     */
+    public List<Value> resample(Collection<String> ids, Long seed) {
+        LPhyParserDictionary parserDict = getParserDictionary();
+        for (String id : Objects.requireNonNull(ids)) {
+            Value value = parserDict.getModelDictionary().get(id);
+            if (value == null || value.getGenerator() == null)
+                throw new IllegalArgumentException("Cannot find the value '" + id +
+                        "' with a generator in the model block to re-sample !");
+            value.setDirty(true);
+        }
+        return resampleDirty(seed);
+    }
+
+    /**
+     * Re-sample the values marked by {@link Value#setDirty(boolean)}, and regenerate
+     * only their descendants in the graphical model. The values not depending on any dirty value
+     * are kept, and their generators are neither called nor given new inputs.
+     * The dirty flags are reset to false after re-sampling.
+     * @param seed  the seed value, if null then use a random seed.
+     * @return the list {@link Value} from one simulation.
+     */
+    public List<Value> resampleDirty(Long seed) {
+        if (seed != null) {
+            RandomUtils.setSeed(seed);
+            LoggerUtils.log.info("Set seed = " + seed );
+        }
+
+        LPhyParserDictionary parserDict = getParserDictionary();
+        List<Value<?>> sinks = parserDict.getDataModelSinks();
+        final int nModelDictSize = parserDict.getModelDictionary().size();
+
+        // mark all descendants of the dirty values, the map is also used to visit each node once
+        Map<Value, Boolean> isDirty = new IdentityHashMap<>();
+        for (Value value : sinks)
+            markDirty(value, isDirty);
+
+        // the new value of each re-sampled old value
+        Map<Value, Value> newValues = new IdentityHashMap<>();
+        Set<String> sampled = new TreeSet<>();
+        for (Value value : sinks)
+            regenerate(value, isDirty, newValues, sampled);
+        LoggerUtils.log.info("Resample variable : " + sampled);
+
+        // reset flags
+        for (Value value : isDirty.keySet())
+            value.setDirty(false);
+
+        if (parserDict.getModelDictionary().size() != nModelDictSize)
+            throw new RuntimeException("The number of stored values are not correct in parser model dictionary during resampling !\n" +
+                    "It should be " + nModelDictSize + "; but get " + parserDict.getModelDictionary().size());
+
+        return GraphicalModelUtils.getAllValuesFromSinks(parserDict);
+    }
+
+    // a value is dirty if it is marked, or any input of its generator is dirty
+    private boolean markDirty(Value value, Map<Value, Boolean> isDirty) {
+        Boolean dirty = isDirty.get(value);
+        if (dirty != null)
+            return dirty;
+
+        dirty = value.isDirty();
+        Generator generator = value.getGenerator();
+        if (generator != null) {
+            Map<String, Value> params = generator.getParams();
+            for (Value param : params.values()) {
+                // value can be null if it is an optional arg
+                if (param != null && markDirty(param, isDirty))
+                    dirty = true;
+            }
+        }
+        if (dirty && (generator == null || getParserDictionary().getDataValues().contains(value)))
+            throw new IllegalArgumentException("The value " + value.getId() + " cannot be re-sampled, " +
+                    "because it has no generator or it is from the data block !");
+
+        value.setDirty(dirty);
+        isDirty.put(value, dirty);
+        return dirty;
+    }
+
+    // return the new value if it is dirty, otherwise the same value
+    private Value regenerate(Value value, Map<Value, Boolean> isDirty, Map<Value, Value> newValues, Set<String> sampled) {
+        if (!isDirty.get(value))
+            return value;
+        Value newVal = newValues.get(value);
+        if (newVal != null)
+            return newVal;
+
+        Generator generator = value.getGenerator();
+        // only replace the inputs which are re-sampled
+        Map<String, Value> params = new TreeMap<>(generator.getParams());
+        for (Map.Entry<String, Value> e : params.entrySet()) {
+            Value param = e.getValue();
+            if (param != null && isDirty.get(param))
+                generator.setInput(e.getKey(), regenerate(param, isDirty, newValues, sampled));
+        }
+
+        newVal = GeneratorProfiler.generate(generator, value.getId());
+        newVal.setId(value.getId());
+        copyComponentIds(value, newVal);
+
+        replaceValueInModelDict(value, newVal, sampled);
+        newValues.put(value, newVal);
+        return newVal;
+    }
+
     // replace old Value with new Value both in Model Map and Value Set
     private void replaceValueInModelDict(Value oldValue, Value newValue, Set<String> sampled) {
         // only replace if the value (obj instance) changed
@@ -190,6 +334,8 @@ public class Sampler {
             // for inline code, the intermediate values will not be saved into parser dict and set.
             if (valueSet.remove(oldValue))
                 valueSet.add(newValue);
+            // the values in the plan are replaced
+            executionPlan = null;
             //        else
             //            LoggerUtils.log.finer("Try to replace the old value " + oldValue + " to " + newValue +
             //                    ", but cannot find it in parser dictionary ! " +
@@ -264,10 +410,15 @@ public class Sampler {
             }
         }
 
-        Value newVal = generator.generate();
+        Value newVal = GeneratorProfiler.generate(generator, oldValue.getId());
         newVal.setId(oldValue.getId());
+        copyComponentIds(oldValue, newVal);
 
-        //TODO merge to vect class
+        return newVal;
+    }
+
+    //TODO merge to vect class
+    private void copyComponentIds(Value oldValue, Value newVal) {
         if (oldValue instanceof CompoundVectorValue<?> oldCVV && newVal instanceof CompoundVectorValue<?> newCVV) {
             // Must setId to the newly sampled component values inside CompoundVectorValue,
             // otherwise narratives will be broken because of null id.
@@ -276,8 +427,6 @@ public class Sampler {
             }
         } else if (oldValue instanceof CompoundVectorValue<?> || newVal instanceof CompoundVectorValue<?>)
             throw new IllegalArgumentException("sampleAll should return a CompoundVectorValue when given a CompoundVectorValue ! ");
-
-        return newVal;
     }
 
     private Map<String, Value> getNewlySampledParams(Generator generator, List<RandomVariable<?>> removedRandomValues,
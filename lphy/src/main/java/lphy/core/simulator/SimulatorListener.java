@@ -24,4 +24,33 @@ public interface SimulatorListener {
     void replicate(int index, List<Value> values);
 
     void complete();
+
+    /**
+     * @param listeners  the listeners to combine.
+     * @return  a listener which passes every call to the given listeners in order.
+     */
+    static SimulatorListener of(SimulatorListener... listeners) {
+        final List<SimulatorListener> list = List.of(listeners);
+        if (list.size() == 1)
+            return list.get(0);
+        return new SimulatorListener() {
+            @Override
+            public void start(Object... configs) {
+                for (SimulatorListener listener : list)
+                    listener.start(configs);
+            }
+
+            @Override
+            public void replicate(int index, List<Value> values) {
+                for (SimulatorListener listener : list)
+                    listener.replicate(index, values);
+            }
+
+            @Override
+            public void complete() {
+                for (SimulatorListener listener : list)
+                    listener.complete();
+            }
+        };
+    }
 }
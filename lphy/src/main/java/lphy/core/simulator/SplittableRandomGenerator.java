@@ -0,0 +1,118 @@
+package lphy.core.simulator;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * The apache {@link RandomGenerator} backed by a splittable generator of java.util.random,
+ * the LXM generator L64X128MixRandom as default, which is fast, has the small state,
+ * and creates the statistically independent streams either by {@link #split()}
+ * or by seeding from {@link RandomUtils#deriveSeed(long, long)}.
+ * It is not thread-safe, where each thread or task should have its own stream.
+ */
+public class SplittableRandomGenerator implements RandomGenerator {
+
+    public static final String DEFAULT_ALGORITHM = "L64X128MixRandom";
+
+    private final RandomGeneratorFactory<SplittableGenerator> factory;
+    private SplittableGenerator generator;
+
+    /**
+     * @param seed  the seed of {@link #DEFAULT_ALGORITHM}.
+     */
+    public SplittableRandomGenerator(long seed) {
+        this(DEFAULT_ALGORITHM, seed);
+    }
+
+    /**
+     * @param algorithm  the name of a splittable algorithm in java.util.random, e.g. L64X128MixRandom.
+     * @param seed       the seed value.
+     */
+    public SplittableRandomGenerator(String algorithm, long seed) {
+        this.factory = RandomGeneratorFactory.of(algorithm);
+        if (!factory.isSplittable())
+            throw new IllegalArgumentException("The random number generator " + algorithm + " is not splittable !");
+        this.generator = factory.create(seed);
+    }
+
+    private SplittableRandomGenerator(RandomGeneratorFactory<SplittableGenerator> factory,
+                                      SplittableGenerator generator) {
+        this.factory = factory;
+        this.generator = generator;
+    }
+
+    /**
+     * @return  a new generator split from this one, whose stream is statistically independent.
+     */
+    public SplittableRandomGenerator split() {
+        return new SplittableRandomGenerator(factory, generator.split());
+    }
+
+    /**
+     * @return  the name of the algorithm.
+     */
+    public String getAlgorithm() {
+        return factory.name();
+    }
+
+    @Override
+    public void setSeed(int seed) {
+        setSeed((long) seed);
+    }
+
+    @Override
+    public void setSeed(int[] seed) {
+        // combine the ints into one long seed deterministically
+        long combined = 0;
+        for (int s : seed)
+            combined = combined * 0x9E3779B97F4A7C15L + s;
+        setSeed(combined);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        generator = factory.create(seed);
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        generator.nextBytes(bytes);
+    }
+
+    @Override
+    public int nextInt() {
+        return generator.nextInt();
+    }
+
+    @Override
+    public int nextInt(int n) {
+        return generator.nextInt(n);
+    }
+
+    @Override
+    public long nextLong() {
+        return generator.nextLong();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return generator.nextBoolean();
+    }
+
+    @Override
+    public float nextFloat() {
+        return generator.nextFloat();
+    }
+
+    @Override
+    public double nextDouble() {
+        return generator.nextDouble();
+    }
+
+    @Override
+    public double nextGaussian() {
+        return generator.nextGaussian();
+    }
+}
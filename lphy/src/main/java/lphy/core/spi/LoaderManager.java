@@ -5,6 +5,7 @@ import lphy.core.logger.ValueFormatResolver;
 import lphy.core.logger.ValueFormatter;
 import lphy.core.model.DeterministicFunction;
 import lphy.core.model.GenerativeDistribution;
+import lphy.core.parser.argument.GeneratorSignature;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -59,6 +60,12 @@ public class LoaderManager {
         // pass all ValueFormatter classes to the Resolver
         valueFormatResolver = new ValueFormatResolver(allValueFormatters);
 
+        // cache the constructor signatures once, which are looked up by the parser for every statement
+        for (Set<Class<?>> classes : genDistDictionary.values())
+            GeneratorSignature.register(classes);
+        for (Set<Class<?>> classes : functionDictionary.values())
+            GeneratorSignature.register(classes);
+
         bivarOperators = new HashSet<>();
         for (String s : new String[]{"+", "-", "*", "/", "**", "&&", "||", "<=", "<", ">=", ">", "%", ":", "^", "!=", "==", "&", "|", "<<", ">>", ">>>"}) {
             bivarOperators.add(s);
@@ -8,6 +8,8 @@ module lphy.core {
     requires transitive java.datatransfer;
     requires transitive java.prefs;
     requires transitive java.logging;
+    // the allocated bytes per thread in GeneratorProfiler
+    requires jdk.management;
 
     requires transitive org.antlr.antlr4.runtime;
     requires transitive org.apache.commons.lang3;
@@ -0,0 +1,79 @@
+package lphy.core.logger;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StreamingStatisticsTest {
+
+    @Test
+    public void summaryStatistics() {
+        RandomGenerator random = new MersenneTwister(777);
+        StreamingStatistics stats = new StreamingStatistics();
+        DescriptiveStatistics expected = new DescriptiveStatistics();
+        for (int i = 0; i < 20000; i++) {
+            double x = 1e6 + random.nextGaussian();
+            stats.addValue(x);
+            expected.addValue(x);
+        }
+        assertEquals(expected.getN(), stats.getN());
+        assertEquals(expected.getMean(), stats.getMean(), 1e-9);
+        assertEquals(expected.getStandardDeviation(), stats.getStandardDeviation(), 1e-9);
+        assertEquals(expected.getMin(), stats.getMin());
+        assertEquals(expected.getMax(), stats.getMax());
+        // P2 quantiles
+        assertEquals(expected.getPercentile(2.5), stats.getQuantile(0), 0.03);
+        assertEquals(expected.getPercentile(50), stats.getQuantile(1), 0.03);
+        assertEquals(expected.getPercentile(97.5), stats.getQuantile(2), 0.03);
+        // independent values
+        assertEquals(1.0, stats.getESS() / stats.getN(), 0.1);
+    }
+
+    @Test
+    public void autocorrelation() {
+        RandomGenerator random = new MersenneTwister(777);
+        final double phi = 0.9;
+        final int n = 50000;
+        double[] chain = new double[n];
+        StreamingStatistics stats = new StreamingStatistics(new double[]{0.5}, 100);
+        double x = 0;
+        for (int t = 0; t < n; t++) {
+            x = phi * x + random.nextGaussian();
+            chain[t] = 10 + x;
+            stats.addValue(chain[t]);
+        }
+
+        double mean = stats.getMean();
+        double m2 = 0;
+        for (double v : chain)
+            m2 += (v - mean) * (v - mean);
+        for (int lag : new int[]{1, 10, 100}) {
+            double sum = 0;
+            for (int t = lag; t < n; t++)
+                sum += (chain[t] - mean) * (chain[t - lag] - mean);
+            assertEquals(sum / m2, stats.getAutocorrelation(lag), 1e-9, "lag " + lag);
+        }
+
+        // ESS of AR(1) is n (1 - phi) / (1 + phi)
+        assertEquals(n * (1 - phi) / (1 + phi), stats.getESS(), n * (1 - phi) / (1 + phi) * 0.2);
+    }
+
+    @Test
+    public void smallSamples() {
+        StreamingStatistics stats = new StreamingStatistics(new double[]{0.5}, 10);
+        assertEquals(Double.NaN, stats.getMean());
+        assertEquals(Double.NaN, stats.getQuantile(0));
+        stats.addValue(3);
+        stats.addValue(1);
+        stats.addValue(2);
+        // exact before 5 values
+        assertEquals(2.0, stats.getQuantile(0));
+        assertEquals(1.0, stats.getMin());
+        assertEquals(3.0, stats.getMax());
+        assertEquals(1.0, stats.getVariance(), 1e-15);
+    }
+
+}
@@ -0,0 +1,63 @@
+package lphy.core.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParamSettersTest {
+
+    public static class Setters implements GenerativeDistribution<Double> {
+        double rate;
+        String label;
+        Number n;
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+        public void setLabel(String label) {
+            this.label = label;
+        }
+        public void setN(Number n) {
+            this.n = n;
+        }
+        @Override
+        public RandomVariable<Double> sample() {
+            return new RandomVariable<>(null, rate, this);
+        }
+        @Override
+        public Map<String, Value> getParams() {
+            return new TreeMap<>();
+        }
+        @Override
+        public String getName() {
+            return "Setters";
+        }
+        @Override
+        public String getUniqueId() {
+            return hashCode() + "";
+        }
+    }
+
+    @Test
+    public void testSetParam() {
+        Setters setters = new Setters();
+        assertSame(ParamSetters.of(Setters.class), ParamSetters.of(Setters.class));
+
+        setters.setParam("rate", new Value<>(null, 2.5));
+        assertEquals(2.5, setters.rate);
+        // widening by reflection
+        setters.setParam("rate", new Value<>(null, 3));
+        assertEquals(3.0, setters.rate);
+        setters.setParam("label", new Value<>(null, "a"));
+        assertEquals("a", setters.label);
+        setters.setParam("n", new Value<>(null, 7));
+        assertEquals(7, setters.n);
+        // no setter
+        setters.setParam("other", new Value<>(null, 1));
+        // mismatched type
+        assertThrows(RuntimeException.class, () -> setters.setParam("label", new Value<>(null, 1)));
+    }
+}
@@ -1,11 +1,19 @@
 package lphy.core.parser;
 
 import lphy.core.model.Value;
+import lphy.core.model.datatype.DoubleArray2DValue;
+import lphy.core.model.datatype.DoubleArrayValue;
+import lphy.core.model.datatype.IntegerArray2DValue;
+import lphy.core.model.datatype.IntegerArrayValue;
+import lphy.core.model.datatype.IntegerValue;
+import lphy.core.parser.function.ArithmeticOperator;
+import lphy.core.parser.function.ComparisonOperator;
+import lphy.core.parser.function.ElementWiseKernels;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author Walter Xie
@@ -108,4 +116,53 @@ class ElementWise2ArgsTest {
         assertTrue(Arrays.deepEquals((Boolean[]) rV, expect2), "Result value = " + rV);
 
     }
-}
\ No newline at end of file
+    @Test
+    void testPrimitiveKernels() {
+        // Integer[] / Integer, both integers return integers
+        Object rV = ((Value) ParserTest.parse("q = [3,4,9] / 2;")).value();
+        assertTrue(Arrays.equals((Integer[]) rV, new Integer[]{1, 2, 4}), "Result value = " + Arrays.toString((Integer[]) rV));
+
+        // Double[] - Integer[]
+        rV = ((Value) ParserTest.parse("d = [0.5,1.5,2.5] - [1,1,1];")).value();
+        assertTrue(Arrays.equals((Double[]) rV, new Double[]{-0.5, 0.5, 1.5}), "Result value = " + Arrays.toString((Double[]) rV));
+
+        // comparisons
+        rV = ((Value) ParserTest.parse("b = [1,2,3] <= 2;")).value();
+        assertTrue(Arrays.equals((Boolean[]) rV, new Boolean[]{true, true, false}), "Result value = " + Arrays.toString((Boolean[]) rV));
+        rV = ((Value) ParserTest.parse("b = 2.0 == [[1,2],[2,3]];")).value();
+        assertTrue(Arrays.deepEquals((Boolean[][]) rV, new Boolean[][]{{false, true}, {true, false}}),
+                "Result value = " + Arrays.deepToString((Boolean[][]) rV));
+    }
+
+    /**
+     * The kernels read and return the values backed by primitive arrays,
+     * which are only boxed when their values are required.
+     */
+    @Test
+    void testPrimitiveBackedValues() {
+        DoubleArrayValue a = new DoubleArrayValue("", new double[]{1.0, 2.0, 3.0});
+        IntegerArray2DValue b = new IntegerArray2DValue(null, new int[]{1, 2, 3, 3, 2, 1}, 3);
+
+        Value sum = ElementWiseKernels.apply(a, b, ArithmeticOperator.PLUS);
+        assertNotNull(a.getPrimitiveValues());
+        assertNotNull(b.getRowMajorValues());
+        DoubleArray2DValue sum2D = assertInstanceOf(DoubleArray2DValue.class, sum);
+        assertArrayEquals(new double[]{2.0, 4.0, 6.0, 4.0, 4.0, 4.0}, sum2D.getRowMajorValues());
+
+        // the intermediate result is not boxed by the next operation
+        Value greater = ElementWiseKernels.apply(sum, new IntegerValue(null, 3), ComparisonOperator.GREATER);
+        assertNotNull(sum2D.getRowMajorValues());
+        assertTrue(Arrays.deepEquals(new Boolean[][]{{false, true, true}, {true, true, true}}, (Boolean[][]) greater.value()));
+
+        // boxed at the boundary
+        assertTrue(Arrays.deepEquals(new Double[][]{{2.0, 4.0, 6.0}, {4.0, 4.0, 4.0}}, (Double[][]) sum.value()));
+        assertNull(sum2D.getRowMajorValues());
+
+        // both integer inputs return integers
+        Value quotient = ElementWiseKernels.apply(new IntegerArrayValue(null, new int[]{7, 8}),
+                new IntegerValue(null, 2), ArithmeticOperator.DIVIDE);
+        IntegerArrayValue quotient1D = assertInstanceOf(IntegerArrayValue.class, quotient);
+        assertArrayEquals(new int[]{3, 4}, quotient1D.getPrimitiveValues());
+        assertArrayEquals(new Integer[]{3, 4}, quotient1D.value());
+    }
+}
@@ -0,0 +1,34 @@
+package lphy.core.parser.argument;
+
+import lphy.core.model.Value;
+import lphy.core.vectorization.operation.Range;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static lphy.core.vectorization.operation.ParameterNames.EndParamName;
+import static lphy.core.vectorization.operation.ParameterNames.StartParamName;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeneratorSignatureTest {
+
+    @Test
+    public void testSignatures() throws Exception {
+        List<GeneratorSignature> signatures = GeneratorSignature.getSignatures(Range.class);
+        // cached
+        assertSame(signatures, GeneratorSignature.getSignatures(Range.class));
+        assertEquals(1, signatures.size());
+
+        GeneratorSignature signature = signatures.get(0);
+        assertEquals(Set.of(StartParamName, EndParamName), signature.getRequiredNames());
+        assertEquals(signature.getRequiredNames(), signature.getArgumentNames());
+
+        Range range = (Range) signature.newInstance(new Object[]{new Value<>(null, 1), new Value<>(null, 3)});
+        assertArrayEquals(new Integer[]{1, 2, 3}, range.generate().value());
+
+        assertThrows(IllegalArgumentException.class, () -> signature.newInstance(new Object[]{new Value<>(null, 1)}));
+        // type mismatch is not an exception of the constructor
+        assertThrows(IllegalArgumentException.class, () -> signature.newInstance(new Object[]{1, 3}));
+    }
+}
@@ -0,0 +1,88 @@
+package lphy.core.simulator;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomUtilsTest {
+
+    /**
+     * Without binding, the static API still draws from the shared MersenneTwister.
+     */
+    @Test
+    void testSharedRandom() {
+        RandomUtils.setSeed(777);
+        MersenneTwister expected = new MersenneTwister(777L);
+        RandomGenerator random = RandomUtils.getRandom();
+        for (int i = 0; i < 10; i++)
+            assertEquals(expected.nextDouble(), random.nextDouble());
+    }
+
+    /**
+     * The generator kept before binding draws from the stream of the thread using it.
+     */
+    @Test
+    void testThreadStreams() throws Exception {
+        // e.g. kept by a generator at its construction
+        RandomGenerator random = RandomUtils.getRandom();
+        RandomUtils.setSeed(1);
+        final double shared = new MersenneTwister(1L).nextDouble();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            double[] draws = new double[2];
+            for (int t = 0; t < draws.length; t++) {
+                final long seed = RandomUtils.deriveSeed(777, t);
+                draws[t] = executor.submit(() -> {
+                    RandomUtils.bindThreadRandom(seed);
+                    try {
+                        return random.nextDouble();
+                    } finally {
+                        RandomUtils.unbindThreadRandom();
+                    }
+                }).get();
+                assertEquals(new SplittableRandomGenerator(seed).nextDouble(), draws[t]);
+            }
+            assertNotEquals(draws[0], draws[1]);
+        } finally {
+            executor.shutdownNow();
+        }
+        // the shared stream is not touched by other threads
+        assertEquals(shared, random.nextDouble());
+    }
+
+    /**
+     * The generator of the current thread draws from the same stream as {@link RandomUtils#getRandom()}.
+     */
+    @Test
+    void testThreadRandom() {
+        RandomUtils.bindThreadRandom(777);
+        try {
+            RandomGenerator threadRandom = RandomUtils.getThreadRandom();
+            assertInstanceOf(SplittableRandomGenerator.class, threadRandom);
+            SplittableRandomGenerator expected = new SplittableRandomGenerator(777);
+            assertEquals(expected.nextDouble(), threadRandom.nextDouble());
+            assertEquals(expected.nextDouble(), RandomUtils.getRandom().nextDouble());
+        } finally {
+            RandomUtils.unbindThreadRandom();
+        }
+    }
+
+    @Test
+    void testCreateStream() {
+        RandomGenerator stream0 = RandomUtils.createStream(777, 0);
+        RandomGenerator stream0Again = RandomUtils.createStream(777, 0);
+        RandomGenerator stream1 = RandomUtils.createStream(777, 1);
+        long a = stream0.nextLong();
+        assertEquals(a, stream0Again.nextLong());
+        assertNotEquals(a, stream1.nextLong());
+
+        SplittableRandomGenerator split = RandomUtils.createStream(777, 0).split();
+        assertEquals(SplittableRandomGenerator.DEFAULT_ALGORITHM, split.getAlgorithm());
+    }
+}